@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang;
+
+/**
+ * Immutable result of a single camera calibration, as returned by {@link Calibrator#calibrate(
+ * imagingbook.common.geometry.basic.Pnt2d[][])}. Instances share no state with the {@link Calibrator} that produced
+ * them and may be passed between threads freely.
+ *
+ * @author WB
+ */
+public class CalibrationResult {
+
+	private final Camera initCam, finalCam;
+	private final ViewTransform[] initViews, finalViews;
+	private final NonlinearOptimizer.Status status;
+	private final int iterations;
+	private final int[] viewIndices;	// indices of the views used (null = all)
+	private final ParameterCovariance covariance;	// null if not computed
+	private final ProjectionErrorReport errors;		// null if not available
+
+	CalibrationResult(Camera initCam, ViewTransform[] initViews, Camera finalCam, ViewTransform[] finalViews,
+			NonlinearOptimizer.Status status, int iterations) {
+		this(initCam, initViews, finalCam, finalViews, status, iterations, null, null, null);
+	}
+
+	CalibrationResult(Camera initCam, ViewTransform[] initViews, Camera finalCam, ViewTransform[] finalViews,
+			NonlinearOptimizer.Status status, int iterations, int[] viewIndices, ParameterCovariance covariance,
+			ProjectionErrorReport errors) {
+		this.initCam = initCam;
+		this.initViews = initViews.clone();
+		this.finalCam = finalCam;
+		this.finalViews = finalViews.clone();
+		this.status = status;
+		this.iterations = iterations;
+		this.viewIndices = (viewIndices == null) ? null : viewIndices.clone();
+		this.covariance = covariance;
+		this.errors = errors;
+	}
+
+	/**
+	 * Returns the initial camera model (no lens distortion).
+	 *
+	 * @return the initial camera model
+	 */
+	public Camera getInitialCamera() {
+		return initCam;
+	}
+
+	/**
+	 * Returns the final camera model (including lens distortion).
+	 *
+	 * @return the final camera model
+	 */
+	public Camera getFinalCamera() {
+		return finalCam;
+	}
+
+	/**
+	 * Returns (a copy of) the sequence of initial camera views (extrinsics, no lens distortion).
+	 *
+	 * @return the sequence of initial camera views
+	 */
+	public ViewTransform[] getInitialViews() {
+		return initViews.clone();
+	}
+
+	/**
+	 * Returns (a copy of) the sequence of final camera views (extrinsics, including lens distortion).
+	 *
+	 * @return the sequence of final camera views
+	 */
+	public ViewTransform[] getFinalViews() {
+		return finalViews.clone();
+	}
+
+	/**
+	 * Returns the number of camera views used for this calibration.
+	 *
+	 * @return the number of views
+	 */
+	public int getNumberOfViews() {
+		return finalViews.length;
+	}
+
+	/**
+	 * Returns the indices of the views used for this calibration, referring to the sequence of views passed to the
+	 * calibrator. The indices are sorted and the i-th index belongs to the i-th initial and final view. Unless a view
+	 * subset was selected (see {@link Calibrator.Parameters#maxViews}), these are simply 0,...,M-1.
+	 *
+	 * @return a new array of view indices
+	 */
+	public int[] getViewIndices() {
+		if (viewIndices != null) {
+			return viewIndices.clone();
+		}
+		int[] idx = new int[finalViews.length];
+		for (int i = 0; i < idx.length; i++) {
+			idx[i] = i;
+		}
+		return idx;
+	}
+
+	/**
+	 * Returns the projection errors of the final camera and views, taken from the last evaluation of the nonlinear
+	 * optimizer (i.e., without re-projecting the model points).
+	 *
+	 * @return the projection error report ({@code null} if not available)
+	 */
+	public ProjectionErrorReport getErrorReport() {
+		return errors;
+	}
+
+	/**
+	 * Returns the final residuals (projected - observed) of all views as interleaved coordinates (du0, dv0, du1, dv1,
+	 * ...), see {@link #getErrorReport()}.
+	 *
+	 * @return a new array of 2MN residual coordinates ({@code null} if not available)
+	 */
+	public double[] getResiduals() {
+		return (errors == null) ? null : errors.getResiduals();
+	}
+
+	/**
+	 * Returns the final residuals (projected - observed) of the specified view as interleaved coordinates (du0, dv0,
+	 * du1, dv1, ...), see {@link #getErrorReport()}.
+	 *
+	 * @param i the view index (0,...,M-1)
+	 * @return a new array of 2N residual coordinates ({@code null} if not available)
+	 */
+	public double[] getResiduals(int i) {
+		return (errors == null) ? null : errors.getResiduals(i);
+	}
+
+	/**
+	 * Returns the final cost of the nonlinear optimization, i.e., the total squared projection error (in squared pixel
+	 * units).
+	 *
+	 * @return the final cost ({@code Double.NaN} if not available)
+	 */
+	public double getCost() {
+		return (errors == null) ? Double.NaN : errors.getSquaredError();
+	}
+
+	/**
+	 * Returns the final RMS projection error (per point, in pixel units).
+	 *
+	 * @return the final RMS error ({@code Double.NaN} if not available)
+	 */
+	public double getRms() {
+		return (errors == null) ? Double.NaN : errors.getRms();
+	}
+
+	/**
+	 * Returns the covariance of the estimated camera and view parameters.
+	 *
+	 * @return the parameter covariance or {@code null} if not computed (see
+	 * {@link Calibrator.Parameters#computeCovariance})
+	 */
+	public ParameterCovariance getCovariance() {
+		return covariance;
+	}
+
+	/**
+	 * Returns the standard deviations of the final camera parameters (alpha, beta, gamma, uc, vc, k0, k1, ...).
+	 *
+	 * @return the standard deviations or {@code null} if not computed (see
+	 * {@link Calibrator.Parameters#computeCovariance})
+	 */
+	public double[] getCameraStandardDeviations() {
+		return (covariance == null) ? null : covariance.getCameraStandardDeviations();
+	}
+
+	/**
+	 * Returns the standard deviations of the final parameters (wx, wy, wz, tx, ty, tz) of the specified view.
+	 *
+	 * @param i the view index (0,...,M-1)
+	 * @return the standard deviations or {@code null} if not computed (see
+	 * {@link Calibrator.Parameters#computeCovariance})
+	 */
+	public double[] getViewStandardDeviations(int i) {
+		return (covariance == null) ? null : covariance.getViewStandardDeviations(i);
+	}
+
+	/**
+	 * Returns the termination status of the final nonlinear optimization.
+	 *
+	 * @return the termination status
+	 */
+	public NonlinearOptimizer.Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * Returns the number of iterations performed by the final nonlinear optimization.
+	 *
+	 * @return the number of iterations
+	 */
+	public int getIterations() {
+		return iterations;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[views=%d, status=%s, iterations=%d, camera=%s]",
+				this.getClass().getSimpleName(), finalViews.length, status, iterations, finalCam);
+	}
+
+}
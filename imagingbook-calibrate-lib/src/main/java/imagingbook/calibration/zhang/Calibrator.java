@@ -6,13 +6,15 @@
  ******************************************************************************/
 package imagingbook.calibration.zhang;
 
-import imagingbook.calibration.zhang.util.MathUtil;
 import imagingbook.common.geometry.basic.Pnt2d;
 import imagingbook.common.util.ParameterBundle;
 import org.apache.commons.math3.linear.RealMatrix;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
 
 
 /**
@@ -27,7 +29,16 @@ import java.util.List;
  * and
  * <a href="http://research.microsoft.com/en-us/um/people/zhang/Papers/TR98-71.pdf">
  * http://research.microsoft.com/en-us/um/people/zhang/Papers/TR98-71.pdf</a>
- * 
+ * <p>
+ * Instances are immutable with respect to their parameters and model points, so a single calibrator may be used to run
+ * multiple calibrations concurrently by {@link #calibrate(Pnt2d[][])}, each returning its own
+ * {@link CalibrationResult}. Only the legacy methods {@link #addView(Pnt2d[])} and {@link #calibrate()} keep state.
+ * </p>
+ * <p>
+ * Model and image points may be passed either as {@code Pnt2d} arrays or as {@link PointSet} instances. The latter
+ * are used internally throughout the pipeline and avoid per-point objects for large data sets.
+ * </p>
+ *
  * @author W. Burger
  * @version 2018/12/29
  */
@@ -44,38 +55,70 @@ public class Calibrator {
 		public boolean assumeZeroSkew = false;
 		/** Use numeric (instead of analytic) calculation of the Jacobian in {@link NonlinearOptimizer}. */
 		public boolean useNumericJacobian = false;
-		/** Number of lens distortion coefficients (2 = simple polynomial model). */
+		/** Lens distortion model used for the final optimization. */
+		public DistortionModel distortionModel = DistortionModel.Radial;
+		/** Number of lens distortion coefficients of the {@link DistortionModel#Radial} model (2 = Zhang's model). */
 		public int lensDistortionKoeffients = 2;
+		/** Relative cost tolerance (convergence criterion) of the final {@link NonlinearOptimizer}. */
+		public double costRelativeTolerance = 1e-10;
+		/** Relative parameter tolerance (convergence criterion) of the final {@link NonlinearOptimizer}. */
+		public double parameterRelativeTolerance = 1e-10;
+		/** Max. number of iterations of the final {@link NonlinearOptimizer}. */
+		public int maxIterations = 1000;
+		/** Max. number of model evaluations of the final {@link NonlinearOptimizer}. */
+		public int maxEvaluations = 1000;
+		/** Wall-clock time limit of the final {@link NonlinearOptimizer} in milliseconds (0 = no limit). */
+		public long timeLimit = 0;
+		/** Calculate the covariance (standard deviations) of the estimated parameters, see {@link ParameterCovariance}. */
+		public boolean computeCovariance = false;
+		/** Max. number of views used for calibration, selected by {@link ViewSelector} (0 = use all views). */
+		public int maxViews = 0;
+		/** Number of (concurrent) optimization runs from different initial estimates (1 = single run). */
+		public int multiStarts = 1;
+		/** Multi-start runs whose cost exceeds the lowest cost of all runs by this factor are cancelled. */
+		public double multiStartCutoff = 2.0;
+		/** Process independent views in parallel (where supported). */
+		public boolean parallelize = false;
 		/** Turn on debugging output. */
 		public boolean debug = false;					
 	}
 	
-	private int M;								// the number of camera views
-	private final Pnt2d[] modelPts;			// the sequence of 2D points in the planar model
-	private final List<Pnt2d[]> imgPntSet; 	// list of vectors containing observed 2D image points for each view
-	
-	private Pnt2d[][] obsPts = null;
+	private final PointSet modelPts;		// the sequence of 2D points in the planar model
 	private final Parameters params;
-	private Camera initCam, finalCam;
-	private ViewTransform[] initViews, finalViews;
+	private final List<Pnt2d[]> imgPntSet; 	// list of vectors containing observed 2D image points for each view
+	private volatile CalibrationResult result = null;	// result of the last call to calibrate()
 	
 	// ------- constructors ------------------------------
 
 	/**
-	 * The only constructor.
+	 * Constructor. The parameters and model points are copied, i.e., subsequent modifications have no effect
+	 * on this calibrator.
 	 *
 	 * @param params a parameter object (default parameters are used if {@code null} is passed)
 	 * @param model a sequence of 2D points specifying the x/y coordinates of the planar calibration pattern (assuming
 	 * zero z-coordinates)
 	 */
 	public Calibrator(Parameters params, Pnt2d[] model) {
-		this.params = (params != null) ? params : new Parameters();
-		this.modelPts = model;
+		this(params, PointSet.from(model));
+	}
+
+	/**
+	 * Constructor accepting the model points as a {@link PointSet}. The parameters and model points are copied, i.e.,
+	 * subsequent modifications have no effect on this calibrator.
+	 *
+	 * @param params a parameter object (default parameters are used if {@code null} is passed)
+	 * @param model a set of 2D points specifying the x/y coordinates of the planar calibration pattern (assuming zero
+	 * z-coordinates)
+	 */
+	public Calibrator(Parameters params, PointSet model) {
+		this.params = (params != null) ? ParameterBundle.duplicate(params) : new Parameters();
+		this.modelPts = PointSet.wrap(model.toArray());
 		this.imgPntSet = new ArrayList<>();
 	}
 
 	/**
-	 * Adds a new observation (a sequence of 2D image points) of the planar calibration pattern.
+	 * Adds a new observation (a sequence of 2D image points) of the planar calibration pattern. Note that views added
+	 * this way are state of the calibrator; use {@link #calibrate(Pnt2d[][])} to run calibrations concurrently.
 	 *
 	 * @param pts a sequence of 2D image points
 	 */
@@ -84,45 +127,212 @@ public class Calibrator {
 	}
 
 	/**
-	 * Performs the actual camera calibration based on the provided sequence of views.
+	 * Performs the actual camera calibration based on the sequence of views added with {@link #addView(Pnt2d[])}. The
+	 * result can be retrieved subsequently with {@link #getResult()}, {@link #getFinalViews()} etc.
 	 *
 	 * @return the estimated camera intrinsics as a {@link Camera} object
 	 */
 	public Camera calibrate() {
-		M = imgPntSet.size();	// number of views to process
+		CalibrationResult res = calibrate(imgPntSet.toArray(new Pnt2d[0][]));
+		this.result = res;
+		return res.getFinalCamera();
+	}
+
+	/**
+	 * Performs the actual camera calibration based on the specified sequence of views. This method does not modify the
+	 * state of this calibrator and may be called concurrently from multiple threads.
+	 *
+	 * @param obsPts a sequence of 2D image point sets, one set for each view
+	 * @return the (immutable) calibration result
+	 */
+	public CalibrationResult calibrate(Pnt2d[][] obsPts) {
+		return calibrate(PointSet.from(obsPts));
+	}
+
+	/**
+	 * Performs the actual camera calibration based on the specified sequence of views, given as {@link PointSet}
+	 * instances (e.g., zero-copy views created with {@link PointSet#split(double[], int, int, int)}). This method does
+	 * not modify the state of this calibrator and may be called concurrently from multiple threads. If
+	 * {@link Parameters#maxViews} is set, only a subset of the views is used (see
+	 * {@link CalibrationResult#getViewIndices()}).
+	 *
+	 * @param allObsPts a sequence of 2D image point sets, one set for each view
+	 * @return the (immutable) calibration result
+	 * @throws IllegalArgumentException if the size of any point set does not match the model
+	 */
+	public CalibrationResult calibrate(PointSet[] allObsPts) {
+		final int M = allObsPts.length;	// number of views to process
 		if (M < 2) {
 			throw new IllegalStateException("Calibration: at least two views needed");
 		}
-		
-		obsPts = imgPntSet.toArray(new Pnt2d[0][]);
+		checkViews(allObsPts);
 		
 		// Step 1: Calculate the homographies for each of the given N views:
 		HomographyEstimator hest = new HomographyEstimator(params.normalizePointCoordinates, true);
-		RealMatrix[] H_init = hest.estimateHomographies(modelPts, obsPts);
+		RealMatrix[] allH = hest.estimateHomographies(modelPts, allObsPts);
 		
 		// Step 2: Estimate the intrinsic parameters by linear optimization:
 		CameraIntrinsicsEstimator cis = new CameraIntrinsicsEstimator();
+		RealMatrix A_all = cis.getCameraIntrinsics(allH);
 		
-		RealMatrix A_init = cis.getCameraIntrinsics(H_init);
-		initCam = new Camera(A_init, new double[params.lensDistortionKoeffients]);
+		// Optional: select a subset of views based on the initial estimates (and re-estimate the intrinsics)
+		final int[] viewIndices;
+		final PointSet[] obsPts;
+		final RealMatrix[] H_init;
+		final RealMatrix A_init;
+		if (params.maxViews > 0 && M > params.maxViews) {
+			ViewTransform[] allViews = new ExtrinsicViewEstimator(A_all, false, params.parallelize).getExtrinsics(allH);
+			viewIndices = new ViewSelector(params.maxViews).select(allH, allViews, allObsPts);
+			obsPts = new PointSet[viewIndices.length];
+			H_init = new RealMatrix[viewIndices.length];
+			for (int i = 0; i < viewIndices.length; i++) {
+				obsPts[i] = allObsPts[viewIndices[i]];
+				H_init[i] = allH[viewIndices[i]];
+			}
+			A_init = cis.getCameraIntrinsics(H_init);
+		}
+		else {
+			viewIndices = null;
+			obsPts = allObsPts;
+			H_init = allH;
+			A_init = A_all;
+		}
+		
+		if (params.multiStarts <= 1) {
+			return calibrate(obsPts, H_init, A_init, null, viewIndices).result;
+		}
+		
+		// multi-start: run Steps 3-5 concurrently from different initial intrinsics, keep the best result
+		final NonlinearOptimizer.CostCutoff cutoff = new NonlinearOptimizer.CostCutoff(params.multiStartCutoff);
+		return IntStream.range(0, params.multiStarts).parallel()
+				.mapToObj(k -> {
+					RealMatrix A = getStartingIntrinsics(k, cis, H_init, A_init);
+					if (A == null) {
+						return null;
+					}
+					try {
+						return calibrate(obsPts, H_init, A, cutoff, viewIndices);
+					} catch (RuntimeException e) {
+						if (k == 0) {
+							throw e;
+						}
+						return null;	// alternative start failed (e.g., no valid view rotations), ignore
+					}
+				})
+				.filter(run -> run != null && run.result.getStatus() != NonlinearOptimizer.Status.Cancelled)
+				.min(Comparator.comparingDouble(run -> run.cost))
+				.map(run -> run.result)
+				.orElseGet(() -> calibrate(obsPts, H_init, A_init, null, viewIndices).result);
+	}
+	
+	/**
+	 * Performs a leave-one-view-out cross-validation of the calibration with the specified views (see
+	 * {@link CrossValidation}). All views are used for the full calibration run, i.e., {@link Parameters#maxViews} and
+	 * {@link Parameters#multiStarts} are ignored. This method does not modify the state of this calibrator.
+	 *
+	 * @param obsPts a sequence of 2D image point sets, one set for each view (at least 3)
+	 * @return the cross-validation result
+	 * @throws IllegalArgumentException if the size of any point set does not match the model
+	 */
+	public CrossValidation crossValidate(PointSet[] obsPts) {
+		if (obsPts.length < 3) {
+			throw new IllegalStateException("Cross-validation: at least three views needed");
+		}
+		checkViews(obsPts);
+		HomographyEstimator hest = new HomographyEstimator(params.normalizePointCoordinates, true);
+		RealMatrix[] H = hest.estimateHomographies(modelPts, obsPts);
+		RealMatrix A_init = new CameraIntrinsicsEstimator().getCameraIntrinsics(H);
+		CalibrationResult full = calibrate(obsPts, H, A_init, null, null).result;
+		return CrossValidation.run(params, modelPts, obsPts, H, full);
+	}
+
+	/**
+	 * Performs Steps 3-5 of the calibration, starting from the given initial intrinsics.
+	 */
+	private Run calibrate(PointSet[] obsPts, RealMatrix[] H_init, RealMatrix A_init, NonlinearOptimizer.CostCutoff cutoff,
+			int[] viewIndices) {
+		Camera initCam = new Camera(A_init, new double[params.lensDistortionKoeffients]);
 		
 		// Step 3: calculate the extrinsic view parameters:
-		ExtrinsicViewEstimator eve = new ExtrinsicViewEstimator(A_init);
-		initViews = eve.getExtrinsics(H_init);
+		ExtrinsicViewEstimator eve = new ExtrinsicViewEstimator(A_init, params.debug, params.parallelize);
+		ViewTransform[] initViews = eve.getExtrinsics(H_init);
 		
-		// Step 4: Determine the lens distortion from initial estimates:
-		RadialDistortionEstimator rde = new RadialDistortionEstimator();
+		// Step 4: Determine the (radial) lens distortion from initial estimates and convert to the selected model:
+		final DistortionModel model = params.distortionModel;
+		final int nRadial = (model == DistortionModel.Radial) ? params.lensDistortionKoeffients : 3;
+		RadialDistortionEstimator rde = new RadialDistortionEstimator(nRadial, params.parallelize);
 		double[] distParams = rde.estimateLensDistortion(initCam, initViews, modelPts, obsPts);
-		Camera improvedCam = new Camera(A_init, distParams);
+		Camera improvedCam = new Camera(A_init, model, model.fromRadial(distParams, params.lensDistortionKoeffients));
 		
 		// Step 5: Refine all parameters by non-linear optimization
 		NonlinearOptimizer optimizer = (params.useNumericJacobian) ?
-				new NonlinearOptimizerNumeric(modelPts, obsPts) :
-				new NonlinearOptimizerAnalytic(modelPts, obsPts);
+				new NonlinearOptimizerNumeric(modelPts, obsPts, params) :
+				new NonlinearOptimizerAnalytic(modelPts, obsPts, params);
+		optimizer.setCostCutoff(cutoff);
 		optimizer.optimize(improvedCam, initViews);
-		finalCam = optimizer.getFinalCamera();
-		finalViews = optimizer.getFinalViews();
-		return finalCam;
+		CalibrationResult result = new CalibrationResult(initCam, initViews, optimizer.getFinalCamera(),
+				optimizer.getFinalViews(), optimizer.getStatus(), optimizer.getIterations(), viewIndices,
+				optimizer.getCovariance(),
+				ProjectionErrorReport.fromResiduals(optimizer.getFinalResiduals(), obsPts.length, modelPts.size()));
+		return new Run(result, optimizer.getFinalCost());
+	}
+	
+	/**
+	 * Checks that every view contains exactly one image point for each model point.
+	 */
+	private void checkViews(PointSet[] obsPts) {
+		for (int i = 0; i < obsPts.length; i++) {
+			if (obsPts[i].size() != modelPts.size()) {
+				throw new IllegalArgumentException("view " + i + ": number of observed points (" + obsPts[i].size() +
+						") does not match the model (" + modelPts.size() + ")");
+			}
+		}
+	}
+
+	/**
+	 * Returns the initial intrinsic camera matrix for the k-th multi-start run: the default (Cholesky-based) estimate
+	 * for k = 0, Zhang's closed-form variants for k = 1, 2, 3 and random perturbations of the default estimate
+	 * (focal lengths by 10%, principal point by 2% of the focal length) for k &gt; 3. Returns {@code null} if the
+	 * estimate is not usable.
+	 */
+	private static RealMatrix getStartingIntrinsics(int k, CameraIntrinsicsEstimator cis, RealMatrix[] H,
+			RealMatrix A0) {
+		final RealMatrix A;
+		switch (k) {
+		case 0:  A = A0; break;
+		case 1:  A = cis.getCameraIntrinsicsZhang1(H); break;
+		case 2:  A = cis.getCameraIntrinsicsZhang2(H); break;
+		case 3:  A = cis.getCameraIntrinsicsZhang3(H); break;
+		default:
+			Random rnd = new Random(k);		// reproducible perturbations
+			A = A0.copy();
+			final double f = 0.5 * (A0.getEntry(0, 0) + A0.getEntry(1, 1));
+			A.multiplyEntry(0, 0, 1 + 0.1 * rnd.nextGaussian());
+			A.multiplyEntry(1, 1, 1 + 0.1 * rnd.nextGaussian());
+			A.addToEntry(0, 2, 0.02 * f * rnd.nextGaussian());
+			A.addToEntry(1, 2, 0.02 * f * rnd.nextGaussian());
+		}
+		for (double[] row : A.getData()) {
+			for (double a : row) {
+				if (!Double.isFinite(a)) {
+					return null;
+				}
+			}
+		}
+		return (A.getEntry(0, 0) > 0 && A.getEntry(1, 1) > 0) ? A : null;
+	}
+	
+	/**
+	 * The result of a single calibration run and its final cost.
+	 */
+	private static class Run {
+		private final CalibrationResult result;
+		private final double cost;
+		
+		Run(CalibrationResult result, double cost) {
+			this.result = result;
+			this.cost = cost;
+		}
 	}
 	
 	
@@ -147,12 +357,15 @@ public class Calibrator {
 	 * @return the squared projection error (measured in pixel units)
 	 */
     public double getProjectionError(Camera cam, ViewTransform view, Pnt2d[] observed) {
+    	checkSize(observed.length);
+    	final int N = modelPts.size();
+    	final double[] u = new double[N];
+    	final double[] v = new double[N];
+    	projectModel(cam, view, u, v);
     	double sqError = 0;
-		for (int j = 0; j < modelPts.length; j++) {
-			double[] uv = cam.project(view, modelPts[j]);
-			double[] UV = MathUtil.toArray(observed[j]);
-			double du = uv[0] - UV[0];
-			double dv = uv[1] - UV[1];
+		for (int j = 0; j < N; j++) {
+			double du = u[j] - observed[j].getX();
+			double dv = v[j] - observed[j].getY();
 			sqError = sqError + du * du + dv * dv;
 		}
     	return sqError;
@@ -168,22 +381,120 @@ public class Calibrator {
 	 * @return the squared projection error (measured in pixel units)
 	 */
     public double getProjectionError(Camera cam, ViewTransform[] views, Pnt2d[][] observed) {
+    	checkViewCount(views.length, observed.length);
     	double totalError = 0;
     	for (int i = 0; i < views.length; i++) {
     		totalError = totalError + getProjectionError(cam, views[i], observed[i]);
     	}
     	return totalError;
     }
+
+	/**
+	 * Calculates the squared projection error for a single view, associated with a set of observed image points.
+	 *
+	 * @param cam a camera model (camera intrinsics)
+	 * @param view a view transformation (camera extrinsics)
+	 * @param observed a set of observed image points
+	 * @return the squared projection error (measured in pixel units)
+	 */
+    public double getProjectionError(Camera cam, ViewTransform view, PointSet observed) {
+    	checkSize(observed.size());
+    	final int N = modelPts.size();
+    	final double[] u = new double[N];
+    	final double[] v = new double[N];
+    	projectModel(cam, view, u, v);
+    	double sqError = 0;
+		for (int j = 0; j < N; j++) {
+			double du = u[j] - observed.getX(j);
+			double dv = v[j] - observed.getY(j);
+			sqError = sqError + du * du + dv * dv;
+		}
+    	return sqError;
+    }
+
+	/**
+	 * Calculates the squared projection error for a sequence of views, associated with a sequence of observed image
+	 * point sets.
+	 *
+	 * @param cam a camera model (camera intrinsics)
+	 * @param views a sequence of view transformations (camera extrinsics)
+	 * @param observed a sequence of sets of observed image points
+	 * @return the squared projection error (measured in pixel units)
+	 */
+    public double getProjectionError(Camera cam, ViewTransform[] views, PointSet[] observed) {
+    	checkViewCount(views.length, observed.length);
+    	double totalError = 0;
+    	for (int i = 0; i < views.length; i++) {
+    		totalError = totalError + getProjectionError(cam, views[i], observed[i]);
+    	}
+    	return totalError;
+    }
+
+	// projects all model points with the batch projection of the camera (without creating point objects)
+	private void projectModel(Camera cam, ViewTransform view, double[] u, double[] v) {
+		final int N = modelPts.size();
+		cam.project(view, modelPts, new double[N], new double[N], u, v);
+	}
+
+	private void checkSize(int n) {
+		if (n != modelPts.size()) {
+			throw new IllegalArgumentException("number of observed points (" + n + ") does not match the model (" +
+					modelPts.size() + ")");
+		}
+	}
+
+	private static void checkViewCount(int nViews, int nObserved) {
+		if (nViews != nObserved) {
+			throw new IllegalArgumentException("number of views (" + nViews + ") and observations (" + nObserved +
+					") do not match");
+		}
+	}
+
+	/**
+	 * Calculates the projection errors for a sequence of views in a single pass, returning the residual vectors and
+	 * per-view error statistics (see {@link ProjectionErrorReport}). Views are processed in parallel if
+	 * {@link Parameters#parallelize} is set.
+	 *
+	 * @param cam a camera model (camera intrinsics)
+	 * @param views a sequence of view transformations (camera extrinsics)
+	 * @param observed a sequence of sets of observed image points
+	 * @return a new error report
+	 */
+    public ProjectionErrorReport getProjectionErrorReport(Camera cam, ViewTransform[] views, PointSet[] observed) {
+    	return ProjectionErrorReport.compute(cam, views, modelPts, observed, params.parallelize);
+    }
+
+	/**
+	 * Calculates the projection errors for a sequence of views in a single pass, returning the residual vectors and
+	 * per-view error statistics (see {@link ProjectionErrorReport}).
+	 *
+	 * @param cam a camera model (camera intrinsics)
+	 * @param views a sequence of view transformations (camera extrinsics)
+	 * @param observed a sequence of sets of observed image points
+	 * @return a new error report
+	 */
+    public ProjectionErrorReport getProjectionErrorReport(Camera cam, ViewTransform[] views, Pnt2d[][] observed) {
+    	return getProjectionErrorReport(cam, views, PointSet.from(observed));
+    }
     
     // ----------------------------------------------------------------------
 
+	/**
+	 * Returns the result of the last call to {@link #calibrate()} ({@code null} if not calibrated yet).
+	 *
+	 * @return the last calibration result
+	 */
+    public CalibrationResult getResult() {
+    	return result;
+    }
+
 	/**
 	 * Returns the initial camera model (no lens distortion).
 	 *
 	 * @return the initial camera model
 	 */
     public Camera getInitialCamera() {
-    	return initCam;
+    	return (result == null) ? null : result.getInitialCamera();
     }
 
 	/**
@@ -192,7 +503,7 @@ public class Calibrator {
 	 * @return the final camera model
 	 */
     public Camera getFinalCamera() {
-    	return finalCam;
+    	return (result == null) ? null : result.getFinalCamera();
     }
 
 	/**
@@ -201,7 +512,7 @@ public class Calibrator {
 	 * @return the sequence of initial camera views
 	 */
     public ViewTransform[] getInitialViews() {
-    	return initViews;
+    	return (result == null) ? null : result.getInitialViews();
     }
 
 	/**
@@ -210,7 +521,18 @@ public class Calibrator {
 	 * @return the sequence of final camera views
 	 */
     public ViewTransform[] getFinalViews() {
-    	return finalViews;
+    	return (result == null) ? null : result.getFinalViews();
+    }
+
+	/**
+	 * Returns the termination status of the final nonlinear optimization. Unless the status is
+	 * {@link NonlinearOptimizer.Status#Converged}, the final camera and views are the best estimates found before the
+	 * optimization budget (see {@link Parameters}) ran out.
+	 *
+	 * @return the termination status of the final optimization
+	 */
+    public NonlinearOptimizer.Status getOptimizerStatus() {
+    	return (result == null) ? null : result.getStatus();
     }
     
 }
@@ -7,18 +7,20 @@
 package imagingbook.calibration.zhang;
 
 import imagingbook.calibration.zhang.util.MathUtil;
+import imagingbook.calibration.zhang.util.ProjectionKernel;
 import imagingbook.common.geometry.basic.Pnt2d;
 import imagingbook.common.math.Matrix;
-import org.apache.commons.math3.analysis.polynomials.PolynomialFunction;
-import org.apache.commons.math3.analysis.solvers.NewtonRaphsonSolver;
-import org.apache.commons.math3.analysis.solvers.UnivariateDifferentiableSolver;
 import org.apache.commons.math3.linear.MatrixUtils;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.linear.RealVector;
 
+import java.util.Arrays;
+
 
 /**
- * A camera model with parameters as specified in Zhang's paper.
+ * A camera model with parameters as specified in Zhang's paper. Lens distortion is described by a
+ * {@link DistortionModel} and its coefficient vector K (by default the radial model with 2 coefficients used in Zhang's
+ * paper). Instances are immutable.
  *
  * @author WB
  */
@@ -33,22 +35,35 @@ public class Camera {
 	 */
 	private final double[][] A;		// 2 x 3
 	private final double[] K;		// the vector of lens distortion coefficients
+	private final DistortionModel model;	// the lens distortion model
 		
 	// for the standard Zhang camera
 	public Camera(double alpha, double beta, double gamma, double uc, double vc, double k0, double k1) {
 		this.A = makeA(alpha, beta, gamma, uc, vc);
 		this.K = new double[] {k0, k1};
+		this.model = DistortionModel.Radial;
 	}
 
 	/**
-	 * Creates a standard camera from a vector of intrinsic parameters
+	 * Creates a standard camera (with radial lens distortion) from a vector of intrinsic parameters.
 	 *
-	 * @param s a vector of intrinsic camera parameters (alpha, beta, gamma, uc, vc, k0, k1).
+	 * @param s a vector of intrinsic camera parameters (alpha, beta, gamma, uc, vc, k0, k1, ...).
 	 */
 	public Camera (double[] s) {
-		//s = (alpha, beta, gamma, uc, vc, k0, k1);	
+		this(DistortionModel.Radial, s);
+	}
+
+	/**
+	 * Creates a camera with the specified lens distortion model from a vector of intrinsic parameters.
+	 *
+	 * @param model the lens distortion model
+	 * @param s a vector of intrinsic camera parameters (alpha, beta, gamma, uc, vc, k0, k1, ...).
+	 */
+	public Camera(DistortionModel model, double[] s) {
 		this.A = makeA(s[0], s[1], s[2], s[3], s[4]);
-		this.K = new double[] {s[5], s[6]};
+		this.K = Arrays.copyOfRange(s, 5, s.length);
+		this.model = model;
+		model.checkParameters(K);
 	}
 
 	/**
@@ -58,8 +73,22 @@ public class Camera {
 	 * @param K the radial distortion coefficients k0, k1, ... (may be {@code null})
 	 */
 	public Camera(RealMatrix A, double[] K) {
+		this(A, DistortionModel.Radial, K);
+	}
+
+	/**
+	 * Creates a camera with the specified lens distortion model from a transformation matrix and a vector of lens
+	 * distortion coefficients.
+	 *
+	 * @param A the (min.) 2 x 3 matrix holding the intrinsic camera parameters
+	 * @param model the lens distortion model
+	 * @param K the distortion coefficients (may be {@code null} for the {@link DistortionModel#Radial} model)
+	 */
+	public Camera(RealMatrix A, DistortionModel model, double[] K) {
 		this.K = (K == null) ? new double[0] : K.clone();
 		this.A = A.getSubMatrix(0, 1, 0, 2).getData();
+		this.model = model;
+		model.checkParameters(this.K);
 	}
 
 	/**
@@ -72,6 +101,7 @@ public class Camera {
 	public Camera(double f, double uc, double vc) {
 		this.K = new double[0];
 		this.A = makeA(f, f, 0, uc, vc);
+		this.model = DistortionModel.Radial;
 	}
 	
 	// --------------------------------------------------------------------------
@@ -93,7 +123,20 @@ public class Camera {
 	 * @return the projected 2D image coordinates
 	 */
 	public double[] project(ViewTransform view, Pnt2d P) {
-		double[] XY0 = new double[] {P.getX(), P.getY(), 0}; 
+		return this.project(view, P.getX(), P.getY());
+	}
+
+	/**
+	 * Projects the X/Y world point (in the Z = 0 plane) to image coordinates under the given camera view (extrinsic
+	 * transformation parameters).
+	 *
+	 * @param view the extrinsic transformation parameters
+	 * @param X the world x-coordinate
+	 * @param Y the world y-coordinate (Z = 0)
+	 * @return the projected 2D image coordinates
+	 */
+	public double[] project(ViewTransform view, double X, double Y) {
+		double[] XY0 = new double[] {X, Y, 0};
 		return this.project(view, XY0);
 	}
 
@@ -114,6 +157,58 @@ public class Camera {
 		return imagePoints;
 	}
 
+	/**
+	 * Projects a set of X/Y world points (all in the Z = 0 plane) to image coordinates under the given camera view.
+	 * For the standard radial model, lens distortion and the intrinsic mapping are applied in batch by
+	 * {@link ProjectionKernel}.
+	 *
+	 * @param view the extrinsic transformation parameters
+	 * @param pts a set of X/Y world points (with Z = 0)
+	 * @return a new set of projected 2D image points
+	 */
+	public PointSet project(ViewTransform view, PointSet pts) {
+		final int n = pts.size();
+		double[] x = new double[n];
+		double[] y = new double[n];
+		double[] u = new double[n];
+		double[] v = new double[n];
+		project(view, pts, x, y, u, v);
+		double[] uv = new double[2 * n];
+		for (int j = 0; j < n; j++) {
+			uv[2 * j] = u[j];
+			uv[2 * j + 1] = v[j];
+		}
+		return PointSet.wrap(uv);
+	}
+
+	/**
+	 * Batch projection of X/Y world points to separate arrays of image coordinates, using the supplied arrays (of
+	 * length &ge; pts.size()) as work space.
+	 */
+	void project(ViewTransform view, PointSet pts, double[] x, double[] y, double[] u, double[] v) {
+		final int n = pts.size();
+		final double[][] R = view.getRotation().getMatrix();
+		final double[] t = view.getTranslation();
+		for (int j = 0; j < n; j++) {
+			final double X = pts.getX(j);
+			final double Y = pts.getY(j);
+			final double zc = R[2][0] * X + R[2][1] * Y + t[2];
+			x[j] = (R[0][0] * X + R[0][1] * Y + t[0]) / zc;
+			y[j] = (R[1][0] * X + R[1][1] * Y + t[1]) / zc;
+		}
+		if (model == DistortionModel.Radial && K.length <= 2) {
+			ProjectionKernel.getInstance().project(getParameterVector(), x, y, u, v, n);
+		}
+		else {
+			final double[] xyd = new double[2];
+			for (int j = 0; j < n; j++) {
+				model.warp(K, x[j], y[j], xyd);
+				u[j] = A[0][0] * xyd[0] + A[0][1] * xyd[1] + A[0][2];
+				v[j] =                    A[1][1] * xyd[1] + A[1][2];
+			}
+		}
+	}
+
 	/**
 	 * Projects the given 3D point onto the sensor plane of this camera for the provided extrinsic view parameters.
 	 *
@@ -124,7 +219,7 @@ public class Camera {
 	public double[] project(ViewTransform view, double[] XYZ) {
 		// map to the ideal projection plane (f = 1)
 		double[] xy = projectNormalized(view, XYZ);
-		// apply radial lens distortion to the ideal projection
+		// apply lens distortion to the ideal projection
 		double[] xyd = warp(xy);
 		// apply the intrinsic camera transformation:
 		double[] uv = mapToSensorPlane(xyd);
@@ -141,7 +236,20 @@ public class Camera {
 	 * @return the 2D ideal projection
 	 */
 	public double[] projectNormalized(ViewTransform view, Pnt2d P) {
-		double[] XY0 = {P.getX(), P.getY(), 0};
+		return projectNormalized(view, P.getX(), P.getY());
+	}
+
+	/**
+	 * Projects the given 3D point to ideal projection coordinates for the provided extrinsic view parameters. The world
+	 * point is specified as a 2D coordinate in the Z = 0 plane.
+	 *
+	 * @param view the extrinsic camera (view) parameters
+	 * @param X the world x-coordinate
+	 * @param Y the world y-coordinate (Z = 0)
+	 * @return the 2D ideal projection
+	 */
+	public double[] projectNormalized(ViewTransform view, double X, double Y) {
+		double[] XY0 = {X, Y, 0};
 		return projectNormalized(view, XY0);
 	}
 
@@ -166,70 +274,54 @@ public class Camera {
 	}
 
 	/**
-	 * Applies radial distortion to a point in the ideal 2D projection.
+	 * Applies lens distortion to a point in the ideal 2D projection.
 	 *
 	 * @param xy a 2D point in the ideal projection
 	 * @return the lens-distorted position in the ideal projection
 	 */
 	public double[] warp(double[] xy) {
-		final double x = xy[0];
-		final double y = xy[1];
-		final double r = Math.sqrt(x * x + y * y);
-		double d = (1 + D(r));
-		return new double[] {d * x, d * y};
+		double[] xyd = new double[2];
+		model.warp(K, xy[0], xy[1], xyd);
+		return xyd;
 	}
 
 	/**
 	 * Inverse radial distortion function. Finds the original (undistorted) radius r from the distorted radius R, both
-	 * measured from the center = (0,0) of the ideal projection. Finds r as the root of the polynomial
-	 * <pre>p(r) = - R + r + k0 * r^3 + k1 * r^5,</pre>
-	 * where R is constant, by using a Newton-Raphson solver.
+	 * measured from the center = (0,0) of the ideal projection, i.e., r is the root of
+	 * <pre>p(r) = - R + r * (1 + D(r)),</pre>
+	 * where R is constant (see {@link DistortionModel#unwarpRadius(double[], double)}). For the
+	 * {@link DistortionModel#BrownConrady} model only the radial part is considered.
 	 *
 	 * @param R the distorted radius
 	 * @return the undistorted radius
 	 */
 	public double unwarp(double R) {
-		double k0 = K[0];
-		double k1 = K[1];
-		double[] coefficients = {-R, 1, 0, k0, 0, k1};
-		PolynomialFunction p = new PolynomialFunction(coefficients);
-		UnivariateDifferentiableSolver solver = new NewtonRaphsonSolver();
-		double rInit = R;
-		int maxEval = 20;
-		double r = solver.solve(maxEval, p, rInit);
-//		System.out.format("** solver iterations = %d\n", solver.getEvaluations());
-		return r;
+		return model.unwarpRadius(K, R);
 	}
 
 	/**
-	 * Applies inverse radial distortion to a given point in the ideal image plane.
+	 * Applies inverse lens distortion to a given point in the ideal image plane.
 	 *
 	 * @param xyd a distorted 2D point in the ideal image plane
 	 * @return the undistorted point
 	 */
 	public double[] unwarp(double[] xyd) {
-		final double xd = xyd[0];
-		final double yd = xyd[1];
-		final double R = Math.sqrt(xd * xd + yd * yd);	// distorted radius
-		final double r = unwarp(R);						// undistorted radius
-		final double s = r / R;
-		return new double[] {s * xd, s * yd};
+		double[] xy = new double[2];
+		model.unwarp(K, xyd[0], xyd[1], xy);
+		return xy;
 	}
 
 	/**
 	 * Radial distortion function, to be applied in the form
 	 * <pre>r' = r * (1 + D(r))</pre>
-	 * to points in the ideal projection plane. Distortion coefficients k0, k1 are a property of the enclosing
-	 * {@link Camera}.
+	 * to points in the ideal projection plane. Distortion coefficients k0, k1, ... and the distortion model are
+	 * properties of the enclosing {@link Camera}.
 	 *
 	 * @param r the original radius of a point in the ideal projection plane
 	 * @return the pos/neg deviation for the given radius
 	 */
 	public double D(double r) {
-		final double k0 = (K.length > 0) ? K[0] : 0;
-		final double k1 = (K.length > 1) ? K[1] : 0;
-		final double r2 = r * r;
-		return (k0 + k1 * r2) * r2;		// D(r) = k0 * r^2 + k1 * r^4
+		return model.D(K, r);	// D(r) = k0 * r^2 + k1 * r^4 + ... (radial model)
 	}
 
 	/**
@@ -249,13 +341,29 @@ public class Camera {
 	// -------------------------------------------------------------------
 
 	/**
-	 * Returns the camera's inner parameters as a vector (alpha, beta, gamma, uc, vc, k0, k1).
+	 * Returns the camera's inner parameters as a vector (alpha, beta, gamma, uc, vc, k0, k1, ...) of length 5 + K,
+	 * with K being the number of distortion coefficients.
 	 *
 	 * @return the camera's inner parameters
 	 */
 	public double[] getParameterVector() {
-		return new double[] 
-				{getAlpha(), getBeta(),	getGamma(), getUc(), getVc(), K[0], K[1]};	
+		double[] s = new double[5 + K.length];
+		s[0] = getAlpha();
+		s[1] = getBeta();
+		s[2] = getGamma();
+		s[3] = getUc();
+		s[4] = getVc();
+		System.arraycopy(K, 0, s, 5, K.length);
+		return s;
+	}
+
+	/**
+	 * Returns the camera's lens distortion model.
+	 *
+	 * @return the distortion model
+	 */
+	public DistortionModel getDistortionModel() {
+		return model;
 	}
 
 	/**
@@ -304,12 +412,12 @@ public class Camera {
 	}
 
 	/**
-	 * Returns the camera's lens distortion coefficients.
+	 * Returns (a copy of) the camera's lens distortion coefficients.
 	 *
 	 * @return the vector of lens distortion coefficients
 	 */
 	public double[] getK() {
-		return K;
+		return K.clone();
 	}
 
 	/**
@@ -367,9 +475,9 @@ public class Camera {
 
 	@Override
 	public String toString() {
-		return String.format("%s[alpha=%.4f, beta=%.4f, gamma=%.4f, uc=%.4f, vc=%.4f, K=%s]",
+		return String.format("%s[alpha=%.4f, beta=%.4f, gamma=%.4f, uc=%.4f, vc=%.4f, model=%s, K=%s]",
 				this.getClass().getSimpleName(),
-				getAlpha(), getBeta(), getGamma(), getUc(), getVc(), Matrix.toString(getK()));
+				getAlpha(), getBeta(), getGamma(), getUc(), getVc(), model, Matrix.toString(getK()));
 	}
 	
 	//---------------------------------------------------------------------
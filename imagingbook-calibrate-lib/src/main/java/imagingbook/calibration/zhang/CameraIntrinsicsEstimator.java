@@ -6,15 +6,16 @@
  ******************************************************************************/
 package imagingbook.calibration.zhang;
 
-import imagingbook.calibration.zhang.util.MathUtil;
-import imagingbook.common.math.Matrix;
-import org.apache.commons.math3.linear.CholeskyDecomposition;
+import imagingbook.calibration.zhang.util.SmallMatrices;
 import org.apache.commons.math3.linear.MatrixUtils;
 import org.apache.commons.math3.linear.RealMatrix;
 
+import java.util.Arrays;
+
 /**
  * This class defines methods for estimating the intrinsic camera parameters from multiple homographies. Alternative
- * versions are provided (only one is actually used though).
+ * versions are provided (only one is actually used though). All versions solve the same homogeneous system, which is
+ * set up incrementally by {@link Accumulator}.
  *
  * @author WB
  */
@@ -28,24 +29,7 @@ public class CameraIntrinsicsEstimator {
 	 * @return the estimated 3 x 3 intrinsic transformation matrix
 	 */
 	protected RealMatrix getCameraIntrinsicsZhang1(RealMatrix[] homographies) {
-		final int M = homographies.length;
-		int rows = 2 * M;
-		double[][] V = new double[rows][];
-
-		for (int i = 0; i < M; i++) {
-			RealMatrix H = homographies[i];
-			V[2*i] = getVpq(H, 0, 1); // v01
-			V[2*i + 1] = Matrix.subtract(getVpq(H, 0, 0), getVpq(H, 1, 1)); // v00-v11
-		}
-
-		if (M == 2) {
-			V[V.length - 1] = new double[] { 0, 1, 0, 0, 0, 0 };
-		}
-		
-		RealMatrix VM = MatrixUtils.createRealMatrix(V);
-//		MathUtil.print("estimateIntrinsics: V = ", VM);//WB
-		
-		double[] b = MathUtil.solveHomogeneousSystem(VM).toArray();	// solve VM.b=0
+		double[] b = solveB(homographies);	// solve V.b = 0
 		
 		final double vc 	= (b[1] * b[3] - b[0] * b[4]) / (b[0] * b[2] - b[1] * b[1]);
 		final double lambda = b[5] - (b[3] * b[3] + vc * (b[1] * b[3] - b[0] * b[4])) / b[0];
@@ -71,22 +55,7 @@ public class CameraIntrinsicsEstimator {
 	 * @return the estimated 3 x 3 intrinsic transformation matrix
 	 */
 	protected RealMatrix getCameraIntrinsicsZhang2(RealMatrix[] homographies) {
-		final int M = homographies.length;
-		int rows = 2 * M;
-		double[][] V = new double[rows][];
-
-		for (int i = 0; i < M; i++) {
-			RealMatrix H = homographies[i];
-			V[2*i] = getVpq(H, 0, 1); // v01
-			V[2*i + 1] = Matrix.subtract(getVpq(H, 0, 0), getVpq(H, 1, 1)); // v00-v11
-		}
-
-		if (M == 2) {
-			V[V.length - 1] = new double[] { 0, 1, 0, 0, 0, 0 };
-		}
-		
-		RealMatrix VM = MatrixUtils.createRealMatrix(V);
-		double[] b = MathUtil.solveHomogeneousSystem(VM).toArray();	// solve VM.b=0
+		double[] b = solveB(homographies);	// solve V.b = 0
 		
 		final double vc 	= (b[1] * b[3] - b[0] * b[4]) / (b[0] * b[2] - b[1] * b[1]);
 		final double lambda = b[5] - (b[3] * b[3] + vc * (b[1] * b[3] - b[0] * b[4])) / b[0];
@@ -111,22 +80,7 @@ public class CameraIntrinsicsEstimator {
 	 * @return the estimated 3 x 3 intrinsic transformation matrix
 	 */
 	protected RealMatrix getCameraIntrinsicsZhang3(RealMatrix[] homographies) {
-		final int M = homographies.length;
-		int rows = 2 * M;
-		double[][] V = new double[rows][];
-
-		for (int i = 0; i < M; i++) {
-			RealMatrix H = homographies[i];
-			V[2*i] = getVpq(H, 0, 1); // v01
-			V[2*i + 1] = Matrix.subtract(getVpq(H, 0, 0), getVpq(H, 1, 1)); // v00-v11
-		}
-
-		if (M == 2) {
-			V[V.length - 1] = new double[] { 0, 1, 0, 0, 0, 0 };
-		}
-		
-		RealMatrix VM = MatrixUtils.createRealMatrix(V);
-		double[] b = MathUtil.solveHomogeneousSystem(VM).toArray();	// solve VM.b=0
+		double[] b = solveB(homographies);	// solve V.b = 0
 		
 		final double w = b[0]*b[2]*b[5] - b[1]*b[1]*b[5] - b[0]*b[4]*b[4] + 2*b[1]*b[3]*b[4] - b[2]*b[3]*b[3];
 		final double d = 
@@ -160,40 +114,163 @@ public class CameraIntrinsicsEstimator {
 	 * @return the estimated 3 x 3 intrinsic transformation matrix
 	 */
 	protected RealMatrix getCameraIntrinsics(RealMatrix[] homographies) {
-		final int M = homographies.length;
-		int rows = 2 * M;
-		double[][] V = new double[rows][];
-
-		for (int i = 0; i < M; i++) {
-			RealMatrix H = homographies[i];
-			V[2*i] = getVpq(H, 0, 1); // v01
-			V[2*i + 1] = Matrix.subtract(getVpq(H, 0, 0), getVpq(H, 1, 1)); // v00-v11
-		}
+		return getCameraIntrinsics(solveB(homographies));
+	}
 
-		if (M == 2) {
-			V[V.length - 1] = new double[] { 0, 1, 0, 0, 0, 0 };
-		}
-		
-		RealMatrix VM = MatrixUtils.createRealMatrix(V);
-//		MathUtil.print("estimateIntrinsics: V = ", VM);//WB
-		
-		double[] b = MathUtil.solveHomogeneousSystem(VM).toArray();	// solve VM.b=0
-		
-		RealMatrix B = MatrixUtils.createRealMatrix(new double[][]
-				{{b[0], b[1], b[3]},
-				 {b[1], b[2], b[4]},
-				 {b[3], b[4], b[5]}});
+	/**
+	 * Calculates the intrinsic camera matrix A from the vector b = (B11, B12, B22, B13, B23, B33) of the symmetric
+	 * matrix B = A^-T . A^-1, using a Cholesky decomposition.
+	 *
+	 * @param b the elements of the symmetric matrix B
+	 * @return the estimated 3 x 3 intrinsic transformation matrix
+	 */
+	static RealMatrix getCameraIntrinsics(double[] b) {
+		final double[] B = 
+				{b[0], b[1], b[3],
+				 b[1], b[2], b[4],
+				 b[3], b[4], b[5]};
 		
-		if (B.getEntry(0, 0) < 0 || B.getEntry(1, 1) < 0 || B.getEntry(2, 2) < 0) {	
-			B = B.scalarMultiply(-1);	// make sure B is positive definite 
+		if (B[0] < 0 || B[4] < 0 || B[8] < 0) {	
+			for (int k = 0; k < 9; k++) {
+				B[k] = -B[k];	// make sure B is positive definite 
+			}
 		}
 		
-		CholeskyDecomposition cd = new CholeskyDecomposition(B);
-		RealMatrix L = cd.getL();
-		RealMatrix A = MatrixUtils.inverse(L).transpose().scalarMultiply(L.getEntry(2, 2));
+		final double[] L = new double[9];
+		final double[] Li = new double[9];
+		if (!SmallMatrices.cholesky3x3(B, L) || !SmallMatrices.inverse3x3(L, Li)) {
+			throw new IllegalStateException("getCameraIntrinsics(): matrix B is not positive definite");
+		}
+		// A = (L^-1)^T * L[2][2]
+		final double s = L[8];
+		RealMatrix A = MatrixUtils.createRealMatrix(new double[][] {
+				{s * Li[0], s * Li[3], s * Li[6]},
+				{s * Li[1], s * Li[4], s * Li[7]},
+				{s * Li[2], s * Li[5], s * Li[8]}});
 		return A;
 	}
 
+	private static double[] solveB(RealMatrix[] homographies) {
+		Accumulator acc = new Accumulator();
+		for (RealMatrix H : homographies) {
+			acc.add(H);
+		}
+		return acc.solve();
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	/**
+	 * <p>
+	 * Incremental version of the intrinsics estimation. Each homography contributes two rows v01 and (v00 - v11) to
+	 * Zhang's homogeneous system V . b = 0, but only the symmetric 6 x 6 matrix V^T . V is kept. Views can thus be
+	 * added and removed at constant cost and memory, and the intrinsics can be re-estimated at any time (e.g., while
+	 * views are streaming in) by solving the 6 x 6 eigenproblem. Removing a view exactly reverses its addition (up
+	 * to floating-point rounding).
+	 * </p>
+	 * <p>
+	 * If only two views are present, the zero-skew constraint B12 = 0 is added. Instances are not thread-safe.
+	 * </p>
+	 */
+	public static class Accumulator {
+
+		private final double[] VtV = new double[36];	// 6 x 6, row-major
+		private int count = 0;
+
+		// work arrays
+		private final double[] v01 = new double[6];
+		private final double[] v00 = new double[6];
+		private final double[] v11 = new double[6];
+
+		/**
+		 * Adds the contribution of a single view.
+		 *
+		 * @param H the homography of the view (3 x 3)
+		 */
+		public void add(RealMatrix H) {
+			update(H, 1);
+			count++;
+		}
+
+		/**
+		 * Removes the contribution of a single view, which must have been added before.
+		 *
+		 * @param H the homography of the view (3 x 3), as passed to {@link #add(RealMatrix)}
+		 */
+		public void remove(RealMatrix H) {
+			if (count == 0) {
+				throw new IllegalStateException("no views to remove");
+			}
+			update(H, -1);
+			count--;
+		}
+
+		/**
+		 * Removes all views.
+		 */
+		public void clear() {
+			Arrays.fill(VtV, 0);
+			count = 0;
+		}
+
+		/**
+		 * Returns the number of views currently accumulated.
+		 *
+		 * @return the number of views
+		 */
+		public int getNumberOfViews() {
+			return count;
+		}
+
+		/**
+		 * Estimates the intrinsic camera parameters from the views accumulated so far.
+		 *
+		 * @return the estimated 3 x 3 intrinsic transformation matrix
+		 */
+		public RealMatrix getCameraIntrinsics() {
+			return CameraIntrinsicsEstimator.getCameraIntrinsics(solve());
+		}
+
+		/**
+		 * Solves V . b = 0 in the least-squares sense, i.e., finds the eigenvector of V^T . V for the smallest
+		 * eigenvalue.
+		 *
+		 * @return the solution vector b = (B11, B12, B22, B13, B23, B33)
+		 */
+		double[] solve() {
+			if (count < 2) {
+				throw new IllegalStateException("at least two views needed");
+			}
+			final double[] S = VtV.clone();
+			if (count == 2) {
+				S[1 * 6 + 1] = S[1 * 6 + 1] + 1;	// add row (0, 1, 0, 0, 0, 0), i.e., zero skew
+			}
+			final double[] evals = new double[6];
+			final double[] E = new double[36];
+			final double[] b = new double[6];
+			SmallMatrices.eigenSymmetric(S, 6, evals, E);
+			SmallMatrices.getColumn(E, 6, SmallMatrices.idxMin(evals, 6), b);
+			return b;
+		}
+
+		private void update(RealMatrix H, double sign) {
+			final double[][] h = H.getData();
+			getVpq(h, 0, 1, v01);
+			getVpq(h, 0, 0, v00);
+			getVpq(h, 1, 1, v11);
+			for (int k = 0; k < 6; k++) {
+				v00[k] = v00[k] - v11[k];	// v00 - v11
+			}
+			for (int i = 0; i < 6; i++) {
+				for (int k = 0; k < 6; k++) {
+					VtV[i * 6 + k] = VtV[i * 6 + k] + sign * (v01[i] * v01[k] + v00[i] * v00[k]);
+				}
+			}
+		}
+	}
+
+	// ------------------------------------------------------------------------------------
+
 //	private double[] getVpq(RealMatrix H, int p, int q) {
 //		H = H.transpose();
 //		final double[] vij = new double[] {
@@ -208,16 +285,13 @@ public class CameraIntrinsicsEstimator {
 //	}
 	
 	// version without transpose
-	private double[] getVpq(RealMatrix H, int p, int q) {
-		final double[] vpq = new double[] {
-				H.getEntry(0, p) * H.getEntry(0, q),
-				H.getEntry(0, p) * H.getEntry(1, q) + H.getEntry(1, p) * H.getEntry(0, q),
-				H.getEntry(1, p) * H.getEntry(1, q),
-				H.getEntry(2, p) * H.getEntry(0, q) + H.getEntry(0, p) * H.getEntry(2, q),
-				H.getEntry(2, p) * H.getEntry(1, q) + H.getEntry(1, p) * H.getEntry(2, q),
-				H.getEntry(2, p) * H.getEntry(2, q)
-		};
-		return vpq;
+	static void getVpq(double[][] H, int p, int q, double[] vpq) {
+		vpq[0] = H[0][p] * H[0][q];
+		vpq[1] = H[0][p] * H[1][q] + H[1][p] * H[0][q];
+		vpq[2] = H[1][p] * H[1][q];
+		vpq[3] = H[2][p] * H[0][q] + H[0][p] * H[2][q];
+		vpq[4] = H[2][p] * H[1][q] + H[1][p] * H[2][q];
+		vpq[5] = H[2][p] * H[2][q];
 	}
 
 }
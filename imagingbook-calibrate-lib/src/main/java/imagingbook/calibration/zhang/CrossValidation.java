@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang;
+
+import imagingbook.common.util.ParameterBundle;
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.apache.commons.math3.linear.RealMatrix;
+
+import java.util.stream.IntStream;
+
+/**
+ * <p>
+ * Result of a leave-one-view-out cross-validation of a calibration (see {@link Calibrator#crossValidate(PointSet[])}).
+ * For each of the M views, the calibration is repeated without that view and the resulting camera is used to measure
+ * the projection error on the held-out view. Its pose is obtained from the view's homography of the full calibration
+ * run and then refined with the camera of the fold held fixed (see {@link PoseEstimator}). Instances are immutable.
+ * </p>
+ * <p>
+ * The M folds are run concurrently. Each fold is warm-started from the final camera and views of the full
+ * calibration, so only the nonlinear optimization (Step 5) is repeated.
+ * </p>
+ *
+ * @author WB
+ */
+public class CrossValidation {
+
+	private final CalibrationResult fullResult;
+	private final Camera[] cameras;				// M cameras, one for each fold
+	private final double[] heldOutErrors;		// M RMS projection errors on the held-out views
+	private final NonlinearOptimizer.Status[] status;
+
+	private CrossValidation(CalibrationResult fullResult, Camera[] cameras, double[] heldOutErrors,
+			NonlinearOptimizer.Status[] status) {
+		this.fullResult = fullResult;
+		this.cameras = cameras;
+		this.heldOutErrors = heldOutErrors;
+		this.status = status;
+	}
+
+	/**
+	 * Runs the M leave-one-out folds concurrently.
+	 *
+	 * @param params the calibration parameters
+	 * @param modelPts the model points
+	 * @param obsPts the image points of all M views
+	 * @param H the homographies of all M views (from the full calibration run)
+	 * @param fullResult the result of the full calibration run
+	 * @return the cross-validation result
+	 */
+	static CrossValidation run(Calibrator.Parameters params, PointSet modelPts, PointSet[] obsPts, RealMatrix[] H,
+			CalibrationResult fullResult) {
+		final int M = obsPts.length;
+		final Calibrator.Parameters foldParams = ParameterBundle.duplicate(params);
+		foldParams.computeCovariance = false;
+
+		final Camera[] cameras = new Camera[M];
+		final double[] errors = new double[M];
+		final NonlinearOptimizer.Status[] status = new NonlinearOptimizer.Status[M];
+		IntStream.range(0, M).parallel().forEach(i -> {
+			NonlinearOptimizer optimizer = runFold(i, foldParams, modelPts, obsPts, fullResult);
+			Camera cam = optimizer.getFinalCamera();
+			ExtrinsicViewEstimator eve = new ExtrinsicViewEstimator(getIntrinsicMatrix(cam));
+			PoseEstimator poseEstimator = new PoseEstimator(cam, modelPts);
+			poseEstimator.refine(eve.estimateViewTransform(H[i]), obsPts[i]);
+			cameras[i] = cam;
+			errors[i] = poseEstimator.getRms();
+			status[i] = optimizer.getStatus();
+		});
+		return new CrossValidation(fullResult, cameras, errors, status);
+	}
+
+	// calibrates without view i, starting from the full solution
+	private static NonlinearOptimizer runFold(int i, Calibrator.Parameters params, PointSet modelPts,
+			PointSet[] obsPts, CalibrationResult fullResult) {
+		final int M = obsPts.length;
+		final ViewTransform[] fullViews = fullResult.getFinalViews();
+		PointSet[] foldPts = new PointSet[M - 1];
+		ViewTransform[] foldViews = new ViewTransform[M - 1];
+		for (int k = 0, l = 0; k < M; k++) {
+			if (k != i) {
+				foldPts[l] = obsPts[k];
+				foldViews[l] = fullViews[k];
+				l++;
+			}
+		}
+		NonlinearOptimizer optimizer = (params.useNumericJacobian) ?
+				new NonlinearOptimizerNumeric(modelPts, foldPts, params) :
+				new NonlinearOptimizerAnalytic(modelPts, foldPts, params);
+		optimizer.optimize(fullResult.getFinalCamera(), foldViews);
+		return optimizer;
+	}
+
+	private static RealMatrix getIntrinsicMatrix(Camera cam) {
+		RealMatrix A = MatrixUtils.createRealIdentityMatrix(3);
+		A.setSubMatrix(cam.getA().getData(), 0, 0);
+		return A;
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	/**
+	 * Returns the result of the calibration with all views.
+	 *
+	 * @return the full calibration result
+	 */
+	public CalibrationResult getFullResult() {
+		return fullResult;
+	}
+
+	/**
+	 * Returns the number of folds (= number of views).
+	 *
+	 * @return the number of folds
+	 */
+	public int getNumberOfFolds() {
+		return cameras.length;
+	}
+
+	/**
+	 * Returns the camera calibrated without the specified view.
+	 *
+	 * @param i the index of the held-out view
+	 * @return the camera of fold i
+	 */
+	public Camera getCamera(int i) {
+		return cameras[i];
+	}
+
+	/**
+	 * Returns the termination status of the optimization of the specified fold.
+	 *
+	 * @param i the index of the held-out view
+	 * @return the termination status of fold i
+	 */
+	public NonlinearOptimizer.Status getStatus(int i) {
+		return status[i];
+	}
+
+	/**
+	 * Returns the RMS projection errors (in pixel units) of all held-out views, i.e., element i is the error of view i
+	 * under the camera calibrated without view i.
+	 *
+	 * @return a new array of M held-out errors
+	 */
+	public double[] getHeldOutErrors() {
+		return heldOutErrors.clone();
+	}
+
+	/**
+	 * Returns the RMS projection error (in pixel units) over all held-out views.
+	 *
+	 * @return the overall held-out error
+	 */
+	public double getMeanHeldOutError() {
+		double sum = 0;
+		for (double e : heldOutErrors) {
+			sum = sum + e * e;
+		}
+		return Math.sqrt(sum / heldOutErrors.length);
+	}
+
+	/**
+	 * Returns the mean of the camera parameters (in the order of {@link Camera#getParameterVector()}) over all folds.
+	 *
+	 * @return a new array of mean camera parameters
+	 */
+	public double[] getParameterMean() {
+		final int M = cameras.length;
+		final double[] mean = new double[cameras[0].getParameterVector().length];
+		for (Camera cam : cameras) {
+			double[] s = cam.getParameterVector();
+			for (int k = 0; k < mean.length; k++) {
+				mean[k] = mean[k] + s[k] / M;
+			}
+		}
+		return mean;
+	}
+
+	/**
+	 * Returns the spread (standard deviation) of the camera parameters (in the order of
+	 * {@link Camera#getParameterVector()}) over all folds.
+	 *
+	 * @return a new array of parameter standard deviations
+	 */
+	public double[] getParameterSpread() {
+		final int M = cameras.length;
+		final double[] mean = getParameterMean();
+		final double[] spread = new double[mean.length];
+		for (Camera cam : cameras) {
+			double[] s = cam.getParameterVector();
+			for (int k = 0; k < mean.length; k++) {
+				double d = s[k] - mean[k];
+				spread[k] = spread[k] + d * d;
+			}
+		}
+		for (int k = 0; k < spread.length; k++) {
+			spread[k] = Math.sqrt(spread[k] / (M - 1));
+		}
+		return spread;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[folds=%d, heldOutError=%.4f]", this.getClass().getSimpleName(), cameras.length,
+				getMeanHeldOutError());
+	}
+
+}
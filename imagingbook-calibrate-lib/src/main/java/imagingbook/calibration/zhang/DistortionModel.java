@@ -0,0 +1,387 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang;
+
+/**
+ * <p>
+ * Lens distortion models applicable to points (x, y) in the ideal projection plane (f = 1). Each model maps an
+ * undistorted point to its distorted position (xd, yd) = warp(x, y), controlled by a vector of distortion coefficients
+ * k. Besides {@link #warp(double[], double, double, double[])} every model provides its partial derivatives with
+ * respect to the point coordinates and the distortion coefficients (used for the analytic Jacobian in
+ * {@link NonlinearOptimizerAnalytic}) and a fast inverse {@link #unwarp(double[], double, double, double[])}. All
+ * polynomials are evaluated in Horner form; the forward mappings write their results to caller-supplied arrays and do
+ * not allocate any memory.
+ * </p>
+ * <p>
+ * Except for {@link #BrownConrady}, all models are radially symmetric, i.e., of the form (xd, yd) = f(s) . (x, y), with
+ * s = x^2 + y^2 = r^2. Their inverse is found by solving the 1D equation r . f(r^2) = R for the undistorted radius r.
+ * </p>
+ *
+ * @author WB
+ * @see Camera
+ */
+public enum DistortionModel {
+
+	/**
+	 * Polynomial radial distortion with an arbitrary number of coefficients k0, k1, k2, ..., i.e.,
+	 * <pre>f(s) = 1 + k0 * s + k1 * s^2 + k2 * s^3 + ...</pre>
+	 * This is the model used in Zhang's original paper (with 2 coefficients).
+	 */
+	Radial(-1) {
+		@Override
+		double factor(double[] k, double s, double[] df) {
+			final int K = k.length;
+			double p = 0;		// p(s) = k0 + k1 * s + k2 * s^2 + ...
+			double dp = 0;		// dp/ds
+			for (int l = K - 1; l >= 0; l--) {
+				dp = dp * s + p;
+				p = p * s + k[l];
+			}
+			if (df != null) {
+				df[0] = p + s * dp;
+				double sl = s;
+				for (int l = 0; l < K; l++) {
+					df[1 + l] = sl;
+					sl = sl * s;
+				}
+			}
+			return 1 + s * p;
+		}
+	},
+
+	/**
+	 * Brown-Conrady model with 3 radial coefficients (k0, k1, k2) and 2 tangential (decentering) coefficients (p1, p2),
+	 * i.e., the coefficient vector is (k0, k1, k2, p1, p2) and
+	 * <pre>
+	 * xd = x * f(s) + 2 * p1 * x * y + p2 * (s + 2 * x^2)
+	 * yd = y * f(s) + p1 * (s + 2 * y^2) + 2 * p2 * x * y
+	 * </pre>
+	 * with f(s) = 1 + k0 * s + k1 * s^2 + k2 * s^3.
+	 */
+	BrownConrady(5) {
+		@Override
+		double factor(double[] k, double s, double[] df) {
+			if (df != null) {
+				df[0] = k[0] + s * (2 * k[1] + s * 3 * k[2]);
+				df[1] = s;
+				df[2] = s * s;
+				df[3] = s * s * s;
+			}
+			return 1 + s * (k[0] + s * (k[1] + s * k[2]));
+		}
+
+		@Override
+		public void warp(double[] k, double x, double y, double[] xyd) {
+			final double s = x * x + y * y;
+			final double f = factor(k, s, null);
+			final double p1 = k[3], p2 = k[4];
+			xyd[0] = x * f + 2 * p1 * x * y + p2 * (s + 2 * x * x);
+			xyd[1] = y * f + p1 * (s + 2 * y * y) + 2 * p2 * x * y;
+		}
+
+		@Override
+		public void warpDerivatives(double[] k, double x, double y, double[] xyd, double[] J) {
+			final int n = 2 + k.length;		// row length of J
+			final double s = x * x + y * y;
+			final double f = factor(k, s, J);	// J[0..3] is used as temporary storage
+			final double df = J[0];
+			final double ds1 = J[1], ds2 = J[2], ds3 = J[3];
+			final double p1 = k[3], p2 = k[4];
+			xyd[0] = x * f + 2 * p1 * x * y + p2 * (s + 2 * x * x);
+			xyd[1] = y * f + p1 * (s + 2 * y * y) + 2 * p2 * x * y;
+			final double cross = 2 * x * y * df + 2 * p1 * x + 2 * p2 * y;
+			// row 0: d(xd)/d(x, y, k0, k1, k2, p1, p2)
+			J[0] = f + 2 * x * x * df + 2 * p1 * y + 6 * p2 * x;
+			J[1] = cross;
+			J[2] = x * ds1;
+			J[3] = x * ds2;
+			J[4] = x * ds3;
+			J[5] = 2 * x * y;
+			J[6] = s + 2 * x * x;
+			// row 1: d(yd)/d(x, y, k0, k1, k2, p1, p2)
+			J[n + 0] = cross;
+			J[n + 1] = f + 2 * y * y * df + 6 * p1 * y + 2 * p2 * x;
+			J[n + 2] = y * ds1;
+			J[n + 3] = y * ds2;
+			J[n + 4] = y * ds3;
+			J[n + 5] = s + 2 * y * y;
+			J[n + 6] = 2 * x * y;
+		}
+
+		@Override
+		public void unwarp(double[] k, double xd, double yd, double[] xy) {
+			// start with the radial inverse, then solve warp(x, y) = (xd, yd) by 2D Newton iteration
+			super.unwarp(k, xd, yd, xy);
+			final double[] w = new double[2];
+			final double[] J = new double[2 * (2 + k.length)];
+			final int n = 2 + k.length;
+			for (int i = 0; i < MaxIterations; i++) {
+				warpDerivatives(k, xy[0], xy[1], w, J);
+				final double ex = w[0] - xd;
+				final double ey = w[1] - yd;
+				final double det = J[0] * J[n + 1] - J[1] * J[n];
+				if (det == 0) {
+					break;
+				}
+				final double dx = ( J[n + 1] * ex - J[1] * ey) / det;
+				final double dy = (-J[n] * ex + J[0] * ey) / det;
+				xy[0] = xy[0] - dx;
+				xy[1] = xy[1] - dy;
+				if (Math.abs(dx) + Math.abs(dy) <= Tolerance * (1 + Math.abs(xy[0]) + Math.abs(xy[1]))) {
+					break;
+				}
+			}
+		}
+	},
+
+	/**
+	 * Rational radial model with 3 numerator coefficients (k0, k1, k2) and 3 denominator coefficients (k3, k4, k5),
+	 * suitable for strong (wide-angle) distortion:
+	 * <pre>f(s) = (1 + k0 * s + k1 * s^2 + k2 * s^3) / (1 + k3 * s + k4 * s^2 + k5 * s^3)</pre>
+	 */
+	Rational(6) {
+		@Override
+		double factor(double[] k, double s, double[] df) {
+			final double num = 1 + s * (k[0] + s * (k[1] + s * k[2]));
+			final double den = 1 + s * (k[3] + s * (k[4] + s * k[5]));
+			final double f = num / den;
+			if (df != null) {
+				final double dnum = k[0] + s * (2 * k[1] + s * 3 * k[2]);
+				final double dden = k[3] + s * (2 * k[4] + s * 3 * k[5]);
+				df[0] = (dnum - f * dden) / den;
+				double sl = s;
+				for (int l = 0; l < 3; l++) {
+					df[1 + l] = sl / den;
+					df[4 + l] = -f * sl / den;
+					sl = sl * s;
+				}
+			}
+			return f;
+		}
+	},
+
+	/**
+	 * Kannala-Brandt (equidistant) fisheye model with 4 coefficients (k0, k1, k2, k3). The distorted radius is a
+	 * polynomial in the angle of incidence theta = atan(r),
+	 * <pre>R = theta * (1 + k0 * theta^2 + k1 * theta^4 + k2 * theta^6 + k3 * theta^8),</pre>
+	 * i.e., f(s) = R / r. Note that this model implies distortion even if all coefficients are zero.
+	 */
+	KannalaBrandt(4) {
+		@Override
+		double factor(double[] k, double s, double[] df) {
+			if (s < 1e-16) {	// r ~ 0: series expansion theta / r = 1 - s/3 + ...
+				if (df != null) {
+					df[0] = k[0] - 1.0 / 3;
+					for (int l = 0; l < 4; l++) {
+						df[1 + l] = 0;
+					}
+				}
+				return 1 + s * (k[0] - 1.0 / 3);
+			}
+			final double r = Math.sqrt(s);
+			final double theta = Math.atan(r);
+			final double t = theta * theta;
+			final double R = theta * (1 + t * (k[0] + t * (k[1] + t * (k[2] + t * k[3]))));
+			final double f = R / r;
+			if (df != null) {
+				final double dR = 1 + t * (3 * k[0] + t * (5 * k[1] + t * (7 * k[2] + t * 9 * k[3])));	// dR/dtheta
+				df[0] = (dR / (1 + s) - f) / (2 * s);		// df/ds = (df/dr) / (2 r)
+				double tl = theta * t / r;
+				for (int l = 0; l < 4; l++) {
+					df[1 + l] = tl;
+					tl = tl * t;
+				}
+			}
+			return f;
+		}
+
+		@Override
+		public double unwarpRadius(double[] k, double R) {
+			// solve R = theta * (1 + k0 * theta^2 + ...) for theta, then r = tan(theta)
+			double theta = Math.min(R, 1.5);
+			for (int i = 0; i < MaxIterations; i++) {
+				final double t = theta * theta;
+				final double p = theta * (1 + t * (k[0] + t * (k[1] + t * (k[2] + t * k[3])))) - R;
+				final double dp = 1 + t * (3 * k[0] + t * (5 * k[1] + t * (7 * k[2] + t * 9 * k[3])));
+				final double delta = p / dp;
+				theta = theta - delta;
+				if (Math.abs(delta) <= Tolerance * (1 + Math.abs(theta))) {
+					break;
+				}
+			}
+			return Math.tan(theta);
+		}
+	};
+
+	private static final int MaxIterations = 20;
+	private static final double Tolerance = 1e-14;
+
+	private final int parameterCount;	// fixed number of coefficients (-1 = variable)
+
+	DistortionModel(int parameterCount) {
+		this.parameterCount = parameterCount;
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	/**
+	 * Returns the number of distortion coefficients used by this model. Only the {@link #Radial} model accepts a
+	 * variable number of coefficients, for which the requested value is returned.
+	 *
+	 * @param requested the requested number of coefficients (only relevant for {@link #Radial})
+	 * @return the number of coefficients
+	 */
+	public int getParameterCount(int requested) {
+		return (parameterCount < 0) ? requested : parameterCount;
+	}
+
+	/**
+	 * Checks if the given coefficient vector is valid for this model.
+	 *
+	 * @param k a vector of distortion coefficients
+	 * @throws IllegalArgumentException if the number of coefficients does not match
+	 */
+	public void checkParameters(double[] k) {
+		if (parameterCount >= 0 && k.length != parameterCount) {
+			throw new IllegalArgumentException(
+					this + " distortion model requires " + parameterCount + " coefficients but got " + k.length);
+		}
+	}
+
+	/**
+	 * Creates a coefficient vector for this model from the coefficients (k0, k1, ...) of a polynomial radial model, as
+	 * obtained by the linear estimation in {@link RadialDistortionEstimator}. Radial coefficients are copied as far as
+	 * the model has any, all other coefficients are set to zero.
+	 *
+	 * @param kRadial the radial distortion coefficients
+	 * @param requested the requested number of coefficients (only relevant for {@link #Radial})
+	 * @return a new coefficient vector for this model
+	 */
+	public double[] fromRadial(double[] kRadial, int requested) {
+		double[] k = new double[getParameterCount(requested)];
+		final int nr;	// number of leading polynomial radial coefficients in this model
+		switch (this) {
+		case KannalaBrandt: nr = 0; break;
+		case Radial: nr = k.length; break;
+		default: nr = 3;
+		}
+		System.arraycopy(kRadial, 0, k, 0, Math.min(nr, kRadial.length));
+		return k;
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	/**
+	 * Calculates the radial scale factor f(s) of a radially symmetric model (or of the radial part of a non-symmetric
+	 * model). If {@code df} is not {@code null}, it receives df/ds at position 0 followed by the partial derivatives
+	 * df/dk_l with respect to the (radial) coefficients.
+	 */
+	abstract double factor(double[] k, double s, double[] df);
+
+	/**
+	 * Returns the radial deviation D(r) = f(r^2) - 1, such that r' = r * (1 + D(r)). For {@link #BrownConrady} only
+	 * the radial part is considered.
+	 *
+	 * @param k the distortion coefficients
+	 * @param r the undistorted radius
+	 * @return the relative radial deviation
+	 */
+	public double D(double[] k, double r) {
+		return factor(k, r * r, null) - 1;
+	}
+
+	/**
+	 * Applies this distortion model to a point in the ideal projection plane.
+	 *
+	 * @param k the distortion coefficients
+	 * @param x the undistorted x-coordinate
+	 * @param y the undistorted y-coordinate
+	 * @param xyd receives the distorted coordinates (xd, yd)
+	 */
+	public void warp(double[] k, double x, double y, double[] xyd) {
+		final double f = factor(k, x * x + y * y, null);
+		xyd[0] = f * x;
+		xyd[1] = f * y;
+	}
+
+	/**
+	 * Applies this distortion model to a point in the ideal projection plane and calculates the associated partial
+	 * derivatives. The derivatives are returned in the 2 x (2 + K) matrix J (row-major, K = number of coefficients),
+	 * with rows (xd, yd) and columns (x, y, k0, ..., k(K-1)).
+	 *
+	 * @param k the distortion coefficients
+	 * @param x the undistorted x-coordinate
+	 * @param y the undistorted y-coordinate
+	 * @param xyd receives the distorted coordinates (xd, yd)
+	 * @param J receives the 2 x (2 + K) matrix of partial derivatives
+	 */
+	public void warpDerivatives(double[] k, double x, double y, double[] xyd, double[] J) {
+		final int K = k.length;
+		final int n = 2 + K;		// row length of J
+		final double s = x * x + y * y;
+		final double f = factor(k, s, J);	// row 0 of J (df/ds, df/dk) is used as temporary storage
+		final double df = J[0];
+		xyd[0] = f * x;
+		xyd[1] = f * y;
+		for (int l = K - 1; l >= 0; l--) {	// backwards, since J[1 + l] is moved to J[2 + l]
+			final double dfk = J[1 + l];
+			J[n + 2 + l] = y * dfk;
+			J[2 + l] = x * dfk;
+		}
+		J[0] = f + 2 * x * x * df;
+		J[1] = 2 * x * y * df;
+		J[n] = J[1];
+		J[n + 1] = f + 2 * y * y * df;
+	}
+
+	/**
+	 * Finds the undistorted radius r for the given distorted radius R by solving R = r * f(r^2) with Newton's method.
+	 *
+	 * @param k the distortion coefficients
+	 * @param R the distorted radius
+	 * @return the undistorted radius
+	 */
+	public double unwarpRadius(double[] k, double R) {
+		final double[] df = new double[1 + k.length];
+		double r = R;
+		for (int i = 0; i < MaxIterations; i++) {
+			final double s = r * r;
+			final double f = factor(k, s, df);
+			final double dg = f + 2 * s * df[0];	// d(r * f(r^2))/dr
+			if (dg == 0) {
+				break;
+			}
+			final double delta = (r * f - R) / dg;
+			r = r - delta;
+			if (Math.abs(delta) <= Tolerance * (1 + Math.abs(r))) {
+				break;
+			}
+		}
+		return r;
+	}
+
+	/**
+	 * Applies the inverse of this distortion model to a point in the ideal projection plane.
+	 *
+	 * @param k the distortion coefficients
+	 * @param xd the distorted x-coordinate
+	 * @param yd the distorted y-coordinate
+	 * @param xy receives the undistorted coordinates (x, y)
+	 */
+	public void unwarp(double[] k, double xd, double yd, double[] xy) {
+		final double R = Math.sqrt(xd * xd + yd * yd);
+		if (R == 0) {
+			xy[0] = xd;
+			xy[1] = yd;
+			return;
+		}
+		final double c = unwarpRadius(k, R) / R;
+		xy[0] = c * xd;
+		xy[1] = c * yd;
+	}
+
+}
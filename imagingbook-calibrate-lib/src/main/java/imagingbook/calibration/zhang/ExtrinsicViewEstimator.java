@@ -7,10 +7,12 @@
 package imagingbook.calibration.zhang;
 
 import imagingbook.calibration.zhang.util.MathUtil;
+import imagingbook.calibration.zhang.util.SmallMatrices;
 import imagingbook.common.math.Matrix;
 import org.apache.commons.math3.linear.MatrixUtils;
 import org.apache.commons.math3.linear.RealMatrix;
-import org.apache.commons.math3.linear.RealVector;
+
+import java.util.stream.IntStream;
 
 
 /**
@@ -20,20 +22,47 @@ import org.apache.commons.math3.linear.RealVector;
  */
 public class ExtrinsicViewEstimator {
 
-	private static boolean beVerbose = false;
-	private final RealMatrix A_inv;
+	private final boolean beVerbose;
+	private final boolean parallel;		// process views in parallel
+	private final double[] A_inv = new double[9];	// 3 x 3, row-major
 
 	/**
-	 * The only constructor.
+	 * Constructor.
 	 *
 	 * @param A the 3 x 3 matrix with intrinsic camera parameters
 	 */
 	protected ExtrinsicViewEstimator(RealMatrix A) {
-		this.A_inv = MatrixUtils.inverse(A);
+		this(A, false);
 	}
 
 	/**
-	 * Estimates the extrinsic camera parameters for a sequence of homographies.
+	 * Constructor.
+	 *
+	 * @param A the 3 x 3 matrix with intrinsic camera parameters
+	 * @param beVerbose set true to print intermediate results
+	 */
+	protected ExtrinsicViewEstimator(RealMatrix A, boolean beVerbose) {
+		this(A, beVerbose, false);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param A the 3 x 3 matrix with intrinsic camera parameters
+	 * @param beVerbose set true to print intermediate results
+	 * @param parallel if true, the views are processed in parallel (ignored if verbose output is enabled)
+	 */
+	protected ExtrinsicViewEstimator(RealMatrix A, boolean beVerbose, boolean parallel) {
+		if (!SmallMatrices.inverse3x3(MathUtil.getRowPackedVector(A).toArray(), A_inv)) {
+			throw new IllegalArgumentException("intrinsic camera matrix is singular");
+		}
+		this.beVerbose = beVerbose;
+		this.parallel = parallel && !beVerbose;
+	}
+
+	/**
+	 * Estimates the extrinsic camera parameters for a sequence of homographies. The views are processed in parallel
+	 * if this was requested when constructing the estimator.
 	 *
 	 * @param homographies a set of homographies given as 3 x 3 matrices
 	 * @return the sequence of extrinsic camera parameters (views), one view for each homography
@@ -41,47 +70,72 @@ public class ExtrinsicViewEstimator {
 	protected ViewTransform[] getExtrinsics(RealMatrix[] homographies) {
 		final int M = homographies.length;
 		ViewTransform[] views = new ViewTransform[M];
-		// ExtrinsicViewEstimator eve = new ExtrinsicViewEstimator(A);
-		for (int i = 0; i < M; i++) {
-			views[i] = estimateViewTransform(homographies[i]);
+		IntStream stream = IntStream.range(0, M);
+		if (parallel) {
+			stream = stream.parallel();
 		}
+		stream.forEach(i -> views[i] = estimateViewTransform(homographies[i]));
 		return views;
 	}
 
-	private ViewTransform estimateViewTransform(RealMatrix H) {
-		RealVector h0 = H.getColumnVector(0);
-		RealVector h1 = H.getColumnVector(1);
-		RealVector h2 = H.getColumnVector(2);
+	/**
+	 * Estimates the extrinsic camera parameters for a single homography.
+	 *
+	 * @param H a homography given as a 3 x 3 matrix
+	 * @return the associated view
+	 */
+	ViewTransform estimateViewTransform(RealMatrix H) {
+		final double[][] h = H.getData();
+		final double[] r0 = new double[3];
+		final double[] r1 = new double[3];
+		final double[] r2 = new double[3];
+		final double[] t = new double[3];
+		SmallMatrices.apply3x3(A_inv, h[0][0], h[1][0], h[2][0], r0);
+		SmallMatrices.apply3x3(A_inv, h[0][1], h[1][1], h[2][1], r1);
+		SmallMatrices.apply3x3(A_inv, h[0][2], h[1][2], h[2][2], t);
 
-		double lambda = 1 / A_inv.operate(h0).getNorm();
+		// both columns should have unit length, so use the mean of the two scale estimates
+		final double n0 = Math.sqrt(r0[0] * r0[0] + r0[1] * r0[1] + r0[2] * r0[2]);
+		final double n1 = Math.sqrt(r1[0] * r1[0] + r1[1] * r1[1] + r1[2] * r1[2]);
+		final double lambda = 0.5 * (1 / n0 + 1 / n1);
 		if (beVerbose) {
-			System.out.format("lambda = %f\n", lambda);
+			System.out.format("lambda = %f (%f, %f)\n", lambda, 1 / n0, 1 / n1);
 		}
 
 		// compute the columns in the rotation matrix
-		RealVector r0 = A_inv.operate(h0).mapMultiplyToSelf(lambda);
-		RealVector r1 = A_inv.operate(h1).mapMultiplyToSelf(lambda);
-		RealVector r2 = MathUtil.crossProduct3x3(r0, r1);
-		RealVector t = A_inv.operate(h2).mapMultiplyToSelf(lambda);
+		for (int k = 0; k < 3; k++) {
+			r0[k] = lambda * r0[k];
+			r1[k] = lambda * r1[k];
+			t[k] = lambda * t[k];
+		}
+		SmallMatrices.cross3(r0, r1, r2);
 
 		if (beVerbose) {
-			System.out.println("r1 = " + Matrix.toString(r0.toArray()));
-			System.out.println("r2 = " + Matrix.toString(r1.toArray()));
-			System.out.println("t = " + Matrix.toString(t.toArray()));
+			System.out.println("r1 = " + Matrix.toString(r0));
+			System.out.println("r2 = " + Matrix.toString(r1));
+			System.out.println("t = " + Matrix.toString(t));
 		}
 
-		RealMatrix R = MatrixUtils.createRealMatrix(3, 3);
-		R.setColumnVector(0, r0);
-		R.setColumnVector(1, r1);
-		R.setColumnVector(2, r2);
+		final double[] R = {	// row-major
+				r0[0], r1[0], r2[0],
+				r0[1], r1[1], r2[1],
+				r0[2], r1[2], r2[2]};
 		if (beVerbose) {
-			System.out.println("Rinit = \n" + Matrix.toString(R.getData()));
+			System.out.println("Rinit = \n" + Matrix.toString(toArray2d(R)));
 		}
 
-		// the R matrix is probably not a real rotation matrix.  So find
-		// the closest real rotation matrix (ViewTransform takes care of this):
-		ViewTransform view = new ViewTransform(R, t);
-		return view;
+		// the R matrix is probably not a real rotation matrix, so find the closest real rotation matrix
+		if (!SmallMatrices.orthogonalize3x3(R, new double[3], new double[9])) {
+			throw new IllegalArgumentException("degenerate homography, cannot estimate view rotation");
+		}
+		return new ViewTransform(MatrixUtils.createRealMatrix(toArray2d(R)), MatrixUtils.createRealVector(t));
+	}
+
+	private static double[][] toArray2d(double[] R) {
+		return new double[][] {
+				{R[0], R[1], R[2]},
+				{R[3], R[4], R[5]},
+				{R[6], R[7], R[8]}};
 	}
 
 }
@@ -7,16 +7,12 @@
 package imagingbook.calibration.zhang;
 
 import imagingbook.calibration.zhang.util.MathUtil;
+import imagingbook.calibration.zhang.util.SmallMatrices;
 import imagingbook.common.geometry.basic.Pnt2d;
-import org.apache.commons.math3.analysis.MultivariateMatrixFunction;
-import org.apache.commons.math3.analysis.MultivariateVectorFunction;
-import org.apache.commons.math3.fitting.leastsquares.LeastSquaresFactory;
-import org.apache.commons.math3.fitting.leastsquares.LeastSquaresOptimizer.Optimum;
-import org.apache.commons.math3.fitting.leastsquares.LeastSquaresProblem;
-import org.apache.commons.math3.fitting.leastsquares.LevenbergMarquardtOptimizer;
 import org.apache.commons.math3.linear.MatrixUtils;
 import org.apache.commons.math3.linear.RealMatrix;
-import org.apache.commons.math3.linear.RealVector;
+
+import java.util.Arrays;
 
 /**
  * This class defines methods for estimating the homography (projective) transformation between pairs of 2D point sets.
@@ -25,11 +21,20 @@ import org.apache.commons.math3.linear.RealVector;
  */
 public class HomographyEstimator {
 
-	public static int MaxLmEvaluations = 1000;
-	public static int MaxLmIterations = 1000;
+	/** Default max. number of LM evaluations (used if not specified in the constructor). */
+	public static final int MaxLmEvaluations = 1000;
+	/** Default max. number of LM iterations (used if not specified in the constructor). */
+	public static final int MaxLmIterations = 1000;
+
+	private static final int LmParameters = 8;				// number of free homography elements (H[2][2] = 1)
+	private static final double LmInitialDamping = 1e-3;
+	private static final double LmCostTolerance = 1e-10;
+	private static final double LmParameterTolerance = 1e-10;
 
 	private final boolean normalizePointCoordinates;
 	private final boolean doNonlinearRefinement;
+	private final int maxLmEvaluations;
+	private final int maxLmIterations;
 
 	// ------------------------------------------------------------
 
@@ -38,8 +43,23 @@ public class HomographyEstimator {
 	}
 
 	public HomographyEstimator(boolean normalizePointCoordinates, boolean doNonlinearRefinement) {
+		this(normalizePointCoordinates, doNonlinearRefinement, MaxLmEvaluations, MaxLmIterations);
+	}
+
+	/**
+	 * Constructor with individual limits for the nonlinear (LM) refinement.
+	 *
+	 * @param normalizePointCoordinates normalize point coordinates for numerical stability
+	 * @param doNonlinearRefinement perform nonlinear refinement of the estimated homographies
+	 * @param maxLmEvaluations max. number of LM evaluations
+	 * @param maxLmIterations max. number of LM iterations
+	 */
+	public HomographyEstimator(boolean normalizePointCoordinates, boolean doNonlinearRefinement,
+			int maxLmEvaluations, int maxLmIterations) {
 		this.normalizePointCoordinates = normalizePointCoordinates;
 		this.doNonlinearRefinement = doNonlinearRefinement;
+		this.maxLmEvaluations = maxLmEvaluations;
+		this.maxLmIterations = maxLmIterations;
 	}
 
 	// ------------------------------------------------------------
@@ -53,13 +73,22 @@ public class HomographyEstimator {
 	 * @return the sequence of estimated homographies (3 x 3 matrices), one for each view
 	 */
 	public RealMatrix[] estimateHomographies(Pnt2d[] modelPts, Pnt2d[][] obsPoints) {
+		return estimateHomographies(PointSet.from(modelPts), PointSet.from(obsPoints));
+	}
+
+	/**
+	 * Estimates the homographies between a fixed set of 2D model points and multiple observations (image point sets).
+	 * The correspondence between the points is assumed to be known.
+	 *
+	 * @param modelPts a sequence of 2D points on the model (calibration target)
+	 * @param obsPoints a sequence 2D image point sets (one set per view).
+	 * @return the sequence of estimated homographies (3 x 3 matrices), one for each view
+	 */
+	public RealMatrix[] estimateHomographies(PointSet modelPts, PointSet[] obsPoints) {
 		final int M = obsPoints.length;
 		RealMatrix[] homographies = new RealMatrix[M];
 		for (int i = 0; i < M; i++) {
-			RealMatrix Hinit = estimateHomography(modelPts, obsPoints[i]);
-			RealMatrix H = doNonlinearRefinement ?
-					refineHomography(Hinit, modelPts, obsPoints[i]) : Hinit;
-			homographies[i] = H;
+			homographies[i] = estimateHomography(modelPts, obsPoints[i]);	// includes the refinement
 		}
 		return homographies;
 	}
@@ -73,42 +102,96 @@ public class HomographyEstimator {
 	 * @return the estimated homography (3 x 3 matrix)
 	 */
 	public RealMatrix estimateHomography(Pnt2d[] ptsA, Pnt2d[] ptsB) {
-		int n = ptsA.length;
+		return estimateHomography(PointSet.from(ptsA), PointSet.from(ptsB));
+	}
 
-		RealMatrix Na = (normalizePointCoordinates) ? getNormalisationMatrix(ptsA) : MatrixUtils.createRealIdentityMatrix(3);
-		RealMatrix Nb = (normalizePointCoordinates) ? getNormalisationMatrix(ptsB) : MatrixUtils.createRealIdentityMatrix(3);
-		RealMatrix M = MatrixUtils.createRealMatrix(n * 2, 9);
+	/**
+	 * Estimates the homography (projective) transformation from two given 2D point sets. The correspondence between the
+	 * points is assumed to be known.
+	 *
+	 * @param ptsA the 1st sequence of 2D points
+	 * @param ptsB the 2nd sequence of 2D points
+	 * @return the estimated homography (3 x 3 matrix)
+	 * @throws IllegalArgumentException if the point sets are of different size
+	 */
+	public RealMatrix estimateHomography(PointSet ptsA, PointSet ptsB) {
+		final int n = ptsA.size();
+		if (ptsB.size() != n) {
+			throw new IllegalArgumentException("point sets must be of equal size (" + n + " != " + ptsB.size() + ")");
+		}
 
-		for (int j = 0, r = 0; j < ptsA.length; j++) {
-			final double[] pA = transform(MathUtil.toArray(ptsA[j]), Na);
-			final double[] pB = transform(MathUtil.toArray(ptsB[j]), Nb);
-			final double xA = pA[0];
-			final double yA = pA[1];
-			final double xB = pB[0];
-			final double yB = pB[1];
-			M.setRow(r + 0, new double[]{xA, yA, 1, 0, 0, 0, -(xA * xB), -(yA * xB), -(xB)});
-			M.setRow(r + 1, new double[]{0, 0, 0, xA, yA, 1, -(xA * yB), -(yA * yB), -(yB)});
-			r = r + 2;
+		final double[] Na = new double[9];
+		final double[] Nb = new double[9];
+		if (normalizePointCoordinates) {
+			getNormalisationMatrix(ptsA, Na);
+			getNormalisationMatrix(ptsB, Nb);
+		}
+		else {
+			SmallMatrices.identity3x3(Na);
+			SmallMatrices.identity3x3(Nb);
 		}
 
-		// find h, such that M . h = 0:
-		double[] h = MathUtil.solveHomogeneousSystem(M).toArray();
+		// accumulate the 9 x 9 matrix S = M^T . M, with 2 rows of M per point pair
+		final double[] S = new double[81];
+		final double[] row = new double[9];
+		final double[] p = new double[3];
+		for (int j = 0; j < n; j++) {
+			SmallMatrices.apply3x3(Na, ptsA.getX(j), ptsA.getY(j), 1, p);
+			final double xA = p[0] / p[2];
+			final double yA = p[1] / p[2];
+			SmallMatrices.apply3x3(Nb, ptsB.getX(j), ptsB.getY(j), 1, p);
+			final double xB = p[0] / p[2];
+			final double yB = p[1] / p[2];
+			row[0] = xA; row[1] = yA; row[2] = 1;
+			row[3] = 0;  row[4] = 0;  row[5] = 0;
+			row[6] = -(xA * xB); row[7] = -(yA * xB); row[8] = -(xB);
+			addOuterProduct(S, row);
+			row[0] = 0;  row[1] = 0;  row[2] = 0;
+			row[3] = xA; row[4] = yA; row[5] = 1;
+			row[6] = -(xA * yB); row[7] = -(yA * yB); row[8] = -(yB);
+			addOuterProduct(S, row);
+		}
 
-		// assemble homography matrix H from h:
-		RealMatrix H = MatrixUtils.createRealMatrix(new double[][]
-				{{h[0], h[1], h[2]},
-						{h[3], h[4], h[5]},
-						{h[6], h[7], h[8]}});
+		// find h, such that M . h = 0 (eigenvector of S for the smallest eigenvalue):
+		final double[] evals = new double[9];
+		final double[] V = new double[81];
+		final double[] h = new double[9];
+		SmallMatrices.eigenSymmetric(S, 9, evals, V);
+		SmallMatrices.getColumn(V, 9, SmallMatrices.idxMin(evals, 9), h);
+
+		// de-normalize the homography: H = Nb^-1 . h . Na
+		final double[] Nbi = new double[9];
+		final double[] T = new double[9];
+		final double[] H = new double[9];
+		if (!SmallMatrices.inverse3x3(Nb, Nbi)) {
+			throw new IllegalArgumentException("estimateHomography(): degenerate point set");
+		}
+		SmallMatrices.multiply3x3(Nbi, h, T);
+		SmallMatrices.multiply3x3(T, Na, H);
 
-		// de-normalize the homography
-		H = MatrixUtils.inverse(Nb).multiply(H).multiply(Na);
+		// rescale H such that H[2][2] = 1 (unless H[2][2] close to 0)
+		if (Math.abs(H[8]) > 10e-8) {
+			scale(H);
+		}
 
-		// rescale M such that H[2][2] = 1 (unless H[2][2] close to 0)
-		if (Math.abs(H.getEntry(2, 2)) > 10e-8) {
-			H = H.scalarMultiply(1.0 / H.getEntry(2, 2));
+		if (doNonlinearRefinement) {
+			refine(H, ptsA, ptsB, Na, Nb);
 		}
+		return toMatrix(H);
+	}
 
-		return doNonlinearRefinement ? refineHomography(H, ptsA, ptsB) : H;
+	// adds the outer product r . r^T to the symmetric n x n matrix S
+	private static void addOuterProduct(double[] S, double[] r) {
+		final int n = r.length;
+		for (int i = 0; i < n; i++) {
+			final double ri = r[i];
+			if (ri == 0) {
+				continue;
+			}
+			for (int k = 0; k < n; k++) {
+				S[i * n + k] = S[i * n + k] + ri * r[k];
+			}
+		}
 	}
 
 
@@ -121,76 +204,232 @@ public class HomographyEstimator {
 	 * @return the refined homography matrix
 	 */
 	public RealMatrix refineHomography(RealMatrix Hinit, Pnt2d[] pntsA, Pnt2d[] pntsB) {
-		final int M = pntsA.length;
-		double[] observed = new double[2 * M];
-		for (int i = 0; i < M; i++) {
-			observed[i * 2 + 0] = pntsB[i].getX();
-			observed[i * 2 + 1] = pntsB[i].getY();
-		}
-		MultivariateVectorFunction value = getValueFunction(pntsA);
-		MultivariateMatrixFunction jacobian = getJacobianFunction(pntsA);
-
-		LeastSquaresProblem problem = LeastSquaresFactory.create(
-				LeastSquaresFactory.model(value, jacobian),
-				MatrixUtils.createRealVector(observed),
-				MathUtil.getRowPackedVector(Hinit),
-				null,  // ConvergenceChecker
-				MaxLmEvaluations,
-				MaxLmIterations);
+		return refineHomography(Hinit, PointSet.from(pntsA), PointSet.from(pntsB));
+	}
 
-		LevenbergMarquardtOptimizer lm = new LevenbergMarquardtOptimizer();
-		Optimum result = lm.optimize(problem);
+	/**
+	 * Refines the initial homography by non-linear (Levenberg-Marquart) optimization. The scale of H is fixed by
+	 * H[2][2] = 1, i.e., only the remaining 8 elements are optimized. If point coordinates are normalized (see the
+	 * constructor), the optimization runs on the normalized homography Nb . H . Na^-1 (with the normalization matrices
+	 * Na, Nb of both point sets), which is much better conditioned and converges in fewer iterations. The residuals
+	 * are scaled back to the original (pixel) units of pntsB, so the result minimizes the same geometric error in
+	 * either case.
+	 * <p>
+	 * Since the problem is tiny, a specialized LM loop is used (instead of the generic commons-math optimizer), which
+	 * accumulates the 8 x 8 normal equations directly from the residuals and their derivatives in a single pass over
+	 * the points, without storing the Jacobian.
+	 * </p>
+	 *
+	 * @param Hinit the initial (estimated) homography matrix
+	 * @param pntsA the 1st sequence of 2D points
+	 * @param pntsB the 2nd sequence of 2D points
+	 * @return the refined homography matrix
+	 */
+	public RealMatrix refineHomography(RealMatrix Hinit, PointSet pntsA, PointSet pntsB) {
+		final double[] Na = new double[9];
+		final double[] Nb = new double[9];
+		if (normalizePointCoordinates) {
+			getNormalisationMatrix(pntsA, Na);
+			getNormalisationMatrix(pntsB, Nb);
+		}
+		else {
+			SmallMatrices.identity3x3(Na);
+			SmallMatrices.identity3x3(Nb);
+		}
+		final double[] H = MathUtil.getRowPackedVector(Hinit).toArray();
+		refine(H, pntsA, pntsB, Na, Nb);
+		return toMatrix(H);
+	}
 
-		RealVector optimum = result.getPoint();
-		RealMatrix Hopt = MathUtil.fromRowPackedVector(optimum, 3, 3);
-		int iterations = result.getIterations();
-		if (iterations >= MaxLmIterations) {
-			throw new RuntimeException("refineHomography(): max. number of iterations exceeded");
+	/**
+	 * Refines the homography H in the coordinates normalized by Na and Nb (see
+	 * {@link #refineHomography(RealMatrix, PointSet, PointSet)}). On return, H is scaled such that H[2][2] = 1.
+	 *
+	 * @param H the 9 elements of the homography (row-packed), modified
+	 * @param pntsA the 1st sequence of 2D points
+	 * @param pntsB the 2nd sequence of 2D points
+	 * @param Na the (affine) normalization matrix of pntsA
+	 * @param Nb the (affine) normalization matrix of pntsB, with zero skew
+	 */
+	private void refine(double[] H, PointSet pntsA, PointSet pntsB, double[] Na, double[] Nb) {
+		final double[] Nai = new double[9];
+		final double[] Nbi = new double[9];
+		if (!SmallMatrices.inverse3x3(Na, Nai) || !SmallMatrices.inverse3x3(Nb, Nbi)) {
+			throw new IllegalArgumentException("refineHomography(): degenerate point set");
 		}
-		// System.out.println("LM optimizer iterations " + iterations);
+		// normalized homography Hn = Nb . H . Na^-1
+		final double[] T = new double[9];
+		final double[] h = new double[9];
+		SmallMatrices.multiply3x3(Nb, H, T);
+		SmallMatrices.multiply3x3(T, Nai, h);
+		scale(h);
+
+		refineLm(h, normalize(pntsA, Na), normalize(pntsB, Nb), 1 / Nb[0], 1 / Nb[4]);
+
+		// de-normalize: H = Nb^-1 . Hn . Na
+		SmallMatrices.multiply3x3(Nbi, h, T);
+		SmallMatrices.multiply3x3(T, Na, H);
+		scale(H);
+	}
 
-		return Hopt.scalarMultiply(1.0 / Hopt.getEntry(2, 2));
+	// scales H such that H[2][2] = 1
+	private static void scale(double[] H) {
+		final double s = 1 / H[8];
+		for (int k = 0; k < 9; k++) {
+			H[k] = s * H[k];
+		}
 	}
 
+	// applies the affine normalization matrix N to all points (returns the same point set if N is the identity)
+	private static PointSet normalize(PointSet pts, double[] N) {
+		if (N[0] == 1 && N[1] == 0 && N[2] == 0 && N[3] == 0 && N[4] == 1 && N[5] == 0) {
+			return pts;
+		}
+		final double[] xy = new double[2 * pts.size()];
+		for (int j = 0; j < pts.size(); j++) {
+			final double x = pts.getX(j);
+			final double y = pts.getY(j);
+			xy[2 * j]     = N[0] * x + N[1] * y + N[2];
+			xy[2 * j + 1] = N[3] * x + N[4] * y + N[5];
+		}
+		return PointSet.wrap(xy);
+	}
 
-	private MultivariateVectorFunction getValueFunction(final Pnt2d[] X) {
-		// System.out.println("MultivariateVectorFunction getValueFunction");
-		return new MultivariateVectorFunction() {
-			public double[] value(double[] h) {
+	private static RealMatrix toMatrix(double[] H) {
+		return MatrixUtils.createRealMatrix(new double[][]
+				{{H[0], H[1], H[2]},
+				 {H[3], H[4], H[5]},
+				 {H[6], H[7], H[8]}});
+	}
 
-				final double[] Y = new double[X.length * 2];
-				for (int j = 0; j < X.length; j++) {
-					final double x = X[j].getX();
-					final double y = X[j].getY();
-					final double w = h[6] * x + h[7] * y + h[8];
-					Y[j * 2 + 0] = (h[0] * x + h[1] * y + h[2]) / w;
-					Y[j * 2 + 1] = (h[3] * x + h[4] * y + h[5]) / w;
+	/**
+	 * Levenberg-Marquardt minimization of the (weighted) squared distances between the points of pntsB and the points
+	 * of pntsA mapped by h (with h[8] = 1 fixed). The work arrays are allocated once per call.
+	 *
+	 * @param h the 9 elements of the homography (row-packed), modified
+	 * @param pntsA the 1st sequence of 2D points
+	 * @param pntsB the 2nd sequence of 2D points
+	 * @param wu the weight of the x-residuals
+	 * @param wv the weight of the y-residuals
+	 */
+	private void refineLm(double[] h, PointSet pntsA, PointSet pntsB, double wu, double wv) {
+		final int P = LmParameters;
+		double[] JtJ = new double[P * P];
+		double[] Jtr = new double[P];
+		double[] JtJtrial = new double[P * P];
+		double[] Jtrtrial = new double[P];
+		final double[] S = new double[P * P];
+		final double[] delta = new double[P];
+		final double[] hTrial = h.clone();
+
+		double cost = accumulate(h, pntsA, pntsB, wu, wv, JtJ, Jtr);
+		int evaluations = 1;
+		double mu = LmInitialDamping;	// damping factor (relative to the diagonal of JtJ)
+		for (int iteration = 1; iteration <= maxLmIterations; iteration++) {
+			while (true) {
+				// solve (JtJ + mu . diag(JtJ)) . delta = -Jtr
+				System.arraycopy(JtJ, 0, S, 0, P * P);
+				for (int k = 0; k < P; k++) {
+					S[k * P + k] = S[k * P + k] + mu * Math.max(JtJ[k * P + k], Double.MIN_NORMAL);
+					delta[k] = -Jtr[k];
+				}
+				if (SmallMatrices.solveCholesky(S, P, delta, delta)) {
+					double norm = 0, step = 0;
+					for (int k = 0; k < P; k++) {
+						hTrial[k] = h[k] + delta[k];
+						norm = norm + h[k] * h[k];
+						step = step + delta[k] * delta[k];
+					}
+					if (evaluations++ >= maxLmEvaluations) {
+						throw new RuntimeException("refineHomography(): max. number of evaluations exceeded");
+					}
+					final double trialCost = accumulate(hTrial, pntsA, pntsB, wu, wv, JtJtrial, Jtrtrial);
+					if (trialCost <= cost) {	// accept the step, swap the normal equations
+						System.arraycopy(hTrial, 0, h, 0, P);
+						double[] tmp = JtJ; JtJ = JtJtrial; JtJtrial = tmp;
+						tmp = Jtr; Jtr = Jtrtrial; Jtrtrial = tmp;
+						final double reduction = cost - trialCost;
+						cost = trialCost;
+						mu = Math.max(mu / 10, 1e-15);
+						if (reduction <= LmCostTolerance * cost ||
+								step <= LmParameterTolerance * LmParameterTolerance * norm) {
+							return;
+						}
+						break;
+					}
+				}
+				mu = 10 * mu;
+				if (mu > 1e15) {	// no further improvement possible
+					return;
 				}
-				return Y;
 			}
-		};
+		}
+		throw new RuntimeException("refineHomography(): max. number of iterations exceeded");
 	}
 
-	protected MultivariateMatrixFunction getJacobianFunction(final Pnt2d[] X) {
-		return new MultivariateMatrixFunction() {
-			public double[][] value(double[] h) {
-				final double[][] J = new double[2 * X.length][];
-				for (int i = 0; i < X.length; i++) {
-					final double x = X[i].getX();
-					final double y = X[i].getY();
-
-					final double w = h[6] * x + h[7] * y + h[8];
-					final double w2 = w * w;
-
-					final double sx = h[0] * x + h[1] * y + h[2];
-					J[2 * i + 0] = new double[]{x / w, y / w, 1 / w, 0, 0, 0, -sx * x / w2, -sx * y / w2, -sx / w2};
-
-					final double sy = h[3] * x + h[4] * y + h[5];
-					J[2 * i + 1] = new double[]{0, 0, 0, x / w, y / w, 1 / w, -sy * x / w2, -sy * y / w2, -sy / w2};
-				}
-				return J;
+	/**
+	 * Calculates the weighted residuals r = W . (h(a) - b) and their derivatives w.r.t. the 8 free elements of h for
+	 * all point pairs (a, b) in a single pass and accumulates the normal equations J^T . J and J^T . r.
+	 *
+	 * @param h the 9 elements of the homography (row-packed, h[8] = 1)
+	 * @param pntsA the 1st sequence of 2D points
+	 * @param pntsB the 2nd sequence of 2D points
+	 * @param wu the weight of the x-residuals
+	 * @param wv the weight of the y-residuals
+	 * @param JtJ receives the 8 x 8 matrix J^T . J
+	 * @param Jtr receives the 8-vector J^T . r
+	 * @return the sum of squared residuals
+	 */
+	private static double accumulate(double[] h, PointSet pntsA, PointSet pntsB, double wu, double wv,
+			double[] JtJ, double[] Jtr) {
+		final int P = LmParameters;
+		Arrays.fill(JtJ, 0);
+		Arrays.fill(Jtr, 0);
+		double cost = 0;
+		for (int j = 0; j < pntsA.size(); j++) {
+			final double x = pntsA.getX(j);
+			final double y = pntsA.getY(j);
+			final double w = h[6] * x + h[7] * y + h[8];
+			final double sx = h[0] * x + h[1] * y + h[2];
+			final double sy = h[3] * x + h[4] * y + h[5];
+			final double iw = 1 / w;
+			final double u = sx * iw;
+			final double v = sy * iw;
+			final double ru = wu * (u - pntsB.getX(j));
+			final double rv = wv * (v - pntsB.getY(j));
+			cost = cost + ru * ru + rv * rv;
+
+			// rows of J: du/dh = wu (x, y, 1, 0, 0, 0, -u x, -u y) / w, dv/dh = wv (0, 0, 0, x, y, 1, -v x, -v y) / w
+			final double a0 = x * iw, a1 = y * iw, a2 = iw;
+			final double b0 = wu * a0, b1 = wu * a1, b2 = wu * a2;
+			final double c0 = wv * a0, c1 = wv * a1, c2 = wv * a2;
+			final double gu0 = -u * b0, gu1 = -u * b1;
+			final double gv0 = -v * c0, gv1 = -v * c1;
+
+			JtJ[0 * P + 0] += b0 * b0; JtJ[0 * P + 1] += b0 * b1; JtJ[0 * P + 2] += b0 * b2;
+			JtJ[1 * P + 1] += b1 * b1; JtJ[1 * P + 2] += b1 * b2; JtJ[2 * P + 2] += b2 * b2;
+			JtJ[3 * P + 3] += c0 * c0; JtJ[3 * P + 4] += c0 * c1; JtJ[3 * P + 5] += c0 * c2;
+			JtJ[4 * P + 4] += c1 * c1; JtJ[4 * P + 5] += c1 * c2; JtJ[5 * P + 5] += c2 * c2;
+			JtJ[0 * P + 6] += b0 * gu0; JtJ[0 * P + 7] += b0 * gu1;
+			JtJ[1 * P + 6] += b1 * gu0; JtJ[1 * P + 7] += b1 * gu1;
+			JtJ[2 * P + 6] += b2 * gu0; JtJ[2 * P + 7] += b2 * gu1;
+			JtJ[3 * P + 6] += c0 * gv0; JtJ[3 * P + 7] += c0 * gv1;
+			JtJ[4 * P + 6] += c1 * gv0; JtJ[4 * P + 7] += c1 * gv1;
+			JtJ[5 * P + 6] += c2 * gv0; JtJ[5 * P + 7] += c2 * gv1;
+			Jtr[0] += b0 * ru; Jtr[1] += b1 * ru; Jtr[2] += b2 * ru;
+			Jtr[3] += c0 * rv; Jtr[4] += c1 * rv; Jtr[5] += c2 * rv;
+			JtJ[6 * P + 6] += gu0 * gu0 + gv0 * gv0;
+			JtJ[6 * P + 7] += gu0 * gu1 + gv0 * gv1;
+			JtJ[7 * P + 7] += gu1 * gu1 + gv1 * gv1;
+			Jtr[6] += gu0 * ru + gv0 * rv;
+			Jtr[7] += gu1 * ru + gv1 * rv;
+		}
+		for (int p = 0; p < P; p++) {	// symmetrize
+			for (int q = 0; q < p; q++) {
+				JtJ[p * P + q] = JtJ[q * P + p];
 			}
-		};
+		}
+		return cost;
 	}
 
 	static double[] transform(double[] p, RealMatrix M3x3) {
@@ -202,14 +441,14 @@ public class HomographyEstimator {
 		return MathUtil.toCartesian(pAt); // need to de-homogenize, since pAt[2] == 1?
 	}
 
-	private RealMatrix getNormalisationMatrix(Pnt2d[] pnts) {
-		final int N = pnts.length;
+	private void getNormalisationMatrix(PointSet pnts, double[] Nm) {
+		final int N = pnts.size();
 		double[] x = new double[N];
 		double[] y = new double[N];
 
 		for (int i = 0; i < N; i++) {
-			x[i] = pnts[i].getX();
-			y[i] = pnts[i].getY();
+			x[i] = pnts.getX(i);
+			y[i] = pnts.getY(i);
 		}
 
 		// calculate the means in x/y
@@ -223,12 +462,9 @@ public class HomographyEstimator {
 		double sx = Math.sqrt(2 / varx);
 		double sy = Math.sqrt(2 / vary);
 
-		RealMatrix matrixA = MatrixUtils.createRealMatrix(new double[][]{
-				{sx, 0, -sx * meanx},
-				{0, sy, -sy * meany},
-				{0, 0, 1}});
-
-		return matrixA;
+		Nm[0] = sx; Nm[1] = 0;  Nm[2] = -sx * meanx;
+		Nm[3] = 0;  Nm[4] = sy; Nm[5] = -sy * meany;
+		Nm[6] = 0;  Nm[7] = 0;  Nm[8] = 1;
 	}
 
 }
@@ -9,43 +9,139 @@ package imagingbook.calibration.zhang;
 import imagingbook.common.geometry.basic.Pnt2d;
 import org.apache.commons.math3.analysis.MultivariateMatrixFunction;
 import org.apache.commons.math3.analysis.MultivariateVectorFunction;
+import org.apache.commons.math3.exception.TooManyEvaluationsException;
+import org.apache.commons.math3.exception.TooManyIterationsException;
+import org.apache.commons.math3.fitting.leastsquares.LeastSquaresAdapter;
 import org.apache.commons.math3.fitting.leastsquares.LeastSquaresFactory;
 import org.apache.commons.math3.fitting.leastsquares.LeastSquaresOptimizer.Optimum;
+import org.apache.commons.math3.fitting.leastsquares.LeastSquaresProblem;
 import org.apache.commons.math3.fitting.leastsquares.LevenbergMarquardtOptimizer;
 import org.apache.commons.math3.fitting.leastsquares.MultivariateJacobianFunction;
 import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.linear.RealVector;
+import org.apache.commons.math3.util.Incrementor;
+import org.apache.commons.math3.util.Pair;
 
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Abstract super-class for non-linear optimizers used for final, overall optimization of calibration parameters. The
- * actual optimization is performed by the sub-classes.
+ * actual optimization is performed by the sub-classes. Convergence criteria and the computational budget (max.
+ * iterations/evaluations, time limit) are taken from the {@link Calibrator.Parameters} passed to the constructor.
+ * If the budget runs out before convergence, the best estimate found so far is used and the reason is reported by
+ * {@link #getStatus()}.
  *
  * @author WB
  */
 public abstract class NonlinearOptimizer {
 
-	private static int maxEvaluations = 1000;
-	private static int maxIterations = 1000;
+	/**
+	 * Termination status of the nonlinear optimization.
+	 */
+	public enum Status {
+		/** The optimizer converged regularly. */
+		Converged,
+		/** The max. number of iterations was exceeded, the best estimate found so far is used. */
+		MaxIterationsExceeded,
+		/** The max. number of model evaluations was exceeded, the best estimate found so far is used. */
+		MaxEvaluationsExceeded,
+		/** The time limit was exceeded, the best estimate found so far is used. */
+		TimeLimitExceeded,
+		/** The run was cancelled because its cost fell behind a concurrent run (see {@link CostCutoff}). */
+		Cancelled
+	}
+
+	/**
+	 * Cost bound shared by concurrent optimizations of the same problem (multi-start calibration). Each run reports
+	 * its lowest cost; a run is cancelled once its own lowest cost exceeds the lowest cost of all runs by more than a
+	 * given factor. Instances are thread-safe.
+	 */
+	static class CostCutoff {
+		private final double factor;
+		private final AtomicLong bestCost = new AtomicLong(Double.doubleToLongBits(Double.POSITIVE_INFINITY));
+
+		/**
+		 * Constructor.
+		 *
+		 * @param factor the max. ratio between the cost of a run and the lowest cost of all runs (&gt; 1)
+		 */
+		CostCutoff(double factor) {
+			this.factor = factor;
+		}
+
+		void update(double cost) {
+			long prev = bestCost.get();
+			while (cost < Double.longBitsToDouble(prev) && !bestCost.compareAndSet(prev, Double.doubleToLongBits(cost))) {
+				prev = bestCost.get();
+			}
+		}
+
+		boolean isBehind(double cost) {
+			return cost > factor * Double.longBitsToDouble(bestCost.get());
+		}
+	}
 
-	final Pnt2d[] modelPts;
-	final Pnt2d[][] obsPts;
+	private static final int CutoffMinEvaluations = 5;	// evaluations before a run may be cancelled
+
+	private final int maxEvaluations;
+	private final int maxIterations;
+	private final double costRelativeTolerance;
+	private final double parameterRelativeTolerance;
+	private final long timeLimit;	// time limit in milliseconds (0 = no limit)
+	private final boolean computeCovariance;
+
+	final PointSet modelPts;
+	final PointSet[] obsPts;
 	final int M;        // number of views
 	final int N;        // number of model points
-	int camParLength;        // number of camera parameters (7)
+	int camParLength;        // number of camera parameters (5 + number of distortion coefficients)
 	int viewParLength;    // number of view parameters (6)
+	DistortionModel distortionModel;	// lens distortion model (taken from the initial camera)
 
 	private Camera initCam = null;
 	private Camera finalCamera = null;
 	private ViewTransform[] initViews = null;
 	private ViewTransform[] finalViews = null;
+	private Status status = null;
+	private int iterations = 0;
+	private double finalCost = Double.NaN;
+	private double[] finalResiduals = null;
+	private ParameterCovariance covariance = null;
+	private CostCutoff cutoff = null;
 
 	NonlinearOptimizer(Pnt2d[] modelPts, Pnt2d[][] obsPts) {
+		this(modelPts, obsPts, null);
+	}
+
+	NonlinearOptimizer(Pnt2d[] modelPts, Pnt2d[][] obsPts, Calibrator.Parameters params) {
+		this(PointSet.from(modelPts), PointSet.from(obsPts), params);
+	}
+
+	NonlinearOptimizer(PointSet modelPts, PointSet[] obsPts, Calibrator.Parameters params) {
+		if (params == null) {
+			params = new Calibrator.Parameters();
+		}
 		this.modelPts = modelPts;
 		this.obsPts = obsPts;
 		this.M = obsPts.length;
-		this.N = modelPts.length;
+		this.N = modelPts.size();
+		this.maxEvaluations = params.maxEvaluations;
+		this.maxIterations = params.maxIterations;
+		this.costRelativeTolerance = params.costRelativeTolerance;
+		this.parameterRelativeTolerance = params.parameterRelativeTolerance;
+		this.timeLimit = params.timeLimit;
+		this.computeCovariance = params.computeCovariance;
+	}
+
+	/**
+	 * Makes this optimizer take part in a group of concurrent runs with a shared cost bound (see {@link CostCutoff}).
+	 *
+	 * @param cutoff the shared cost bound (or {@code null} for none)
+	 */
+	void setCostCutoff(CostCutoff cutoff) {
+		this.cutoff = cutoff;
 	}
 
 	/**
@@ -57,6 +153,7 @@ public abstract class NonlinearOptimizer {
 	void optimize(Camera initCam, ViewTransform[] initViews) {
 		this.initCam = initCam;
 		this.initViews = initViews;
+		this.distortionModel = initCam.getDistortionModel();
 		this.camParLength = initCam.getParameterVector().length;
 		this.viewParLength = initViews[0].getParameters().length;
 
@@ -66,18 +163,148 @@ public abstract class NonlinearOptimizer {
 		RealVector start = makeInitialParameters();
 		RealVector observed = makeObservedVector();
 
-		MultivariateJacobianFunction model = LeastSquaresFactory.model(V, J);
-		LevenbergMarquardtOptimizer lm = new LevenbergMarquardtOptimizer();
-		Optimum result = lm.optimize(LeastSquaresFactory.create(
+		BudgetedModel model = new BudgetedModel(makeModelFun(), observed);
+		CountingProblem problem = new CountingProblem(LeastSquaresFactory.create(
 				model,
 				observed,
 				start,
 				null,
 				maxEvaluations,
 				maxIterations));
+		LevenbergMarquardtOptimizer lm = new LevenbergMarquardtOptimizer()
+				.withCostRelativeTolerance(costRelativeTolerance)
+				.withParameterRelativeTolerance(parameterRelativeTolerance);
 
-//		System.out.println(NonlinearOptimizer.class.getSimpleName() + "; iterations = " + result.getIterations());
-		updateEstimates(result.getPoint());
+		RealVector point;
+		double[] residuals = null;	// projected - observed
+		try {
+			Optimum result = lm.optimize(problem);
+			point = result.getPoint();
+			residuals = result.getResiduals().mapMultiply(-1).toArray();	// the optimizer's residuals are observed - projected
+			status = Status.Converged;
+		} catch (TooManyIterationsException e) {
+			point = model.getBestPoint(start);
+			status = Status.MaxIterationsExceeded;
+		} catch (TooManyEvaluationsException e) {
+			point = model.getBestPoint(start);
+			status = Status.MaxEvaluationsExceeded;
+		} catch (TimeLimitExceededException e) {
+			point = model.getBestPoint(start);
+			status = Status.TimeLimitExceeded;
+		} catch (CancelledException e) {
+			point = model.getBestPoint(start);
+			status = Status.Cancelled;
+		}
+		iterations = problem.getIterations();
+
+//		System.out.println(NonlinearOptimizer.class.getSimpleName() + "; iterations = " + iterations);
+		updateEstimates(point);
+		if (residuals == null) {	// optimization was aborted, evaluate at the best point
+			residuals = getResiduals(V.value(point.toArray()), observed);
+		}
+		finalResiduals = residuals;
+		finalCost = 0;
+		for (double r : residuals) {
+			finalCost = finalCost + r * r;
+		}
+		if (computeCovariance) {
+			covariance = ParameterCovariance.fromJacobian(J.value(point.toArray()), camParLength, M, N, finalCost);
+		}
+	}
+
+	/**
+	 * Wraps the model function of the optimization problem, keeps track of the parameter point with the lowest cost
+	 * evaluated so far and enforces the time limit. The first evaluation is always performed.
+	 */
+	private class BudgetedModel implements MultivariateJacobianFunction {
+		private final MultivariateJacobianFunction model;
+		private final double[] observed;
+		private final long startTime = System.nanoTime();
+		private final long maxTime = timeLimit * 1000000L;	// time limit in nanoseconds
+		private RealVector bestPoint = null;
+		private double bestCost = Double.POSITIVE_INFINITY;
+		private int evaluations = 0;
+
+		BudgetedModel(MultivariateJacobianFunction model, RealVector observed) {
+			this.model = model;
+			this.observed = observed.toArray();
+		}
+
+		@Override
+		public Pair<RealVector, RealMatrix> value(RealVector point) {
+			if (timeLimit > 0 && bestPoint != null && System.nanoTime() - startTime > maxTime) {
+				throw new TimeLimitExceededException();
+			}
+			Pair<RealVector, RealMatrix> vj = model.value(point);
+			RealVector y = vj.getFirst();
+			double cost = 0;
+			for (int i = 0; i < observed.length; i++) {
+				double r = observed[i] - y.getEntry(i);
+				cost = cost + r * r;
+			}
+			if (cost < bestCost) {
+				bestCost = cost;
+				bestPoint = point.copy();
+			}
+			evaluations++;
+			if (cutoff != null) {
+				cutoff.update(bestCost);
+				if (evaluations > CutoffMinEvaluations && cutoff.isBehind(bestCost)) {
+					throw new CancelledException();
+				}
+			}
+			return vj;
+		}
+
+		RealVector getBestPoint(RealVector defaultPoint) {
+			return (bestPoint != null) ? bestPoint : defaultPoint;
+		}
+	}
+
+	/**
+	 * Wraps the least-squares problem to keep the iteration counter used by the optimizer (the wrapped problem returns a
+	 * new counter on every call), so the number of iterations is also available if the optimization is aborted.
+	 */
+	@SuppressWarnings("deprecation")	// the counter type is prescribed by LeastSquaresProblem
+	private static class CountingProblem extends LeastSquaresAdapter {
+		private final Incrementor iterationCounter;
+
+		CountingProblem(LeastSquaresProblem problem) {
+			super(problem);
+			this.iterationCounter = problem.getIterationCounter();
+		}
+
+		@Override
+		public Incrementor getIterationCounter() {
+			return iterationCounter;
+		}
+
+		// the counter is incremented before the limit is checked, so it may be one above the limit
+		int getIterations() {
+			return Math.min(iterationCounter.getCount(), iterationCounter.getMaximalCount());
+		}
+	}
+
+	/**
+	 * Thrown by {@link BudgetedModel} to abort the optimization once the time limit is exceeded.
+	 */
+	@SuppressWarnings("serial")
+	private static class TimeLimitExceededException extends RuntimeException {
+	}
+
+	/**
+	 * Thrown by {@link BudgetedModel} to abort the optimization once its cost falls behind (see {@link CostCutoff}).
+	 */
+	@SuppressWarnings("serial")
+	private static class CancelledException extends RuntimeException {
+	}
+
+	private static double[] getResiduals(double[] y, RealVector observed) {
+		double[] r = new double[y.length];
+		for (int i = 0; i < y.length; i++) {
+			r[i] = y[i] - observed.getEntry(i);
+		}
+		return r;
 	}
 
 	/**
@@ -94,6 +321,18 @@ public abstract class NonlinearOptimizer {
 	 */
 	abstract MultivariateMatrixFunction makeJacobianFun();
 
+	/**
+	 * Returns the model function used by the optimizer, which calculates the values and the Jacobian at the same
+	 * parameter point. By default, the functions returned by {@link #makeValueFun()} and {@link #makeJacobianFun()} are
+	 * called separately. Subclasses may override this method to evaluate both in a single pass, sharing the view
+	 * rotations and projected points.
+	 *
+	 * @return a model function returning values and Jacobian
+	 */
+	MultivariateJacobianFunction makeModelFun() {
+		return LeastSquaresFactory.model(makeValueFun(), makeJacobianFun());
+	}
+
 
 	/**
 	 * Common value function for optimizers defined in sub-classes.
@@ -103,17 +342,22 @@ public abstract class NonlinearOptimizer {
 		@Override
 		public double[] value(double[] params) {
 			final double[] a = Arrays.copyOfRange(params, 0, camParLength);
-			final Camera cam = new Camera(a);
+			final Camera cam = makeCamera(a);
 			final double[] Y = new double[2 * M * N];
+			// work arrays for batch projection (see Camera, ProjectionKernel)
+			final double[] x = new double[N];
+			final double[] y = new double[N];
+			final double[] u = new double[N];
+			final double[] v = new double[N];
 			int c = 0;
 			for (int m = 0; m < M; m++) {
 				int q = camParLength + m * viewParLength;
 				double[] w = Arrays.copyOfRange(params, q, q + viewParLength);
 				ViewTransform view = new ViewTransform(w);
+				cam.project(view, modelPts, x, y, u, v);
 				for (int n = 0; n < N; n++) {
-					double[] uv = cam.project(view, modelPts[n]);
-					Y[c * 2 + 0] = uv[0];
-					Y[c * 2 + 1] = uv[1];
+					Y[c * 2 + 0] = u[n];
+					Y[c * 2 + 1] = v[n];
 					c = c + 1;
 				}
 			}
@@ -121,6 +365,16 @@ public abstract class NonlinearOptimizer {
 		}
 	}
 
+	/**
+	 * Creates a camera (with the distortion model of the initial camera) from the given parameter vector.
+	 *
+	 * @param s the camera parameters (alpha, beta, gamma, uc, vc, k0, k1, ...)
+	 * @return a new camera
+	 */
+	Camera makeCamera(double[] s) {
+		return new Camera(distortionModel, s);
+	}
+
 	// ---------------------------------------------------------------------
 
 	private RealVector makeInitialParameters() {
@@ -148,11 +402,12 @@ public abstract class NonlinearOptimizer {
 	 */
 	RealVector makeObservedVector() {
 		double[] obs = new double[M * N * 2];
-		for (int i = 0, k = 0; i < M; i++) {
-			for (int j = 0; j < N; j++, k++) {
-				obs[k * 2 + 0] = obsPts[i][j].getX();
-				obs[k * 2 + 1] = obsPts[i][j].getY();
+		for (int i = 0; i < M; i++) {
+			if (obsPts[i].size() != N) {
+				throw new IllegalArgumentException("view " + i + ": number of observed points (" + obsPts[i].size() +
+						") does not match the model (" + N + ")");
 			}
+			System.arraycopy(obsPts[i].data(), obsPts[i].offset(), obs, 2 * N * i, 2 * N);
 		}
 		// obs = [u_{0,0}, v_{0,0}, u_{0,1}, v_{0,1}, ..., u_{M-1,N-1}, v_{M-1,N-1}]
 		return new ArrayRealVector(obs);
@@ -161,7 +416,7 @@ public abstract class NonlinearOptimizer {
 	private void updateEstimates(RealVector parameters) {
 		double[] c = parameters.toArray();
 		double[] s = Arrays.copyOfRange(c, 0, camParLength);
-		finalCamera = new Camera(s);
+		finalCamera = makeCamera(s);
 
 		finalViews = new ViewTransform[M];
 		int start = s.length;
@@ -190,4 +445,52 @@ public abstract class NonlinearOptimizer {
 		return finalViews;
 	}
 
+	/**
+	 * Returns the termination status of the last optimization.
+	 *
+	 * @return the termination status
+	 */
+	Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * Returns the final cost (sum of squared projection errors) of the last optimization.
+	 *
+	 * @return the final cost
+	 */
+	double getFinalCost() {
+		return finalCost;
+	}
+
+	/**
+	 * Returns the residuals (projected - observed) at the solution of the last optimization, as interleaved
+	 * coordinates (du0, dv0, du1, dv1, ...) of all views. The returned array is not copied.
+	 *
+	 * @return the final residual vector of length 2MN
+	 */
+	double[] getFinalResiduals() {
+		return finalResiduals;
+	}
+
+	/**
+	 * Returns the parameter covariance at the solution of the last optimization.
+	 *
+	 * @return the parameter covariance or {@code null} if not computed (see
+	 * {@link Calibrator.Parameters#computeCovariance})
+	 */
+	ParameterCovariance getCovariance() {
+		return covariance;
+	}
+
+	/**
+	 * Returns the number of iterations performed by the last optimization, also if it was aborted (see
+	 * {@link #getStatus()}).
+	 *
+	 * @return the number of iterations
+	 */
+	int getIterations() {
+		return iterations;
+	}
+
 }
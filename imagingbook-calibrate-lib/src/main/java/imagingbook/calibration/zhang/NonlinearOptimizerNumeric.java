@@ -9,6 +9,10 @@ package imagingbook.calibration.zhang;
 import imagingbook.common.geometry.basic.Pnt2d;
 import org.apache.commons.math3.analysis.MultivariateMatrixFunction;
 import org.apache.commons.math3.analysis.MultivariateVectorFunction;
+import org.apache.commons.math3.fitting.leastsquares.MultivariateJacobianFunction;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.util.Pair;
 
 import java.util.Arrays;
 
@@ -25,6 +29,14 @@ public class NonlinearOptimizerNumeric extends NonlinearOptimizer {
 	NonlinearOptimizerNumeric(Pnt2d[] modelPts, Pnt2d[][] obsPts) {
 		super(modelPts, obsPts);
 	}
+
+	NonlinearOptimizerNumeric(Pnt2d[] modelPts, Pnt2d[][] obsPts, Calibrator.Parameters params) {
+		super(modelPts, obsPts, params);
+	}
+
+	NonlinearOptimizerNumeric(PointSet modelPts, PointSet[] obsPts, Calibrator.Parameters params) {
+		super(modelPts, obsPts, params);
+	}
 	
 	@Override
 	MultivariateVectorFunction makeValueFun() {
@@ -36,21 +48,42 @@ public class NonlinearOptimizerNumeric extends NonlinearOptimizer {
 		return new JacobianFun();
 	}
 
+	/**
+	 * Returns a model function that takes the projected points from the reference values of the numeric Jacobian,
+	 * i.e., without a separate call to {@link ValueFun}.
+	 */
+	@Override
+	MultivariateJacobianFunction makeModelFun() {
+		final JacobianFun jf = new JacobianFun();
+		return point -> {
+			final double[] uv = new double[2 * M * N];
+			final double[][] J = jf.evaluate(point.toArray(), uv);
+			return new Pair<>(new ArrayRealVector(uv, false), new Array2DRowRealMatrix(J, false));
+		};
+	}
+
 	private class JacobianFun implements MultivariateMatrixFunction {
 
 		/**
-		 * Calculates a "stacked" Jacobian matrix with 2MN rows and K = 7 + 6M columns (for M views with N points each,
+		 * Calculates a "stacked" Jacobian matrix with 2MN rows and K = camParLength + 6M columns (for M views with N points each,
 		 * K parameters). For example, with M = 5 views and N = 256 points each, J is of size 2560 × 37. Each pair of
 		 * rows in the Jacobian corresponds to one point. THIS VERSION only calculates single blocks of the Jacobian!
 		 */
 		@Override
 	    public double[][] value(double[] params) {
+			return evaluate(params, new double[2 * M * N]);
+		}
+
+		/**
+		 * Calculates the Jacobian as above, also storing the 2MN reference values (the projected points for the
+		 * undisturbed parameters, as calculated by {@link ValueFun}) in the given array.
+		 */
+		double[][] evaluate(double[] params, double[] refValues) {
 			final int K = params.length;
 	        double[][] J = new double[2 * M * N][K];	// the Jacobian matrix (initialized to zeroes!)
-	        double[] refValues = new double[2 * M * N];	// values obtained with undisturbed parameters 
 	        
 	        double[] a = Arrays.copyOfRange(params, 0, camParLength);	// camera parameters
-	        Camera camOrig = new Camera(a);
+	        Camera camOrig = makeCamera(a);
 	        
 	        // Step 0: calculate all 2MN reference output values (for undisturbed parameters)
 	       
@@ -59,7 +92,7 @@ public class NonlinearOptimizerNumeric extends NonlinearOptimizer {
 				double[] w = Arrays.copyOfRange(params, m, m + viewParLength);
 				ViewTransform view = new ViewTransform(w);
 	        	for (int j = 0; j < N; j++) {	// for all model points: calculate reference values
-	        		double[] uv = camOrig.project(view, modelPts[j]);
+	        		double[] uv = camOrig.project(view, modelPts.getX(j), modelPts.getY(j));
 	        		refValues[r + 0] = uv[0];
 	        		refValues[r + 1] = uv[1];
 	        		r = r + 2;
@@ -72,15 +105,14 @@ public class NonlinearOptimizerNumeric extends NonlinearOptimizer {
 	        	double ak = a[k];					// keep original parameter value       	
 	        	double delta = estimateDelta(ak);
 	        	a[k] = a[k] + delta;		// modify parameter s_k
-	        	Camera camMod = new Camera(a);	// modified camera
+	        	Camera camMod = makeCamera(a);	// modified camera
 	        	
 		        for (int r = 0, i = 0; i < M; i++) {	// for all views, r = row
 		        	int m = camParLength + i * viewParLength;
 		        	double[] w = Arrays.copyOfRange(params, m, m + viewParLength);
 		        	ViewTransform view = new ViewTransform(w);
 		        	for (int j = 0; j < N; j++) {	// for all model points: calculate disturbed value
-		        		Pnt2d Pj = modelPts[j];
-		        		double[] uvMod = camMod.project(view, Pj);
+		        		double[] uvMod = camMod.project(view, modelPts.getX(j), modelPts.getY(j));
 		        		J[r + 0][k] = (uvMod[0] - refValues[r + 0]) / delta;   // dX
 		        		J[r + 1][k] = (uvMod[1] - refValues[r + 1]) / delta;   // dY
 		        		r = r + 2;
@@ -102,8 +134,7 @@ public class NonlinearOptimizerNumeric extends NonlinearOptimizer {
 	        		ViewTransform view = new ViewTransform(w);
 	        		int r = 2 * i * N;	// row
 	        		for (int j = 0; j < N; j++) {		// for all model points: calculate disturbed value
-	        			Pnt2d Pj = modelPts[j];
-	        			double[] uvMod = camOrig.project(view, Pj);
+	        			double[] uvMod = camOrig.project(view, modelPts.getX(j), modelPts.getY(j));
 	        			J[r + 0][c + k] = (uvMod[0] - refValues[r + 0]) / delta;   // dX
 	        			J[r + 1][c + k] = (uvMod[1] - refValues[r + 1]) / delta;   // dY
 	        			r = r + 2;
@@ -131,7 +162,7 @@ public class NonlinearOptimizerNumeric extends NonlinearOptimizer {
 	        double[] refValues = new double[2 * M * N];	// function values obtained with undisturbed parameters 
 	        
 	        double[] s = Arrays.copyOfRange(params, 0, camParLength);
-	        Camera cam = new Camera(s);
+	        Camera cam = makeCamera(s);
 	        
 	        // Step 0: calculate all 2MN reference output values (for undisturbed parameters)
 	        
@@ -140,7 +171,7 @@ public class NonlinearOptimizerNumeric extends NonlinearOptimizer {
 				double[] w = Arrays.copyOfRange(params, start, start + viewParLength);
 				ViewTransform view = new ViewTransform(w);
 	        	for (int j = 0; j < N; j++) {	// for all model points: calculate reference values
-	        		double[] uv = cam.project(view, modelPts[j]);
+	        		double[] uv = cam.project(view, modelPts.getX(j), modelPts.getY(j));
 	        		refValues[row + 0] = uv[0];
 	        		refValues[row + 1] = uv[1];
 	        		row = row + 2;
@@ -157,15 +188,14 @@ public class NonlinearOptimizerNumeric extends NonlinearOptimizer {
 	        	params[k] = params[k] + delta;		// modify parameter c_k
 	        	
 	        	double[] smod = Arrays.copyOfRange(params, 0, camParLength);
-	        	Camera camMod = new Camera(smod);	// modified camera
+	        	Camera camMod = makeCamera(smod);	// modified camera
 	        	
 		        for (int row = 0, m = 0; m < M; m++) {	// for all views
 		        	int start = camParLength + m * viewParLength;
 		        	double[] w = Arrays.copyOfRange(params, start, start + viewParLength);
 		        	ViewTransform view = new ViewTransform(w);
 		        	for (int n = 0; n < N; n++) {	// for all model points: calculate disturbed value
-		        		Pnt2d Pj = modelPts[n];
-		        		double[] uvMod = camMod.project(view, Pj);
+		        		double[] uvMod = camMod.project(view, modelPts.getX(n), modelPts.getY(n));
 		        		J[row + 0][col] = (uvMod[0] - refValues[row + 0]) / delta;   // du
 		        		J[row + 1][col] = (uvMod[1] - refValues[row + 1]) / delta;   // dv	
 		        		row = row + 2;
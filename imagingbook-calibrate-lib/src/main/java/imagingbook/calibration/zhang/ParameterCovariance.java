@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang;
+
+import org.apache.commons.math3.linear.DecompositionSolver;
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.SingularValueDecomposition;
+
+/**
+ * <p>
+ * Covariance of the estimated camera and view parameters, obtained from the Jacobian J of the converged nonlinear
+ * optimization as Cov = sigma^2 . (J^T . J)^-1, with sigma^2 = cost / (2MN - P) being the residual variance (P = number
+ * of parameters). The full (P x P) matrix J^T . J is never formed or inverted. Instead its block structure
+ * <pre>
+ * | U    W_0  W_1  ... |
+ * | W_0^T V_0           |
+ * | W_1^T     V_1       |
+ * | ...            ...  |
+ * </pre>
+ * is used, with U being the (small) camera block and V_i the 6 x 6 block of view i. The camera marginal is the inverse
+ * of the Schur complement S = U - sum(W_i . V_i^-1 . W_i^T), the marginal of view i is V_i^-1 + V_i^-1 . W_i^T . S^-1
+ * . W_i . V_i^-1. Thus the cost is linear in the number of views. Instances are immutable.
+ * </p>
+ *
+ * @author WB
+ * @see Calibrator.Parameters#computeCovariance
+ */
+public class ParameterCovariance {
+
+	private final double sigma2;
+	private final double[][] camCov;		// C x C
+	private final double[][][] viewCov;		// M x 6 x 6
+
+	private ParameterCovariance(double sigma2, double[][] camCov, double[][][] viewCov) {
+		this.sigma2 = sigma2;
+		this.camCov = camCov;
+		this.viewCov = viewCov;
+	}
+
+	/**
+	 * Calculates the parameter covariance from the Jacobian of the calibration problem.
+	 *
+	 * @param J the stacked Jacobian (2MN rows, C + 6M columns, see {@link NonlinearOptimizer})
+	 * @param C the number of camera parameters
+	 * @param M the number of views
+	 * @param N the number of points per view
+	 * @param cost the sum of squared residuals at the solution
+	 * @return the parameter covariance
+	 */
+	static ParameterCovariance fromJacobian(double[][] J, int C, int M, int N, double cost) {
+		final int P = C + 6 * M;
+		final int dof = 2 * M * N - P;
+		final double sigma2 = (dof > 0) ? cost / dof : Double.NaN;
+
+		final double[][] U = new double[C][C];
+		final RealMatrix[] W = new RealMatrix[M];		// C x 6
+		final RealMatrix[] Vinv = new RealMatrix[M];	// 6 x 6
+
+		for (int i = 0; i < M; i++) {
+			final int c = C + 6 * i;	// first column of view i
+			final double[][] Wi = new double[C][6];
+			final double[][] Vi = new double[6][6];
+			for (int r = 2 * N * i; r < 2 * N * (i + 1); r++) {
+				final double[] row = J[r];
+				for (int a = 0; a < C; a++) {
+					final double ja = row[a];
+					for (int b = a; b < C; b++) {
+						U[a][b] += ja * row[b];
+					}
+					for (int b = 0; b < 6; b++) {
+						Wi[a][b] += ja * row[c + b];
+					}
+				}
+				for (int a = 0; a < 6; a++) {
+					for (int b = a; b < 6; b++) {
+						Vi[a][b] += row[c + a] * row[c + b];
+					}
+				}
+			}
+			symmetrize(Vi);
+			W[i] = MatrixUtils.createRealMatrix(Wi);
+			Vinv[i] = inverse(MatrixUtils.createRealMatrix(Vi));
+		}
+		symmetrize(U);
+
+		// Schur complement of the view blocks
+		RealMatrix S = MatrixUtils.createRealMatrix(U);
+		for (int i = 0; i < M; i++) {
+			S = S.subtract(W[i].multiply(Vinv[i]).multiply(W[i].transpose()));
+		}
+		final RealMatrix Sinv = inverse(S);
+
+		final double[][][] viewCov = new double[M][][];
+		for (int i = 0; i < M; i++) {
+			RealMatrix VW = Vinv[i].multiply(W[i].transpose());	// 6 x C = V_i^-1 . W_i^T
+			RealMatrix Ci = Vinv[i].add(VW.multiply(Sinv).multiply(VW.transpose()));
+			viewCov[i] = Ci.scalarMultiply(sigma2).getData();
+		}
+		return new ParameterCovariance(sigma2, Sinv.scalarMultiply(sigma2).getData(), viewCov);
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	/**
+	 * Returns the estimated variance of the projection residuals (per coordinate, in squared pixel units).
+	 *
+	 * @return the residual variance
+	 */
+	public double getResidualVariance() {
+		return sigma2;
+	}
+
+	/**
+	 * Returns the covariance matrix of the camera parameters (alpha, beta, gamma, uc, vc, k0, k1, ...), in the order
+	 * of {@link Camera#getParameterVector()}.
+	 *
+	 * @return a new covariance matrix
+	 */
+	public RealMatrix getCameraCovariance() {
+		return MatrixUtils.createRealMatrix(camCov);
+	}
+
+	/**
+	 * Returns the standard deviations of the camera parameters (alpha, beta, gamma, uc, vc, k0, k1, ...).
+	 *
+	 * @return a new array of standard deviations
+	 */
+	public double[] getCameraStandardDeviations() {
+		return sqrtDiagonal(camCov);
+	}
+
+	/**
+	 * Returns the covariance matrix of the parameters (wx, wy, wz, tx, ty, tz) of the specified view.
+	 *
+	 * @param i the view index
+	 * @return a new 6 x 6 covariance matrix
+	 */
+	public RealMatrix getViewCovariance(int i) {
+		return MatrixUtils.createRealMatrix(viewCov[i]);
+	}
+
+	/**
+	 * Returns the standard deviations of the parameters (wx, wy, wz, tx, ty, tz) of the specified view.
+	 *
+	 * @param i the view index
+	 * @return a new array of 6 standard deviations
+	 */
+	public double[] getViewStandardDeviations(int i) {
+		return sqrtDiagonal(viewCov[i]);
+	}
+
+	/**
+	 * Returns the number of views.
+	 *
+	 * @return the number of views
+	 */
+	public int getNumberOfViews() {
+		return viewCov.length;
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	// pseudo-inverse (robust against rank deficiency, e.g., with too few views)
+	private static RealMatrix inverse(RealMatrix A) {
+		DecompositionSolver solver = new SingularValueDecomposition(A).getSolver();
+		return solver.getInverse();
+	}
+
+	private static void symmetrize(double[][] A) {
+		for (int a = 0; a < A.length; a++) {
+			for (int b = 0; b < a; b++) {
+				A[a][b] = A[b][a];
+			}
+		}
+	}
+
+	private static double[] sqrtDiagonal(double[][] A) {
+		double[] s = new double[A.length];
+		for (int a = 0; a < A.length; a++) {
+			s[a] = Math.sqrt(Math.max(A[a][a], 0));
+		}
+		return s;
+	}
+
+}
@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang;
+
+import imagingbook.common.geometry.basic.Pnt2d;
+
+/**
+ * <p>
+ * Read-only sequence of 2D points backed by a flat {@code double} array of interleaved coordinates (x0, y0, x1, y1,
+ * ...), used as a compact alternative to {@code Pnt2d[]} throughout the calibration pipeline. A point set may refer
+ * to a section of a larger array, e.g., the point coordinates of one view within the data of many views (see
+ * {@link #split(double[], int, int, int)}), without copying.
+ * </p>
+ * <p>
+ * Point sets created with {@link #from(Pnt2d[])} own their data and are immutable. Point sets created with one of the
+ * {@code wrap()} or {@code split()} methods share the given array, i.e., they reflect any subsequent modifications of
+ * the array.
+ * </p>
+ *
+ * @author WB
+ * @see Calibrator#calibrate(PointSet[])
+ */
+public class PointSet {
+
+	private final double[] data;
+	private final int offset;	// array index of the first x-coordinate
+	private final int size;		// number of points
+
+	private PointSet(double[] data, int offset, int size) {
+		if (offset < 0 || size < 0 || offset + 2 * size > data.length) {
+			throw new IndexOutOfBoundsException(
+					"invalid point range (offset=" + offset + ", size=" + size + ", length=" + data.length + ")");
+		}
+		this.data = data;
+		this.offset = offset;
+		this.size = size;
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	/**
+	 * Creates a new point set from the given points. The point coordinates are copied.
+	 *
+	 * @param pts a sequence of 2D points
+	 * @return a new point set
+	 */
+	public static PointSet from(Pnt2d[] pts) {
+		double[] data = new double[2 * pts.length];
+		for (int j = 0; j < pts.length; j++) {
+			data[2 * j] = pts[j].getX();
+			data[2 * j + 1] = pts[j].getY();
+		}
+		return new PointSet(data, 0, pts.length);
+	}
+
+	/**
+	 * Creates new point sets from the given sequence of point arrays (e.g., the image points of multiple views). The
+	 * point coordinates are copied into a single flat array shared by all returned point sets.
+	 *
+	 * @param pts a sequence of point arrays
+	 * @return an array of new point sets
+	 */
+	public static PointSet[] from(Pnt2d[][] pts) {
+		int total = 0;
+		for (Pnt2d[] p : pts) {
+			total = total + p.length;
+		}
+		double[] data = new double[2 * total];
+		PointSet[] sets = new PointSet[pts.length];
+		for (int i = 0, off = 0; i < pts.length; i++) {
+			for (int j = 0; j < pts[i].length; j++) {
+				data[off + 2 * j] = pts[i][j].getX();
+				data[off + 2 * j + 1] = pts[i][j].getY();
+			}
+			sets[i] = new PointSet(data, off, pts[i].length);
+			off = off + 2 * pts[i].length;
+		}
+		return sets;
+	}
+
+	/**
+	 * Creates a point set that wraps (without copying) the given array of interleaved point coordinates.
+	 *
+	 * @param xy an array of interleaved x/y coordinates (of even length)
+	 * @return a new point set backed by the given array
+	 */
+	public static PointSet wrap(double[] xy) {
+		if (xy.length % 2 != 0) {
+			throw new IllegalArgumentException("coordinate array must have even length but has " + xy.length);
+		}
+		return new PointSet(xy, 0, xy.length / 2);
+	}
+
+	/**
+	 * Creates a point set that wraps (without copying) a section of the given array of interleaved point
+	 * coordinates.
+	 *
+	 * @param xy an array of interleaved x/y coordinates
+	 * @param offset the array index of the first point's x-coordinate
+	 * @param size the number of points
+	 * @return a new point set backed by the given array
+	 */
+	public static PointSet wrap(double[] xy, int offset, int size) {
+		return new PointSet(xy, offset, size);
+	}
+
+	/**
+	 * Creates a sequence of point sets of equal size that wrap (without copying) consecutive sections of the given
+	 * array, e.g., the image points of M views stored one after the other.
+	 *
+	 * @param xy an array of interleaved x/y coordinates
+	 * @param offset the array index of the first point set's first x-coordinate
+	 * @param count the number of point sets
+	 * @param size the number of points in each set
+	 * @return an array of new point sets backed by the given array
+	 */
+	public static PointSet[] split(double[] xy, int offset, int count, int size) {
+		PointSet[] sets = new PointSet[count];
+		for (int i = 0; i < count; i++) {
+			sets[i] = new PointSet(xy, offset + 2 * size * i, size);
+		}
+		return sets;
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	/**
+	 * Returns the number of points in this set.
+	 *
+	 * @return the number of points
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the x-coordinate of the specified point.
+	 *
+	 * @param j the point index (0,...,size-1)
+	 * @return the x-coordinate
+	 */
+	public double getX(int j) {
+		return data[offset + 2 * j];
+	}
+
+	/**
+	 * Returns the y-coordinate of the specified point.
+	 *
+	 * @param j the point index (0,...,size-1)
+	 * @return the y-coordinate
+	 */
+	public double getY(int j) {
+		return data[offset + 2 * j + 1];
+	}
+
+	/**
+	 * Returns the specified point as a new {@link Pnt2d} instance.
+	 *
+	 * @param j the point index (0,...,size-1)
+	 * @return a new point
+	 */
+	public Pnt2d get(int j) {
+		return Pnt2d.from(getX(j), getY(j));
+	}
+
+	/**
+	 * Returns a new array holding (copies of) all points in this set.
+	 *
+	 * @return a new array of points
+	 */
+	public Pnt2d[] toPnt2d() {
+		Pnt2d[] pts = new Pnt2d[size];
+		for (int j = 0; j < size; j++) {
+			pts[j] = get(j);
+		}
+		return pts;
+	}
+
+	/**
+	 * Returns a new array holding the interleaved coordinates (x0, y0, x1, y1, ...) of all points in this set.
+	 *
+	 * @return a new coordinate array of length 2 * size
+	 */
+	public double[] toArray() {
+		double[] xy = new double[2 * size];
+		System.arraycopy(data, offset, xy, 0, 2 * size);
+		return xy;
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	// raw access for the calibration pipeline (no copying)
+
+	double[] data() {
+		return data;
+	}
+
+	int offset() {
+		return offset;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[size=%d]", this.getClass().getSimpleName(), size);
+	}
+
+}
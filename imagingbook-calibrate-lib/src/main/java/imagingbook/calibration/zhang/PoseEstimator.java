@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang;
+
+import imagingbook.calibration.zhang.util.SmallMatrices;
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.apache.commons.math3.linear.RealMatrix;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Estimates the pose (view transformation) of a planar target for an already calibrated {@link Camera}
+ * (planar Perspective-n-Point problem). The initial pose is obtained in closed form from the homography between the
+ * model points and the undistorted, normalized image points (see {@link ExtrinsicViewEstimator}). It is then refined
+ * by Gauss-Newton iterations over the 6 view parameters (rotation vector and translation), minimizing the projection
+ * error in pixel units. The analytic derivatives are the same as in {@link NonlinearOptimizerAnalytic} (see
+ * {@link ProjectionDerivatives}), with the camera parameters held fixed.
+ * </p>
+ * <p>
+ * All work arrays are allocated when the estimator is created, so the refinement step does not allocate any memory.
+ * Consequently, an instance must not be used concurrently by multiple threads (use one estimator per thread).
+ * </p>
+ *
+ * @author WB
+ */
+public class PoseEstimator {
+
+	public static final int DefaultMaxIterations = 20;
+	private static final int MaxStepHalvings = 8;
+	private static final double CostTolerance = 1e-12;
+	private static final double ParameterTolerance = 1e-12;
+
+	private final Camera cam;
+	private final PointSet modelPts;
+	private final int N;
+	private final int maxIterations;
+
+	private final double[] k;
+	private final DistortionModel distortionModel;
+	private final double[] A_inv = new double[9];
+	private final HomographyEstimator homographyEstimator = new HomographyEstimator(true, false);
+	private final ExtrinsicViewEstimator viewEstimator =
+			new ExtrinsicViewEstimator(MatrixUtils.createRealIdentityMatrix(3));
+
+	// work arrays
+	private final double[] xy;						// 2N observed image coordinates
+	private final ProjectionDerivatives pd;
+	private final double[] R = new double[9];		// rotation matrix (row-major)
+	private final double[] Cm = new double[9];		// w x (e_l - R e_l), for the rotation derivatives
+	private final double[] Ju = new double[6];
+	private final double[] Jv = new double[6];
+	private final double[] JtJ = new double[36];
+	private final double[] Jtr = new double[6];
+	private final double[] delta = new double[6];
+	private double[] p = new double[6];				// current parameters (wx, wy, wz, tx, ty, tz)
+	private double[] p1 = new double[6];			// trial parameters
+
+	private int iterations;
+	private double cost;
+
+	/**
+	 * Constructor, using {@link #DefaultMaxIterations}.
+	 *
+	 * @param cam the calibrated camera
+	 * @param modelPts the N points of the planar target (model)
+	 */
+	public PoseEstimator(Camera cam, PointSet modelPts) {
+		this(cam, modelPts, DefaultMaxIterations);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param cam the calibrated camera
+	 * @param modelPts the N points of the planar target (model)
+	 * @param maxIterations the max. number of Gauss-Newton iterations
+	 */
+	public PoseEstimator(Camera cam, PointSet modelPts, int maxIterations) {
+		this.cam = cam;
+		this.modelPts = modelPts;
+		this.N = modelPts.size();
+		this.maxIterations = maxIterations;
+		this.k = cam.getK();
+		this.distortionModel = cam.getDistortionModel();
+		this.pd = new ProjectionDerivatives(distortionModel, k.length);
+		this.pd.setCamera(cam.getParameterVector(), 0);
+		this.xy = new double[2 * N];
+		final double[] A = {cam.getAlpha(), cam.getGamma(), cam.getUc(), 0, cam.getBeta(), cam.getVc(), 0, 0, 1};
+		if (!SmallMatrices.inverse3x3(A, A_inv)) {
+			throw new IllegalArgumentException("intrinsic camera matrix is singular");
+		}
+	}
+
+	/**
+	 * Returns the camera used by this estimator.
+	 *
+	 * @return the camera
+	 */
+	public Camera getCamera() {
+		return cam;
+	}
+
+	/**
+	 * Estimates the pose for the given image points, with closed-form initialization (see
+	 * {@link #initialize(PointSet)}) and subsequent refinement (see {@link #refine(ViewTransform, PointSet)}).
+	 *
+	 * @param obsPts the N observed image points (in the order of the model points)
+	 * @return the estimated pose
+	 */
+	public ViewTransform estimate(PointSet obsPts) {
+		return refine(initialize(obsPts), obsPts);
+	}
+
+	/**
+	 * Calculates the initial pose for the given image points in closed form. The image points are mapped to the ideal
+	 * projection plane and undistorted, the pose is then obtained from the homography between the model points and the
+	 * normalized image points.
+	 *
+	 * @param obsPts the N observed image points (in the order of the model points)
+	 * @return the initial pose
+	 */
+	public ViewTransform initialize(PointSet obsPts) {
+		checkSize(obsPts);
+		final double[] xyn = new double[2 * N];
+		final double[] qr = new double[3];
+		final double[] xyd = new double[2];
+		for (int j = 0; j < N; j++) {
+			SmallMatrices.apply3x3(A_inv, obsPts.getX(j), obsPts.getY(j), 1, qr);
+			distortionModel.unwarp(k, qr[0] / qr[2], qr[1] / qr[2], xyd);
+			xyn[2 * j] = xyd[0];
+			xyn[2 * j + 1] = xyd[1];
+		}
+		RealMatrix H = homographyEstimator.estimateHomography(modelPts, PointSet.wrap(xyn));
+		return viewEstimator.estimateViewTransform(H);
+	}
+
+	/**
+	 * Refines the given pose by minimizing the projection error of the model points with respect to the given image
+	 * points (Gauss-Newton with step halving). Returns the initial pose if no improvement is possible.
+	 *
+	 * @param init the initial pose
+	 * @param obsPts the N observed image points (in the order of the model points)
+	 * @return the refined pose
+	 */
+	public ViewTransform refine(ViewTransform init, PointSet obsPts) {
+		checkSize(obsPts);
+		for (int j = 0; j < N; j++) {
+			xy[2 * j] = obsPts.getX(j);
+			xy[2 * j + 1] = obsPts.getY(j);
+		}
+		final double[] w = init.getParameters();
+		System.arraycopy(w, 0, p, 0, 6);
+		cost = evaluate(p);
+		iterations = 0;
+		while (iterations < maxIterations) {
+			iterations++;
+			// solve (J^T J) . delta = J^T r (JtJ is overwritten)
+			if (!SmallMatrices.solveCholesky(JtJ, 6, Jtr, delta)) {
+				break;
+			}
+			double step = 1;
+			double cost1 = Double.POSITIVE_INFINITY;
+			for (int h = 0; h <= MaxStepHalvings; h++) {
+				for (int l = 0; l < 6; l++) {
+					p1[l] = p[l] - step * delta[l];
+				}
+				cost1 = evaluate(p1);	// also calculates JtJ, Jtr at p1
+				if (cost1 <= cost) {
+					break;
+				}
+				step = 0.5 * step;
+			}
+			if (!(cost1 <= cost)) {
+				break;		// no improvement
+			}
+			final double[] tmp = p; p = p1; p1 = tmp;
+			final boolean converged = (cost - cost1) <= CostTolerance * cost || isSmallStep(step);
+			cost = cost1;
+			if (converged) {
+				break;
+			}
+		}
+		return new ViewTransform(p.clone());
+	}
+
+	/**
+	 * Returns the number of Gauss-Newton iterations of the most recent refinement.
+	 *
+	 * @return the number of iterations
+	 */
+	public int getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * Returns the squared projection error (in squared pixel units) of the most recently refined pose.
+	 *
+	 * @return the final cost
+	 */
+	public double getCost() {
+		return cost;
+	}
+
+	/**
+	 * Returns the RMS projection error (per point, in pixel units) of the most recently refined pose.
+	 *
+	 * @return the final RMS error
+	 */
+	public double getRms() {
+		return Math.sqrt(cost / N);
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	void checkSize(PointSet obsPts) {
+		if (obsPts.size() != N) {
+			throw new IllegalArgumentException("number of observed points (" + obsPts.size() +
+					") does not match the model (" + N + ")");
+		}
+	}
+
+	private boolean isSmallStep(double step) {
+		double sd = 0, sp = 0;
+		for (int l = 0; l < 6; l++) {
+			sd = sd + delta[l] * delta[l];
+			sp = sp + p[l] * p[l];
+		}
+		return step * Math.sqrt(sd) <= ParameterTolerance * (1 + Math.sqrt(sp));
+	}
+
+	/**
+	 * Calculates the squared projection error for the view parameters w and accumulates the normal equations JtJ (6 x
+	 * 6) and Jtr (residuals r = projected - observed) in a single pass over all points.
+	 */
+	private double evaluate(double[] w) {
+		ProjectionDerivatives.prepareRotation(w, 0, R, Cm);
+		Arrays.fill(JtJ, 0);
+		Arrays.fill(Jtr, 0);
+
+		double sum = 0;
+		for (int j = 0; j < N; j++) {
+			pd.projectModelPoint(w, 0, R, Cm, modelPts.getX(j), modelPts.getY(j));
+			final double ru = pd.u - xy[2 * j];
+			final double rv = pd.v - xy[2 * j + 1];
+			sum = sum + ru * ru + rv * rv;
+			for (int l = 0; l < 3; l++) {
+				Ju[l] = pd.wu[l];		// rotation (wx, wy, wz)
+				Jv[l] = pd.wv[l];
+				Ju[3 + l] = pd.hu[l];	// translation (tx, ty, tz)
+				Jv[3 + l] = pd.hv[l];
+			}
+
+			// accumulate the lower triangle of J^T J and J^T r
+			for (int a = 0; a < 6; a++) {
+				final double ua = Ju[a], va = Jv[a];
+				for (int b = 0; b <= a; b++) {
+					JtJ[6 * a + b] = JtJ[6 * a + b] + ua * Ju[b] + va * Jv[b];
+				}
+				Jtr[a] = Jtr[a] + ua * ru + va * rv;
+			}
+		}
+		return sum;
+	}
+
+}
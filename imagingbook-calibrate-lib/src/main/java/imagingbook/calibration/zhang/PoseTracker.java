@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang;
+
+/**
+ * <p>
+ * Tracks the pose of a planar target over a sequence of frames (e.g., a video) for an already calibrated
+ * {@link Camera}. The observations of each frame are passed to {@link #update(PointSet)}, which returns the pose of
+ * that frame. The pose of the previous frame is used as the starting point for the refinement, so that usually only
+ * a few Gauss-Newton steps are needed (see {@link PoseEstimator#refine(ViewTransform, PointSet)}). The pose is
+ * re-initialized in closed form (see {@link PoseEstimator#initialize(PointSet)}) for the first frame, after
+ * {@link #reset()}, and whenever the warm-started refinement diverges, i.e., if its RMS projection error exceeds the
+ * given limit or the target ends up behind the camera. If no valid pose can be found for a frame (e.g., for degenerate
+ * observations), the target is reported as lost and the next frame is initialized from scratch.
+ * </p>
+ * <p>
+ * A tracker keeps state between frames and must not be used concurrently by multiple threads.
+ * </p>
+ *
+ * @author WB
+ */
+public class PoseTracker {
+
+	public static final double DefaultMaxRmsError = 2.0;
+
+	/**
+	 * Describes how the pose of the most recent frame was obtained.
+	 */
+	public enum Status {
+		/** No frame has been processed since creation or the last reset. */
+		Idle,
+		/** Refined from the pose of the previous frame. */
+		Tracked,
+		/** Estimated from scratch (first frame or divergence of the warm-started refinement). */
+		Initialized,
+		/** No valid pose found: the observations are degenerate or the RMS projection error still exceeds the limit. */
+		Lost
+	}
+
+	private final PoseEstimator estimator;
+	private final double maxRmsError;
+
+	private ViewTransform pose = null;
+	private double rms = Double.NaN;
+	private Status status = Status.Idle;
+	private int frames = 0;
+	private int initializations = 0;
+
+	/**
+	 * Constructor, using {@link #DefaultMaxRmsError}.
+	 *
+	 * @param cam the calibrated camera
+	 * @param modelPts the N points of the planar target (model)
+	 */
+	public PoseTracker(Camera cam, PointSet modelPts) {
+		this(cam, modelPts, DefaultMaxRmsError);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param cam the calibrated camera
+	 * @param modelPts the N points of the planar target (model)
+	 * @param maxRmsError the max. RMS projection error (in pixel units) of a tracked pose, otherwise the pose is
+	 * re-initialized
+	 */
+	public PoseTracker(Camera cam, PointSet modelPts, double maxRmsError) {
+		this.estimator = new PoseEstimator(cam, modelPts);
+		this.maxRmsError = maxRmsError;
+	}
+
+	/**
+	 * Processes the observations of the next frame and returns its pose.
+	 *
+	 * @param obsPts the N observed image points of the frame (in the order of the model points)
+	 * @return the pose of the frame or {@code null} if the target was lost (see {@link Status#Lost})
+	 * @throws IllegalArgumentException if the number of observed points does not match the model
+	 */
+	public ViewTransform update(PointSet obsPts) {
+		estimator.checkSize(obsPts);
+		frames++;
+		if (pose != null) {
+			ViewTransform view = estimator.refine(pose, obsPts);
+			if (isValid(view)) {
+				pose = view;
+				rms = estimator.getRms();
+				status = Status.Tracked;
+				return pose;
+			}
+		}
+		initializations++;
+		try {
+			pose = estimator.estimate(obsPts);
+			rms = estimator.getRms();
+		} catch (IllegalArgumentException e) {	// degenerate observations (no homography or rotation)
+			pose = null;
+			rms = Double.NaN;
+		}
+		if (pose != null && isValid(pose)) {
+			status = Status.Initialized;
+		}
+		else {	// start from scratch with the next frame
+			pose = null;
+			status = Status.Lost;
+		}
+		return pose;
+	}
+
+	/**
+	 * Processes a sequence of frames and returns their poses.
+	 *
+	 * @param obsPts the observed image points of all frames
+	 * @return the sequence of poses, one for each frame ({@code null} for frames in which the target was lost)
+	 */
+	public ViewTransform[] track(PointSet[] obsPts) {
+		final ViewTransform[] poses = new ViewTransform[obsPts.length];
+		for (int i = 0; i < obsPts.length; i++) {
+			poses[i] = update(obsPts[i]);
+		}
+		return poses;
+	}
+
+	/**
+	 * Discards the current pose, so that the next frame is initialized from scratch (e.g., after a scene cut).
+	 */
+	public void reset() {
+		pose = null;
+		rms = Double.NaN;
+		status = Status.Idle;
+	}
+
+	private boolean isValid(ViewTransform view) {
+		return view.getTranslation()[2] > 0 && estimator.getRms() <= maxRmsError;
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	/**
+	 * Returns the pose of the most recent frame.
+	 *
+	 * @return the current pose or {@code null} if no frame has been processed since creation or the last reset, or if
+	 * the target was lost
+	 */
+	public ViewTransform getPose() {
+		return pose;
+	}
+
+	/**
+	 * Returns how the pose of the most recent frame was obtained.
+	 *
+	 * @return the tracking status
+	 */
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * Returns the RMS projection error (in pixel units) of the most recent frame.
+	 *
+	 * @return the RMS error or {@code NaN} if no pose could be estimated
+	 */
+	public double getRms() {
+		return rms;
+	}
+
+	/**
+	 * Returns the number of Gauss-Newton iterations used for the most recent frame (of the last refinement, if the
+	 * pose was re-initialized).
+	 *
+	 * @return the number of iterations
+	 */
+	public int getIterations() {
+		return estimator.getIterations();
+	}
+
+	/**
+	 * Returns the number of frames processed so far.
+	 *
+	 * @return the number of frames
+	 */
+	public int getFrameCount() {
+		return frames;
+	}
+
+	/**
+	 * Returns the number of frames that required a full initialization of the pose.
+	 *
+	 * @return the number of initializations
+	 */
+	public int getInitializationCount() {
+		return initializations;
+	}
+
+}
@@ -0,0 +1,228 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang;
+
+/**
+ * <p>
+ * Projection of single points by a camera, together with the first partial derivatives of the resulting image
+ * coordinates (u, v) with respect to the intrinsic camera parameters (alpha, beta, gamma, uc, vc, k0, ...), the 3D
+ * point in camera coordinates and the rotation (Rodrigues) vector of a view. The derivatives are composed by the chain
+ * rule from the intrinsic mapping, the lens distortion model (see
+ * {@link DistortionModel#warpDerivatives(double[], double, double, double[], double[])}), the perspective division
+ * and the rotation. This is the common core of the analytic Jacobians in {@link NonlinearOptimizerAnalytic},
+ * {@link PoseEstimator} and {@link RigCalibrator}.
+ * </p>
+ * <p>
+ * The results of the most recent projection are held in the fields of this object, so an instance must not be used
+ * concurrently by multiple threads.
+ * </p>
+ *
+ * @author WB
+ */
+class ProjectionDerivatives {
+
+	private final DistortionModel distortionModel;
+	private final int nk;				// number of distortion coefficients
+	private final int n;				// row length of the distortion derivatives
+	private final double[] k;
+	private double alpha, beta, gamma, uc, vc;
+
+	private final double[] xyd = new double[2];
+	private final double[] D;			// derivatives of the distortion model
+	private final double[] G = new double[9];
+
+	/** Projected image point. */
+	double u, v;
+	/** Derivatives of u, v with respect to the intrinsic parameters (alpha, beta, gamma, uc, vc, k0, ...). */
+	final double[] Ju, Jv;
+	/** Derivatives of u, v with respect to the camera point (= derivatives for the translation of the view). */
+	final double[] hu = new double[3], hv = new double[3];
+	/** Derivatives of u, v with respect to the rotation vector of the view (only set by {@link #projectModelPoint}). */
+	final double[] wu = new double[3], wv = new double[3];
+	/** Model point rotated by the view (only set by {@link #projectModelPoint}). */
+	final double[] q = new double[3];
+
+	/**
+	 * Constructor.
+	 *
+	 * @param model the lens distortion model
+	 * @param nk the number of distortion coefficients
+	 */
+	ProjectionDerivatives(DistortionModel model, int nk) {
+		this.distortionModel = model;
+		this.nk = nk;
+		this.n = 2 + nk;
+		this.k = new double[nk];
+		this.D = new double[2 * n];
+		this.Ju = new double[5 + nk];
+		this.Jv = new double[5 + nk];
+	}
+
+	/**
+	 * Sets the intrinsic camera parameters, taken from the parameter vector s at offset off (in the order of
+	 * {@link Camera#getParameterVector()}).
+	 *
+	 * @param s a parameter vector
+	 * @param off the index of the first camera parameter in s
+	 */
+	void setCamera(double[] s, int off) {
+		alpha = s[off];
+		beta  = s[off + 1];
+		gamma = s[off + 2];
+		uc = s[off + 3];
+		vc = s[off + 4];
+		System.arraycopy(s, off + 5, k, 0, nk);
+	}
+
+	/**
+	 * Projects the 3D point (X, Y, Z) given in camera coordinates and calculates the derivatives of the image
+	 * coordinates with respect to the intrinsic parameters ({@link #Ju}, {@link #Jv}) and the camera point
+	 * ({@link #hu}, {@link #hv}).
+	 *
+	 * @param X x-coordinate of the camera point
+	 * @param Y y-coordinate of the camera point
+	 * @param Z z-coordinate of the camera point
+	 */
+	void project(double X, double Y, double Z) {
+		final double iz = 1 / Z;
+		final double x = X * iz;
+		final double y = Y * iz;
+		distortionModel.warpDerivatives(k, x, y, xyd, D);
+		u = alpha * xyd[0] + gamma * xyd[1] + uc;
+		v = beta * xyd[1] + vc;
+
+		// intrinsic parameters (alpha, beta, gamma, uc, vc, k0, ...)
+		Ju[0] = xyd[0];
+		Ju[2] = xyd[1];
+		Ju[3] = 1;
+		Jv[1] = xyd[1];
+		Jv[4] = 1;
+		for (int l = 0; l < nk; l++) {
+			Ju[5 + l] = alpha * D[2 + l] + gamma * D[n + 2 + l];
+			Jv[5 + l] = beta * D[n + 2 + l];
+		}
+
+		// d(u,v)/d(x,y) = A . d(xd,yd)/d(x,y)
+		final double g00 = alpha * D[0] + gamma * D[n];
+		final double g01 = alpha * D[1] + gamma * D[n + 1];
+		final double g10 = beta * D[n];
+		final double g11 = beta * D[n + 1];
+
+		// d(u,v)/d(camera point)
+		hu[0] = g00 * iz; hu[1] = g01 * iz; hu[2] = -(g00 * x + g01 * y) * iz;
+		hv[0] = g10 * iz; hv[1] = g11 * iz; hv[2] = -(g10 * x + g11 * y) * iz;
+	}
+
+	/**
+	 * Projects the model point (X, Y, 0) under the view with parameters (wx, wy, wz, tx, ty, tz) at p[off], whose
+	 * rotation has been prepared by {@link #prepareRotation(double[], int, double[], double[])}. In addition to the
+	 * results of {@link #project(double, double, double)}, this calculates the rotated model point {@link #q} and the
+	 * derivatives with respect to the rotation vector ({@link #wu}, {@link #wv}).
+	 *
+	 * @param p a parameter vector
+	 * @param off the index of the first view parameter in p
+	 * @param R the rotation matrix of the view (row-major)
+	 * @param Cm the rotation derivative terms of the view
+	 * @param X x-coordinate of the model point
+	 * @param Y y-coordinate of the model point
+	 */
+	void projectModelPoint(double[] p, int off, double[] R, double[] Cm, double X, double Y) {
+		q[0] = R[0] * X + R[1] * Y;
+		q[1] = R[3] * X + R[4] * Y;
+		q[2] = R[6] * X + R[7] * Y;
+		project(q[0] + p[off + 3], q[1] + p[off + 4], q[2] + p[off + 5]);
+		rotationJacobian(p, off, Cm, q, G);
+		for (int l = 0; l < 3; l++) {
+			wu[l] = hu[0] * G[l] + hu[1] * G[3 + l] + hu[2] * G[6 + l];
+			wv[l] = hv[0] * G[l] + hv[1] * G[3 + l] + hv[2] * G[6 + l];
+		}
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	/**
+	 * Calculates the rotation matrix R (row-major) for the Rodrigues vector at p[off], and the terms
+	 * C_l = w x (e_l - R e_l) (rows of Cm, 3 x 3) used for the rotation derivatives.
+	 *
+	 * @param p a parameter vector
+	 * @param off the index of the rotation vector in p
+	 * @param R receives the rotation matrix (9 elements)
+	 * @param Cm receives the rotation derivative terms (9 elements)
+	 */
+	static void prepareRotation(double[] p, int off, double[] R, double[] Cm) {
+		final double wx = p[off], wy = p[off + 1], wz = p[off + 2];
+		toRotationMatrix(wx, wy, wz, R);
+		for (int l = 0; l < 3; l++) {
+			final double ex = ((l == 0) ? 1 : 0) - R[l];
+			final double ey = ((l == 1) ? 1 : 0) - R[3 + l];
+			final double ez = ((l == 2) ? 1 : 0) - R[6 + l];
+			Cm[3 * l]     = wy * ez - wz * ey;
+			Cm[3 * l + 1] = wz * ex - wx * ez;
+			Cm[3 * l + 2] = wx * ey - wy * ex;
+		}
+	}
+
+	/**
+	 * Calculates the 3 x 3 matrix G (row-major) of derivatives d(R.P)/dw for the Rodrigues vector w at p[off] and the
+	 * rotated point q = R.P, with column l = (w_l (w x q) + C_l x q) / theta^2, or [e_l]_x q for w = 0.
+	 *
+	 * @param p a parameter vector
+	 * @param off the index of the rotation vector in p
+	 * @param Cm the rotation derivative terms, as calculated by {@link #prepareRotation(double[], int, double[], double[])}
+	 * @param q the rotated point
+	 * @param G receives the derivatives (9 elements)
+	 */
+	static void rotationJacobian(double[] p, int off, double[] Cm, double[] q, double[] G) {
+		final double wx = p[off], wy = p[off + 1], wz = p[off + 2];
+		final double theta2 = wx * wx + wy * wy + wz * wz;
+		if (theta2 < 1e-24) {	// dR/dw_l = [e_l]_x for w = 0
+			G[0] = 0;     G[1] = q[2];  G[2] = -q[1];
+			G[3] = -q[2]; G[4] = 0;     G[5] = q[0];
+			G[6] = q[1];  G[7] = -q[0]; G[8] = 0;
+			return;
+		}
+		final double wqx = wy * q[2] - wz * q[1];
+		final double wqy = wz * q[0] - wx * q[2];
+		final double wqz = wx * q[1] - wy * q[0];
+		for (int l = 0; l < 3; l++) {
+			final double wl = p[off + l];
+			final double cx = Cm[3 * l], cy = Cm[3 * l + 1], cz = Cm[3 * l + 2];
+			G[l]     = (wl * wqx + cy * q[2] - cz * q[1]) / theta2;
+			G[3 + l] = (wl * wqy + cz * q[0] - cx * q[2]) / theta2;
+			G[6 + l] = (wl * wqz + cx * q[1] - cy * q[0]) / theta2;
+		}
+	}
+
+	/**
+	 * Calculates the rotation matrix for the Rodrigues vector w (row-major), with the same convention as
+	 * {@link ViewTransform#ViewTransform(double[])}.
+	 *
+	 * @param w the rotation vector
+	 * @param R receives the rotation matrix (9 elements)
+	 */
+	static void toRotationMatrix(double[] w, double[] R) {
+		toRotationMatrix(w[0], w[1], w[2], R);
+	}
+
+	private static void toRotationMatrix(double wx, double wy, double wz, double[] R) {
+		final double theta = Math.sqrt(wx * wx + wy * wy + wz * wz);
+		if (theta < 1e-12) {	// first order approximation R = I + [w]_x
+			R[0] = 1;   R[1] = -wz; R[2] = wy;
+			R[3] = wz;  R[4] = 1;   R[5] = -wx;
+			R[6] = -wy; R[7] = wx;  R[8] = 1;
+			return;
+		}
+		final double kx = wx / theta, ky = wy / theta, kz = wz / theta;
+		final double c = Math.cos(theta);
+		final double s = Math.sin(theta);
+		final double c1 = 1 - c;
+		R[0] = c + c1 * kx * kx;      R[1] = c1 * kx * ky - s * kz; R[2] = c1 * kx * kz + s * ky;
+		R[3] = c1 * ky * kx + s * kz; R[4] = c + c1 * ky * ky;      R[5] = c1 * ky * kz - s * kx;
+		R[6] = c1 * kz * kx - s * ky; R[7] = c1 * kz * ky + s * kx; R[8] = c + c1 * kz * kz;
+	}
+
+}
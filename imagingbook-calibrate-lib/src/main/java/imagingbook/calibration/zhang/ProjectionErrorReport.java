@@ -0,0 +1,277 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * <p>
+ * Statistics of the projection errors of a calibration, i.e., the differences between the projected model points and
+ * the observed image points of M views with N points each. The residual vectors are kept in a single flat array of
+ * interleaved coordinates (du0, dv0, du1, dv1, ...) for all views, the residual magnitudes of each view are kept in
+ * sorted order, so that the median and other percentiles are available at no extra cost. Instances are immutable.
+ * </p>
+ * <p>
+ * Reports are created by {@link Calibrator#getProjectionErrorReport(Camera, ViewTransform[], PointSet[])}, which
+ * projects the model points of all views in a single (parallel) pass using the batch projection of {@link Camera}.
+ * The report of a calibration is also available from {@link CalibrationResult#getErrorReport()}, where it is built
+ * from the final residuals of the nonlinear optimization without any re-projection.
+ * </p>
+ *
+ * @author WB
+ */
+public class ProjectionErrorReport {
+
+	private final int M;					// number of views
+	private final int N;					// number of points per view
+	private final double[] residuals;		// 2MN interleaved residuals (projected - observed)
+	private final double[] sortedErrors;	// MN residual magnitudes, sorted within each view
+	private final double[] sqErrors;		// M sums of squared residuals
+
+	private ProjectionErrorReport(int M, int N, double[] residuals) {
+		this.M = M;
+		this.N = N;
+		this.residuals = residuals;
+		this.sortedErrors = new double[M * N];
+		this.sqErrors = new double[M];
+		for (int i = 0; i < M; i++) {
+			double sum = 0;
+			for (int j = i * N; j < (i + 1) * N; j++) {
+				final double du = residuals[2 * j];
+				final double dv = residuals[2 * j + 1];
+				final double e2 = du * du + dv * dv;
+				sortedErrors[j] = Math.sqrt(e2);
+				sum = sum + e2;
+			}
+			sqErrors[i] = sum;
+			Arrays.sort(sortedErrors, i * N, (i + 1) * N);
+		}
+	}
+
+	/**
+	 * Calculates the projection errors of the given camera and views for the associated observations.
+	 *
+	 * @param cam the camera (intrinsics)
+	 * @param views a sequence of M views (extrinsics)
+	 * @param modelPts the N model points
+	 * @param observed a sequence of M sets of N observed image points
+	 * @param parallel set true to process the views in parallel
+	 * @return a new report
+	 * @throws IllegalArgumentException if the numbers of views or points do not match
+	 */
+	static ProjectionErrorReport compute(Camera cam, ViewTransform[] views, PointSet modelPts, PointSet[] observed,
+			boolean parallel) {
+		final int M = views.length;
+		final int N = modelPts.size();
+		if (observed.length != M) {
+			throw new IllegalArgumentException("number of views (" + M + ") and observations (" + observed.length +
+					") do not match");
+		}
+		for (int i = 0; i < M; i++) {
+			if (observed[i].size() != N) {
+				throw new IllegalArgumentException("view " + i + ": number of observed points (" + observed[i].size() +
+						") does not match the model (" + N + ")");
+			}
+		}
+		final double[] residuals = new double[2 * M * N];
+		IntStream stream = IntStream.range(0, M);
+		if (parallel) {
+			stream = stream.parallel();
+		}
+		stream.forEach(i -> {
+			final PointSet obs = observed[i];
+			final double[] x = new double[N];
+			final double[] y = new double[N];
+			final double[] u = new double[N];
+			final double[] v = new double[N];
+			cam.project(views[i], modelPts, x, y, u, v);
+			for (int j = 0, r = 2 * N * i; j < N; j++, r += 2) {
+				residuals[r]     = u[j] - obs.getX(j);
+				residuals[r + 1] = v[j] - obs.getY(j);
+			}
+		});
+		return new ProjectionErrorReport(M, N, residuals);
+	}
+
+	/**
+	 * Creates a report from the given residual vector.
+	 *
+	 * @param residuals the 2MN interleaved residuals (du0, dv0, du1, dv1, ...) of all views (not copied)
+	 * @param M the number of views
+	 * @param N the number of points per view
+	 * @return a new report
+	 */
+	static ProjectionErrorReport fromResiduals(double[] residuals, int M, int N) {
+		if (residuals.length != 2 * M * N) {
+			throw new IllegalArgumentException("residual vector must have length " + (2 * M * N));
+		}
+		return new ProjectionErrorReport(M, N, residuals);
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	/**
+	 * Returns the number of views (M).
+	 *
+	 * @return the number of views
+	 */
+	public int getNumberOfViews() {
+		return M;
+	}
+
+	/**
+	 * Returns the number of points per view (N).
+	 *
+	 * @return the number of points
+	 */
+	public int getNumberOfPoints() {
+		return N;
+	}
+
+	/**
+	 * Returns a copy of all residual vectors (projected - observed) as interleaved coordinates (du0, dv0, du1, dv1,
+	 * ...), view after view.
+	 *
+	 * @return a new array of 2MN residual coordinates
+	 */
+	public double[] getResiduals() {
+		return residuals.clone();
+	}
+
+	/**
+	 * Returns a copy of the residual vectors (projected - observed) of the specified view as interleaved coordinates
+	 * (du0, dv0, du1, dv1, ...).
+	 *
+	 * @param i the view index (0,...,M-1)
+	 * @return a new array of 2N residual coordinates
+	 */
+	public double[] getResiduals(int i) {
+		return Arrays.copyOfRange(residuals, 2 * N * i, 2 * N * (i + 1));
+	}
+
+	/**
+	 * Returns the total squared projection error over all views (in squared pixel units).
+	 *
+	 * @return the total squared error
+	 */
+	public double getSquaredError() {
+		double sum = 0;
+		for (double e2 : sqErrors) {
+			sum = sum + e2;
+		}
+		return sum;
+	}
+
+	/**
+	 * Returns the squared projection error of the specified view (in squared pixel units).
+	 *
+	 * @param i the view index (0,...,M-1)
+	 * @return the squared error of view i
+	 */
+	public double getSquaredError(int i) {
+		return sqErrors[i];
+	}
+
+	/**
+	 * Returns the RMS projection error (per point, in pixel units) over all views.
+	 *
+	 * @return the overall RMS error
+	 */
+	public double getRms() {
+		return Math.sqrt(getSquaredError() / (M * N));
+	}
+
+	/**
+	 * Returns the RMS projection error (per point, in pixel units) of the specified view.
+	 *
+	 * @param i the view index (0,...,M-1)
+	 * @return the RMS error of view i
+	 */
+	public double getRms(int i) {
+		return Math.sqrt(sqErrors[i] / N);
+	}
+
+	/**
+	 * Returns the largest projection error (in pixel units) over all views.
+	 *
+	 * @return the max. error
+	 */
+	public double getMax() {
+		double max = 0;
+		for (int i = 0; i < M; i++) {
+			max = Math.max(max, getMax(i));
+		}
+		return max;
+	}
+
+	/**
+	 * Returns the largest projection error (in pixel units) of the specified view.
+	 *
+	 * @param i the view index (0,...,M-1)
+	 * @return the max. error of view i
+	 */
+	public double getMax(int i) {
+		return sortedErrors[(i + 1) * N - 1];
+	}
+
+	/**
+	 * Returns the median projection error (in pixel units) of the specified view.
+	 *
+	 * @param i the view index (0,...,M-1)
+	 * @return the median error of view i
+	 */
+	public double getMedian(int i) {
+		return getPercentile(i, 50);
+	}
+
+	/**
+	 * Returns the given percentile of the projection errors (in pixel units) of the specified view, linearly
+	 * interpolated between adjacent ranks.
+	 *
+	 * @param i the view index (0,...,M-1)
+	 * @param p the percentile (0,...,100)
+	 * @return the p-th percentile of the errors of view i
+	 */
+	public double getPercentile(int i, double p) {
+		if (p < 0 || p > 100) {
+			throw new IllegalArgumentException("percentile must be in [0, 100] but is " + p);
+		}
+		final double pos = p / 100 * (N - 1);
+		final int k = (int) Math.floor(pos);
+		final double e0 = sortedErrors[i * N + k];
+		if (k + 1 >= N) {
+			return e0;
+		}
+		final double e1 = sortedErrors[i * N + k + 1];
+		return e0 + (pos - k) * (e1 - e0);
+	}
+
+	/**
+	 * Returns a histogram of the projection errors of all views, with the given number of bins of equal size over the
+	 * range [0, maxError]. Errors beyond maxError are counted in the last bin.
+	 *
+	 * @param bins the number of bins
+	 * @param maxError the upper limit of the histogram range (in pixel units)
+	 * @return a new histogram array
+	 */
+	public int[] getHistogram(int bins, double maxError) {
+		final int[] h = new int[bins];
+		final double s = bins / maxError;
+		for (double e : sortedErrors) {
+			h[Math.min((int) (e * s), bins - 1)]++;
+		}
+		return h;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[views=%d, points=%d, rms=%.4f, max=%.4f]", this.getClass().getSimpleName(), M, N,
+				getRms(), getMax());
+	}
+
+}
@@ -6,21 +6,59 @@
  ******************************************************************************/
 package imagingbook.calibration.zhang;
 
+import imagingbook.calibration.zhang.util.SmallMatrices;
 import imagingbook.common.geometry.basic.Pnt2d;
-import org.apache.commons.math3.linear.ArrayRealVector;
-import org.apache.commons.math3.linear.DecompositionSolver;
-import org.apache.commons.math3.linear.MatrixUtils;
-import org.apache.commons.math3.linear.RealMatrix;
-import org.apache.commons.math3.linear.RealVector;
-import org.apache.commons.math3.linear.SingularValueDecomposition;
+
+import java.util.stream.IntStream;
 
 /**
- * This class defines methods for estimating the radial lens distortion parameters
+ * <p>
+ * This class defines methods for estimating the radial lens distortion parameters. The K distortion coefficients are
+ * obtained as the least-squares solution of the overdetermined linear system D . k = d, with two rows for each of the N
+ * model points in each of the M views. Instead of building the 2MN x K matrix D, the (symmetric) K x K matrix D^T . D
+ * and the K-vector D^T . d are accumulated point by point and the resulting normal equations are solved directly. Thus
+ * the required memory does not depend on the number of points or views. Optionally the views are processed in parallel,
+ * each contributing a partial sum.
+ * </p>
  *
  * @author WB
  */
 public class RadialDistortionEstimator {
 
+	private final int K;				// number of distortion coefficients
+	private final boolean parallel;		// process views in parallel
+
+	/**
+	 * Creates an estimator for the standard 2-coefficient radial distortion model (sequential processing).
+	 */
+	public RadialDistortionEstimator() {
+		this(2, false);
+	}
+
+	/**
+	 * Creates an estimator for a radial distortion model with K coefficients k0,...,k(K-1), associated with the powers
+	 * r^2, r^4, ..., r^(2K) of the radius.
+	 *
+	 * @param K the number of distortion coefficients (&ge; 1)
+	 * @param parallel if true, the views are processed in parallel
+	 */
+	public RadialDistortionEstimator(int K, boolean parallel) {
+		if (K < 1) {
+			throw new IllegalArgumentException("number of distortion coefficients must be at least 1 but is " + K);
+		}
+		this.K = K;
+		this.parallel = parallel;
+	}
+
+	/**
+	 * Returns the number of distortion coefficients estimated by this instance.
+	 *
+	 * @return the number of coefficients
+	 */
+	public int getNumberOfCoefficients() {
+		return K;
+	}
+
 	/**
 	 * Estimates the lens distortion from multiple views, starting from an initial (linear) camera model.
 	 *
@@ -31,58 +69,144 @@ public class RadialDistortionEstimator {
 	 * @return a vector of lens distortion coefficients
 	 */
 	protected double[] estimateLensDistortion(Camera cam, ViewTransform[] views, Pnt2d[] modelPts, Pnt2d[][] obsPts) {
+		return estimateLensDistortion(cam, views, PointSet.from(modelPts), PointSet.from(obsPts));
+	}
+
+	/**
+	 * Estimates the lens distortion from multiple views, starting from an initial (linear) camera model.
+	 *
+	 * @param cam the initial (linear) camera model
+	 * @param views a sequence of extrinsic view transformations
+	 * @param modelPts the set of 2D model points (on the planar calibration target)
+	 * @param obsPts a sequence of 2D image point sets, one set for each view
+	 * @return a vector of lens distortion coefficients
+	 */
+	protected double[] estimateLensDistortion(Camera cam, ViewTransform[] views, PointSet modelPts, PointSet[] obsPts) {
 		final int M = views.length;		// the number of views
-		final int N = modelPts.length;	// the number of model points
+		IntStream range = IntStream.range(0, M);
+		if (parallel) {
+			range = range.parallel();
+		}
+		NormalEquations ne = range
+				.mapToObj(i -> accumulateView(cam, views[i], modelPts, obsPts[i]))
+				.reduce(NormalEquations::add)
+				.orElseThrow(() -> new IllegalArgumentException("at least one view is required"));
+		return ne.solve();
+	}
 
+	// accumulates the contributions of all points in a single view
+	private NormalEquations accumulateView(Camera cam, ViewTransform view, PointSet modelPts, PointSet obs) {
+		final int N = modelPts.size();	// the number of model points
 		final double uc = cam.getUc();
 		final double vc = cam.getVc();
 
-		RealMatrix D = MatrixUtils.createRealMatrix(2 * M * N, 2);
-		RealVector d = new ArrayRealVector(2 * M * N);
-
-		int l = 0;
-		for (int i = 0; i < M; i++) {
-			Pnt2d[] obs = obsPts[i];
-
-			for (int j = 0; j < N; j++) {
-				// determine the radius in the ideal image plane
-				double[] xy = cam.projectNormalized(views[i], modelPts[j]);
-				double x = xy[0];
-				double y = xy[1];
-				double r2 = x * x + y * y;
-				double r4 = r2 * r2;
-				
-				// project model point to image
-				double[] uv = cam.project(views[i], modelPts[j]);
-				double u = uv[0];
-				double v = uv[1];
-				double du = u - uc;	// distance to estim. projection center
-				double dv = v - vc;
-				
-				D.setEntry(l * 2 + 0, 0, du * r2);
-				D.setEntry(l * 2 + 0, 1, du * r4);
-				D.setEntry(l * 2 + 1, 0, dv * r2);
-				D.setEntry(l * 2 + 1, 1, dv * r4);
-				
-				// observed image point
-				Pnt2d UV = obs[j];
-				double U = UV.getX();
-				double V = UV.getY();
-				
-				d.setEntry(l * 2 + 0, U - u);
-				d.setEntry(l * 2 + 1, V - v);
-				l++;
+		NormalEquations ne = new NormalEquations(K);
+		final double[] DtD = ne.DtD;
+		final double[] Dtd = ne.Dtd;
+		final double[] rp = new double[K];	// powers of r^2
+
+		for (int j = 0; j < N; j++) {
+			// determine the radius in the ideal image plane
+			final double X = modelPts.getX(j);
+			final double Y = modelPts.getY(j);
+			double[] xy = cam.projectNormalized(view, X, Y);
+			double x = xy[0];
+			double y = xy[1];
+			double r2 = x * x + y * y;
+
+			// project model point to image
+			double[] uv = cam.project(view, X, Y);
+			double u = uv[0];
+			double v = uv[1];
+			double du = u - uc;	// distance to estim. projection center
+			double dv = v - vc;
+
+			// deviation from the observed image point
+			double eu = obs.getX(j) - u;
+			double ev = obs.getY(j) - v;
+
+			// the two rows of D for this point are (du * r^2, du * r^4, ...) and (dv * r^2, dv * r^4, ...)
+			double dd = du * du + dv * dv;
+			double de = du * eu + dv * ev;
+			rp[0] = r2;
+			for (int a = 1; a < K; a++) {
+				rp[a] = rp[a - 1] * r2;
+			}
+			for (int a = 0; a < K; a++) {
+				for (int b = a; b < K; b++) {
+					DtD[a * K + b] += dd * rp[a] * rp[b];
+				}
+				Dtd[a] += de * rp[a];
+			}
+		}
+		return ne;
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	/**
+	 * Partial sums of the normal equations (D^T . D) . k = D^T . d. Only the upper triangle of D^T . D is accumulated.
+	 */
+	private static class NormalEquations {
+		private final int K;
+		private final double[] DtD;		// K x K, row-major
+		private final double[] Dtd;		// K
+
+		NormalEquations(int K) {
+			this.K = K;
+			this.DtD = new double[K * K];
+			this.Dtd = new double[K];
+		}
+
+		NormalEquations add(NormalEquations other) {
+			for (int a = 0; a < K * K; a++) {
+				DtD[a] += other.DtD[a];
+			}
+			for (int a = 0; a < K; a++) {
+				Dtd[a] += other.Dtd[a];
+			}
+			return this;
+		}
+
+		/**
+		 * Solves the normal equations by the eigen-decomposition of D^T . D, which yields the same minimum-norm
+		 * least-squares solution as the SVD of D. Eigenvalues that are negligible relative to the largest one are
+		 * ignored.
+		 */
+		double[] solve() {
+			double[] S = new double[K * K];
+			for (int a = 0; a < K; a++) {
+				for (int b = a; b < K; b++) {
+					S[a * K + b] = DtD[a * K + b];
+					S[b * K + a] = DtD[a * K + b];
+				}
+			}
+			double[] evals = new double[K];
+			double[] V = new double[K * K];
+			SmallMatrices.eigenSymmetric(S, K, evals, V);
+
+			double emax = 0;
+			for (int m = 0; m < K; m++) {
+				emax = Math.max(emax, Math.abs(evals[m]));
+			}
+			final double threshold = emax * K * 1e-15;
+
+			double[] k = new double[K];
+			for (int m = 0; m < K; m++) {
+				if (Math.abs(evals[m]) <= threshold) {
+					continue;
+				}
+				double c = 0;		// (V^T . D^T d)_m / lambda_m
+				for (int a = 0; a < K; a++) {
+					c = c + V[a * K + m] * Dtd[a];
+				}
+				c = c / evals[m];
+				for (int a = 0; a < K; a++) {
+					k[a] += c * V[a * K + m];
+				}
 			}
+			return k;
 		}
-		
-		DecompositionSolver solver = new SingularValueDecomposition(D).getSolver();
-		RealVector k = solver.solve(d);
-		
-//		double err1 = D.operate(new ArrayRealVector(new double[] {0,0})).subtract(d).getNorm();
-//		double err2 = D.operate(k).subtract(d).getNorm();
-//		System.out.format("err1=%.2f, err2=%.2f \n", err1, err2);
-		
-		return k.toArray();
 	}
 
 }
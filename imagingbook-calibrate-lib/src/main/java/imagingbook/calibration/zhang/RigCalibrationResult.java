@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang;
+
+import java.util.stream.IntStream;
+
+/**
+ * Immutable result of a joint camera rig calibration, as returned by {@link RigCalibrator#calibrate(PointSet[][])}.
+ * Holds the intrinsics of the C cameras, the extrinsic transformations from camera 0 to each camera and the target
+ * poses (relative to camera 0) of the M captures.
+ *
+ * @author WB
+ */
+public class RigCalibrationResult {
+
+	private final Camera[] cameras;
+	private final ViewTransform[] extrinsics;
+	private final ViewTransform[] poses;
+	private final ProjectionErrorReport[] errors;	// one report per camera, over the captures it observed
+	private final NonlinearOptimizer.Status status;
+	private final int iterations;
+
+	RigCalibrationResult(Camera[] cameras, ViewTransform[] extrinsics, ViewTransform[] poses, PointSet modelPts,
+			PointSet[][] obsPts, NonlinearOptimizer.Status status, int iterations) {
+		this.cameras = cameras.clone();
+		this.extrinsics = extrinsics.clone();
+		this.poses = poses.clone();
+		this.status = status;
+		this.iterations = iterations;
+		this.errors = new ProjectionErrorReport[cameras.length];
+		for (int c = 0; c < cameras.length; c++) {
+			final int cc = c;
+			int[] idx = IntStream.range(0, poses.length).filter(i -> obsPts[cc][i] != null).toArray();
+			ViewTransform[] views = new ViewTransform[idx.length];
+			PointSet[] obs = new PointSet[idx.length];
+			for (int l = 0; l < idx.length; l++) {
+				views[l] = getView(c, idx[l]);
+				obs[l] = obsPts[c][idx[l]];
+			}
+			errors[c] = ProjectionErrorReport.compute(cameras[c], views, modelPts, obs, false);
+		}
+	}
+
+	/**
+	 * Returns the number of cameras (C).
+	 *
+	 * @return the number of cameras
+	 */
+	public int getNumberOfCameras() {
+		return cameras.length;
+	}
+
+	/**
+	 * Returns the number of captures (M).
+	 *
+	 * @return the number of captures
+	 */
+	public int getNumberOfCaptures() {
+		return poses.length;
+	}
+
+	/**
+	 * Returns the calibrated intrinsics of the specified camera.
+	 *
+	 * @param c the camera index (0,...,C-1)
+	 * @return the camera
+	 */
+	public Camera getCamera(int c) {
+		return cameras[c];
+	}
+
+	/**
+	 * Returns the transformation from the coordinate frame of camera 0 to the frame of the specified camera (the
+	 * identity for camera 0).
+	 *
+	 * @param c the camera index (0,...,C-1)
+	 * @return the extrinsic transformation of camera c
+	 */
+	public ViewTransform getExtrinsics(int c) {
+		return extrinsics[c];
+	}
+
+	/**
+	 * Returns the target pose of the specified capture, relative to camera 0.
+	 *
+	 * @param i the capture index (0,...,M-1)
+	 * @return the target pose of capture i
+	 */
+	public ViewTransform getPose(int i) {
+		return poses[i];
+	}
+
+	/**
+	 * Returns the view of the target in the specified capture as seen by the specified camera, i.e., the composition
+	 * of the target pose and the camera's extrinsics.
+	 *
+	 * @param c the camera index (0,...,C-1)
+	 * @param i the capture index (0,...,M-1)
+	 * @return the view transformation
+	 */
+	public ViewTransform getView(int c, int i) {
+		return (c == 0) ? poses[i] : RigCalibrator.compose(extrinsics[c], poses[i]);
+	}
+
+	/**
+	 * Returns the projection error report of the specified camera, over all captures in which it observed the target
+	 * (in the order of the captures).
+	 *
+	 * @param c the camera index (0,...,C-1)
+	 * @return the error report of camera c
+	 */
+	public ProjectionErrorReport getErrorReport(int c) {
+		return errors[c];
+	}
+
+	/**
+	 * Returns the RMS projection error (per point, in pixel units) over all cameras and captures.
+	 *
+	 * @return the overall RMS error
+	 */
+	public double getRms() {
+		double sum = 0;
+		int n = 0;
+		for (ProjectionErrorReport report : errors) {
+			sum = sum + report.getSquaredError();
+			n = n + report.getNumberOfViews() * report.getNumberOfPoints();
+		}
+		return Math.sqrt(sum / n);
+	}
+
+	/**
+	 * Returns the termination status of the joint optimization.
+	 *
+	 * @return the termination status
+	 */
+	public NonlinearOptimizer.Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * Returns the number of iterations of the joint optimization.
+	 *
+	 * @return the number of iterations
+	 */
+	public int getIterations() {
+		return iterations;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[cameras=%d, captures=%d, rms=%.4f, status=%s]", this.getClass().getSimpleName(),
+				cameras.length, poses.length, getRms(), status);
+	}
+
+}
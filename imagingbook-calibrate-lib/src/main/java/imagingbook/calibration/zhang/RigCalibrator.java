@@ -0,0 +1,561 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang;
+
+import imagingbook.calibration.zhang.util.SmallMatrices;
+import imagingbook.common.util.ParameterBundle;
+import org.apache.commons.math3.linear.MatrixUtils;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * <p>
+ * Joint calibration of a rig of C rigidly mounted cameras observing the same planar target in M captures. The model
+ * consists of the intrinsic parameters of each camera, one target pose per capture (relative to camera 0) and the
+ * fixed extrinsic transformation from camera 0 to each other camera, i.e., the view of capture i in camera c is
+ * E_c . T_i (with E_0 = identity). Not every camera needs to see the target in every capture.
+ * </p>
+ * <p>
+ * Each camera is first calibrated on its own (see {@link Calibrator}) to obtain initial intrinsics; the initial
+ * extrinsics are the averaged relative poses of the captures shared with camera 0. All parameters are then refined
+ * jointly by a Levenberg-Marquardt optimization that exploits the block-sparse structure of the problem: the 6
+ * parameters of each target pose only interact with the camera parameters, so the normal equations are reduced to
+ * the (small) system of the camera parameters by the Schur complement and the pose updates are obtained by
+ * back-substitution.
+ * </p>
+ *
+ * @author WB
+ */
+public class RigCalibrator {
+
+	public static final int DefaultMaxIterations = 200;
+	private static final double InitialDamping = 1e-3;
+	private static final double MaxDamping = 1e16;
+	private static final double CostTolerance = 1e-12;
+
+	private final Calibrator.Parameters params;
+	private final PointSet modelPts;
+	private final int maxIterations;
+
+	/**
+	 * Constructor, using {@link #DefaultMaxIterations}.
+	 *
+	 * @param params parameters for the calibration of the individual cameras (default parameters if {@code null})
+	 * @param model the points of the planar target (model)
+	 */
+	public RigCalibrator(Calibrator.Parameters params, PointSet model) {
+		this(params, model, DefaultMaxIterations);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param params parameters for the calibration of the individual cameras (default parameters if {@code null})
+	 * @param model the points of the planar target (model)
+	 * @param maxIterations the max. number of iterations of the joint optimization
+	 */
+	public RigCalibrator(Calibrator.Parameters params, PointSet model, int maxIterations) {
+		this.params = (params != null) ? ParameterBundle.duplicate(params) : new Calibrator.Parameters();
+		this.modelPts = PointSet.wrap(model.toArray());
+		this.maxIterations = maxIterations;
+	}
+
+	/**
+	 * Calibrates the camera rig from the given observations, indexed by camera and capture. Element [c][i] holds the
+	 * image points of the target seen by camera c in capture i, or {@code null} if camera c did not see the target.
+	 * Every camera must see the target in enough captures for its own calibration and share at least one capture with
+	 * camera 0.
+	 *
+	 * @param obsPts the observed image points of C cameras in M captures
+	 * @return the calibration result
+	 */
+	public RigCalibrationResult calibrate(PointSet[][] obsPts) {
+		final int C = obsPts.length;
+		if (C < 2) {
+			throw new IllegalArgumentException("Rig calibration: at least two cameras needed");
+		}
+		final int M = obsPts[0].length;
+		for (int c = 1; c < C; c++) {
+			if (obsPts[c].length != M) {
+				throw new IllegalArgumentException("Rig calibration: all cameras must have the same number of captures");
+			}
+		}
+
+		// calibrate each camera on its own (concurrently)
+		final Camera[] cameras = new Camera[C];
+		final ViewTransform[][] views = new ViewTransform[C][M];
+		IntStream.range(0, C).parallel().forEach(c -> {
+			int[] idx = IntStream.range(0, M).filter(i -> obsPts[c][i] != null).toArray();
+			PointSet[] obs = new PointSet[idx.length];
+			for (int l = 0; l < idx.length; l++) {
+				obs[l] = obsPts[c][idx[l]];
+			}
+			CalibrationResult res = new Calibrator(params, modelPts).calibrate(obs);
+			cameras[c] = res.getFinalCamera();
+			ViewTransform[] vs = res.getFinalViews();
+			for (int l = 0; l < idx.length; l++) {
+				views[c][idx[l]] = vs[l];
+			}
+		});
+
+		// initial extrinsics: average relative pose E_c = V_ci . V_0i^-1 over all shared captures
+		final ViewTransform[] extrinsics = new ViewTransform[C];
+		extrinsics[0] = new ViewTransform();
+		for (int c = 1; c < C; c++) {
+			extrinsics[c] = averageRelativePose(views[0], views[c]);
+		}
+
+		// initial target poses (in camera 0): T_i = V_0i or E_c^-1 . V_ci
+		final ViewTransform[] poses = new ViewTransform[M];
+		for (int i = 0; i < M; i++) {
+			for (int c = 0; c < C && poses[i] == null; c++) {
+				if (views[c][i] != null) {
+					poses[i] = compose(invert(extrinsics[c]), views[c][i]);
+				}
+			}
+			if (poses[i] == null) {
+				throw new IllegalArgumentException("Rig calibration: capture " + i + " is not observed by any camera");
+			}
+		}
+
+		JointOptimizer optimizer = new JointOptimizer(obsPts, cameras, extrinsics, poses);
+		optimizer.optimize();
+		return optimizer.getResult();
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	/**
+	 * Returns the composite transformation A . B (B is applied first).
+	 */
+	static ViewTransform compose(ViewTransform A, ViewTransform B) {
+		final double[] Ra = toArray(A.getRotation().getMatrix());
+		final double[] Rb = toArray(B.getRotation().getMatrix());
+		final double[] R = new double[9];
+		final double[] t = new double[3];
+		final double[] tb = B.getTranslation();
+		final double[] ta = A.getTranslation();
+		SmallMatrices.multiply3x3(Ra, Rb, R);
+		SmallMatrices.apply3x3(Ra, tb[0], tb[1], tb[2], t);
+		for (int k = 0; k < 3; k++) {
+			t[k] = t[k] + ta[k];
+		}
+		return makeView(R, t);
+	}
+
+	/**
+	 * Returns the inverse transformation of A.
+	 */
+	static ViewTransform invert(ViewTransform A) {
+		final double[] R = toArray(A.getRotation().getMatrix());
+		final double[] Rt = {R[0], R[3], R[6], R[1], R[4], R[7], R[2], R[5], R[8]};
+		final double[] ta = A.getTranslation();
+		final double[] t = new double[3];
+		SmallMatrices.apply3x3(Rt, -ta[0], -ta[1], -ta[2], t);
+		return makeView(Rt, t);
+	}
+
+	private static ViewTransform averageRelativePose(ViewTransform[] views0, ViewTransform[] viewsC) {
+		final double[] Rsum = new double[9];
+		int n = 0;
+		for (int i = 0; i < views0.length; i++) {
+			if (views0[i] != null && viewsC[i] != null) {
+				ViewTransform E = compose(viewsC[i], invert(views0[i]));
+				final double[] R = toArray(E.getRotation().getMatrix());
+				for (int k = 0; k < 9; k++) {
+					Rsum[k] = Rsum[k] + R[k];
+				}
+				n++;
+			}
+		}
+		if (n == 0) {
+			throw new IllegalArgumentException("Rig calibration: camera shares no capture with camera 0");
+		}
+		// closest rotation to the mean rotation matrix
+		if (!SmallMatrices.orthogonalize3x3(Rsum, new double[3], new double[9])) {
+			throw new IllegalArgumentException("Rig calibration: inconsistent relative camera poses");
+		}
+		// mean translation t_c = t_ci - R_c . t_0i
+		final double[] t = new double[3];
+		final double[] Rt0 = new double[3];
+		for (int i = 0; i < views0.length; i++) {
+			if (views0[i] != null && viewsC[i] != null) {
+				final double[] t0 = views0[i].getTranslation();
+				final double[] tc = viewsC[i].getTranslation();
+				SmallMatrices.apply3x3(Rsum, t0[0], t0[1], t0[2], Rt0);
+				for (int k = 0; k < 3; k++) {
+					t[k] = t[k] + (tc[k] - Rt0[k]) / n;
+				}
+			}
+		}
+		return makeView(Rsum, t);
+	}
+
+	private static double[] toArray(double[][] R) {
+		return new double[] {R[0][0], R[0][1], R[0][2], R[1][0], R[1][1], R[1][2], R[2][0], R[2][1], R[2][2]};
+	}
+
+	private static ViewTransform makeView(double[] R, double[] t) {
+		final double[][] R2 = {{R[0], R[1], R[2]}, {R[3], R[4], R[5]}, {R[6], R[7], R[8]}};
+		return new ViewTransform(MatrixUtils.createRealMatrix(R2), MatrixUtils.createRealVector(t));
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	/**
+	 * Levenberg-Marquardt optimizer over the camera parameters a = (intrinsics of cameras 0,...,C-1, extrinsics of
+	 * cameras 1,...,C-1) and the pose parameters b = (T_0,...,T_M-1), with the pose blocks eliminated by the Schur
+	 * complement. With J = (Ja, Jb) and residuals r (projected - observed), the normal equations are
+	 * <pre>
+	 * | U    W_i | |da  |   |ga  |
+	 * | W_i' V_i | |db_i| = |gb_i|
+	 * </pre>
+	 * with U = Ja'.Ja, V_i = Jb_i'.Jb_i (6 x 6), W_i = Ja'.Jb_i, ga = Ja'.r and gb_i = Jb_i'.r.
+	 */
+	private class JointOptimizer {
+
+		private final PointSet[][] obsPts;
+		private final int C, M, N;
+		private final int nk;		// number of distortion coefficients
+		private final int ni;		// number of intrinsic parameters per camera (5 + nk)
+		private final int Na;		// number of camera parameters
+		private final DistortionModel distortionModel;
+
+		private double[] a, a1;		// camera parameters (current, trial)
+		private double[] b, b1;		// pose parameters (current, trial)
+		private final double[] da, db;
+
+		// normal equations
+		private final double[] U, ga;
+		private final double[][] V, W, gb;
+
+		// rotations and rotation derivative terms of the extrinsics (C) and poses (M)
+		private final double[][] Re, Ce, Rp, Cp;
+
+		private double cost;
+		private int iterations = 0;
+		private NonlinearOptimizer.Status status = NonlinearOptimizer.Status.MaxIterationsExceeded;
+
+		JointOptimizer(PointSet[][] obsPts, Camera[] cameras, ViewTransform[] extrinsics, ViewTransform[] poses) {
+			this.obsPts = obsPts;
+			this.C = cameras.length;
+			this.M = poses.length;
+			this.N = modelPts.size();
+			this.distortionModel = cameras[0].getDistortionModel();
+			this.nk = cameras[0].getK().length;
+			this.ni = 5 + nk;
+			this.Na = C * ni + 6 * (C - 1);
+			this.a = new double[Na];
+			this.a1 = new double[Na];
+			this.b = new double[6 * M];
+			this.b1 = new double[6 * M];
+			this.da = new double[Na];
+			this.db = new double[6 * M];
+			for (int c = 0; c < C; c++) {
+				System.arraycopy(cameras[c].getParameterVector(), 0, a, c * ni, ni);
+				if (c > 0) {
+					System.arraycopy(extrinsics[c].getParameters(), 0, a, extOffset(c), 6);
+				}
+			}
+			for (int i = 0; i < M; i++) {
+				System.arraycopy(poses[i].getParameters(), 0, b, 6 * i, 6);
+			}
+			this.U = new double[Na * Na];
+			this.ga = new double[Na];
+			this.V = new double[M][36];
+			this.W = new double[M][Na * 6];
+			this.gb = new double[M][6];
+			this.Re = new double[C][9];
+			this.Ce = new double[C][9];
+			this.Rp = new double[M][9];
+			this.Cp = new double[M][9];
+		}
+
+		private int extOffset(int c) {
+			return C * ni + 6 * (c - 1);
+		}
+
+		void optimize() {
+			double lambda = InitialDamping;
+			cost = evaluate(a, b, true);
+			while (iterations < maxIterations) {
+				iterations++;
+				if (!solve(lambda)) {
+					lambda = 10 * lambda;
+					continue;
+				}
+				for (int k = 0; k < Na; k++) {
+					a1[k] = a[k] - da[k];
+				}
+				for (int k = 0; k < 6 * M; k++) {
+					b1[k] = b[k] - db[k];
+				}
+				final double cost1 = evaluate(a1, b1, false);
+				if (cost1 < cost) {		// accept the step
+					double[] tmp = a; a = a1; a1 = tmp;
+					tmp = b; b = b1; b1 = tmp;
+					final boolean converged = (cost - cost1) <= CostTolerance * cost;
+					cost = evaluate(a, b, true);
+					lambda = 0.1 * lambda;
+					if (converged) {
+						status = NonlinearOptimizer.Status.Converged;
+						break;
+					}
+				}
+				else {
+					lambda = 10 * lambda;
+					if (lambda > MaxDamping) {	// no further improvement possible
+						status = NonlinearOptimizer.Status.Converged;
+						break;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Calculates the damped update (da, db) by the Schur complement. Returns false if any of the reduced systems is
+		 * not positive definite.
+		 */
+		private boolean solve(double lambda) {
+			final double[] S = new double[Na * Na];
+			final double[] rhs = ga.clone();
+			final double[] Vi = new double[36];
+			final double[] Vinv = new double[36];
+			final double[] e = new double[6];
+			final double[] x = new double[6];
+			final double[] Y = new double[Na * 6];		// W_i . V_i^-1
+			final double[][] Vinvs = new double[M][];
+			System.arraycopy(U, 0, S, 0, S.length);
+			for (int k = 0; k < Na; k++) {
+				S[k * Na + k] = (1 + lambda) * U[k * Na + k];
+			}
+			for (int i = 0; i < M; i++) {
+				// invert the damped 6 x 6 block V_i
+				for (int col = 0; col < 6; col++) {
+					System.arraycopy(V[i], 0, Vi, 0, 36);
+					for (int k = 0; k < 6; k++) {
+						Vi[k * 6 + k] = (1 + lambda) * V[i][k * 6 + k];
+						e[k] = (k == col) ? 1 : 0;
+					}
+					if (!SmallMatrices.solveCholesky(Vi, 6, e, x)) {
+						return false;
+					}
+					for (int k = 0; k < 6; k++) {
+						Vinv[k * 6 + col] = x[k];
+					}
+				}
+				Vinvs[i] = Vinv.clone();
+				// Y = W_i . V_i^-1, S = S - Y . W_i', rhs = rhs - Y . gb_i
+				final double[] Wi = W[i];
+				for (int r = 0; r < Na; r++) {
+					for (int col = 0; col < 6; col++) {
+						double s = 0;
+						for (int k = 0; k < 6; k++) {
+							s = s + Wi[r * 6 + k] * Vinv[k * 6 + col];
+						}
+						Y[r * 6 + col] = s;
+					}
+				}
+				for (int r = 0; r < Na; r++) {
+					for (int col = 0; col <= r; col++) {
+						double s = 0;
+						for (int k = 0; k < 6; k++) {
+							s = s + Y[r * 6 + k] * Wi[col * 6 + k];
+						}
+						S[r * Na + col] = S[r * Na + col] - s;
+					}
+					double s = 0;
+					for (int k = 0; k < 6; k++) {
+						s = s + Y[r * 6 + k] * gb[i][k];
+					}
+					rhs[r] = rhs[r] - s;
+				}
+			}
+			if (!SmallMatrices.solveCholesky(S, Na, rhs, da)) {		// uses the lower triangle of S only
+				return false;
+			}
+			// back-substitution: db_i = V_i^-1 . (gb_i - W_i' . da)
+			for (int i = 0; i < M; i++) {
+				for (int k = 0; k < 6; k++) {
+					double s = gb[i][k];
+					for (int r = 0; r < Na; r++) {
+						s = s - W[i][r * 6 + k] * da[r];
+					}
+					e[k] = s;
+				}
+				for (int k = 0; k < 6; k++) {
+					double s = 0;
+					for (int l = 0; l < 6; l++) {
+						s = s + Vinvs[i][k * 6 + l] * e[l];
+					}
+					db[6 * i + k] = s;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Calculates the total squared projection error for the parameters (pa, pb) and, if withJacobian is set,
+		 * accumulates the normal equations.
+		 */
+		private double evaluate(double[] pa, double[] pb, boolean withJacobian) {
+			for (int c = 1; c < C; c++) {
+				ProjectionDerivatives.prepareRotation(pa, extOffset(c), Re[c], Ce[c]);
+			}
+			for (int i = 0; i < M; i++) {
+				ProjectionDerivatives.prepareRotation(pb, 6 * i, Rp[i], Cp[i]);
+			}
+			if (withJacobian) {
+				Arrays.fill(U, 0);
+				Arrays.fill(ga, 0);
+				for (int i = 0; i < M; i++) {
+					Arrays.fill(V[i], 0);
+					Arrays.fill(W[i], 0);
+					Arrays.fill(gb[i], 0);
+				}
+			}
+
+			final ProjectionDerivatives pd = new ProjectionDerivatives(distortionModel, nk);
+			final double[] qp = new double[3];		// model point rotated by the pose
+			final double[] qc = new double[3];		// ... and by the extrinsics
+			final double[] Gp = new double[9];		// d(qp)/d(w_pose)
+			final double[] Ge = new double[9];		// d(qc)/d(w_ext)
+			final double[] hRu = new double[3], hRv = new double[3];
+			final double[] Jau = new double[ni + 6], Jav = new double[ni + 6];	// camera columns
+			final double[] Jbu = new double[6], Jbv = new double[6];				// pose columns
+			final int[] col = new int[ni + 6];	// camera columns -> indices in a
+
+			double sum = 0;
+			for (int c = 0; c < C; c++) {
+				final int oc = c * ni;
+				pd.setCamera(pa, oc);
+				final boolean isRef = (c == 0);
+				final double[] R = Re[c];
+				final int oe = isRef ? 0 : extOffset(c);
+				final double tcx = isRef ? 0 : pa[oe + 3], tcy = isRef ? 0 : pa[oe + 4], tcz = isRef ? 0 : pa[oe + 5];
+				final int La = isRef ? ni : ni + 6;
+				for (int l = 0; l < ni; l++) {
+					col[l] = oc + l;
+				}
+				for (int l = 0; l < 6; l++) {
+					col[ni + l] = oe + l;
+				}
+
+				for (int i = 0; i < M; i++) {
+					final PointSet obs = obsPts[c][i];
+					if (obs == null) {
+						continue;
+					}
+					final int op = 6 * i;
+					final double[] Ri = Rp[i];
+					for (int j = 0; j < N; j++) {
+						final double X = modelPts.getX(j);
+						final double Y = modelPts.getY(j);
+						qp[0] = Ri[0] * X + Ri[1] * Y;
+						qp[1] = Ri[3] * X + Ri[4] * Y;
+						qp[2] = Ri[6] * X + Ri[7] * Y;
+						final double Qx = qp[0] + pb[op + 3], Qy = qp[1] + pb[op + 4], Qz = qp[2] + pb[op + 5];
+						if (isRef) {
+							qc[0] = Qx; qc[1] = Qy; qc[2] = Qz;
+						}
+						else {
+							qc[0] = R[0] * Qx + R[1] * Qy + R[2] * Qz;
+							qc[1] = R[3] * Qx + R[4] * Qy + R[5] * Qz;
+							qc[2] = R[6] * Qx + R[7] * Qy + R[8] * Qz;
+						}
+						pd.project(qc[0] + tcx, qc[1] + tcy, qc[2] + tcz);
+						final double ru = pd.u - obs.getX(j);
+						final double rv = pd.v - obs.getY(j);
+						sum = sum + ru * ru + rv * rv;
+						if (!withJacobian) {
+							continue;
+						}
+
+						// intrinsic parameters (alpha, beta, gamma, uc, vc, k0, ...)
+						System.arraycopy(pd.Ju, 0, Jau, 0, ni);
+						System.arraycopy(pd.Jv, 0, Jav, 0, ni);
+
+						// d(u,v)/d(camera point) are also the derivatives for the translation of the extrinsics
+						final double[] hu = pd.hu, hv = pd.hv;
+						if (isRef) {
+							System.arraycopy(hu, 0, hRu, 0, 3);
+							System.arraycopy(hv, 0, hRv, 0, 3);
+						}
+						else {
+							// extrinsics: rotation (via d(qc)/dw) and translation
+							ProjectionDerivatives.rotationJacobian(pa, oe, Ce[c], qc, Ge);
+							for (int l = 0; l < 3; l++) {
+								Jau[ni + l] = hu[0] * Ge[l] + hu[1] * Ge[3 + l] + hu[2] * Ge[6 + l];
+								Jav[ni + l] = hv[0] * Ge[l] + hv[1] * Ge[3 + l] + hv[2] * Ge[6 + l];
+								Jau[ni + 3 + l] = hu[l];
+								Jav[ni + 3 + l] = hv[l];
+							}
+							// h . R_c (the pose is transformed by the extrinsics)
+							for (int l = 0; l < 3; l++) {
+								hRu[l] = hu[0] * R[l] + hu[1] * R[3 + l] + hu[2] * R[6 + l];
+								hRv[l] = hv[0] * R[l] + hv[1] * R[3 + l] + hv[2] * R[6 + l];
+							}
+						}
+
+						// pose: rotation (via d(qp)/dw) and translation
+						ProjectionDerivatives.rotationJacobian(pb, op, Cp[i], qp, Gp);
+						for (int l = 0; l < 3; l++) {
+							Jbu[l] = hRu[0] * Gp[l] + hRu[1] * Gp[3 + l] + hRu[2] * Gp[6 + l];
+							Jbv[l] = hRv[0] * Gp[l] + hRv[1] * Gp[3 + l] + hRv[2] * Gp[6 + l];
+							Jbu[3 + l] = hRu[l];
+							Jbv[3 + l] = hRv[l];
+						}
+
+						// accumulate U (lower triangle), W_i, V_i (lower triangle), ga, gb_i
+						final double[] Wi = W[i], Vi = V[i], gbi = gb[i];
+						for (int p = 0; p < La; p++) {
+							final double up = Jau[p], vp = Jav[p];
+							if (up == 0 && vp == 0) {
+								continue;
+							}
+							final int cp = col[p];
+							for (int q = 0; q < La; q++) {
+								final int cq = col[q];
+								if (cq <= cp) {
+									U[cp * Na + cq] = U[cp * Na + cq] + up * Jau[q] + vp * Jav[q];
+								}
+							}
+							for (int q = 0; q < 6; q++) {
+								Wi[cp * 6 + q] = Wi[cp * 6 + q] + up * Jbu[q] + vp * Jbv[q];
+							}
+							ga[cp] = ga[cp] + up * ru + vp * rv;
+						}
+						for (int p = 0; p < 6; p++) {
+							for (int q = 0; q <= p; q++) {
+								Vi[p * 6 + q] = Vi[p * 6 + q] + Jbu[p] * Jbu[q] + Jbv[p] * Jbv[q];
+							}
+							gbi[p] = gbi[p] + Jbu[p] * ru + Jbv[p] * rv;
+						}
+					}
+				}
+			}
+			return sum;
+		}
+
+		RigCalibrationResult getResult() {
+			final Camera[] cameras = new Camera[C];
+			final ViewTransform[] extrinsics = new ViewTransform[C];
+			final ViewTransform[] poses = new ViewTransform[M];
+			for (int c = 0; c < C; c++) {
+				cameras[c] = new Camera(distortionModel, Arrays.copyOfRange(a, c * ni, (c + 1) * ni));
+				extrinsics[c] = (c == 0) ? new ViewTransform() :
+						new ViewTransform(Arrays.copyOfRange(a, extOffset(c), extOffset(c) + 6));
+			}
+			for (int i = 0; i < M; i++) {
+				poses[i] = new ViewTransform(Arrays.copyOfRange(b, 6 * i, 6 * i + 6));
+			}
+			return new RigCalibrationResult(cameras, extrinsics, poses, modelPts, obsPts, status, iterations);
+		}
+	}
+
+}
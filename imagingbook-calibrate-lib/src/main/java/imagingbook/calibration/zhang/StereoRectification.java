@@ -0,0 +1,345 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang;
+
+import imagingbook.calibration.zhang.util.SmallMatrices;
+import imagingbook.common.geometry.basic.Pnt2d;
+import imagingbook.common.geometry.basic.Pnt2d.PntDouble;
+import imagingbook.common.geometry.mappings.Mapping2D;
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.apache.commons.math3.linear.RealMatrix;
+
+import java.util.stream.IntStream;
+
+/**
+ * <p>
+ * Rectification of a calibrated stereo camera pair, i.e., the transformation of both images to a common image plane
+ * where corresponding points lie on the same image row (epipolar lines are horizontal). Both cameras are virtually
+ * rotated about their projection centers, such that their x-axes are aligned with the baseline and their optical
+ * axes are parallel (the mean of the original optical axes projected onto the plane orthogonal to the baseline). The
+ * rectified images are taken with a common, distortion-free camera (see {@link #getRectifiedCamera()}), so lens
+ * distortion is removed as well (see also {@link RectificationMapping}).
+ * </p>
+ * <p>
+ * Like {@link RectificationMapping}, the mappings of the left and right image are target-to-source mappings (from
+ * rectified to original image coordinates). Since the mappings are the same for every frame, they are also tabulated
+ * for all pixel positions of the rectified images (see {@link RemapTable}). The tables are calculated concurrently when
+ * the rectification is created and are stored as single-precision, interleaved coordinates.
+ * </p>
+ * <p>
+ * Typical usage (by target-to-source-mapping):
+ * </p>
+ * <pre>
+ * StereoRectification sr = new StereoRectification(camL, camR, E, width, height);
+ * ImageMapper mapper = new ImageMapper(sr.getLeftTable(), null, InterpolationMethod.Bicubic);  // reused per frame
+ * ImageProcessor left = ... ;    // original left image
+ * ImageProcessor leftRect = ... ; // new rectified left image
+ * mapper.map(left, leftRect);
+ * </pre>
+ *
+ * @author WB
+ */
+public class StereoRectification {
+
+	private final Camera camL, camR;
+	private final Camera camRect;			// common (distortion-free) camera of the rectified images
+	private final double[] RL = new double[9];	// rectifying rotation of the left camera (row-major)
+	private final double[] RR = new double[9];	// rectifying rotation of the right camera (row-major)
+	private final double baseline;
+	private final RemapTable tableL, tableR;
+
+	/**
+	 * Constructor, calculates the rectifying rotations and the remap tables for both cameras.
+	 *
+	 * @param camL the left camera
+	 * @param camR the right camera
+	 * @param E the transformation from left to right camera coordinates (e.g., from
+	 * {@link RigCalibrationResult#getExtrinsics(int)})
+	 * @param width the width of the rectified images
+	 * @param height the height of the rectified images
+	 */
+	public StereoRectification(Camera camL, Camera camR, ViewTransform E, int width, int height) {
+		this.camL = camL;
+		this.camR = camR;
+
+		// right camera center in left camera coordinates: c = -R^T . t
+		final double[][] R = E.getRotation().getMatrix();
+		final double[] t = E.getTranslation();
+		final double[] c = new double[3];
+		for (int k = 0; k < 3; k++) {
+			c[k] = -(R[0][k] * t[0] + R[1][k] * t[1] + R[2][k] * t[2]);
+		}
+		this.baseline = Math.sqrt(c[0] * c[0] + c[1] * c[1] + c[2] * c[2]);
+		if (baseline == 0) {
+			throw new IllegalArgumentException("stereo rectification: cameras have identical projection centers");
+		}
+
+		// new axes (in left camera coordinates): x along the baseline, z close to the mean optical axis
+		final double[] ex = {c[0] / baseline, c[1] / baseline, c[2] / baseline};
+		final double[] z = {R[2][0], R[2][1], R[2][2] + 1};	// z_L + z_R, z_R = R^T . (0,0,1)
+		final double[] ey = new double[3];
+		final double[] ez = new double[3];
+		SmallMatrices.cross3(z, ex, ey);
+		final double ny = Math.sqrt(ey[0] * ey[0] + ey[1] * ey[1] + ey[2] * ey[2]);
+		for (int k = 0; k < 3; k++) {
+			ey[k] = ey[k] / ny;
+		}
+		SmallMatrices.cross3(ex, ey, ez);
+
+		// R_L = R_rect (rows ex, ey, ez), R_R = R_rect . R^T
+		final double[] Rrect = {ex[0], ex[1], ex[2], ey[0], ey[1], ey[2], ez[0], ez[1], ez[2]};
+		final double[] Rt = {R[0][0], R[1][0], R[2][0], R[0][1], R[1][1], R[2][1], R[0][2], R[1][2], R[2][2]};
+		System.arraycopy(Rrect, 0, RL, 0, 9);
+		SmallMatrices.multiply3x3(Rrect, Rt, RR);
+
+		// common rectified camera: mean focal length and principal point
+		final double f = 0.25 * (camL.getAlpha() + camL.getBeta() + camR.getAlpha() + camR.getBeta());
+		final double uc = 0.5 * (camL.getUc() + camR.getUc());
+		final double vc = 0.5 * (camL.getVc() + camR.getVc());
+		this.camRect = new Camera(f, f, 0, uc, vc, 0, 0);
+
+		final RemapTable[] tables = new RemapTable[2];
+		IntStream.range(0, 2).parallel().forEach(s -> tables[s] = new RemapTable(makeMapping(s), width, height));
+		this.tableL = tables[0];
+		this.tableR = tables[1];
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	/**
+	 * Returns the rectifying rotation of the left camera (from original to rectified camera coordinates).
+	 *
+	 * @return the 3 x 3 rotation matrix
+	 */
+	public RealMatrix getLeftRotation() {
+		return toMatrix(RL);
+	}
+
+	/**
+	 * Returns the rectifying rotation of the right camera (from original to rectified camera coordinates).
+	 *
+	 * @return the 3 x 3 rotation matrix
+	 */
+	public RealMatrix getRightRotation() {
+		return toMatrix(RR);
+	}
+
+	/**
+	 * Returns the common, distortion-free camera of the rectified images.
+	 *
+	 * @return the rectified camera
+	 */
+	public Camera getRectifiedCamera() {
+		return camRect;
+	}
+
+	/**
+	 * Returns the distance between the projection centers of the two cameras (in world units). In rectified
+	 * coordinates, the right camera is displaced by this amount along the x-axis.
+	 *
+	 * @return the baseline length
+	 */
+	public double getBaseline() {
+		return baseline;
+	}
+
+	/**
+	 * Returns the exact (untabulated) mapping from rectified to original left image coordinates.
+	 *
+	 * @return the left target-to-source mapping
+	 */
+	public Mapping2D getLeftMapping() {
+		return makeMapping(0);
+	}
+
+	/**
+	 * Returns the exact (untabulated) mapping from rectified to original right image coordinates.
+	 *
+	 * @return the right target-to-source mapping
+	 */
+	public Mapping2D getRightMapping() {
+		return makeMapping(1);
+	}
+
+	/**
+	 * Returns the tabulated mapping from rectified to original left image coordinates.
+	 *
+	 * @return the left remap table
+	 */
+	public RemapTable getLeftTable() {
+		return tableL;
+	}
+
+	/**
+	 * Returns the tabulated mapping from rectified to original right image coordinates.
+	 *
+	 * @return the right remap table
+	 */
+	public RemapTable getRightTable() {
+		return tableR;
+	}
+
+	private SideMapping makeMapping(int side) {
+		return (side == 0) ? new SideMapping(camL, RL) : new SideMapping(camR, RR);
+	}
+
+	private static RealMatrix toMatrix(double[] R) {
+		return MatrixUtils.createRealMatrix(new double[][]
+				{{R[0], R[1], R[2]},
+				 {R[3], R[4], R[5]},
+				 {R[6], R[7], R[8]}});
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	/**
+	 * Maps a position in the rectified image to the original image of one camera: the ray of the rectified camera is
+	 * rotated back to the original camera coordinates and projected with the original camera (including lens
+	 * distortion).
+	 */
+	private class SideMapping implements Mapping2D {
+		private final double[] Rs;		// rectifying rotation of this camera
+		private final double f, uc, vc;	// rectified camera
+		private final double alpha, beta, gamma, u0, v0;
+		private final double[] k;
+		private final DistortionModel model;
+
+		SideMapping(Camera cam, double[] Rs) {
+			this.Rs = Rs;
+			this.f = camRect.getAlpha();
+			this.uc = camRect.getUc();
+			this.vc = camRect.getVc();
+			this.alpha = cam.getAlpha();
+			this.beta = cam.getBeta();
+			this.gamma = cam.getGamma();
+			this.u0 = cam.getUc();
+			this.v0 = cam.getVc();
+			this.k = cam.getK();
+			this.model = cam.getDistortionModel();
+		}
+
+		@Override
+		public Pnt2d applyTo(Pnt2d uv) {
+			final double[] xyd = new double[2];
+			map(uv.getX(), uv.getY(), xyd);
+			return PntDouble.from(xyd);
+		}
+
+		/**
+		 * Maps the rectified image position (u, v) to original image coordinates, returned in uv.
+		 */
+		void map(double u, double v, double[] uv) {
+			final double xn = (u - uc) / f;
+			final double yn = (v - vc) / f;
+			// X = Rs^T . (xn, yn, 1)
+			final double X = Rs[0] * xn + Rs[3] * yn + Rs[6];
+			final double Y = Rs[1] * xn + Rs[4] * yn + Rs[7];
+			final double Z = Rs[2] * xn + Rs[5] * yn + Rs[8];
+			model.warp(k, X / Z, Y / Z, uv);
+			final double xd = uv[0];
+			final double yd = uv[1];
+			uv[0] = alpha * xd + gamma * yd + u0;
+			uv[1] = beta * yd + v0;
+		}
+	}
+
+	/**
+	 * <p>
+	 * A mapping from rectified to original image coordinates, tabulated for all pixel positions of the rectified image.
+	 * The source coordinates are stored as interleaved {@code float} values (x0, y0, x1, y1, ...) in row-major order,
+	 * i.e., 8 bytes per pixel. Rows are calculated concurrently. Positions outside the table are mapped exactly.
+	 * Instances are immutable.
+	 * </p>
+	 */
+	public static class RemapTable implements Mapping2D {
+		private final int width, height;
+		private final float[] xy;
+		private final SideMapping mapping;
+
+		private RemapTable(SideMapping mapping, int width, int height) {
+			this.width = width;
+			this.height = height;
+			this.mapping = mapping;
+			this.xy = new float[2 * width * height];
+			IntStream.range(0, height).parallel().forEach(v -> {
+				final double[] uv = new double[2];
+				for (int u = 0, i = 2 * v * width; u < width; u++, i += 2) {
+					mapping.map(u, v, uv);
+					xy[i] = (float) uv[0];
+					xy[i + 1] = (float) uv[1];
+				}
+			});
+		}
+
+		/**
+		 * Returns the width of the table (= width of the rectified image).
+		 *
+		 * @return the table width
+		 */
+		public int getWidth() {
+			return width;
+		}
+
+		/**
+		 * Returns the height of the table (= height of the rectified image).
+		 *
+		 * @return the table height
+		 */
+		public int getHeight() {
+			return height;
+		}
+
+		/**
+		 * Returns the x-coordinate in the original image for the given pixel position in the rectified image.
+		 *
+		 * @param u the pixel column (0,...,width-1)
+		 * @param v the pixel row (0,...,height-1)
+		 * @return the source x-coordinate
+		 */
+		public float getSourceX(int u, int v) {
+			return xy[2 * (v * width + u)];
+		}
+
+		/**
+		 * Returns the y-coordinate in the original image for the given pixel position in the rectified image.
+		 *
+		 * @param u the pixel column (0,...,width-1)
+		 * @param v the pixel row (0,...,height-1)
+		 * @return the source y-coordinate
+		 */
+		public float getSourceY(int u, int v) {
+			return xy[2 * (v * width + u) + 1];
+		}
+
+		/**
+		 * Copies the table to the given array (interleaved source coordinates in row-major order).
+		 *
+		 * @param dest an array of length &ge; 2 * width * height
+		 */
+		public void copyTo(float[] dest) {
+			System.arraycopy(xy, 0, dest, 0, xy.length);
+		}
+
+		/**
+		 * Maps the given position in the rectified image to the original image. Integer positions inside the table are
+		 * looked up, all other positions are mapped exactly.
+		 */
+		@Override
+		public Pnt2d applyTo(Pnt2d uv) {
+			final double x = uv.getX();
+			final double y = uv.getY();
+			final int u = (int) x;
+			final int v = (int) y;
+			if (u == x && v == y && u >= 0 && u < width && v >= 0 && v < height) {
+				final int i = 2 * (v * width + u);
+				return PntDouble.from(xy[i], xy[i + 1]);
+			}
+			return mapping.applyTo(uv);
+		}
+	}
+
+}
@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang;
+
+import imagingbook.calibration.zhang.util.SmallMatrices;
+import org.apache.commons.math3.geometry.euclidean.threed.Rotation;
+import org.apache.commons.math3.linear.RealMatrix;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Selects a bounded subset of views for calibration, to limit the cost of the nonlinear optimization when many
+ * (possibly redundant) views are available. Views are chosen greedily, each step adding the view with the highest
+ * score, which is the sum of three terms:
+ * </p>
+ * <ul>
+ * <li>the information gain of Zhang's linear system V . b = 0 (see {@link CameraIntrinsicsEstimator}), measured by the
+ * increase of log(lambda_1) + ... + log(lambda_5), with lambda_1,...,lambda_5 being the 5 largest eigenvalues of the
+ * 6 x 6 matrix V^T . V (the smallest eigenvalue belongs to the solution b),</li>
+ * <li>the pose diversity, i.e., the min. rotation angle between the view and all previously selected views (relative
+ * to 90 degrees, clipped at 1),</li>
+ * <li>the coverage gain, i.e., the fraction of cells in a {@value #GridSize} x {@value #GridSize} image grid that
+ * contain observed points of the view but none of the previously selected views.</li>
+ * </ul>
+ * <p>
+ * The homographies are normalized to unit norm for scoring, so all views contribute at the same scale. Near-duplicate
+ * poses score low on all three terms and are thus skipped. Instances are immutable.
+ * </p>
+ *
+ * @author WB
+ * @see Calibrator.Parameters#maxViews
+ */
+public class ViewSelector {
+
+	/** Size of the image grid used for measuring point coverage. */
+	public static final int GridSize = 8;
+
+	private static final double Ridge = 1e-9;	// regularization of the eigenvalues, relative to the mean eigenvalue of all views
+
+	private final int maxViews;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param maxViews the max. number of views to select (&ge; 2)
+	 */
+	public ViewSelector(int maxViews) {
+		if (maxViews < 2) {
+			throw new IllegalArgumentException("at least two views must be selected, but maxViews = " + maxViews);
+		}
+		this.maxViews = maxViews;
+	}
+
+	/**
+	 * Selects a subset of views. If there are no more than {@code maxViews} views, all views are selected.
+	 *
+	 * @param homographies the homographies of all views
+	 * @param views the initial view transformations of all views (see {@link ExtrinsicViewEstimator})
+	 * @param obsPts the observed image points of all views
+	 * @return the (sorted) indices of the selected views
+	 */
+	public int[] select(RealMatrix[] homographies, ViewTransform[] views, PointSet[] obsPts) {
+		final int M = homographies.length;
+		if (M <= maxViews) {
+			int[] all = new int[M];
+			for (int i = 0; i < M; i++) {
+				all[i] = i;
+			}
+			return all;
+		}
+
+		final double[][] VtV = new double[M][];		// 6 x 6 contribution of each view
+		for (int i = 0; i < M; i++) {
+			VtV[i] = getVtV(homographies[i]);
+		}
+		double trace = 0;
+		for (int i = 0; i < M; i++) {
+			for (int k = 0; k < 6; k++) {
+				trace = trace + VtV[i][k * 6 + k];
+			}
+		}
+		final double ridge = Ridge * trace / 6;
+		final long[] cells = getCoverage(obsPts);
+		final Rotation[] rotations = new Rotation[M];
+		for (int i = 0; i < M; i++) {
+			rotations[i] = views[i].getRotation();
+		}
+
+		final boolean[] selected = new boolean[M];
+		final double[] minAngle = new double[M];	// min. rotation angle to all selected views
+		Arrays.fill(minAngle, Math.PI);
+		final double[] S = new double[36];			// accumulated V^T . V of the selected views
+		final double[] T = new double[36];
+		long covered = 0;
+		double info = getInformation(S, ridge);
+
+		int[] result = new int[maxViews];
+		for (int n = 0; n < maxViews; n++) {
+			int best = -1;
+			double bestScore = Double.NEGATIVE_INFINITY;
+			double bestInfo = 0;
+			for (int i = 0; i < M; i++) {
+				if (selected[i]) {
+					continue;
+				}
+				for (int k = 0; k < 36; k++) {
+					T[k] = S[k] + VtV[i][k];
+				}
+				final double infoI = getInformation(T, ridge);
+				final double diversity = Math.min(1, minAngle[i] / (0.5 * Math.PI));
+				final double coverage = (double) Long.bitCount(cells[i] & ~covered) / (GridSize * GridSize);
+				final double score = (infoI - info) + diversity + coverage;
+				if (score > bestScore) {
+					bestScore = score;
+					best = i;
+					bestInfo = infoI;
+				}
+			}
+			selected[best] = true;
+			result[n] = best;
+			for (int k = 0; k < 36; k++) {
+				S[k] = S[k] + VtV[best][k];
+			}
+			info = bestInfo;
+			covered = covered | cells[best];
+			for (int i = 0; i < M; i++) {
+				if (!selected[i]) {
+					minAngle[i] = Math.min(minAngle[i], Rotation.distance(rotations[i], rotations[best]));
+				}
+			}
+		}
+		Arrays.sort(result);
+		return result;
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	// 6 x 6 matrix v01 . v01^T + (v00 - v11) . (v00 - v11)^T of a single (normalized) homography
+	private static double[] getVtV(RealMatrix H) {
+		final double[][] h = H.scalarMultiply(1 / H.getFrobeniusNorm()).getData();
+		final double[] v01 = new double[6];
+		final double[] v00 = new double[6];
+		final double[] v11 = new double[6];
+		CameraIntrinsicsEstimator.getVpq(h, 0, 1, v01);
+		CameraIntrinsicsEstimator.getVpq(h, 0, 0, v00);
+		CameraIntrinsicsEstimator.getVpq(h, 1, 1, v11);
+		final double[] VtV = new double[36];
+		for (int i = 0; i < 6; i++) {
+			for (int k = 0; k < 6; k++) {
+				VtV[i * 6 + k] = v01[i] * v01[k] + (v00[i] - v11[i]) * (v00[k] - v11[k]);
+			}
+		}
+		return VtV;
+	}
+
+	// sum of the logarithms of the 5 largest eigenvalues of the 6 x 6 matrix S (regularized)
+	private static double getInformation(double[] S, double ridge) {
+		final double[] evals = new double[6];
+		SmallMatrices.eigenSymmetric(S.clone(), 6, evals, new double[36]);
+		Arrays.sort(evals);
+		double info = 0;
+		for (int k = 1; k < 6; k++) {
+			info = info + Math.log(Math.max(evals[k], 0) + ridge);
+		}
+		return info;
+	}
+
+	// bit masks of the grid cells (over the bounding box of all observations) containing points of each view
+	private static long[] getCoverage(PointSet[] obsPts) {
+		double xmin = Double.POSITIVE_INFINITY, xmax = Double.NEGATIVE_INFINITY;
+		double ymin = Double.POSITIVE_INFINITY, ymax = Double.NEGATIVE_INFINITY;
+		for (PointSet pts : obsPts) {
+			for (int j = 0; j < pts.size(); j++) {
+				xmin = Math.min(xmin, pts.getX(j));
+				xmax = Math.max(xmax, pts.getX(j));
+				ymin = Math.min(ymin, pts.getY(j));
+				ymax = Math.max(ymax, pts.getY(j));
+			}
+		}
+		final double sx = GridSize / Math.max(xmax - xmin, Double.MIN_NORMAL);
+		final double sy = GridSize / Math.max(ymax - ymin, Double.MIN_NORMAL);
+		long[] cells = new long[obsPts.length];
+		for (int i = 0; i < obsPts.length; i++) {
+			final PointSet pts = obsPts[i];
+			for (int j = 0; j < pts.size(); j++) {
+				final int cx = Math.min(GridSize - 1, (int) ((pts.getX(j) - xmin) * sx));
+				final int cy = Math.min(GridSize - 1, (int) ((pts.getY(j) - ymin) * sy));
+				cells[i] = cells[i] | (1L << (cy * GridSize + cx));
+			}
+		}
+		return cells;
+	}
+
+}
@@ -18,7 +18,7 @@ import java.io.StringWriter;
 import java.util.Arrays;
 
 /**
- * Instances of this class represent extrinsic camera (view) parameters.
+ * Instances of this class represent extrinsic camera (view) parameters. Instances are immutable.
  *
  * @author WB
  */
@@ -42,7 +42,7 @@ public class ViewTransform {
 	
 	public ViewTransform(Rotation rot, double[] t) {
 		this.rotation = rot;
-		translation = t;
+		translation = t.clone();
 	}
 	
 	public ViewTransform(RealMatrix RT) {	// RT is of size 3 x 4 (a homography)
@@ -103,7 +103,7 @@ public class ViewTransform {
 	}
 	
 	public double[] getTranslation() {
-		return translation;
+		return translation.clone();
 	}
 	
 	public RealVector getTranslationVector() {
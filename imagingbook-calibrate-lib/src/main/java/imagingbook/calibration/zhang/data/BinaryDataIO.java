@@ -0,0 +1,336 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang.data;
+
+import imagingbook.calibration.zhang.Camera;
+import imagingbook.calibration.zhang.DistortionModel;
+import imagingbook.calibration.zhang.ViewTransform;
+import imagingbook.common.geometry.basic.Pnt2d;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <p>
+ * Reads and writes calibration data (camera parameters, view transformations and point observations) in a compact,
+ * versioned binary format. All files are accessed through memory-mapped NIO buffers, i.e., large observation sets can
+ * be loaded without any parsing. Each file consists of a 16-byte header followed by a sequence of little-endian
+ * {@code double} values (the payload):
+ * </p>
+ * <pre>
+ * offset  type    content
+ *  0      int     magic number ('ZCAL' in file byte order)
+ *  4      short   format version (currently 1)
+ *  6      short   record type (1 = camera, 2 = views, 3 = observations)
+ *  8      int     n0 (camera: number of parameters, views: number of views M, observations: M)
+ * 12      int     n1 (camera: distortion model, views: 6, observations: number of model points N)
+ * 16      double  payload
+ * </pre>
+ * <p>
+ * The camera payload is the vector (alpha, beta, gamma, uc, vc, k0, k1, ...), the distortion model is stored as a
+ * fixed code (0 = {@link DistortionModel#Radial}, 1 = {@link DistortionModel#BrownConrady},
+ * 2 = {@link DistortionModel#Rational}, 3 = {@link DistortionModel#KannalaBrandt}) that does not depend on the
+ * declaration order of the enum. The views payload holds 6 values (wx, wy, wz, tx, ty, tz) per view (Rodrigues
+ * rotation vector and translation). The observations payload holds the N model points (x0, y0, x1, y1, ...) followed
+ * by the N image points of each of the M views, in the same order.
+ * </p>
+ *
+ * @author WB
+ */
+public abstract class BinaryDataIO {
+
+	private BinaryDataIO() {}
+
+	/** Magic number at the start of every file ("ZCAL" read as a little-endian int). */
+	public static final int MAGIC = 0x4C41435A;
+	/** The current format version. */
+	public static final short VERSION = 1;
+
+	static final short TYPE_CAMERA = 1;
+	static final short TYPE_VIEWS = 2;
+	static final short TYPE_OBSERVATIONS = 3;
+
+	private static final int HEADER_SIZE = 16;
+	private static final int VIEW_PARAMETERS = 6;
+
+	// ------------------------------------------------------------------------------------
+
+	/**
+	 * Writes the parameters of the given camera to a binary file.
+	 *
+	 * @param path the file path (an existing file is overwritten)
+	 * @param cam the camera to write
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void writeCamera(Path path, Camera cam) throws IOException {
+		double[] s = cam.getParameterVector();
+		DoubleBuffer db = createFile(path, TYPE_CAMERA, s.length, getModelCode(cam.getDistortionModel()), s.length);
+		db.put(s);
+	}
+
+	/**
+	 * Reads a camera from a binary file (see {@link #writeCamera(Path, Camera)}).
+	 *
+	 * @param path the file path
+	 * @return a new camera
+	 * @throws IOException if the file cannot be read or has the wrong format
+	 */
+	public static Camera readCamera(Path path) throws IOException {
+		MappedByteBuffer bb = mapFile(path, TYPE_CAMERA);
+		int n = bb.getInt(8);
+		if (n < 5) {
+			throw new IOException("invalid number of camera parameters: " + n);
+		}
+		DistortionModel model = getModel(bb.getInt(12));
+		double[] s = new double[n];
+		payload(bb, n).get(s);
+		try {
+			return new Camera(model, s);
+		} catch (IllegalArgumentException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+	}
+
+	// the stored codes are part of the file format and must never change
+	private static final int MODEL_RADIAL = 0;
+	private static final int MODEL_BROWN_CONRADY = 1;
+	private static final int MODEL_RATIONAL = 2;
+	private static final int MODEL_KANNALA_BRANDT = 3;
+
+	private static int getModelCode(DistortionModel model) {
+		switch (model) {
+		case Radial:		return MODEL_RADIAL;
+		case BrownConrady:	return MODEL_BROWN_CONRADY;
+		case Rational:		return MODEL_RATIONAL;
+		case KannalaBrandt:	return MODEL_KANNALA_BRANDT;
+		default:
+			throw new IllegalArgumentException("distortion model cannot be stored: " + model);
+		}
+	}
+
+	private static DistortionModel getModel(int code) throws IOException {
+		switch (code) {
+		case MODEL_RADIAL:			return DistortionModel.Radial;
+		case MODEL_BROWN_CONRADY:	return DistortionModel.BrownConrady;
+		case MODEL_RATIONAL:		return DistortionModel.Rational;
+		case MODEL_KANNALA_BRANDT:	return DistortionModel.KannalaBrandt;
+		default:
+			throw new IOException("invalid distortion model: " + code);
+		}
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	/**
+	 * Writes a sequence of view transformations to a binary file.
+	 *
+	 * @param path the file path (an existing file is overwritten)
+	 * @param views the view transformations to write
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void writeViews(Path path, ViewTransform[] views) throws IOException {
+		final int M = views.length;
+		DoubleBuffer db = createFile(path, TYPE_VIEWS, M, VIEW_PARAMETERS, (long) M * VIEW_PARAMETERS);
+		for (ViewTransform view : views) {
+			db.put(view.getRotationAxis());
+			db.put(view.getTranslation());
+		}
+	}
+
+	/**
+	 * Reads a sequence of view transformations from a binary file (see {@link #writeViews(Path, ViewTransform[])}).
+	 *
+	 * @param path the file path
+	 * @return a new array of view transformations
+	 * @throws IOException if the file cannot be read or has the wrong format
+	 */
+	public static ViewTransform[] readViews(Path path) throws IOException {
+		MappedByteBuffer bb = mapFile(path, TYPE_VIEWS);
+		final int M = bb.getInt(8);
+		if (bb.getInt(12) != VIEW_PARAMETERS) {
+			throw new IOException("invalid number of view parameters: " + bb.getInt(12));
+		}
+		DoubleBuffer db = payload(bb, (long) M * VIEW_PARAMETERS);
+		ViewTransform[] views = new ViewTransform[M];
+		double[] w = new double[VIEW_PARAMETERS];
+		for (int i = 0; i < M; i++) {
+			db.get(w);
+			views[i] = new ViewTransform(w);
+		}
+		return views;
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	/**
+	 * Writes a set of model points and the associated image points of M views to a binary file. All views must
+	 * contain the same number of points as the model.
+	 *
+	 * @param path the file path (an existing file is overwritten)
+	 * @param modelPts the model points
+	 * @param obsPts a sequence of image point sets, one for each view
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void writeObservations(Path path, Pnt2d[] modelPts, Pnt2d[][] obsPts) throws IOException {
+		final int N = modelPts.length;
+		final int M = obsPts.length;
+		for (Pnt2d[] obs : obsPts) {
+			if (obs.length != N) {
+				throw new IllegalArgumentException("all views must have " + N + " points but found " + obs.length);
+			}
+		}
+		DoubleBuffer db = createFile(path, TYPE_OBSERVATIONS, M, N, 2L * N * (M + 1));
+		putPoints(db, modelPts);
+		for (Pnt2d[] obs : obsPts) {
+			putPoints(db, obs);
+		}
+	}
+
+	/**
+	 * Maps the model points of a binary observation file (see {@link #writeObservations(Path, Pnt2d[], Pnt2d[][])})
+	 * into memory. The returned (read-only) buffer contains the interleaved point coordinates x0, y0, x1, y1, ...
+	 * and is not copied from the file.
+	 *
+	 * @param path the file path
+	 * @return a read-only buffer of 2N model point coordinates
+	 * @throws IOException if the file cannot be read or has the wrong format
+	 */
+	public static DoubleBuffer mapModelPoints(Path path) throws IOException {
+		MappedByteBuffer bb = mapFile(path, TYPE_OBSERVATIONS);
+		final int N = bb.getInt(12);
+		return slice(payload(bb, 2L * N * (bb.getInt(8) + 1)), 0, 2 * N);
+	}
+
+	/**
+	 * Maps the image points of all views of a binary observation file (see
+	 * {@link #writeObservations(Path, Pnt2d[], Pnt2d[][])}) into memory. Each of the returned (read-only) buffers
+	 * contains the interleaved point coordinates x0, y0, x1, y1, ... of one view and is not copied from the file.
+	 *
+	 * @param path the file path
+	 * @return an array of M read-only buffers, each holding 2N image point coordinates
+	 * @throws IOException if the file cannot be read or has the wrong format
+	 */
+	public static DoubleBuffer[] mapObservedPoints(Path path) throws IOException {
+		MappedByteBuffer bb = mapFile(path, TYPE_OBSERVATIONS);
+		final int M = bb.getInt(8);
+		final int N = bb.getInt(12);
+		DoubleBuffer db = payload(bb, 2L * N * (M + 1));
+		DoubleBuffer[] views = new DoubleBuffer[M];
+		for (int i = 0; i < M; i++) {
+			views[i] = slice(db, 2 * N * (i + 1), 2 * N);
+		}
+		return views;
+	}
+
+	/**
+	 * Reads the model points from a binary observation file (see
+	 * {@link #writeObservations(Path, Pnt2d[], Pnt2d[][])}).
+	 *
+	 * @param path the file path
+	 * @return a new array of model points
+	 * @throws IOException if the file cannot be read or has the wrong format
+	 */
+	public static Pnt2d[] readModelPoints(Path path) throws IOException {
+		return getPoints(mapModelPoints(path));
+	}
+
+	/**
+	 * Reads the image points of all views from a binary observation file (see
+	 * {@link #writeObservations(Path, Pnt2d[], Pnt2d[][])}).
+	 *
+	 * @param path the file path
+	 * @return a new array of image point sets, one for each view
+	 * @throws IOException if the file cannot be read or has the wrong format
+	 */
+	public static Pnt2d[][] readObservedPoints(Path path) throws IOException {
+		DoubleBuffer[] views = mapObservedPoints(path);
+		Pnt2d[][] obsPts = new Pnt2d[views.length][];
+		for (int i = 0; i < views.length; i++) {
+			obsPts[i] = getPoints(views[i]);
+		}
+		return obsPts;
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	private static DoubleBuffer createFile(Path path, short type, int n0, int n1, long payloadLength)
+			throws IOException {
+		long size = HEADER_SIZE + payloadLength * Double.BYTES;
+		if (size > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("data too large for a single mapped file: " + size + " bytes");
+		}
+		try (FileChannel fc = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			MappedByteBuffer bb = fc.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			bb.order(ByteOrder.LITTLE_ENDIAN);
+			bb.putInt(0, MAGIC);
+			bb.putShort(4, VERSION);
+			bb.putShort(6, type);
+			bb.putInt(8, n0);
+			bb.putInt(12, n1);
+			bb.position(HEADER_SIZE);
+			return bb.slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+		}
+	}
+
+	private static MappedByteBuffer mapFile(Path path, short type) throws IOException {
+		try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (fc.size() < HEADER_SIZE) {
+				throw new IOException("not a binary calibration data file: " + path);
+			}
+			MappedByteBuffer bb = fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+			bb.order(ByteOrder.LITTLE_ENDIAN);
+			if (bb.getInt(0) != MAGIC) {
+				throw new IOException("not a binary calibration data file: " + path);
+			}
+			if (bb.getShort(4) != VERSION) {
+				throw new IOException("unsupported format version " + bb.getShort(4) + " in " + path);
+			}
+			if (bb.getShort(6) != type) {
+				throw new IOException("wrong record type " + bb.getShort(6) + " (expected " + type + ") in " + path);
+			}
+			return bb;
+		}
+	}
+
+	private static DoubleBuffer payload(ByteBuffer bb, long length) throws IOException {
+		if (bb.capacity() < HEADER_SIZE + length * Double.BYTES) {
+			throw new IOException("binary calibration data file is truncated");
+		}
+		bb.position(HEADER_SIZE);
+		return bb.slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().asReadOnlyBuffer();
+	}
+
+	private static DoubleBuffer slice(DoubleBuffer db, int offset, int length) {
+		DoubleBuffer s = db.duplicate();
+		s.position(offset);
+		s.limit(offset + length);
+		return s.slice();
+	}
+
+	private static void putPoints(DoubleBuffer db, Pnt2d[] pts) {
+		for (Pnt2d p : pts) {
+			db.put(p.getX());
+			db.put(p.getY());
+		}
+	}
+
+	private static Pnt2d[] getPoints(DoubleBuffer db) {
+		Pnt2d[] pts = new Pnt2d[db.remaining() / 2];
+		for (int j = 0; j < pts.length; j++) {
+			pts[j] = Pnt2d.from(db.get(2 * j), db.get(2 * j + 1));
+		}
+		return pts;
+	}
+
+}
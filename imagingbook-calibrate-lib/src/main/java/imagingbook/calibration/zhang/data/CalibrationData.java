@@ -0,0 +1,239 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang.data;
+
+import imagingbook.calibration.zhang.PointSet;
+import imagingbook.common.geometry.basic.Pnt2d;
+
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.file.Path;
+
+/**
+ * <p>
+ * Immutable set of calibration observations, i.e., the N points of a planar model and the associated N image points of
+ * M views. All coordinates are kept in a single flat {@code double} array, with the interleaved model coordinates (x0,
+ * y0, x1, y1, ...) followed by the image coordinates of each view (in the same layout as the observation files written
+ * by {@link BinaryDataIO}).
+ * </p>
+ * <p>
+ * The methods {@link #getModelData()} and {@link #getObservedData(int)} return read-only views of this array and do not
+ * copy any data, so they may be called repeatedly at no cost. The same holds for {@link #getModelPointSet()} and
+ * {@link #getObservedPointSets()}, which feed the data directly into the calibration pipeline. Only the
+ * {@link Pnt2d}-based getters create new arrays. Instances are immutable and thus safe to share between threads.
+ * </p>
+ *
+ * @author WB
+ */
+public class CalibrationData {
+
+	private final int M;			// number of views
+	private final int N;			// number of points per view
+	private final double[] data;	// model coordinates, followed by the image coordinates of M views
+
+	private CalibrationData(int M, int N, double[] data) {
+		this.M = M;
+		this.N = N;
+		this.data = data;
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	/**
+	 * Creates a new data set from the given model and image points. All views must contain the same number of points
+	 * as the model. The point coordinates are copied.
+	 *
+	 * @param modelPts the model points
+	 * @param obsPts a sequence of image point sets, one for each view
+	 * @return a new data set
+	 */
+	public static CalibrationData from(Pnt2d[] modelPts, Pnt2d[][] obsPts) {
+		final int N = modelPts.length;
+		final int M = obsPts.length;
+		double[] data = new double[2 * N * (M + 1)];
+		putPoints(data, 0, modelPts);
+		for (int i = 0; i < M; i++) {
+			if (obsPts[i].length != N) {
+				throw new IllegalArgumentException("all views must have " + N + " points but found " + obsPts[i].length);
+			}
+			putPoints(data, 2 * N * (i + 1), obsPts[i]);
+		}
+		return new CalibrationData(M, N, data);
+	}
+
+	/**
+	 * Creates a new data set by reading the model and image points from the given text resources (see
+	 * {@link TextDataReader}). Each resource must contain the same number of points.
+	 *
+	 * @param model the resource holding the model points
+	 * @param views the resources holding the image points, one for each view
+	 * @return a new data set
+	 */
+	public static CalibrationData fromText(TextDataResource model, TextDataResource... views) {
+		double[] modelXY = TextDataReader.readAll(model);
+		final int N = modelXY.length / 2;
+		final int M = views.length;
+		double[] data = new double[2 * N * (M + 1)];
+		System.arraycopy(modelXY, 0, data, 0, 2 * N);
+		for (int i = 0; i < M; i++) {
+			double[] viewXY = TextDataReader.readAll(views[i]);
+			if (viewXY.length != 2 * N) {
+				throw new IllegalArgumentException("all views must have " + N + " points but found " +
+						viewXY.length / 2 + " in " + views[i]);
+			}
+			System.arraycopy(viewXY, 0, data, 2 * N * (i + 1), 2 * N);
+		}
+		return new CalibrationData(M, N, data);
+	}
+
+	/**
+	 * Creates a new data set by reading the model and image points from a binary observation file (see
+	 * {@link BinaryDataIO#writeObservations(Path, Pnt2d[], Pnt2d[][])}).
+	 *
+	 * @param path the file path
+	 * @return a new data set
+	 * @throws IOException if the file cannot be read or has the wrong format
+	 */
+	public static CalibrationData fromBinary(Path path) throws IOException {
+		DoubleBuffer model = BinaryDataIO.mapModelPoints(path);
+		DoubleBuffer[] views = BinaryDataIO.mapObservedPoints(path);
+		final int N = model.remaining() / 2;
+		final int M = views.length;
+		double[] data = new double[2 * N * (M + 1)];
+		model.get(data, 0, 2 * N);
+		for (int i = 0; i < M; i++) {
+			views[i].get(data, 2 * N * (i + 1), 2 * N);
+		}
+		return new CalibrationData(M, N, data);
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	/**
+	 * Returns the number of views (M).
+	 *
+	 * @return the number of views
+	 */
+	public int getNumberOfViews() {
+		return M;
+	}
+
+	/**
+	 * Returns the number of model points (N), which is also the number of image points in each view.
+	 *
+	 * @return the number of points
+	 */
+	public int getNumberOfPoints() {
+		return N;
+	}
+
+	/**
+	 * Returns a read-only view of the interleaved model point coordinates (x0, y0, x1, y1, ...). No data are copied.
+	 *
+	 * @return a read-only buffer of 2N coordinates
+	 */
+	public DoubleBuffer getModelData() {
+		return view(0);
+	}
+
+	/**
+	 * Returns a read-only view of the interleaved image point coordinates (x0, y0, x1, y1, ...) of the specified view.
+	 * No data are copied.
+	 *
+	 * @param i the view index (0,...,M-1)
+	 * @return a read-only buffer of 2N coordinates
+	 */
+	public DoubleBuffer getObservedData(int i) {
+		if (i < 0 || i >= M) {
+			throw new IndexOutOfBoundsException("invalid view index " + i);
+		}
+		return view(i + 1);
+	}
+
+	/**
+	 * Returns the model points as a {@link PointSet} backed by the data of this set (no data are copied).
+	 *
+	 * @return the model point set
+	 */
+	public PointSet getModelPointSet() {
+		return PointSet.wrap(data, 0, N);
+	}
+
+	/**
+	 * Returns the image points of all views as {@link PointSet} instances backed by the data of this set (no data are
+	 * copied).
+	 *
+	 * @return an array of M image point sets
+	 */
+	public PointSet[] getObservedPointSets() {
+		return PointSet.split(data, 2 * N, M, N);
+	}
+
+	/**
+	 * Returns a new array holding the model points.
+	 *
+	 * @return a new array of N model points
+	 */
+	public Pnt2d[] getModelPoints() {
+		return makePoints(0);
+	}
+
+	/**
+	 * Returns a new array holding the image points of the specified view.
+	 *
+	 * @param i the view index (0,...,M-1)
+	 * @return a new array of N image points
+	 */
+	public Pnt2d[] getObservedPoints(int i) {
+		if (i < 0 || i >= M) {
+			throw new IndexOutOfBoundsException("invalid view index " + i);
+		}
+		return makePoints(i + 1);
+	}
+
+	/**
+	 * Returns a new array holding the image points of all views.
+	 *
+	 * @return a new array of M image point sets
+	 */
+	public Pnt2d[][] getAllObservedPoints() {
+		Pnt2d[][] obsPts = new Pnt2d[M][];
+		for (int i = 0; i < M; i++) {
+			obsPts[i] = makePoints(i + 1);
+		}
+		return obsPts;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[views=%d, points=%d]", this.getClass().getSimpleName(), M, N);
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	// k = 0 is the model, k = 1,...,M are the views
+	private DoubleBuffer view(int k) {
+		return DoubleBuffer.wrap(data, 2 * N * k, 2 * N).slice().asReadOnlyBuffer();
+	}
+
+	private Pnt2d[] makePoints(int k) {
+		final int off = 2 * N * k;
+		Pnt2d[] pts = new Pnt2d[N];
+		for (int j = 0; j < N; j++) {
+			pts[j] = Pnt2d.from(data[off + 2 * j], data[off + 2 * j + 1]);
+		}
+		return pts;
+	}
+
+	private static void putPoints(double[] data, int off, Pnt2d[] pts) {
+		for (int j = 0; j < pts.length; j++) {
+			data[off + 2 * j] = pts[j].getX();
+			data[off + 2 * j + 1] = pts[j].getY();
+		}
+	}
+
+}
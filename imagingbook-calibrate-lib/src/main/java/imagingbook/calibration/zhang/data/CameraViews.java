@@ -52,7 +52,7 @@ View 5:
 
 abstract class CameraViews {
 	
-	static List<double[][]> AllViewMatrices = new ArrayList<double[][]>();
+	private static final List<double[][]> AllViewMatrices = new ArrayList<double[][]>();
 	
 	static {
 		AllViewMatrices.add(makeViewMatrix (	// view 1
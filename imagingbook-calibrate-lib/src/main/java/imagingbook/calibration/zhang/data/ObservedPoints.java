@@ -1,1333 +0,0 @@
-/*******************************************************************************
- * Permission to use and distribute this software is granted under the BSD 2-Clause
- * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
- * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
- * Visit https://imagingbook.com for additional details.
- ******************************************************************************/
-package imagingbook.calibration.zhang.data;
-
-
-import imagingbook.common.geometry.basic.Pnt2d;
-
-/**
- * This class holds the point coordinates for 5 test views of Zhang's calibration pattern. The original point data can
- * be found here:
- * <pre>
- * http://research.microsoft.com/en-us/um/people/zhang/Calib/Calibration/data1.txt
- * http://research.microsoft.com/en-us/um/people/zhang/Calib/Calibration/data2.txt
- * http://research.microsoft.com/en-us/um/people/zhang/Calib/Calibration/data3.txt
- * http://research.microsoft.com/en-us/um/people/zhang/Calib/Calibration/data4.txt
- * http://research.microsoft.com/en-us/um/people/zhang/Calib/Calibration/data5.txt
- * </pre>
- * Each pair of values describes a observed 2D image point for the corresponding  model point. The ordering of the
- * points is the same as in the model data (ZhangStandardModel.java).
- * Use the static method getPoints(int vn) to retrieve the point set of a particular view vn = 1,...,5.
- */
-abstract class ObservedPoints {
-
-	private static final double[][] data1 = {
-			{ 63.43921044061905, 405.57679766845445 },
-			{ 92.46270141677354, 407.4556539075571 },
-			{ 91.80636571669007, 438.65765085408424 },
-			{ 62.58724663945761, 436.28844212118605 },
-			{ 116.28035530429925, 409.17858333240645 },
-			{ 146.4502700963233, 410.92321756063495 },
-			{ 145.61153657396474, 442.5588539245722 },
-			{ 115.4621289243657, 440.2901448310849 },
-			{ 170.832696837639, 412.46038130831136 },
-			{ 201.84874167693556, 414.36697339157973 },
-			{ 201.07282342562434, 446.1786800590262 },
-			{ 169.96948547603384, 444.042108267029 },
-			{ 226.86846784643092, 415.8660937726924 },
-			{ 258.87750024773584, 417.22223666696067 },
-			{ 258.08798862732573, 449.41640881455425 },
-			{ 226.0553704310925, 447.6506825567973 },
-			{ 284.39049681092564, 418.52561560191134 },
-			{ 317.01817945273046, 419.98793760569293 },
-			{ 316.1712829180094, 452.3706948520459 },
-			{ 283.5861111501101, 450.9388521872858 },
-			{ 342.94734878624087, 420.86862691813366 },
-			{ 376.1245562808719, 422.3172738779539 },
-			{ 375.24863154252097, 454.83514722151205 },
-			{ 342.1840598520928, 453.6168480341424 },
-			{ 402.3786597601738, 423.0391036991514 },
-			{ 435.72956489670617, 424.20940447867986 },
-			{ 434.98422652908897, 456.88887090081624 },
-			{ 401.45536423673747, 455.9696204207402 },
-			{ 462.1274425133204, 424.698227870397 },
-			{ 495.62861462004776, 425.5479869350395 },
-			{ 494.7495320186444, 458.47489778930264 },
-			{ 461.1799178175738, 457.66236923420036 },
-			{ 65.23122858749674, 349.6907027733138 },
-			{ 94.30183727827091, 351.12546728374343 },
-			{ 93.23507926418313, 382.38177879422614 },
-			{ 64.27786871137394, 380.54241920809346 },
-			{ 118.03455996929435, 352.3848197690597 },
-			{ 147.98680923141626, 354.01596384534196 },
-			{ 147.1334778042088, 385.58292122207763 },
-			{ 116.97639180153158, 383.78400187003655 },
-			{ 172.4001628011494, 355.22103054344683 },
-			{ 203.50159386767763, 356.65269887912734 },
-			{ 202.56706339414532, 388.5784118083934 },
-			{ 171.4295974886723, 386.88382222997456 },
-			{ 228.3763298691328, 357.91781697436124 },
-			{ 260.4854396311641, 358.96780241375814 },
-			{ 259.6000573984108, 391.3137043231141 },
-			{ 227.6420682328298, 389.68242228437725 },
-			{ 285.9599818293802, 360.10319357751825 },
-			{ 318.57576183243066, 361.1265526155113 },
-			{ 317.7411318242701, 393.93767327832836 },
-			{ 285.09556588104186, 392.33800905551436 },
-			{ 344.4946104549276, 362.0295359924154 },
-			{ 377.5509954189492, 363.0679898204286 },
-			{ 376.88103318552385, 395.91657094761024 },
-			{ 343.8079167050693, 394.7450286079274 },
-			{ 403.8459777399356, 363.76076192996504 },
-			{ 437.1753362687191, 364.7803580321149 },
-			{ 436.5114425602332, 397.6482184157768 },
-			{ 402.9865433268136, 396.67180088443877 },
-			{ 463.4920805680829, 365.13759047476947 },
-			{ 496.9690783916478, 365.94270062509526 },
-			{ 496.2936229532057, 398.9040828929399 },
-			{ 462.7885699204803, 398.34305893392695 },
-			{ 67.41852441860404, 293.9966296559016 },
-			{ 96.2996638468353, 294.86708975640414 },
-			{ 95.21880533786468, 326.1526966610338 },
-			{ 66.20942498804324, 324.6015117542396 },
-			{ 119.9797486243428, 295.99698063712265 },
-			{ 149.98046369020764, 296.8234292084584 },
-			{ 148.8622849025551, 328.5778206906491 },
-			{ 118.84154740821056, 327.2008936139261 },
-			{ 174.3238625443077, 297.9337108902351 },
-			{ 205.32440388271883, 298.81948923125844 },
-			{ 204.26387925076293, 330.85516599102203 },
-			{ 173.12604613032883, 329.6705367196501 },
-			{ 230.1838096287344, 299.78921796236745 },
-			{ 262.2172840881351, 300.677440774854 },
-			{ 261.14524042693716, 332.79591332166734 },
-			{ 229.2884221624275, 331.9480900414264 },
-			{ 287.5611603285242, 301.40750765891795 },
-			{ 320.14751935472316, 302.3671596041222 },
-			{ 319.2027528811983, 334.8347458357048 },
-			{ 286.6438819868344, 333.97214717182084 },
-			{ 346.0130820428916, 302.8615772015612 },
-			{ 379.0677388819915, 303.7957537856288 },
-			{ 378.3339386738518, 336.5805840212778 },
-			{ 345.2182561259263, 335.843219257846 },
-			{ 405.0691571796657, 304.3961263202983 },
-			{ 438.41717278293885, 304.99688117013096 },
-			{ 437.85545990744623, 338.00377524078317 },
-			{ 404.45067311096983, 337.4059120750199 },
-			{ 464.5704816546494, 305.55438512850714 },
-			{ 497.94524811768565, 306.28013663961235 },
-			{ 497.4371600744771, 339.24988398535123 },
-			{ 464.09880007911033, 338.63175674901987 },
-			{ 70.14223570324233, 238.36941313466673 },
-			{ 98.86114133690076, 238.84131089611782 },
-			{ 97.38912834418213, 269.8173495386012 },
-			{ 68.53014212303921, 268.8503327762575 },
-			{ 122.32352404284693, 239.49645820189613 },
-			{ 152.23942540172192, 240.19688114269897 },
-			{ 150.872602337958, 271.62715879713767 },
-			{ 121.08044696801852, 270.37870470871 },
-			{ 176.46490664036455, 240.6218321347413 },
-			{ 207.36728039961167, 241.2475433383001 },
-			{ 206.27615277174473, 273.1040616865928 },
-			{ 175.21667919503284, 272.1572623355096 },
-			{ 232.11481951556652, 241.93435972850207 },
-			{ 263.9300248457965, 242.5287028990519 },
-			{ 262.87107309468615, 274.63077976483817 },
-			{ 231.08995394797975, 273.8112794575494 },
-			{ 289.2384705637213, 242.95729366739042 },
-			{ 321.5337457679127, 243.6600536961319 },
-			{ 320.73257253175547, 276.09008335458935 },
-			{ 288.2794389274066, 275.39372168651227 },
-			{ 347.4351242513755, 244.16872583239353 },
-			{ 380.2972613660385, 244.6842257670856 },
-			{ 379.6203130875602, 277.514357672965 },
-			{ 346.6144077255984, 276.6308423343543 },
-			{ 406.2245843264435, 245.03205353779114 },
-			{ 439.32454611059444, 245.78320406939844 },
-			{ 438.95955854175656, 278.55480967980185 },
-			{ 405.7563010061142, 278.03596874238934 },
-			{ 465.523092053566, 246.1775260488285 },
-			{ 498.63262103377616, 246.72000146662035 },
-			{ 498.4129722935344, 279.658382849206 },
-			{ 465.04901656798677, 279.0123121351177 },
-			{ 72.98910805171106, 183.3229223758834 },
-			{ 101.57463441315905, 183.49198561366057 },
-			{ 100.09857449688496, 214.10704494688503 },
-			{ 71.43642583229588, 213.4076996960149 },
-			{ 125.08462582171373, 183.7455308332811 },
-			{ 154.68888982212854, 183.9569419183901 },
-			{ 153.35543141407427, 214.87035104151312 },
-			{ 123.50751216393613, 214.24532611208156 },
-			{ 178.69793526089177, 184.17588311789484 },
-			{ 209.38547191170966, 184.4149866893724 },
-			{ 208.32632007393886, 215.816865163078 },
-			{ 177.56024952453845, 215.3875007735427 },
-			{ 234.15457949117916, 184.67925083341942 },
-			{ 265.64410806300134, 184.82534476323218 },
-			{ 264.69677759703745, 216.6334416237104 },
-			{ 233.03835668835987, 216.1338650834502 },
-			{ 290.8999148937342, 185.18321246496123 },
-			{ 322.9613083389533, 185.56511405421102 },
-			{ 322.24922844674023, 217.59122880349022 },
-			{ 289.95420589419564, 217.06522312910695 },
-			{ 348.6042810219786, 185.89123718698139 },
-			{ 381.2161913991703, 186.33644067633875 },
-			{ 380.84160911108586, 218.48890929985095 },
-			{ 347.9742627254581, 218.1472837090741 },
-			{ 407.1003826281793, 186.57807793920117 },
-			{ 439.99256288727724, 186.93865298697168 },
-			{ 439.7794124297235, 219.43935044225728 },
-			{ 406.66560533027723, 219.0113464325632 },
-			{ 465.97490215671394, 187.31221128756985 },
-			{ 498.8092261636818, 187.89124186686726 },
-			{ 498.8142188051502, 220.34532859483318 },
-			{ 465.81321821059464, 219.9816384799639 },
-			{ 76.16710425446853, 129.06339843948058 },
-			{ 104.5852956509872, 128.8425785419921 },
-			{ 102.882696473362, 158.95642184704198 },
-			{ 74.54384069975231, 158.74926666996453 },
-			{ 127.84130625665146, 128.69339578967518 },
-			{ 157.29464864747442, 128.57148699423428 },
-			{ 155.84566988736125, 158.96976408495513 },
-			{ 126.31962763479108, 158.9222018940725 },
-			{ 181.25563306460265, 128.48382994356055 },
-			{ 211.56324530847388, 128.38054962303733 },
-			{ 210.5125690153265, 159.1928186390215 },
-			{ 179.8549091694371, 158.9349814420825 },
-			{ 236.23365624522017, 128.40228658023835 },
-			{ 267.3728975599716, 128.37901878197925 },
-			{ 266.46612305601394, 159.56799682573126 },
-			{ 235.03913293409497, 159.28494789041306 },
-			{ 292.4588748930849, 128.45043466848207 },
-			{ 324.2021890861506, 128.4998278268141 },
-			{ 323.683049063933, 159.90477698842471 },
-			{ 291.5610558693335, 159.71051205855028 },
-			{ 349.69159518414097, 128.56678071162221 },
-			{ 382.08565036168295, 128.74391121952144 },
-			{ 381.69575364562104, 160.41391042633012 },
-			{ 349.19225434394997, 160.22658072535293 },
-			{ 407.61257650834744, 128.87175784461283 },
-			{ 440.21386867030157, 129.24873333934843 },
-			{ 440.2466596537764, 161.1199048787604 },
-			{ 407.4541577361327, 160.7616376611002 },
-			{ 465.9575137851354, 129.54762183209073 },
-			{ 498.5191646360089, 130.01544776211577 },
-			{ 498.8504617586597, 161.9092884855256 },
-			{ 466.0144855394268, 161.502931927803 },
-			{ 79.51086377384169, 76.19294770503798 },
-			{ 107.72760925898355, 75.41244919346603 },
-			{ 105.93776102770526, 104.78608333700375 },
-			{ 77.71646886659819, 105.20484050795187 },
-			{ 130.72333248421154, 74.89725312608094 },
-			{ 159.79765093257953, 74.44149227856785 },
-			{ 158.55797820100344, 104.18386819887714 },
-			{ 129.17092808378453, 104.50373341344348 },
-			{ 183.58843498593697, 74.10334829270418 },
-			{ 213.7663629190863, 73.59563219244947 },
-			{ 212.50741525881378, 103.75238960231005 },
-			{ 182.35955107574372, 103.98313217828678 },
-			{ 238.07365326917147, 73.31630178493887 },
-			{ 268.9554136481982, 72.95119617351462 },
-			{ 268.0935755023774, 103.40299422659594 },
-			{ 237.049184408764, 103.4990934976946 },
-			{ 293.83525186897225, 72.8290660404367 },
-			{ 325.2090973644488, 72.68535034332865 },
-			{ 324.71245241280917, 103.33351475987702 },
-			{ 292.94903847729967, 103.3090982766722 },
-			{ 350.4720860096607, 72.61004387294248 },
-			{ 382.3410371878173, 72.62884900946133 },
-			{ 382.1122927885521, 103.52727723304999 },
-			{ 350.0087703803872, 103.48974886634046 },
-			{ 407.6771939926995, 72.68022846248228 },
-			{ 439.8799789508232, 72.81301005757938 },
-			{ 440.1644449999867, 103.96505623432648 },
-			{ 407.66162856253777, 103.73815275707749 },
-			{ 465.4727459783836, 72.99430375637395 },
-			{ 497.6351232743503, 73.46253296957076 },
-			{ 498.15308375465145, 104.46788349927444 },
-			{ 465.765584699386, 104.18293940908576 },
-			{ 83.91124369483907, 24.449609965519024 },
-			{ 111.79005415568118, 23.257341560463768 },
-			{ 109.29980562808932, 51.892922631222824 },
-			{ 81.34217687233917, 52.44578665482459 },
-			{ 134.6306229879343, 22.615817432586987 },
-			{ 163.49441025609957, 21.671251860251502 },
-			{ 161.55748385723356, 50.49984983220744 },
-			{ 132.43151031727066, 51.21217702660153 },
-			{ 187.12492527401574, 20.95504911622112 },
-			{ 216.67521054436148, 20.304119686517467 },
-			{ 215.04386760074533, 49.460075092826045 },
-			{ 185.00188073977358, 50.02127396914791 },
-			{ 240.9165999666756, 19.803724782257063 },
-			{ 271.3308786513925, 19.12826253252501 },
-			{ 269.908315557608, 48.58731916715348 },
-			{ 239.2069709255986, 48.99785244231144 },
-			{ 295.9948347437614, 18.78111909293907 },
-			{ 326.9933298673003, 18.468968619199003 },
-			{ 325.8087109253044, 48.09948571686872 },
-			{ 294.5326210707748, 48.45749239278437 },
-			{ 351.92099001188586, 18.26130021351024 },
-			{ 383.4184929907958, 18.06838345680369 },
-			{ 382.6677477731744, 47.952648408265226 },
-			{ 350.91728600206545, 48.04757384310984 },
-			{ 408.526106159246, 17.991288029486068 },
-			{ 440.32310912108886, 18.119723541002404 },
-			{ 440.00887945970663, 48.06368484279363 },
-			{ 407.88019701489196, 48.206850869211536 },
-			{ 465.65621424059066, 18.207516413716252 },
-			{ 497.2680150495579, 18.3853339481393 },
-			{ 497.3887395771093, 48.524780190788825 },
-			{ 465.38938336026433, 48.307397872545906 }};
-
-	private static final double[][] data2 = {
-			{ 74.95173767129486, 409.09267757581756 },
-			{ 104.31259784448483, 410.8263322391833 },
-			{ 106.06048939567938, 438.7099113674728 },
-			{ 77.00428944064123, 436.94253844835623 },
-			{ 127.82252063924655, 412.2041930215117 },
-			{ 157.94718654000116, 413.6707476599427 },
-			{ 159.23134690487825, 442.0125923370657 },
-			{ 129.4639745161323, 439.99858857260546 },
-			{ 181.84295543141715, 414.98756134254074 },
-			{ 212.70112359460154, 416.543317839545 },
-			{ 213.47114738670456, 444.7447412257028 },
-			{ 183.11454542957057, 443.2278534824685 },
-			{ 237.12102868837414, 417.61764879300614 },
-			{ 268.55826654085524, 418.852674771769 },
-			{ 268.8150768678729, 447.17723979813155 },
-			{ 237.8078707974472, 445.950167626018 },
-			{ 293.18762081188373, 419.83695853105417 },
-			{ 325.0180501810139, 420.8740440704354 },
-			{ 324.67712919336066, 449.3977505029976 },
-			{ 293.2126583968135, 448.2589138688724 },
-			{ 349.9194813487409, 421.5926044159451 },
-			{ 382.12327419554975, 422.54835931648904 },
-			{ 380.97582814286795, 451.04240885138336 },
-			{ 349.40221370123817, 450.2125738475785 },
-			{ 406.99836748473933, 422.9847167646322 },
-			{ 439.0964955393227, 423.7697485925279 },
-			{ 437.5183046443977, 452.39253346207715 },
-			{ 405.7278356666805, 451.84863819736125 },
-			{ 464.0038872204549, 424.13271228547285 },
-			{ 495.9202537619488, 424.6547713748391 },
-			{ 493.7813847888604, 453.28364372783864 },
-			{ 462.1709581733631, 452.74248921975243 },
-			{ 71.29513562533573, 357.6942633948015 },
-			{ 101.13294410137546, 358.9622385554008 },
-			{ 102.80850482138675, 388.21586421691745 },
-			{ 73.30573447367999, 386.4767447881153 },
-			{ 124.85876349944454, 360.14700880628453 },
-			{ 155.61997640789926, 361.61280610173435 },
-			{ 156.7838146051699, 390.9051710115854 },
-			{ 126.51737869491649, 389.51725088873985 },
-			{ 179.86316734884443, 362.63102501359486 },
-			{ 211.2827322130613, 363.96280707661003 },
-			{ 212.12539080292166, 393.55484670034025 },
-			{ 181.01914390337387, 392.0355895970633 },
-			{ 236.16730364497818, 364.81259801424477 },
-			{ 268.1944847698603, 365.95903062989 },
-			{ 268.3038399388999, 395.7985907139001 },
-			{ 236.64681524393112, 394.43212128571446 },
-			{ 293.27736544637816, 366.85190781014205 },
-			{ 325.72269444833324, 367.97840546651037 },
-			{ 325.37205306669284, 397.7869384211426 },
-			{ 293.2457060390575, 396.5189321718967 },
-			{ 351.0824026293796, 368.4938576438795 },
-			{ 383.84757028281734, 369.2861712805573 },
-			{ 382.76085788516536, 399.07115871698323 },
-			{ 350.5740318919249, 398.43078070498115 },
-			{ 409.237369470657, 369.89469625644654 },
-			{ 441.87611047771463, 370.62118575553274 },
-			{ 440.32005212563485, 400.4309030598217 },
-			{ 407.95170291684246, 399.9145988638514 },
-			{ 467.22528388902015, 370.8611321393432 },
-			{ 499.6959573489727, 371.46784725362465 },
-			{ 497.6020979564682, 401.29605660975375 },
-			{ 465.46554233286633, 400.8545300359704 },
-			{ 67.86990551193277, 304.15854104273126 },
-			{ 98.12885497344568, 305.33197106088465 },
-			{ 99.77819307361712, 335.66616896503956 },
-			{ 69.78806919531887, 333.9997736514897 },
-			{ 122.24349452326419, 306.2762726445089 },
-			{ 153.42608687474538, 307.3619437579255 },
-			{ 154.62456270751449, 338.04724089010506 },
-			{ 123.68836013916045, 336.5298452809776 },
-			{ 178.05244645201566, 308.2732746098075 },
-			{ 210.04283883837203, 309.2866480093317 },
-			{ 210.80656304857428, 340.1661345721875 },
-			{ 179.1043022405136, 338.76683845120425 },
-			{ 235.25161840257564, 310.25100921872996 },
-			{ 267.8995197596447, 311.0069342698467 },
-			{ 267.9812366770928, 342.10484581060655 },
-			{ 235.7676912887818, 340.9797983589521 },
-			{ 293.3421842610446, 311.8508340598895 },
-			{ 326.4107861778687, 312.70108967971555 },
-			{ 325.9937545174971, 343.78803683860355 },
-			{ 293.32037510063236, 342.76892669500995 },
-			{ 352.244687578723, 313.2272280064658 },
-			{ 385.5214358275944, 314.1048574991225 },
-			{ 384.5008786606961, 345.12373435771724 },
-			{ 351.5868749524029, 344.410642579454 },
-			{ 411.28840290448835, 314.50849735444723 },
-			{ 444.5481870825223, 315.13401987774097 },
-			{ 443.13349796474347, 346.34953229624506 },
-			{ 410.18687250840617, 345.8239604794856 },
-			{ 470.2577135508111, 315.65909088057236 },
-			{ 503.27077885824934, 316.22686007167863 },
-			{ 501.3805328070552, 347.18742977811763 },
-			{ 468.70349434440226, 346.7560520199094 },
-			{ 64.75555278435645, 249.00623198940218 },
-			{ 95.48727692893543, 249.90024474066985 },
-			{ 96.77853196544768, 280.9531641627545 },
-			{ 66.50285015566611, 279.93996248245764 },
-			{ 119.76637875562051, 250.43888034309919 },
-			{ 151.406678513741, 251.24922461470567 },
-			{ 152.62503287410277, 282.8870830458499 },
-			{ 121.16646574019978, 281.85078270235715 },
-			{ 176.42971625799623, 251.97401222878347 },
-			{ 208.95894733301532, 252.74164858372015 },
-			{ 209.6156030548792, 284.59964936793904 },
-			{ 177.33604375408984, 283.64791860105083 },
-			{ 234.50709637791988, 253.35502367526004 },
-			{ 267.59477254156945, 254.157198026143 },
-			{ 267.7563510783289, 286.2138260527267 },
-			{ 234.88161049293558, 285.3543003487409 },
-			{ 293.509685485772, 254.65618927479554 },
-			{ 327.0613850150518, 255.41048392294988 },
-			{ 326.71144380703106, 287.6984729173571 },
-			{ 293.468510478582, 286.79827409858785 },
-			{ 353.26154729214403, 256.0041375953487 },
-			{ 387.1069584708076, 256.66019783617827 },
-			{ 386.154995927957, 288.9345881008247 },
-			{ 352.7308387249233, 288.29009630103457 },
-			{ 413.24709354626935, 257.07095581919504 },
-			{ 447.0692508880799, 257.7836137149599 },
-			{ 445.73560874133767, 290.07609857973375 },
-			{ 412.2948987836504, 289.53669467669806 },
-			{ 473.2646573411307, 258.25170894636994 },
-			{ 506.67785551887835, 258.85507270586254 },
-			{ 504.931572461884, 290.95612069363284 },
-			{ 471.6952673825678, 290.48170514810204 },
-			{ 62.05888397044999, 192.35510221204711 },
-			{ 92.973573602527, 192.6256960084795 },
-			{ 94.42398637216003, 224.7833346239519 },
-			{ 63.53242170109247, 223.94026132221578 },
-			{ 117.73390592637882, 193.02538500590614 },
-			{ 149.6943482354319, 193.4988728783249 },
-			{ 150.77534351473102, 226.01677846779737 },
-			{ 118.82776505525653, 225.38296264851147 },
-			{ 175.03678176202516, 193.94265924027135 },
-			{ 207.889510217968, 194.43129394274365 },
-			{ 208.48194860586497, 227.19674664247498 },
-			{ 175.88441284032862, 226.45328914274808 },
-			{ 233.843922785267, 194.7555301320053 },
-			{ 267.3777418393208, 195.3874117062764 },
-			{ 267.5443089922755, 228.3218048766975 },
-			{ 234.33779280479558, 227.70071094866387 },
-			{ 293.7353783366339, 195.803516382801 },
-			{ 327.6970613761579, 196.4711762821226 },
-			{ 327.3889658167848, 229.52911112372314 },
-			{ 293.6500777506575, 228.8110834993607 },
-			{ 354.2987015865003, 196.78147138286732 },
-			{ 388.4849459792602, 197.49460817273027 },
-			{ 387.7937028320226, 230.65810793406578 },
-			{ 353.8000492581166, 230.14462212875998 },
-			{ 415.07650445349185, 197.92445468093158 },
-			{ 449.3308394788536, 198.60662180792693 },
-			{ 448.1539514082538, 231.78398429067403 },
-			{ 414.24844896105515, 231.30838538530855 },
-			{ 475.93976313131697, 198.98183996148856 },
-			{ 509.7574510695092, 199.78829504865965 },
-			{ 508.1533012693523, 232.8117044470386 },
-			{ 474.5063537120867, 232.3143594301496 },
-			{ 59.42172685465347, 134.179092671166 },
-			{ 90.79563380077005, 134.16829202352145 },
-			{ 92.04393556053701, 166.99318051552203 },
-			{ 60.79330343383183, 166.69186561538535 },
-			{ 115.77372481183963, 134.2042774623179 },
-			{ 148.15875851215674, 134.35470670117482 },
-			{ 149.07771211508572, 167.60190796191188 },
-			{ 116.7725210991517, 167.28748980898044 },
-			{ 173.7876505758194, 134.43075359705995 },
-			{ 207.05781963676378, 134.6511780553312 },
-			{ 207.550410863157, 168.24328621175593 },
-			{ 174.49051684419248, 167.80884709400817 },
-			{ 233.17777139665816, 134.79815066776965 },
-			{ 267.1800784088151, 135.1592123086489 },
-			{ 267.34730435342516, 168.94765205302758 },
-			{ 233.5599781799047, 168.49399019305352 },
-			{ 293.83886263182103, 135.48528605204007 },
-			{ 328.13567798166054, 135.89570822172163 },
-			{ 327.93506070151443, 169.86489500954485 },
-			{ 293.76466178006905, 169.3701821220752 },
-			{ 355.0451067222118, 136.27656990753377 },
-			{ 389.6404574165976, 136.79751719159458 },
-			{ 389.0779665912857, 170.71268569839228 },
-			{ 354.7071941165037, 170.28075057748237 },
-			{ 416.52661520032, 137.15292513462248 },
-			{ 451.2479336340395, 137.93386478840048 },
-			{ 450.3176960296035, 171.95113934244694 },
-			{ 415.9076249272925, 171.3823479858611 },
-			{ 478.0945516167279, 138.37478658889506 },
-			{ 512.394362045786, 139.07513988401644 },
-			{ 511.0469300869903, 173.0377357635608 },
-			{ 476.95733830092126, 172.38056174998408 },
-			{ 57.381598023792804, 75.06465950658283 },
-			{ 88.83351104668657, 74.61553730941013 },
-			{ 89.9304163352273, 108.04705805566762 },
-			{ 58.28556526837371, 108.05700488373486 },
-			{ 114.06968575478231, 74.48587987763723 },
-			{ 146.69254903597698, 74.18239175914412 },
-			{ 147.49874891068595, 107.9386025922629 },
-			{ 114.97754740987006, 107.87073600006566 },
-			{ 172.48640816024854, 74.1320277432348 },
-			{ 205.98112889526138, 73.91141793568957 },
-			{ 206.65670882129842, 108.02344712477311 },
-			{ 173.17947329518339, 108.02381014432494 },
-			{ 232.5402874913855, 73.97411559857558 },
-			{ 266.81072091139373, 73.98323424586648 },
-			{ 267.01863060705887, 108.25217204121056 },
-			{ 232.91109474136306, 108.02894328662387 },
-			{ 293.77480578263754, 74.14953797150977 },
-			{ 328.325043775219, 74.44184216005387 },
-			{ 328.27224478118325, 108.78803395866298 },
-			{ 293.76995102474336, 108.41527464498355 },
-			{ 355.60254590572043, 74.58162759095768 },
-			{ 390.7998266849856, 75.10955281713126 },
-			{ 389.50524941087275, 109.72447580472327 },
-			{ 355.37801298727476, 109.15622837397015 },
-			{ 417.7098217713907, 75.50504947291813 },
-			{ 452.5633467311652, 76.15652138137034 },
-			{ 451.95764284685765, 110.67035773523023 },
-			{ 417.12859463144565, 110.13804207439752 },
-			{ 479.76163911602845, 76.6873930120917 },
-			{ 514.3350725570377, 77.59046461460535 },
-			{ 513.428612823896, 111.98049797339957 },
-			{ 478.9269312311011, 111.29662440065181 },
-			{ 56.318999635465964, 15.145508059133235 },
-			{ 88.16800951840939, 14.456765578207007 },
-			{ 88.37464036332754, 48.07119748594406 },
-			{ 56.48107062537793, 48.77035555231163 },
-			{ 113.57672948180384, 13.862934726294393 },
-			{ 146.57939917208532, 13.420609517873295 },
-			{ 146.51866338886308, 47.317801235745925 },
-			{ 113.71699864703074, 47.72110446290457 },
-			{ 172.64025607990797, 12.56360906633607 },
-			{ 206.3672799590248, 12.938007025302493 },
-			{ 206.03924093846, 46.692609262276555 },
-			{ 172.36156656202832, 47.316280514385795 },
-			{ 233.0920953642154, 12.318481092420383 },
-			{ 267.55203807986044, 12.170727528606527 },
-			{ 266.9529851616901, 46.534627736208456 },
-			{ 232.60592968457212, 46.53453970141745 },
-			{ 294.595375305751, 11.997888025947153 },
-			{ 329.5230030696627, 12.112134100357016 },
-			{ 328.72822099684635, 46.68475547129191 },
-			{ 293.8955520649313, 46.85347075226735 },
-			{ 356.9130755447031, 12.395678586510696 },
-			{ 392.1190375663112, 12.489431916359342 },
-			{ 391.0341841697656, 47.41213179408572 },
-			{ 356.03343320732023, 47.046267665217954 },
-			{ 419.55084342282595, 13.012494018315612 },
-			{ 454.74142333183613, 13.561538861376613 },
-			{ 453.3894601132962, 48.449962793221545 },
-			{ 418.3458748608592, 47.94928261066575 },
-			{ 481.9960132940097, 14.223576647359778 },
-			{ 516.8439627848335, 14.980006351467088 },
-			{ 515.3867454236566, 49.82835534331021 },
-			{ 480.63356573462875, 49.12278317911614 }};
-
-	private static final double[][] data3 = {
-			{ 137.22826265754128, 394.36338179898917 },
-			{ 160.187943549149, 397.0974538410207 },
-			{ 159.34730413574266, 425.12927320814157 },
-			{ 136.29854255272394, 421.95770763177325 },
-			{ 180.16912538559387, 399.3808729240103 },
-			{ 204.86292900573017, 402.06267557016076 },
-			{ 203.72675697709863, 431.01683243234135 },
-			{ 179.18487675331212, 427.73591150424966 },
-			{ 225.75104300713795, 404.3630066605049 },
-			{ 251.92825010658618, 407.17957914453706 },
-			{ 250.96538074145894, 436.9423114376981 },
-			{ 224.6283650625028, 433.54478632758776 },
-			{ 274.06364553672006, 409.5082639415724 },
-			{ 301.845689852696, 412.2722130109322 },
-			{ 300.855821319876, 442.76108985271657 },
-			{ 272.846916254779, 439.6032903759656 },
-			{ 325.0825655137707, 414.4173174859092 },
-			{ 354.56388295710303, 417.32550750800846 },
-			{ 353.4016250896212, 448.65435521077524 },
-			{ 323.7860690982621, 445.54103473242196 },
-			{ 378.98388879169886, 419.4444513141882 },
-			{ 410.0604841328458, 422.2039805082526 },
-			{ 408.85117262972864, 454.38482473382624 },
-			{ 377.6671696081526, 451.26830627507445 },
-			{ 435.3672294584237, 424.3107037363906 },
-			{ 468.0969116124544, 426.8910599406407 },
-			{ 466.95007815152167, 460.1653980686303 },
-			{ 434.20075412259564, 456.9437196591225 },
-			{ 494.4674585750879, 428.932852781578 },
-			{ 528.5406867041781, 431.57904282941973 },
-			{ 527.4730212174464, 465.5991091485938 },
-			{ 493.31225978611377, 462.4166739830104 },
-			{ 139.23128225352067, 343.82883420371434 },
-			{ 162.40607857026552, 345.5637340468602 },
-			{ 161.0441281117406, 373.7886888759932 },
-			{ 138.12614881899736, 371.3766195986743 },
-			{ 182.0956177210248, 347.34328675090325 },
-			{ 206.8424541757716, 349.1157783812819 },
-			{ 205.5644696549492, 378.2297015637484 },
-			{ 181.0161572851171, 375.71604266612775 },
-			{ 227.77183133008973, 350.75951555377674 },
-			{ 253.9653299433438, 352.8241482209459 },
-			{ 252.9555029278685, 382.68944678757265 },
-			{ 226.47691666256662, 380.0110151937857 },
-			{ 276.0055916396826, 354.34376925094153 },
-			{ 303.93503480902314, 356.4293131651769 },
-			{ 302.82792251283917, 387.03240018019005 },
-			{ 274.88706451551496, 384.57729729393145 },
-			{ 327.097679977267, 358.0025148055112 },
-			{ 356.56018588224526, 359.78587981088856 },
-			{ 355.52539639340546, 391.34697706149575 },
-			{ 325.83378024849895, 389.06651105202144 },
-			{ 380.80323390705894, 361.3858374680148 },
-			{ 411.97019276328894, 363.3228932787287 },
-			{ 411.0335491945596, 395.6766263372238 },
-			{ 379.82115738144716, 393.44439552805926 },
-			{ 437.3161307891978, 364.6838758307422 },
-			{ 470.05281208035706, 366.7650017205178 },
-			{ 468.85296474447273, 399.86250660947536 },
-			{ 436.4377484591397, 397.6409678059681 },
-			{ 496.5259261096069, 368.1086909818487 },
-			{ 530.3780740777048, 369.80509453316364 },
-			{ 529.4759505908793, 403.86752895336264 },
-			{ 495.4268070108007, 401.71843649389274 },
-			{ 141.46861683034936, 293.0742154572436 },
-			{ 164.5807409773764, 294.202800008571 },
-			{ 163.32783519897518, 322.4205278535629 },
-			{ 140.21123771562725, 320.6584022285569 },
-			{ 184.29973188639207, 295.09574730151354 },
-			{ 209.06410790314035, 296.2964901801406 },
-			{ 207.72358870907408, 325.3152966701542 },
-			{ 183.1030826056004, 323.5749572452371 },
-			{ 229.8310926051587, 297.15398989000835 },
-			{ 255.99132992913994, 298.3593237643727 },
-			{ 255.0622296963477, 328.2848248403561 },
-			{ 228.6674247723076, 326.46538419427435 },
-			{ 278.01506574164137, 299.2639193616573 },
-			{ 305.9565666041089, 300.5134281874246 },
-			{ 304.8897061538117, 331.08662768564045 },
-			{ 277.0002019566349, 329.540576281349 },
-			{ 329.0596770303812, 301.1764953193146 },
-			{ 358.5456190236702, 302.59129350271263 },
-			{ 357.59500503076407, 334.08415542516224 },
-			{ 328.01542314104705, 332.3558666225793 },
-			{ 382.7568264528644, 303.2440789128329 },
-			{ 413.89270946473846, 304.5056748646233 },
-			{ 412.9544147013671, 336.7897872351801 },
-			{ 381.7915596675668, 335.385089410781 },
-			{ 439.1076523453959, 305.0927844274493 },
-			{ 471.7497534859193, 306.4249869242272 },
-			{ 470.999379335398, 339.4421967758366 },
-			{ 438.32507915702837, 338.11611219785857 },
-			{ 498.20319243576364, 306.9549946877856 },
-			{ 531.9294217707754, 308.2043138290165 },
-			{ 531.2729288550549, 342.2115675535977 },
-			{ 497.2893671822999, 340.690746009066 },
-			{ 144.02690053062062, 242.6718680818291 },
-			{ 166.96949659348394, 242.79906452471883 },
-			{ 165.6802366892435, 270.86191691721774 },
-			{ 142.5804002864817, 270.01268397954476 },
-			{ 186.77027044489435, 243.14467479496832 },
-			{ 211.2787425176295, 243.3891036611437 },
-			{ 210.1154157332669, 272.4215883511979 },
-			{ 185.38970733384068, 271.45267488666263 },
-			{ 231.9840600903537, 243.8498032983192 },
-			{ 258.2096645155677, 244.09467272560116 },
-			{ 257.1869478735508, 273.85575185886955 },
-			{ 230.93991568769496, 272.8597279547398 },
-			{ 280.1539980943389, 244.45522572209077 },
-			{ 307.96643002142963, 244.67396263072644 },
-			{ 306.8693797335895, 275.1017068970548 },
-			{ 279.08217662955565, 274.31309494871505 },
-			{ 331.0118139734911, 244.8505182769471 },
-			{ 360.318612489999, 245.11586017335702 },
-			{ 359.4651255209697, 276.5254314547623 },
-			{ 330.01507818262917, 275.9096248037888 },
-			{ 384.4956750345099, 245.32783257739558 },
-			{ 415.4097293518747, 245.68446247412308 },
-			{ 414.7211611827516, 278.06013833307645 },
-			{ 383.6665987672307, 277.2249618635972 },
-			{ 440.6855471964129, 245.90994004685442 },
-			{ 473.1066324144036, 246.23444578995014 },
-			{ 472.49663863500444, 279.1002917498545 },
-			{ 439.9952968232801, 278.4653232806003 },
-			{ 499.3795257678252, 246.37083852688656 },
-			{ 533.0144174415416, 246.64625376414494 },
-			{ 532.6201119517865, 280.30037732055115 },
-			{ 498.8282297359098, 279.8298821894797 },
-			{ 146.62005436903283, 192.63570149359077 },
-			{ 169.668466366421, 192.14247972173544 },
-			{ 168.14088993315153, 219.8757107467198 },
-			{ 145.2969262244527, 219.63629040041084 },
-			{ 189.19997922929988, 191.81378016298464 },
-			{ 213.74151943863703, 191.0475267146833 },
-			{ 212.41295950311167, 219.8074441995837 },
-			{ 187.95100093277827, 219.68941121809857 },
-			{ 234.47993108486497, 190.88652205812798 },
-			{ 260.4388922869358, 190.47597841835986 },
-			{ 259.22075869636967, 219.78209264179628 },
-			{ 233.0990866604428, 219.7454369362106 },
-			{ 282.40479346925423, 190.16562891048716 },
-			{ 309.92597592744846, 189.45585866535663 },
-			{ 308.8553839397174, 219.5534855787983 },
-			{ 281.11315313638664, 219.6428951878254 },
-			{ 332.8725536440233, 188.97316935994638 },
-			{ 362.0265145134641, 188.55415057351158 },
-			{ 361.23205732432086, 219.43249559610635 },
-			{ 331.96307842138845, 219.6077214885436 },
-			{ 386.04522463062176, 188.21089480538737 },
-			{ 416.80214965147997, 187.61406026618334 },
-			{ 416.26598017327336, 219.391277252366 },
-			{ 385.37921692899846, 219.51607369240566 },
-			{ 441.98872926357933, 187.07929156095236 },
-			{ 474.01775768578074, 186.6431408910057 },
-			{ 473.5888253285411, 219.22969721026237 },
-			{ 441.35277762388336, 219.44508721115855 },
-			{ 500.2881129514194, 186.29351513598155 },
-			{ 533.4944104093779, 185.8462742415477 },
-			{ 533.3330406949578, 219.01045194464146 },
-			{ 499.9513161783174, 219.2656102300742 },
-			{ 149.54446166549693, 143.23993886908247 },
-			{ 172.07535986703343, 142.12710431456216 },
-			{ 170.908091123399, 169.34733553687684 },
-			{ 147.98243824747257, 169.8986237310783 },
-			{ 192.02698305909564, 140.9532635865463 },
-			{ 216.18079723876303, 139.89521042007132 },
-			{ 214.73695710877334, 167.69271164749344 },
-			{ 190.39642142820853, 168.66447956031104 },
-			{ 236.82599989671436, 138.81359207082616 },
-			{ 262.57914678420235, 137.4441117299256 },
-			{ 261.46865512653267, 166.11855592552345 },
-			{ 235.6778682904718, 166.80546253087076 },
-			{ 284.4659594003672, 136.5489122466196 },
-			{ 311.8160682235616, 135.00285127515974 },
-			{ 310.6837217860684, 164.54946513884929 },
-			{ 283.3415369449946, 165.41328309895414 },
-			{ 334.5057948401551, 134.1289277694715 },
-			{ 363.4735676519659, 132.61376484746475 },
-			{ 362.7977034731471, 163.063277769898 },
-			{ 333.7890865969108, 164.0076343528107 },
-			{ 387.3688333267982, 131.66081409515422 },
-			{ 417.81852521202524, 130.37219077422017 },
-			{ 417.2828758620442, 161.67596336090472 },
-			{ 386.79452891455617, 162.50987641387474 },
-			{ 442.62430145277176, 129.3503753046519 },
-			{ 474.5382097952027, 128.22188783483872 },
-			{ 474.38006611193555, 160.18332975316684 },
-			{ 442.31456510635167, 160.962411733703 },
-			{ 500.5166852013382, 127.09848842356901 },
-			{ 533.357763369392, 126.12860808767306 },
-			{ 533.5704860509042, 158.58359274764643 },
-			{ 500.41678339749706, 159.5221664931279 },
-			{ 152.6941041120487, 94.76135047288122 },
-			{ 174.91272059872486, 92.78205768032805 },
-			{ 173.44284156368943, 119.43478530436579 },
-			{ 150.78631088055204, 120.83198766190286 },
-			{ 194.4685357560373, 91.27497856507841 },
-			{ 218.32913322759768, 89.2289199555576 },
-			{ 217.25358788238765, 116.40347241455032 },
-			{ 193.17952522125708, 118.0623017190104 },
-			{ 239.10030401088463, 87.444925082216 },
-			{ 264.3997407520687, 85.67268249225322 },
-			{ 263.54638225957837, 113.62245765546928 },
-			{ 237.870604374633, 115.09618602561768 },
-			{ 286.1734015784083, 83.8750500079042 },
-			{ 313.3644901138187, 81.9109204678985 },
-			{ 312.40606354125106, 110.58067195195888 },
-			{ 285.3483395275492, 112.2816332497131 },
-			{ 335.89624139722815, 80.30694821030578 },
-			{ 364.574067544245, 78.15765014026546 },
-			{ 363.90779598681877, 107.80703560845086 },
-			{ 335.2928115089919, 109.38595890583818 },
-			{ 388.29937338446825, 76.65330292365267 },
-			{ 418.20650521222166, 74.50660461571296 },
-			{ 418.01090300828133, 105.00768509345971 },
-			{ 387.8178010502578, 106.63105990897579 },
-			{ 443.04706241212943, 72.98931424770032 },
-			{ 474.33859282443154, 71.14691268145958 },
-			{ 474.4919564859454, 102.11005679277487 },
-			{ 442.8626848900896, 103.79065117678765 },
-			{ 500.1510622911001, 69.48749337226295 },
-			{ 532.6514119558849, 67.79456358965697 },
-			{ 533.0641573657961, 99.46326990343688 },
-			{ 500.31128748448396, 100.96797841765795 },
-			{ 155.5435287110069, 47.17733319510865 },
-			{ 177.97676540879692, 44.72169880469761 },
-			{ 176.01049624693056, 70.45416877603564 },
-			{ 153.61940906768587, 72.77102272710275 },
-			{ 197.3847531971697, 42.56321054309326 },
-			{ 221.212161523322, 39.784736826142975 },
-			{ 219.69700905360477, 66.30547977950724 },
-			{ 195.7941734084905, 68.58615709791889 },
-			{ 241.7067121175821, 37.593701930234246 },
-			{ 267.0255918302831, 34.87348819099037 },
-			{ 265.41106106285343, 62.1077112242518 },
-			{ 240.19419761663568, 64.45179364054138 },
-			{ 288.40151605688584, 32.77894423415306 },
-			{ 315.32478744606584, 29.950054897270267 },
-			{ 314.0049946689135, 57.907044724448724 },
-			{ 287.1913773982965, 60.25007555014178 },
-			{ 337.76488292829356, 27.740386011495826 },
-			{ 366.0043969669435, 25.15192487495098 },
-			{ 364.99570865089214, 53.70880216984636 },
-			{ 336.7051493955836, 56.189532811115164 },
-			{ 389.5822762790428, 22.957895518479983 },
-			{ 419.278589656323, 20.239300640238994 },
-			{ 418.52729303104564, 49.64030341819067 },
-			{ 388.67513912517086, 51.997930887860726 },
-			{ 443.87428361015714, 18.171841356899918 },
-			{ 474.84941822442266, 15.582173647322008 },
-			{ 474.41788883915154, 45.59782436338222 },
-			{ 443.24029451612137, 47.966912817965486 },
-			{ 500.4966854081226, 13.507183887278705 },
-			{ 532.5638141747942, 11.025372987305676 },
-			{ 532.4770116585777, 41.622561865300064 },
-			{ 500.06984943005654, 43.9859497780876 }};
-
-	private static final double[][] data4 = {
-			{ 84.04443096693421, 410.1275601822925 },
-			{ 116.30017825670132, 410.5640160796385 },
-			{ 115.78761144637487, 442.33308017074563 },
-			{ 83.63008665108278, 441.9120409309495 },
-			{ 141.72697580728473, 411.0320047945014 },
-			{ 173.66965827327525, 411.3014051088614 },
-			{ 173.22470736835155, 442.874524404491 },
-			{ 141.25465254078, 442.56452420352775 },
-			{ 198.84160209514897, 411.6115154837549 },
-			{ 230.48230490547232, 411.66253139457 },
-			{ 230.00149631923614, 442.81450303443023 },
-			{ 198.35874854581763, 442.9222147932338 },
-			{ 255.29048125241334, 411.76413178856507 },
-			{ 286.5710183170346, 411.8184014887793 },
-			{ 286.1052154424992, 442.57963067823584 },
-			{ 254.92483840435918, 442.812413067932 },
-			{ 310.8563877944848, 411.53170846505816 },
-			{ 341.45385025628076, 411.13086274125095 },
-			{ 340.9807128715841, 441.9018025172065 },
-			{ 310.32786496749446, 442.372442117802 },
-			{ 365.14154221159794, 410.8468994517686 },
-			{ 395.11814798146867, 410.49577206408236 },
-			{ 394.54657884508134, 440.75201748061755 },
-			{ 364.75756167014606, 441.49016294845774 },
-			{ 418.12334794462424, 410.0749383223604 },
-			{ 447.1233421646275, 409.4077946680507 },
-			{ 446.6659541668829, 439.3468523321525 },
-			{ 417.6437479443758, 440.24804913017016 },
-			{ 469.44710399654394, 408.82236579329094 },
-			{ 497.40630506971434, 408.2291202050343 },
-			{ 496.96546839539354, 437.4925416355543 },
-			{ 469.0398791308166, 438.5732397793427 },
-			{ 85.37953462163631, 352.6911734612626 },
-			{ 117.4368404303716, 353.30658732224606 },
-			{ 116.79314954847744, 385.37795532834053 },
-			{ 84.69358691764684, 384.48377373987313 },
-			{ 142.7532108282927, 353.88222801154996 },
-			{ 174.82054779687482, 354.5019195691502 },
-			{ 174.17484598375108, 386.1369384254106 },
-			{ 142.14148922521184, 385.67952170258934 },
-			{ 199.95031028127778, 354.8418530581463 },
-			{ 231.56181142476106, 355.0944960735561 },
-			{ 231.03385504516152, 386.5682184013329 },
-			{ 199.2978443260861, 386.3495186560016 },
-			{ 256.34156128825185, 355.46307001296077 },
-			{ 287.6342017203541, 355.70231135955027 },
-			{ 286.94180745233365, 386.69902084638653 },
-			{ 255.8158685003231, 386.6661851544293 },
-			{ 311.84877343792976, 355.86636171875597 },
-			{ 342.4397036026918, 355.98279193083147 },
-			{ 341.8740980015034, 386.54374887917584 },
-			{ 311.37171768277017, 386.71395041456555 },
-			{ 366.12525672838075, 355.9227752530399 },
-			{ 395.97517479599225, 355.89247608061646 },
-			{ 395.56122884031146, 386.207080610317 },
-			{ 365.7315834094994, 386.5578699709624 },
-			{ 418.9949604588119, 355.72307403893296 },
-			{ 447.89164184157676, 355.6305185116881 },
-			{ 447.5104451704205, 385.58218141166225 },
-			{ 418.5167767001405, 386.0436722757799 },
-			{ 470.1986100852902, 355.32112770491875 },
-			{ 498.11712341720266, 355.0653051299678 },
-			{ 497.7749263716285, 384.48744084519 },
-			{ 469.8008429495167, 385.1417883995249 },
-			{ 87.04076708049563, 295.2717623705317 },
-			{ 119.00722115008298, 296.09744908092813 },
-			{ 118.19597492678935, 328.0148324834598 },
-			{ 86.12577780959948, 327.17747160806965 },
-			{ 144.21931172056645, 296.71624962895044 },
-			{ 176.23886235531612, 297.42734532648944 },
-			{ 175.28085814453715, 329.1341828928605 },
-			{ 143.51465528191176, 328.4301071802956 },
-			{ 201.17687679253876, 298.10851203004745 },
-			{ 232.91593793592236, 298.6387408017938 },
-			{ 232.09057444036836, 330.15690299285603 },
-			{ 200.4307493327377, 329.6976983724004 },
-			{ 257.42839689778856, 299.1476476870004 },
-			{ 288.6320185896951, 299.7136342338716 },
-			{ 288.0057910825919, 330.7752906349735 },
-			{ 256.91696175924784, 330.39291953527913 },
-			{ 312.8184806124381, 300.11760776718137 },
-			{ 343.31530671682185, 300.53512199604444 },
-			{ 342.8733041767828, 331.3400991943669 },
-			{ 312.30301081549095, 331.12052370537583 },
-			{ 366.9415531832442, 300.7183058251445 },
-			{ 396.7186384866738, 301.12887376790275 },
-			{ 396.33112023382427, 331.6024388710668 },
-			{ 366.5520528783003, 331.5813905652987 },
-			{ 419.6441969265521, 301.30253200591716 },
-			{ 448.57281880658826, 301.6981262956366 },
-			{ 448.2484229315521, 331.65814308501206 },
-			{ 419.35820032069535, 331.74852929986594 },
-			{ 470.7675811162934, 301.80643590258603 },
-			{ 498.59217725443636, 302.11832928887446 },
-			{ 498.3891184407877, 331.49018120317834 },
-			{ 470.56278143036997, 331.67394012773985 },
-			{ 89.06173929681611, 238.14258944451336 },
-			{ 120.92361281354324, 238.93787119889916 },
-			{ 119.85245671333331, 270.65791993017456 },
-			{ 87.94289311105582, 269.8771779716072 },
-			{ 145.96439095961492, 239.86653197931125 },
-			{ 177.8037407602414, 240.67633415353237 },
-			{ 176.8352015791996, 272.2347514678646 },
-			{ 145.05983359909095, 271.4910498547869 },
-			{ 202.59943341937188, 241.44571867066892 },
-			{ 234.07004985194723, 242.3769448123599 },
-			{ 233.46596041135535, 273.76565491868274 },
-			{ 201.82540638289512, 272.7463176229811 },
-			{ 258.6686748785791, 242.9334839653305 },
-			{ 289.69230118703643, 243.95570854436795 },
-			{ 289.11134646438444, 274.8176526802191 },
-			{ 258.0444217569889, 274.242834867341 },
-			{ 313.7390153168726, 244.50985588031136 },
-			{ 344.1439487963228, 245.29318374749295 },
-			{ 343.6841230231197, 276.01009607473026 },
-			{ 313.29953998688524, 275.50673296415835 },
-			{ 367.7233746668972, 245.96045515835198 },
-			{ 397.3281365708681, 246.73840824537004 },
-			{ 397.00205500081387, 276.94795539109396 },
-			{ 367.3217102055414, 276.4649089080886 },
-			{ 420.113032118686, 247.15602820342573 },
-			{ 448.876686706884, 248.0335920776156 },
-			{ 448.7496816227033, 277.8228840547653 },
-			{ 419.9022378519927, 277.41662531538407 },
-			{ 471.0576589443452, 248.43204055677325 },
-			{ 498.69462704616484, 249.1014707277691 },
-			{ 498.67953980492484, 278.38686875047995 },
-			{ 470.9189482521566, 278.1749224646193 },
-			{ 91.45015936007158, 181.50862597428082 },
-			{ 123.20807060826696, 182.5685086563302 },
-			{ 121.87261871427299, 213.99920886780595 },
-			{ 90.1498156938672, 212.70881970527745 },
-			{ 148.0457547322132, 183.50408392570867 },
-			{ 179.63141622295672, 184.56479854367836 },
-			{ 178.55341882413703, 215.83233535849342 },
-			{ 146.94190701406038, 214.53593712889045 },
-			{ 204.28229364512413, 185.48891579397565 },
-			{ 235.49953908698788, 186.56337882533413 },
-			{ 234.81795028874004, 217.56588861938528 },
-			{ 203.44863859823107, 216.41800550254834 },
-			{ 259.9922098463268, 187.5286338669944 },
-			{ 290.7535512776566, 188.61674078717783 },
-			{ 290.1931133753165, 219.20773130627128 },
-			{ 259.2761281347135, 218.26745155612733 },
-			{ 314.7415031780298, 189.52704594808074 },
-			{ 344.8756862939664, 190.71609301577558 },
-			{ 344.52370032102726, 220.85559937074535 },
-			{ 314.2579288822442, 220.11577245887895 },
-			{ 368.3041944424955, 191.56246710653886 },
-			{ 397.703732451675, 192.75758396686362 },
-			{ 397.60392388615463, 222.59607865926296 },
-			{ 368.0185878053382, 221.83433685112269 },
-			{ 420.40232294270123, 193.62240157124128 },
-			{ 448.94884390830947, 194.77218414007902 },
-			{ 448.99885248736933, 224.24832162934288 },
-			{ 420.2637072377896, 223.45629166456487 },
-			{ 471.02419150718754, 195.60366374803445 },
-			{ 498.49467471510246, 196.81840732398942 },
-			{ 498.6266775573443, 225.76495720872376 },
-			{ 471.08063216213856, 224.93317668825492 },
-			{ 94.22109692137786, 125.83800085780929 },
-			{ 125.56692819196921, 126.88641510868688 },
-			{ 124.21318698361289, 157.89914772132937 },
-			{ 92.69972864074096, 156.46301170907824 },
-			{ 150.38300521582437, 128.0039309465524 },
-			{ 181.5994982779156, 129.1770314239806 },
-			{ 180.4451654951775, 159.9733254757279 },
-			{ 149.0096365008795, 158.67556215104196 },
-			{ 206.02628128325355, 130.28172108604093 },
-			{ 237.06547078395238, 131.60795500243844 },
-			{ 236.27898192564638, 162.15715830094135 },
-			{ 205.16403235697155, 160.73220186770484 },
-			{ 261.31965129541436, 132.64727749332698 },
-			{ 291.790692713845, 134.2932679665855 },
-			{ 291.28190302401674, 164.38134076631678 },
-			{ 260.5319175305519, 163.0564556376514 },
-			{ 315.51314998670256, 135.3265229245645 },
-			{ 345.48566438716466, 136.84943819824846 },
-			{ 345.13842589070833, 166.56540195162734 },
-			{ 315.1908697966998, 165.44996001843253 },
-			{ 368.67232120839816, 138.04082049845894 },
-			{ 397.8688754036737, 139.4682228601376 },
-			{ 397.83196298753097, 168.85058697407908 },
-			{ 368.5096280542607, 167.74107143893184 },
-			{ 420.43715162551564, 140.61661255146953 },
-			{ 448.76337462067613, 142.38418869041195 },
-			{ 448.9659722810597, 171.2364957229348 },
-			{ 420.4846870029549, 170.06852074074246 },
-			{ 470.69111452804435, 143.51880260260336 },
-			{ 497.8707780725073, 145.0562202007092 },
-			{ 498.2964966980414, 173.59790925868393 },
-			{ 470.90647913128595, 172.32073540080222 },
-			{ 97.09281156928235, 71.24292423931813 },
-			{ 128.1061246156735, 72.58775587063315 },
-			{ 126.65444803234088, 102.68696968686035 },
-			{ 95.33814375913039, 101.50046161530605 },
-			{ 152.53290892825265, 73.7637828589439 },
-			{ 183.45326564398033, 75.05753622621077 },
-			{ 182.49287080318834, 105.04938376639707 },
-			{ 151.32558768437104, 103.81538822500258 },
-			{ 207.78903737094635, 76.26360580901712 },
-			{ 238.38770754559832, 77.98261912872776 },
-			{ 237.73853003691693, 107.71633916731392 },
-			{ 206.80705206353167, 106.16669709986054 },
-			{ 262.3885788772523, 79.26306974110837 },
-			{ 292.65980012153847, 80.96132166483805 },
-			{ 292.194935518221, 110.40678055828252 },
-			{ 261.8187613183351, 108.76042831478243 },
-			{ 316.226951361783, 82.25464259975655 },
-			{ 345.75352942651904, 84.15250571723172 },
-			{ 345.6723138566835, 113.16015553599235 },
-			{ 315.8807885237929, 111.71254094054244 },
-			{ 368.8336445940755, 85.58785180482208 },
-			{ 397.67445932507763, 87.38250296896213 },
-			{ 397.79458666471095, 116.23938884884635 },
-			{ 368.7436755838173, 114.56146521314619 },
-			{ 420.06460840397295, 88.8609379105335 },
-			{ 448.11301773994575, 90.92218300215097 },
-			{ 448.5180508387761, 119.17657669448944 },
-			{ 420.2848580722614, 117.61198867867624 },
-			{ 469.81002562166196, 92.32389867224812 },
-			{ 496.8473061479256, 94.44524776682844 },
-			{ 497.45534135844525, 122.3677156781705 },
-			{ 470.35795376220653, 120.62993945706855 },
-			{ 101.00970782167697, 18.103363519108168 },
-			{ 131.64830457591503, 19.554013477350843 },
-			{ 129.5014303581064, 48.80995515065228 },
-			{ 98.50516961356124, 47.382840787775635 },
-			{ 155.89552189367052, 20.719960397126016 },
-			{ 186.33741161443507, 22.48027183424593 },
-			{ 184.73216557465847, 51.60387025662243 },
-			{ 153.7675532196593, 49.92713543000054 },
-			{ 210.3982534058584, 23.82758215460897 },
-			{ 240.46683087472698, 25.49616632652667 },
-			{ 239.25182943840537, 54.46851462339318 },
-			{ 208.6792019304227, 52.769834625558 },
-			{ 264.16507192752834, 27.051830520038266 },
-			{ 294.0082199666479, 29.014009892833432 },
-			{ 293.0493921570094, 57.52718989267175 },
-			{ 263.1126468421716, 55.890098891140056 },
-			{ 317.29261990558007, 30.574770973198902 },
-			{ 346.3572117534144, 32.71108362723538 },
-			{ 345.93311985207527, 60.917351983929535 },
-			{ 316.46617284290727, 59.24961823065278 },
-			{ 369.2755474222269, 34.33603808098457 },
-			{ 397.649194731123, 36.55072858413427 },
-			{ 397.5769584688814, 64.5725934882062 },
-			{ 368.9235797766379, 62.55924108972437 },
-			{ 419.85385101377045, 38.23308678448411 },
-			{ 447.4759819596767, 40.64911138489491 },
-			{ 447.7728032135152, 68.31847802926704 },
-			{ 419.8272438371651, 66.26045914031754 },
-			{ 469.08155005643766, 42.382012370500085 },
-			{ 495.7493598678898, 44.824566384593325 },
-			{ 496.30676774724395, 72.03715407745713 },
-			{ 469.35696712365547, 69.99918311868802 }};
-
-	private static final double[][] data5 = {
-			{ 78.69152413080967, 361.274660727371 },
-			{ 106.28319698721955, 366.18930491537145 },
-			{ 101.6433121551384, 392.8711331833367 },
-			{ 74.05351537940494, 387.9767155423387 },
-			{ 128.29439935441943, 369.9386524721016 },
-			{ 155.94525664796745, 374.8338236074532 },
-			{ 150.9579436090608, 401.31853717667235 },
-			{ 123.62450536035561, 396.6112255754958 },
-			{ 177.63828694566752, 378.4916243402773 },
-			{ 204.89237151583075, 383.12569450073767 },
-			{ 199.91082493226003, 409.2815249107981 },
-			{ 172.76278045365908, 404.78951194438775 },
-			{ 226.48313127424362, 386.64544523893477 },
-			{ 253.4272567154734, 391.0564330836273 },
-			{ 248.2240766661916, 416.9531807838528 },
-			{ 221.41979772774425, 412.7334118705678 },
-			{ 274.5120681898539, 394.2401800907817 },
-			{ 300.98056670856937, 398.6664525186608 },
-			{ 295.7293840746357, 424.2322343664807 },
-			{ 269.3894849313651, 420.25244261461603 },
-			{ 321.77684077639236, 401.6339307093484 },
-			{ 347.79148899090194, 405.56433609752037 },
-			{ 342.3218570785699, 431.00454771223156 },
-			{ 316.4136489735329, 427.30571197138573 },
-			{ 368.00846360843946, 408.56230340859327 },
-			{ 393.29125405762306, 412.389359351335 },
-			{ 387.86436475270574, 437.4183405579708 },
-			{ 362.5387157965701, 433.9173828418121 },
-			{ 413.00920312893993, 415.05304633130703 },
-			{ 437.59447965202645, 418.6626529566944 },
-			{ 432.08481112638407, 443.2785331595828 },
-			{ 407.498492522264, 440.04149039250547 },
-			{ 87.2750900075558, 312.3582673315689 },
-			{ 115.14486555327808, 317.42353670118666 },
-			{ 110.17264958418068, 344.657297763098 },
-			{ 82.4053155486241, 339.661054163283 },
-			{ 137.13560548427256, 321.4333060528775 },
-			{ 164.85382167170408, 326.5126041482136 },
-			{ 159.80924168545042, 353.4516195686336 },
-			{ 132.19133764583415, 348.6457331504231 },
-			{ 186.71930701859588, 330.2996162749264 },
-			{ 214.19055408743185, 335.1650383251138 },
-			{ 209.0529991661218, 361.95031470453984 },
-			{ 181.62149262850875, 357.16541388071425 },
-			{ 235.757047274741, 338.8932021696882 },
-			{ 262.9035954003633, 343.51079074030844 },
-			{ 257.6037685274935, 370.0145099185704 },
-			{ 230.58076733971728, 365.4833377126066 },
-			{ 284.08995820462525, 347.03871206962543 },
-			{ 310.6748249423151, 351.5973590477158 },
-			{ 305.31679755636327, 377.6966829114518 },
-			{ 278.7652846946247, 373.4912951273422 },
-			{ 331.47996676392114, 354.8189011224688 },
-			{ 357.56488342121315, 359.2642869317308 },
-			{ 352.0966679140305, 385.0668913059856 },
-			{ 326.09710280951197, 381.0551434153442 },
-			{ 377.7901601525455, 362.3469946965432 },
-			{ 403.2361112529117, 366.5678795323426 },
-			{ 397.72045774085007, 392.0538840965335 },
-			{ 372.3832785560251, 388.1802537967592 },
-			{ 422.95528530172487, 369.5578590050164 },
-			{ 447.66157879036217, 373.3747322390947 },
-			{ 442.07395366043454, 398.5866622435366 },
-			{ 417.44409023037366, 394.9113376306578 },
-			{ 96.22722627556054, 262.8284574907546 },
-			{ 124.21902371058596, 268.1845520687507 },
-			{ 119.14473116606588, 295.6505274302097 },
-			{ 91.27230996520825, 290.485782009713 },
-			{ 146.3266757897717, 272.1622311755597 },
-			{ 174.18373207622275, 277.484964613776 },
-			{ 168.97622184347225, 304.85947356553476 },
-			{ 141.11396846728337, 299.7387275787566 },
-			{ 196.07660977250805, 281.46178259575737 },
-			{ 223.63592217813857, 286.5575045993843 },
-			{ 218.39460452664457, 313.62631139687164 },
-			{ 190.85807699590936, 308.70107367172926 },
-			{ 245.3015525636926, 290.51739617797705 },
-			{ 272.56750294428787, 295.40005018665374 },
-			{ 267.1380266362157, 322.19448330367584 },
-			{ 240.0258235118016, 317.4179730677525 },
-			{ 293.70515404531454, 299.1425100185318 },
-			{ 320.49315471146843, 303.9079930738561 },
-			{ 314.9709685632976, 330.4501353807493 },
-			{ 288.3718064614447, 325.9360006618568 },
-			{ 341.27168011925556, 307.5200377950307 },
-			{ 367.4543486937042, 312.1467179942574 },
-			{ 361.8989515792364, 338.4082242208829 },
-			{ 335.7905377706842, 334.03840968184863 },
-			{ 387.61397095150375, 315.57312860649995 },
-			{ 413.1762863456735, 320.00419178181704 },
-			{ 407.67746167039746, 345.9750447393986 },
-			{ 382.1918037913187, 341.77414882301883 },
-			{ 432.85379725703115, 323.3358006879324 },
-			{ 457.5735916783832, 327.6021110012016 },
-			{ 452.0195269320905, 353.16060153120895 },
-			{ 427.33229339972917, 349.1258784826918 },
-			{ 105.76987137759865, 212.94380761429647 },
-			{ 133.86341784552073, 218.3243682054638 },
-			{ 128.5027417029613, 246.12452636828982 },
-			{ 100.35523043011437, 240.9175738603024 },
-			{ 155.90726182663596, 222.5838684841567 },
-			{ 183.7834013023432, 228.01251160830526 },
-			{ 178.35233726023785, 255.5657266122546 },
-			{ 150.59350841396125, 250.17865872716914 },
-			{ 205.74754579084382, 232.07514019977162 },
-			{ 233.3641218064177, 237.42671957663472 },
-			{ 228.00114496417808, 264.8574230645499 },
-			{ 200.25241833499828, 259.608501423578 },
-			{ 255.01448793989965, 241.45342474035775 },
-			{ 282.29886907505824, 246.64970037530634 },
-			{ 276.8538534146699, 273.8754357832947 },
-			{ 249.57128497276983, 268.78650806574564 },
-			{ 303.5249047584565, 250.65898774180872 },
-			{ 330.25686698995366, 255.7896290063299 },
-			{ 324.76513513143516, 282.55100968781915 },
-			{ 298.0589736742378, 277.75643707130865 },
-			{ 351.1606006718723, 259.63920826891535 },
-			{ 377.3040070212308, 264.4794019068752 },
-			{ 371.72934859387374, 291.23681546774765 },
-			{ 345.5828817840472, 286.27769879841264 },
-			{ 397.5246027866596, 268.23107809439415 },
-			{ 422.9582048607481, 273.10653885211696 },
-			{ 417.5392693773936, 299.29144709949884 },
-			{ 391.9450117454264, 294.7052081338683 },
-			{ 442.6749445217156, 276.60784060339756 },
-			{ 467.3190107749417, 281.43420158311955 },
-			{ 461.97048467706946, 307.05682531846037 },
-			{ 437.271441028218, 302.72198167939325 },
-			{ 115.55515770161269, 162.77631551896766 },
-			{ 143.6530864805258, 168.22649354512333 },
-			{ 138.23084164188526, 196.28513158618074 },
-			{ 110.0229645662059, 190.5406675597182 },
-			{ 165.7239651344489, 172.68245133907658 },
-			{ 193.70996132113353, 178.1958210317017 },
-			{ 188.1551381055804, 205.96002321106587 },
-			{ 160.30700884319515, 200.33684608596369 },
-			{ 215.5811670509886, 182.50929719856993 },
-			{ 243.15949031726598, 187.9892801639886 },
-			{ 237.7426282541228, 215.56318458680494 },
-			{ 210.07622864904607, 210.0738910253852 },
-			{ 264.8471636771777, 192.255739265883 },
-			{ 292.0963448829428, 197.75894621087588 },
-			{ 286.7022850712927, 224.69531378126143 },
-			{ 259.4170219055687, 219.56534802899228 },
-			{ 313.2797347183294, 201.9774639129238 },
-			{ 340.1911514475721, 207.29078231578347 },
-			{ 334.5753895620433, 234.18423526035906 },
-			{ 307.8939504410158, 229.16612658313724 },
-			{ 360.92048234333413, 211.40237541849658 },
-			{ 387.0139417596264, 216.6927838012499 },
-			{ 381.6679757374664, 243.34865103528432 },
-			{ 355.38879334846763, 238.28175611034075 },
-			{ 407.2747766363627, 220.57496933979866 },
-			{ 432.7056791843601, 225.89448979936458 },
-			{ 427.3506875452972, 252.1199906378452 },
-			{ 401.84268745879825, 247.272248994847 },
-			{ 452.4328355521711, 229.70137495840632 },
-			{ 477.03154400964974, 234.79210343126013 },
-			{ 471.72318776943865, 260.6094204065082 },
-			{ 447.0132886723153, 255.92023517572977 },
-			{ 125.5000916587322, 112.39703788025982 },
-			{ 153.58127507982644, 118.16018029272173 },
-			{ 148.07508664276486, 146.22323483670422 },
-			{ 119.93469510554148, 140.3758200373909 },
-			{ 175.75003948223736, 122.5925342852821 },
-			{ 203.7219652884318, 128.35552583073945 },
-			{ 198.1070396518659, 156.29961785548596 },
-			{ 170.17277520337635, 150.38275907712625 },
-			{ 225.54837592523282, 132.81346283315006 },
-			{ 253.200324567384, 138.56940995291606 },
-			{ 247.65715212662687, 166.17877447957312 },
-			{ 220.02520005001026, 160.38607568108728 },
-			{ 274.81650943865327, 143.00174967590672 },
-			{ 301.9988863876711, 148.78210638158492 },
-			{ 296.530426380651, 175.94310957500545 },
-			{ 269.24576274021445, 170.44235469554982 },
-			{ 323.220998382946, 153.10193278556466 },
-			{ 349.9206132424254, 158.77743082201474 },
-			{ 344.4435927993162, 185.7832506192083 },
-			{ 317.75762884225895, 180.3753806626757 },
-			{ 370.74171260986896, 163.09280096297266 },
-			{ 396.82172992694854, 168.73708198762768 },
-			{ 391.35647418753575, 195.43722962806592 },
-			{ 365.19210055696107, 190.10711368075775 },
-			{ 416.95788441953715, 172.93773537702012 },
-			{ 442.3306151789606, 178.51437897084827 },
-			{ 437.0214859506541, 204.8888216949907 },
-			{ 411.5725912703093, 199.62411820840916 },
-			{ 461.94249916671635, 182.6272619160663 },
-			{ 486.4612870879415, 188.07044458751966 },
-			{ 481.29220897260325, 214.01676674509065 },
-			{ 456.6698066788524, 208.82301962165832 },
-			{ 135.59500108806986, 62.45438144874405 },
-			{ 163.55779211534053, 68.2743985688686 },
-			{ 158.02228403138136, 96.18266682752143 },
-			{ 129.81801069498675, 90.32945660241154 },
-			{ 185.6240791490438, 72.85382636689017 },
-			{ 213.4654752498429, 78.76028475649173 },
-			{ 208.08906810878747, 106.48841442448054 },
-			{ 179.99883732516614, 100.68858267714339 },
-			{ 235.34012260563037, 83.37430640616488 },
-			{ 263.004101327093, 89.31252639364646 },
-			{ 257.5474349256315, 116.79330484088565 },
-			{ 229.84946505431915, 110.92585620362603 },
-			{ 284.4691708117143, 93.90734796651384 },
-			{ 311.65781448065496, 99.87946189717412 },
-			{ 306.29362293636825, 127.03098134841383 },
-			{ 279.156819354787, 121.20583775315431 },
-			{ 332.833108988705, 104.50707669328405 },
-			{ 359.38819172285343, 110.49463331376143 },
-			{ 354.20112889718575, 137.3264786363126 },
-			{ 327.5300923567318, 131.57247410126266 },
-			{ 380.1922222397722, 114.96845339129112 },
-			{ 406.20689319837766, 120.98439487394855 },
-			{ 400.9728111354321, 147.52589713438002 },
-			{ 374.89836635509636, 141.83878609055165 },
-			{ 426.349378861027, 125.44433125750037 },
-			{ 451.5909600130173, 131.29731806191666 },
-			{ 446.508652458597, 157.57520318877232 },
-			{ 421.13505256859355, 151.93360754071122 },
-			{ 471.22500254530297, 135.7352493232785 },
-			{ 495.62649475833797, 141.5012572759166 },
-			{ 490.6189065818935, 167.3052120286144 },
-			{ 466.0912717811107, 161.8957983694571 },
-			{ 146.81572231828488, 12.912321760037827 },
-			{ 174.6124345770364, 18.86776888618061 },
-			{ 168.31790371926786, 46.49860484869459 },
-			{ 140.36841232896862, 40.37465053849229 },
-			{ 196.40807656079377, 23.499184264817504 },
-			{ 223.97972458218536, 29.617183268638446 },
-			{ 218.13947618786327, 56.99210700269836 },
-			{ 190.16322823797958, 51.01695450887239 },
-			{ 245.61747263405593, 34.31023015857057 },
-			{ 272.84991778123975, 40.553668263635956 },
-			{ 267.2163678282742, 67.60137951804442 },
-			{ 239.7378890741789, 61.57492955919689 },
-			{ 294.3435232270571, 45.31418106954909 },
-			{ 321.2199008716494, 51.472664617370135 },
-			{ 315.7892202591805, 78.34344830605419 },
-			{ 288.720260216587, 72.36646103260509 },
-			{ 342.2968085631704, 56.3059646055059 },
-			{ 368.6532260029473, 62.493093345398805 },
-			{ 363.5408535440886, 89.00012806252981 },
-			{ 336.9273090445368, 83.1883384431734 },
-			{ 389.3648436325567, 67.3109068705477 },
-			{ 415.13015144430096, 73.47498305365527 },
-			{ 410.2151554512924, 99.78838265709642 },
-			{ 384.2239879985347, 93.81352446738174 },
-			{ 435.31748654193984, 78.14776640636657 },
-			{ 460.3682072054251, 84.45931435568009 },
-			{ 455.5958662702366, 110.38190724676545 },
-			{ 430.27689679620255, 104.56097359125799 },
-			{ 479.9683091718671, 89.10713199270751 },
-			{ 504.21163339318167, 95.19914907740346 },
-			{ 499.5742300547517, 120.81379002543706 },
-			{ 475.14472073573745, 115.05548468365943 }};
-	
-	protected static final double[][][] pointData = {data1, data2, data3, data4, data5};
-		
-	protected static Pnt2d[] getPoints(int vn) {	// vn = 1,...,5
-		int i = vn - 1;
-		if (i < 0 || i >= pointData.length) return null;
-		double[][] points = pointData[i];
-		Pnt2d[] pts = new Pnt2d[points.length];
-		for (int j = 0; j < points.length; j++) {
-			pts[j] = Pnt2d.from(points[j][0], points[j][1]);
-		}
-		return pts;
-	}
-
-}
-
-
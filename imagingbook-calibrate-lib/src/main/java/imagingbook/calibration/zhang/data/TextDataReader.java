@@ -0,0 +1,292 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Streaming reader for the numeric text data files used by Zhang's EasyCalib program (see {@link TextDataResource}),
+ * i.e., model files ({@code Model.txt}), point files ({@code data1.txt}, ...) and calibration results
+ * ({@code all-calibration-results.txt}, ...). The input is treated as a sequence of tokens separated by whitespace,
+ * commas or semicolons; tokens that are not well-formed numbers (such as header text, labels like {@code "1:"} or a
+ * lone {@code "-"}) are skipped.
+ * </p>
+ * <p>
+ * Numbers are parsed directly from the input bytes. Values whose decimal mantissa fits into 53 bits (about 15
+ * significant digits) and with a moderate exponent are converted exactly without creating any objects; only longer
+ * values fall back to {@link Double#parseDouble(String)}. Input of arbitrary length can be processed in constant memory with
+ * {@link #hasNext()} and {@link #nextDouble()}.
+ * </p>
+ *
+ * @author WB
+ */
+public class TextDataReader implements Closeable {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+			1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+	private final InputStream input;
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int pos = 0;
+	private int limit = 0;
+
+	private byte[] token = new byte[32];	// bytes of the current number token (for the fallback parser)
+	private int tokenLength = 0;
+
+	private boolean ready = false;	// true if 'value' holds the next number
+	private double value;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param input the input stream to read from (closed by {@link #close()})
+	 */
+	public TextDataReader(InputStream input) {
+		this.input = input;
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	/**
+	 * Checks if another number is available, skipping any separators and non-numeric tokens.
+	 *
+	 * @return true if {@link #nextDouble()} can be called
+	 * @throws IOException if reading the input fails
+	 */
+	public boolean hasNext() throws IOException {
+		if (!ready) {
+			ready = parseNext();
+		}
+		return ready;
+	}
+
+	/**
+	 * Reads the next number.
+	 *
+	 * @return the next number
+	 * @throws IOException if reading the input fails or no more numbers are available
+	 */
+	public double nextDouble() throws IOException {
+		if (!hasNext()) {
+			throw new IOException("no more numbers in input");
+		}
+		ready = false;
+		return value;
+	}
+
+	/**
+	 * Reads up to {@code length} numbers into the given array.
+	 *
+	 * @param data the array to receive the numbers
+	 * @param offset the index of the first array element to fill
+	 * @param length the max. number of values to read
+	 * @return the number of values actually read (less than {@code length} only if the input is exhausted)
+	 * @throws IOException if reading the input fails
+	 */
+	public int read(double[] data, int offset, int length) throws IOException {
+		int n = 0;
+		while (n < length && hasNext()) {
+			data[offset + n] = nextDouble();
+			n++;
+		}
+		return n;
+	}
+
+	/**
+	 * Reads all remaining numbers.
+	 *
+	 * @return a new array containing all remaining numbers
+	 * @throws IOException if reading the input fails
+	 */
+	public double[] readAll() throws IOException {
+		double[] data = new double[1024];
+		int n = 0;
+		while (hasNext()) {
+			if (n == data.length) {
+				data = Arrays.copyOf(data, 2 * data.length);
+			}
+			data[n++] = nextDouble();
+		}
+		return Arrays.copyOf(data, n);
+	}
+
+	@Override
+	public void close() throws IOException {
+		input.close();
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	/**
+	 * Reads all numbers from the given text resource.
+	 *
+	 * @param resource a text data resource
+	 * @return a new array containing all numbers in the resource
+	 * @throws IllegalStateException if the resource cannot be read
+	 */
+	public static double[] readAll(TextDataResource resource) {
+		InputStream is = resource.getStream();
+		if (is == null) {
+			throw new IllegalStateException("could not open resource " + resource);
+		}
+		try (TextDataReader reader = new TextDataReader(is)) {
+			return reader.readAll();
+		} catch (IOException e) {
+			throw new IllegalStateException("could not read resource " + resource, e);
+		}
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	// parses the next well-formed number into 'value', skipping all other tokens
+	private boolean parseNext() throws IOException {
+		while (true) {
+			int c = peek();
+			if (c < 0) {
+				return false;
+			}
+			if (isSeparator(c)) {
+				pos++;
+				continue;
+			}
+			if (!isNumberStart(c)) {
+				skipToken();
+				continue;
+			}
+			tokenLength = 0;
+			boolean negative = false;
+			if (c == '-' || c == '+') {
+				negative = (c == '-');
+				c = advance();
+			}
+
+			long mantissa = 0;
+			int digits = 0;				// significant digits in mantissa
+			int exp10 = 0;
+			boolean truncated = false;
+			boolean anyDigit = false;
+
+			while (isDigit(c)) {		// integer part
+				anyDigit = true;
+				if (digits < 18) {
+					mantissa = mantissa * 10 + (c - '0');
+					if (mantissa != 0) digits++;
+				}
+				else {
+					exp10++;
+					truncated = true;
+				}
+				c = advance();
+			}
+			if (c == '.') {				// fractional part
+				c = advance();
+				while (isDigit(c)) {
+					anyDigit = true;
+					if (digits < 18) {
+						mantissa = mantissa * 10 + (c - '0');
+						if (mantissa != 0) digits++;
+						exp10--;
+					}
+					else {
+						truncated = true;
+					}
+					c = advance();
+				}
+			}
+			if (anyDigit && (c == 'e' || c == 'E')) {	// exponent
+				c = advance();
+				boolean negExp = false;
+				if (c == '-' || c == '+') {
+					negExp = (c == '-');
+					c = advance();
+				}
+				int e = 0;
+				boolean anyExpDigit = false;
+				while (isDigit(c)) {
+					anyExpDigit = true;
+					if (e < 100000) {
+						e = e * 10 + (c - '0');
+					}
+					c = advance();
+				}
+				if (!anyExpDigit) {
+					anyDigit = false;	// malformed, e.g. "1e" or "2e+"
+				}
+				exp10 += negExp ? -e : e;
+			}
+
+			if (!anyDigit || !isSeparator(c)) {	// not a number, e.g. "-", "1:" or "2.0x"
+				skipToken();
+				continue;
+			}
+
+			if (mantissa == 0 || (!truncated && mantissa <= MAX_EXACT_MANTISSA && Math.abs(exp10) < POWERS_OF_TEN.length)) {
+				// both operands are exact, so the result is correctly rounded
+				value = (mantissa == 0) ? 0 :
+					(exp10 >= 0) ? mantissa * POWERS_OF_TEN[exp10] : mantissa / POWERS_OF_TEN[-exp10];
+				if (negative) {
+					value = -value;
+				}
+			}
+			else {	// the token includes the sign
+				value = Double.parseDouble(new String(token, 0, tokenLength, StandardCharsets.US_ASCII));
+			}
+			return true;
+		}
+	}
+
+	private void skipToken() throws IOException {
+		int c = peek();
+		while (!isSeparator(c)) {
+			pos++;
+			c = peek();
+		}
+	}
+
+	private int peek() throws IOException {
+		if (pos >= limit) {
+			limit = input.read(buffer, 0, buffer.length);
+			pos = 0;
+			if (limit <= 0) {
+				limit = 0;
+				return -1;
+			}
+		}
+		return buffer[pos] & 0xFF;
+	}
+
+	// consumes the current byte (appending it to the token) and returns the next one
+	private int advance() throws IOException {
+		if (tokenLength == token.length) {
+			token = Arrays.copyOf(token, 2 * token.length);
+		}
+		token[tokenLength++] = buffer[pos++];
+		return peek();
+	}
+
+	// end of input, whitespace or a list delimiter (as in "k1 = -0.228601, k2 = 0.190335")
+	private static boolean isSeparator(int c) {
+		return c < 0 || c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f' || c == ',' || c == ';';
+	}
+
+	private static boolean isDigit(int c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isNumberStart(int c) {
+		return isDigit(c) || c == '-' || c == '+' || c == '.';
+	}
+
+}
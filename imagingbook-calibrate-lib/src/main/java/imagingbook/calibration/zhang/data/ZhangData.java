@@ -13,46 +13,85 @@ import org.apache.commons.math3.linear.MatrixUtils;
 
 
 /**
- * Supplies all numeric data for Zhang's demo calibration test suite.
+ * Supplies all numeric data for Zhang's demo calibration test suite. The model and image point data are read from the
+ * associated text resources (see {@link TextDataResource}) when first accessed and cached in a single immutable
+ * {@link CalibrationData} instance (see {@link #getDataSet()}).
  *
  * @author WB
  */
 public abstract class ZhangData {
+
+	private static final TextDataResource[] ViewResources = {
+			TextDataResource.Data1_txt,
+			TextDataResource.Data2_txt,
+			TextDataResource.Data3_txt,
+			TextDataResource.Data4_txt,
+			TextDataResource.Data5_txt};
 	
 	public static final int ImageWidth = 640;
 	public static final int ImageHeight = 480;
-	public static final int NumberOfViews = ObservedPoints.pointData.length;
-	
+	public static final int NumberOfViews = ViewResources.length;
+
+	// lazily initialized holders (the JVM initializes each class on first access only)
+	private static abstract class DataSetHolder {
+		static final CalibrationData dataSet = CalibrationData.fromText(TextDataResource.Model_txt, ViewResources);
+	}
+
+	private static abstract class ViewsHolder {
+		static final ViewTransform[] views = new ViewTransform[NumberOfViews];
+		static {
+			for (int i = 0; i < NumberOfViews; i++) {
+				views[i] = new ViewTransform(MatrixUtils.createRealMatrix(CameraViews.getViewMatrix(i)));
+			}
+		}
+	}
+
+	/**
+	 * Returns the complete (immutable) set of model and image points. The data are loaded on the first call, all
+	 * subsequent calls return the same instance. Use {@link CalibrationData#getModelData()} and
+	 * {@link CalibrationData#getObservedData(int)} to access the point coordinates without copying.
+	 *
+	 * @return the cached data set
+	 */
+	public static CalibrationData getDataSet() {
+		return DataSetHolder.dataSet;
+	}
+
+	/**
+	 * Returns the points of the planar calibration model (see {@link TextDataResource#Model_txt}). Each group of 4
+	 * successive points are the corners of one square of the target. All units are inches!
+	 *
+	 * @return a new array of model points
+	 */
 	public static Pnt2d[] getModelPoints() {
-		return StandardModel.getPoints();
+		return getDataSet().getModelPoints();
 	}
-	
+
+	/**
+	 * Returns the observed image points for the specified view (1,...,{@link #NumberOfViews}), in the same order as the
+	 * model points.
+	 *
+	 * @param viewNr the view number (1,...,{@link #NumberOfViews})
+	 * @return a new array of image points or {@code null} if the view number is invalid
+	 */
 	public static Pnt2d[] getObservedPoints(int viewNr) {
-		return ObservedPoints.getPoints(viewNr);
+		int i = viewNr - 1;
+		if (i < 0 || i >= NumberOfViews) {
+			return null;
+		}
+		return getDataSet().getObservedPoints(i);
 	}
 	
 	public static Pnt2d[][] getAllObservedPoints() {
-		Pnt2d obsPoints[][] = new Pnt2d[NumberOfViews][];
-		for (int i = 0; i < NumberOfViews; i++) {
-			int viewNr = i + 1;
-			obsPoints[i] = getObservedPoints(viewNr);
-		}
-		return obsPoints;
+		return getDataSet().getAllObservedPoints();
 	}
 	
 	public static ViewTransform[] getAllViewTransforms() {
-		ViewTransform[] viewtransforms = new ViewTransform[NumberOfViews];
-		for (int i = 0; i < NumberOfViews; i++) {
-			viewtransforms[i] = getViewTransform(i);
-		}
-//		return new ViewTransform[] 
-//			{getViewTransform(1), getViewTransform(2), getViewTransform(3), getViewTransform(4), getViewTransform(5)};
-		return viewtransforms;
+		return ViewsHolder.views.clone();
 	}
 	
-	public static ViewTransform getViewTransform(int viewNr) {
-		double[][] RT = CameraViews.getViewMatrix(viewNr);
-		return (RT == null) ? null : new ViewTransform(MatrixUtils.createRealMatrix(RT));
+	public static ViewTransform getViewTransform(int viewNr) {	// viewNr = 0,...,4
+		return (viewNr < 0 || viewNr >= NumberOfViews) ? null : ViewsHolder.views[viewNr];
 	}
 	
 	public static Camera getCameraIntrinsics() {
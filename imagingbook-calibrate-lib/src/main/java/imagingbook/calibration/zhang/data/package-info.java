@@ -8,7 +8,8 @@
 
 /**
  * Published test data for Zhang's camera calibration
- * method, provided as Java resources. 
+ * method, provided as Java resources, and utilities for
+ * reading and writing calibration data.
  * @author W. Burger
  */
 package imagingbook.calibration.zhang.data;
\ No newline at end of file
@@ -36,13 +36,8 @@ public abstract class MathUtil {
 	}
 	
 	public static RealVector crossProduct3x3(RealVector A, RealVector B) {
-		final double[] a = A.toArray();
-		final double[] b = B.toArray();
-		final double[] c = {
-				a[1] * b[2] - b[1] * a[2],
-				a[2] * b[0] - b[2] * a[0],
-				a[0] * b[1] - b[0] * a[1]
-		};
+		final double[] c = new double[3];
+		SmallMatrices.cross3(A.toArray(), B.toArray(), c);
 		return MatrixUtils.createRealVector(c);
 	}
 	
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang.util;
+
+/**
+ * <p>
+ * Batch kernel for the final stage of the camera projection, i.e., radial lens distortion followed by the intrinsic
+ * mapping to sensor coordinates, applied to many points in the ideal (normalized) projection plane at once. For each
+ * point (x, y) the kernel computes
+ * </p>
+ * <pre>
+ * d = 1 + k0 * r^2 + k1 * r^4  (with r^2 = x^2 + y^2)
+ * u = alpha * d * x + gamma * d * y + uc
+ * v = beta * d * y + vc
+ * </pre>
+ * <p>
+ * Coordinates are passed as separate, flat arrays of x- and y-values (structure of arrays). The SIMD implementation
+ * based on the incubating JDK Vector API is only compiled with the Maven profile {@code vector-kernel}. If it is
+ * present and module {@code jdk.incubator.vector} is available at runtime (e.g., by starting the JVM with
+ * {@code --add-modules jdk.incubator.vector}), {@link #getInstance()} returns the SIMD implementation, otherwise a
+ * plain scalar implementation is used. Both produce the same results up to floating-point rounding.
+ * </p>
+ *
+ * @author WB
+ */
+public abstract class ProjectionKernel {
+
+	private static final String VectorModuleName = "jdk.incubator.vector";
+	private static final String VectorKernelClassName = ProjectionKernel.class.getPackageName() + ".VectorProjectionKernel";
+
+	private static final ProjectionKernel scalarInstance = new Scalar();
+	private static final ProjectionKernel instance = makeInstance();
+
+	ProjectionKernel() {
+	}
+
+	/**
+	 * Returns the preferred kernel implementation (vectorized if possible).
+	 *
+	 * @return a projection kernel
+	 */
+	public static ProjectionKernel getInstance() {
+		return instance;
+	}
+
+	static ProjectionKernel getScalarInstance() {
+		return scalarInstance;
+	}
+
+	private static ProjectionKernel makeInstance() {
+		Module vectorModule = ModuleLayer.boot().findModule(VectorModuleName).orElse(null);
+		if (vectorModule != null) {
+			// the module descriptor does not require the (incubating) module, so read it explicitly
+			ProjectionKernel.class.getModule().addReads(vectorModule);
+			try {	// load by name, so the Vector API classes are never touched if the module is absent
+				return (ProjectionKernel) Class.forName(VectorKernelClassName).getDeclaredConstructor().newInstance();
+			} catch (ReflectiveOperationException | LinkageError e) {
+				// fall through to the scalar implementation
+			}
+		}
+		return scalarInstance;
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	/**
+	 * Returns true if this kernel uses SIMD instructions (JDK Vector API).
+	 *
+	 * @return true if vectorized
+	 */
+	public abstract boolean isVectorized();
+
+	/**
+	 * Applies lens distortion and the intrinsic camera mapping to {@code n} points in the ideal projection plane.
+	 * The camera parameters are passed as a vector (alpha, beta, gamma, uc, vc, k0, k1), as returned by
+	 * {@code Camera.getParameterVector()}; missing distortion coefficients are taken as zero.
+	 *
+	 * @param s the camera parameters (alpha, beta, gamma, uc, vc, k0, k1)
+	 * @param x the x-coordinates in the ideal projection plane
+	 * @param y the y-coordinates in the ideal projection plane
+	 * @param u receives the resulting sensor x-coordinates
+	 * @param v receives the resulting sensor y-coordinates
+	 * @param n the number of points to process
+	 */
+	public abstract void project(double[] s, double[] x, double[] y, double[] u, double[] v, int n);
+
+	// ------------------------------------------------------------------------------------
+
+	/**
+	 * Scalar implementation, also used for the tail elements of the vectorized kernel.
+	 */
+	static void projectScalar(double alpha, double beta, double gamma, double uc, double vc, double k0, double k1,
+			double[] x, double[] y, double[] u, double[] v, int from, int to) {
+		for (int i = from; i < to; i++) {
+			final double r2 = x[i] * x[i] + y[i] * y[i];
+			final double d = 1 + (k0 + k1 * r2) * r2;
+			final double xd = d * x[i];
+			final double yd = d * y[i];
+			u[i] = alpha * xd + gamma * yd + uc;
+			v[i] = beta * yd + vc;
+		}
+	}
+
+	static double getK(double[] s, int k) {
+		return (s.length > 5 + k) ? s[5 + k] : 0;
+	}
+
+	private static class Scalar extends ProjectionKernel {
+
+		@Override
+		public boolean isVectorized() {
+			return false;
+		}
+
+		@Override
+		public void project(double[] s, double[] x, double[] y, double[] u, double[] v, int n) {
+			projectScalar(s[0], s[1], s[2], s[3], s[4], getK(s, 0), getK(s, 1), x, y, u, v, 0, n);
+		}
+	}
+
+}
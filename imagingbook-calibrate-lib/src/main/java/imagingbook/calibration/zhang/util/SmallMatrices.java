@@ -0,0 +1,410 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang.util;
+
+/**
+ * <p>
+ * Specialized linear algebra kernels for the small, fixed-size problems occurring in camera calibration (3 x 3
+ * transformations, 9 x 9 and 6 x 6 homogeneous systems). All matrices are plain {@code double} arrays in row-major
+ * order (i.e., element (i, j) of an n-column matrix is at index {@code i * n + j}). Results are written to
+ * caller-supplied arrays, so none of the methods allocate any memory.
+ * </p>
+ * <p>
+ * Unless stated otherwise, output arrays must not be the same as any of the input arrays.
+ * </p>
+ *
+ * @author WB
+ */
+public abstract class SmallMatrices {
+
+	private SmallMatrices() {}
+
+	private static final double EPSILON = 1e-15;
+	private static final int MAX_SWEEPS = 60;
+
+	// ------------------------------------------------------------------------------------
+	// 3 x 3 operations
+
+	/**
+	 * Sets the given 3 x 3 matrix to the identity.
+	 *
+	 * @param A a 3 x 3 matrix (modified)
+	 */
+	public static void identity3x3(double[] A) {
+		A[0] = 1; A[1] = 0; A[2] = 0;
+		A[3] = 0; A[4] = 1; A[5] = 0;
+		A[6] = 0; A[7] = 0; A[8] = 1;
+	}
+
+	/**
+	 * Calculates the 3 x 3 matrix product C = A . B.
+	 *
+	 * @param A a 3 x 3 matrix
+	 * @param B a 3 x 3 matrix
+	 * @param C receives the 3 x 3 result
+	 */
+	public static void multiply3x3(double[] A, double[] B, double[] C) {
+		for (int i = 0; i < 3; i++) {
+			final double a0 = A[3 * i], a1 = A[3 * i + 1], a2 = A[3 * i + 2];
+			C[3 * i]     = a0 * B[0] + a1 * B[3] + a2 * B[6];
+			C[3 * i + 1] = a0 * B[1] + a1 * B[4] + a2 * B[7];
+			C[3 * i + 2] = a0 * B[2] + a1 * B[5] + a2 * B[8];
+		}
+	}
+
+	/**
+	 * Calculates the matrix-vector product y = A . x for a 3 x 3 matrix A.
+	 *
+	 * @param A a 3 x 3 matrix
+	 * @param x0 x-component of the input vector
+	 * @param x1 y-component of the input vector
+	 * @param x2 z-component of the input vector
+	 * @param y receives the resulting 3-vector
+	 */
+	public static void apply3x3(double[] A, double x0, double x1, double x2, double[] y) {
+		y[0] = A[0] * x0 + A[1] * x1 + A[2] * x2;
+		y[1] = A[3] * x0 + A[4] * x1 + A[5] * x2;
+		y[2] = A[6] * x0 + A[7] * x1 + A[8] * x2;
+	}
+
+	/**
+	 * Calculates the determinant of a 3 x 3 matrix.
+	 *
+	 * @param A a 3 x 3 matrix
+	 * @return the determinant of A
+	 */
+	public static double determinant3x3(double[] A) {
+		return A[0] * (A[4] * A[8] - A[5] * A[7])
+			 - A[1] * (A[3] * A[8] - A[5] * A[6])
+			 + A[2] * (A[3] * A[7] - A[4] * A[6]);
+	}
+
+	/**
+	 * Calculates the inverse of a 3 x 3 matrix (by the adjugate).
+	 *
+	 * @param A a 3 x 3 matrix
+	 * @param Ai receives the 3 x 3 inverse
+	 * @return false if A is (numerically) singular (Ai is not modified in this case), true otherwise
+	 */
+	public static boolean inverse3x3(double[] A, double[] Ai) {
+		final double c00 = A[4] * A[8] - A[5] * A[7];
+		final double c01 = A[5] * A[6] - A[3] * A[8];
+		final double c02 = A[3] * A[7] - A[4] * A[6];
+		final double det = A[0] * c00 + A[1] * c01 + A[2] * c02;
+		if (Math.abs(det) < Double.MIN_NORMAL || !Double.isFinite(det)) {
+			return false;
+		}
+		final double s = 1 / det;
+		Ai[0] = s * c00;
+		Ai[1] = s * (A[2] * A[7] - A[1] * A[8]);
+		Ai[2] = s * (A[1] * A[5] - A[2] * A[4]);
+		Ai[3] = s * c01;
+		Ai[4] = s * (A[0] * A[8] - A[2] * A[6]);
+		Ai[5] = s * (A[2] * A[3] - A[0] * A[5]);
+		Ai[6] = s * c02;
+		Ai[7] = s * (A[1] * A[6] - A[0] * A[7]);
+		Ai[8] = s * (A[0] * A[4] - A[1] * A[3]);
+		return true;
+	}
+
+	/**
+	 * Calculates the cross product c = a x b of two 3-vectors.
+	 *
+	 * @param a a 3-vector
+	 * @param b a 3-vector
+	 * @param c receives the resulting 3-vector
+	 */
+	public static void cross3(double[] a, double[] b, double[] c) {
+		final double c0 = a[1] * b[2] - a[2] * b[1];
+		final double c1 = a[2] * b[0] - a[0] * b[2];
+		final double c2 = a[0] * b[1] - a[1] * b[0];
+		c[0] = c0;
+		c[1] = c1;
+		c[2] = c2;
+	}
+
+	/**
+	 * Calculates the Cholesky decomposition B = L . L^T of a symmetric, positive definite 3 x 3 matrix.
+	 *
+	 * @param B a symmetric 3 x 3 matrix
+	 * @param L receives the lower-triangular 3 x 3 factor
+	 * @return false if B is not positive definite (L is undefined in this case), true otherwise
+	 */
+	public static boolean cholesky3x3(double[] B, double[] L) {
+		final double d0 = B[0];
+		if (!(d0 > 0)) {
+			return false;
+		}
+		final double l00 = Math.sqrt(d0);
+		final double l10 = B[3] / l00;
+		final double l20 = B[6] / l00;
+		final double d1 = B[4] - l10 * l10;
+		if (!(d1 > 0)) {
+			return false;
+		}
+		final double l11 = Math.sqrt(d1);
+		final double l21 = (B[7] - l20 * l10) / l11;
+		final double d2 = B[8] - l20 * l20 - l21 * l21;
+		if (!(d2 > 0)) {
+			return false;
+		}
+		L[0] = l00; L[1] = 0;   L[2] = 0;
+		L[3] = l10; L[4] = l11; L[5] = 0;
+		L[6] = l20; L[7] = l21; L[8] = Math.sqrt(d2);
+		return true;
+	}
+
+	// ------------------------------------------------------------------------------------
+	// n x n linear systems
+
+	/**
+	 * Solves the linear system A . x = b for a symmetric, positive definite n x n matrix A by Cholesky decomposition.
+	 * Only the lower triangle of A is used, it is overwritten by the Cholesky factor L (with A = L . L^T).
+	 *
+	 * @param A a symmetric n x n matrix (overwritten)
+	 * @param n the matrix size
+	 * @param b the right-hand side vector (of length n)
+	 * @param x receives the solution vector (of length n, may be the same as b)
+	 * @return false if A is not positive definite (x is undefined in this case), true otherwise
+	 */
+	public static boolean solveCholesky(double[] A, int n, double[] b, double[] x) {
+		for (int j = 0; j < n; j++) {
+			double d = A[j * n + j];
+			for (int k = 0; k < j; k++) {
+				d = d - A[j * n + k] * A[j * n + k];
+			}
+			if (!(d > 0)) {
+				return false;
+			}
+			final double ljj = Math.sqrt(d);
+			A[j * n + j] = ljj;
+			for (int i = j + 1; i < n; i++) {
+				double s = A[i * n + j];
+				for (int k = 0; k < j; k++) {
+					s = s - A[i * n + k] * A[j * n + k];
+				}
+				A[i * n + j] = s / ljj;
+			}
+		}
+		// forward substitution: L . z = b
+		for (int i = 0; i < n; i++) {
+			double s = b[i];
+			for (int k = 0; k < i; k++) {
+				s = s - A[i * n + k] * x[k];
+			}
+			x[i] = s / A[i * n + i];
+		}
+		// back substitution: L^T . x = z
+		for (int i = n - 1; i >= 0; i--) {
+			double s = x[i];
+			for (int k = i + 1; k < n; k++) {
+				s = s - A[k * n + i] * x[k];
+			}
+			x[i] = s / A[i * n + i];
+		}
+		return true;
+	}
+
+	// ------------------------------------------------------------------------------------
+	// small symmetric eigenproblems and SVD (used for 9 x 9 and 6 x 6 systems)
+
+	/**
+	 * Calculates the eigenvalues and eigenvectors of a symmetric n x n matrix by the cyclic Jacobi method. Intended for
+	 * small matrices (n &le; 10). The input matrix is destroyed.
+	 *
+	 * @param S a symmetric n x n matrix (overwritten)
+	 * @param n the matrix size
+	 * @param evals receives the n (unsorted) eigenvalues
+	 * @param V receives the n x n matrix of eigenvectors (column k belongs to eigenvalue k)
+	 */
+	public static void eigenSymmetric(double[] S, int n, double[] evals, double[] V) {
+		setIdentity(V, n);
+		double norm = 0;
+		for (int k = 0; k < n * n; k++) {
+			norm = norm + S[k] * S[k];
+		}
+		final double threshold = EPSILON * EPSILON * norm;
+		for (int sweep = 0; sweep < MAX_SWEEPS; sweep++) {
+			double off = 0;
+			for (int p = 0; p < n - 1; p++) {
+				for (int q = p + 1; q < n; q++) {
+					off = off + S[p * n + q] * S[p * n + q];
+				}
+			}
+			if (off <= threshold) {
+				break;
+			}
+			for (int p = 0; p < n - 1; p++) {
+				for (int q = p + 1; q < n; q++) {
+					final double apq = S[p * n + q];
+					if (apq == 0) {
+						continue;
+					}
+					final double theta = (S[q * n + q] - S[p * n + p]) / (2 * apq);
+					final double t = Math.signum(theta == 0 ? 1 : theta) / (Math.abs(theta) + Math.sqrt(theta * theta + 1));
+					final double c = 1 / Math.sqrt(t * t + 1);
+					final double s = t * c;
+					rotateColumns(S, n, n, p, q, c, s);
+					rotateRows(S, n, p, q, c, s);
+					rotateColumns(V, n, n, p, q, c, s);
+				}
+			}
+		}
+		for (int k = 0; k < n; k++) {
+			evals[k] = S[k * n + k];
+		}
+	}
+
+	/**
+	 * Calculates the singular value decomposition A = U . diag(w) . V^T of a m x n matrix (m &ge; n, small n) by the
+	 * one-sided Jacobi method. On return, A is overwritten by U . diag(w).
+	 *
+	 * @param A a m x n matrix (overwritten)
+	 * @param m the number of rows
+	 * @param n the number of columns
+	 * @param w receives the n (unsorted) singular values
+	 * @param V receives the n x n matrix of right singular vectors (column k belongs to singular value k)
+	 */
+	public static void svd(double[] A, int m, int n, double[] w, double[] V) {
+		setIdentity(V, n);
+		for (int sweep = 0; sweep < MAX_SWEEPS; sweep++) {
+			boolean rotated = false;
+			for (int p = 0; p < n - 1; p++) {
+				for (int q = p + 1; q < n; q++) {
+					double alpha = 0, beta = 0, gamma = 0;
+					for (int i = 0; i < m; i++) {
+						final double ap = A[i * n + p];
+						final double aq = A[i * n + q];
+						alpha = alpha + ap * ap;
+						beta = beta + aq * aq;
+						gamma = gamma + ap * aq;
+					}
+					if (Math.abs(gamma) <= EPSILON * Math.sqrt(alpha * beta)) {
+						continue;
+					}
+					rotated = true;
+					final double zeta = (beta - alpha) / (2 * gamma);
+					final double t = Math.signum(zeta == 0 ? 1 : zeta) / (Math.abs(zeta) + Math.sqrt(1 + zeta * zeta));
+					final double c = 1 / Math.sqrt(1 + t * t);
+					final double s = c * t;
+					rotateColumns(A, m, n, p, q, c, s);
+					rotateColumns(V, n, n, p, q, c, s);
+				}
+			}
+			if (!rotated) {
+				break;
+			}
+		}
+		for (int k = 0; k < n; k++) {
+			double sum = 0;
+			for (int i = 0; i < m; i++) {
+				sum = sum + A[i * n + k] * A[i * n + k];
+			}
+			w[k] = Math.sqrt(sum);
+		}
+	}
+
+	/**
+	 * Replaces the 3 x 3 matrix A by the closest rotation matrix R (in the Frobenius norm), i.e., the orthogonal factor
+	 * of the polar decomposition A = R . S with det(R) = +1. With the singular value decomposition A = U . diag(w) .
+	 * V^T, R = U . V^T, where the sign of the column of U for the smallest singular value is chosen to make R a proper
+	 * rotation. This column is calculated as the cross product of the other two, so A may also have rank 2.
+	 *
+	 * @param A a 3 x 3 matrix (overwritten by the rotation matrix R)
+	 * @param w receives the 3 (unsorted) singular values of A
+	 * @param V receives the 3 x 3 matrix of right singular vectors of A
+	 * @return false if A has rank &lt; 2 (A is undefined in this case), true otherwise
+	 */
+	public static boolean orthogonalize3x3(double[] A, double[] w, double[] V) {
+		svd(A, 3, 3, w, V);
+		final int k = idxMin(w, 3);			// column of the smallest singular value
+		final int k1 = (k + 1) % 3;
+		final int k2 = (k + 2) % 3;
+		if (!(Math.min(w[k1], w[k2]) > EPSILON * Math.max(w[k1], w[k2]))) {
+			return false;
+		}
+		for (int i = 0; i < 3; i++) {
+			A[3 * i + k1] = A[3 * i + k1] / w[k1];
+			A[3 * i + k2] = A[3 * i + k2] / w[k2];
+		}
+		// u_k = u_k1 x u_k2, which makes det(U) = +1, flipped if det(V) = -1
+		final double s = Math.signum(determinant3x3(V));
+		A[k]     = s * (A[3 + k1] * A[6 + k2] - A[6 + k1] * A[3 + k2]);
+		A[3 + k] = s * (A[6 + k1] * A[k2] - A[k1] * A[6 + k2]);
+		A[6 + k] = s * (A[k1] * A[3 + k2] - A[3 + k1] * A[k2]);
+		// R = U . V^T, row by row (in place)
+		for (int i = 0; i < 3; i++) {
+			final double u0 = A[3 * i], u1 = A[3 * i + 1], u2 = A[3 * i + 2];
+			for (int j = 0; j < 3; j++) {
+				A[3 * i + j] = u0 * V[3 * j] + u1 * V[3 * j + 1] + u2 * V[3 * j + 2];
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Copies column k of the n x n matrix V to x.
+	 *
+	 * @param V a n x n matrix
+	 * @param n the matrix size
+	 * @param k the column index
+	 * @param x receives the n column values
+	 */
+	public static void getColumn(double[] V, int n, int k, double[] x) {
+		for (int i = 0; i < n; i++) {
+			x[i] = V[i * n + k];
+		}
+	}
+
+	/**
+	 * Returns the index of the smallest element of the first n values of x.
+	 *
+	 * @param x an array of values
+	 * @param n the number of values to consider
+	 * @return the index of the smallest value
+	 */
+	public static int idxMin(double[] x, int n) {
+		int k = 0;
+		for (int i = 1; i < n; i++) {
+			if (x[i] < x[k]) {
+				k = i;
+			}
+		}
+		return k;
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	private static void setIdentity(double[] V, int n) {
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				V[i * n + j] = (i == j) ? 1 : 0;
+			}
+		}
+	}
+
+	// A <- A . J (affects columns p, q of the m x n matrix A)
+	private static void rotateColumns(double[] A, int m, int n, int p, int q, double c, double s) {
+		for (int i = 0; i < m; i++) {
+			final double ap = A[i * n + p];
+			final double aq = A[i * n + q];
+			A[i * n + p] = c * ap - s * aq;
+			A[i * n + q] = s * ap + c * aq;
+		}
+	}
+
+	// A <- J^T . A (affects rows p, q of the n x n matrix A)
+	private static void rotateRows(double[] A, int n, int p, int q, double c, double s) {
+		for (int k = 0; k < n; k++) {
+			final double ap = A[p * n + k];
+			final double aq = A[q * n + k];
+			A[p * n + k] = c * ap - s * aq;
+			A[q * n + k] = s * ap + c * aq;
+		}
+	}
+
+}
@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang.util;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD implementation of {@link ProjectionKernel} based on the (incubating) JDK Vector API. This class is only loaded
+ * (by name) if module {@code jdk.incubator.vector} is present at runtime.
+ *
+ * @author WB
+ */
+final class VectorProjectionKernel extends ProjectionKernel {
+
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	VectorProjectionKernel() {
+	}
+
+	@Override
+	public boolean isVectorized() {
+		return true;
+	}
+
+	@Override
+	public void project(double[] s, double[] x, double[] y, double[] u, double[] v, int n) {
+		final double alpha = s[0], beta = s[1], gamma = s[2], uc = s[3], vc = s[4];
+		final double k0 = getK(s, 0), k1 = getK(s, 1);
+		final int bound = SPECIES.loopBound(n);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector xv = DoubleVector.fromArray(SPECIES, x, i);
+			DoubleVector yv = DoubleVector.fromArray(SPECIES, y, i);
+			DoubleVector r2 = xv.mul(xv).add(yv.mul(yv));
+			DoubleVector d = r2.mul(k1).add(k0).mul(r2).add(1);
+			DoubleVector xd = d.mul(xv);
+			DoubleVector yd = d.mul(yv);
+			xd.mul(alpha).add(yd.mul(gamma)).add(uc).intoArray(u, i);
+			yd.mul(beta).add(vc).intoArray(v, i);
+		}
+		projectScalar(alpha, beta, gamma, uc, vc, k0, k1, x, y, u, v, i, n);	// remaining elements
+	}
+
+}
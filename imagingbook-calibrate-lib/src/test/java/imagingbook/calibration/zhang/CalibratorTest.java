@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang;
+
+import imagingbook.calibration.zhang.data.ZhangData;
+import imagingbook.common.geometry.basic.Pnt2d;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class CalibratorTest {
+
+	private static final Pnt2d[] modelPts = ZhangData.getModelPoints();
+	private static final Pnt2d[][] obsPts = ZhangData.getAllObservedPoints();
+
+	@Test
+	public void testZhangData() {
+		Calibrator calibrator = makeCalibrator(new Calibrator.Parameters());
+		Camera cam = calibrator.calibrate();
+		assertEquals(NonlinearOptimizer.Status.Converged, calibrator.getOptimizerStatus());
+		// compare to the reference camera (from EasyCalib)
+		Camera ref = ZhangData.getCameraIntrinsics();
+		assertArrayEquals(ref.getParameterVector(), cam.getParameterVector(), 0.5);
+		double err = calibrator.getProjectionError(cam, calibrator.getFinalViews(), obsPts);
+		assertTrue(err / (obsPts.length * modelPts.length) < 0.2);	// mean squared error per point
+	}
+
+	@Test
+	public void testIterationLimit() {
+		Calibrator.Parameters params = new Calibrator.Parameters();
+		params.maxIterations = 2;
+		Calibrator calibrator = makeCalibrator(params);
+		Camera cam = calibrator.calibrate();
+		assertEquals(NonlinearOptimizer.Status.MaxIterationsExceeded, calibrator.getOptimizerStatus());
+		assertNotNull(cam);
+		assertEquals(obsPts.length, calibrator.getFinalViews().length);
+		assertEquals(2, calibrator.getResult().getIterations());
+	}
+
+	@Test
+	public void testEvaluationLimit() {
+		Calibrator.Parameters params = new Calibrator.Parameters();
+		params.maxEvaluations = 4;
+		CalibrationResult res = new Calibrator(params, modelPts).calibrate(obsPts);
+		assertEquals(NonlinearOptimizer.Status.MaxEvaluationsExceeded, res.getStatus());
+		// the iterations performed before the optimization was aborted are still reported
+		assertTrue(res.getIterations() >= 1 && res.getIterations() <= params.maxEvaluations);
+	}
+
+	@Test
+	public void testTimeLimit() {
+		Calibrator.Parameters params = new Calibrator.Parameters();
+		params.timeLimit = 1;
+		params.useNumericJacobian = true;
+		params.costRelativeTolerance = 0;
+		params.parameterRelativeTolerance = 0;
+		Calibrator calibrator = makeCalibrator(params);
+		Camera cam = calibrator.calibrate();
+		assertNotNull(cam);
+		assertEquals(NonlinearOptimizer.Status.TimeLimitExceeded, calibrator.getOptimizerStatus());
+	}
+
+	@Test
+	public void testConcurrentCalibration() throws Exception {
+		Calibrator calibrator = new Calibrator(null, modelPts);
+		double[] expected = calibrator.calibrate(obsPts).getFinalCamera().getParameterVector();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<CalibrationResult>> futures = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				futures.add(executor.submit(() -> calibrator.calibrate(obsPts)));
+			}
+			for (Future<CalibrationResult> f : futures) {
+				assertArrayEquals(expected, f.get().getFinalCamera().getParameterVector(), 1e-12);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testDistortionModels() {
+		for (DistortionModel model : DistortionModel.values()) {
+			Calibrator.Parameters params = new Calibrator.Parameters();
+			params.distortionModel = model;
+			params.lensDistortionKoeffients = 3;
+			CalibrationResult res = new Calibrator(params, modelPts).calibrate(obsPts);
+			Camera cam = res.getFinalCamera();
+			assertEquals(model, cam.getDistortionModel());
+			assertEquals(5 + model.getParameterCount(3), cam.getParameterVector().length);
+			double err = new Calibrator(params, modelPts).getProjectionError(cam, res.getFinalViews(), obsPts);
+			assertTrue(model.toString(), err / (obsPts.length * modelPts.length) < 0.2);
+		}
+	}
+
+	@Test
+	public void testMultiStart() {
+		Calibrator.Parameters params = new Calibrator.Parameters();
+		CalibrationResult res1 = new Calibrator(params, modelPts).calibrate(obsPts);
+		params.multiStarts = 8;
+		Calibrator calibrator = new Calibrator(params, modelPts);
+		CalibrationResult res2 = calibrator.calibrate(obsPts);
+		assertEquals(NonlinearOptimizer.Status.Converged, res2.getStatus());
+		double err1 = calibrator.getProjectionError(res1.getFinalCamera(), res1.getFinalViews(), obsPts);
+		double err2 = calibrator.getProjectionError(res2.getFinalCamera(), res2.getFinalViews(), obsPts);
+		assertTrue(err2 <= err1 * (1 + 1e-9));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testShortView() {
+		PointSet[] obs = PointSet.from(obsPts);
+		obs[2] = PointSet.from(Arrays.copyOf(obsPts[2], modelPts.length - 1));
+		new Calibrator(null, modelPts).calibrate(obs);
+	}
+
+	private static Calibrator makeCalibrator(Calibrator.Parameters params) {
+		Calibrator calibrator = new Calibrator(params, modelPts);
+		for (Pnt2d[] obs : obsPts) {
+			calibrator.addView(obs);
+		}
+		return calibrator;
+	}
+
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang;
+
+import imagingbook.calibration.zhang.data.CalibrationData;
+import imagingbook.calibration.zhang.data.ZhangData;
+import imagingbook.calibration.zhang.util.MathUtil;
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class CameraIntrinsicsEstimatorTest {
+
+	private static final RealMatrix[] homographies;
+	static {
+		CalibrationData ds = ZhangData.getDataSet();
+		homographies = new HomographyEstimator().estimateHomographies(ds.getModelPointSet(), ds.getObservedPointSets());
+	}
+
+	@Test
+	public void testAgainstSvd() {
+		// solve the full 2M x 6 system by SVD
+		double[][] V = new double[2 * homographies.length][];
+		for (int i = 0; i < homographies.length; i++) {
+			double[][] H = homographies[i].getData();
+			double[] v00 = vpq(H, 0, 0), v11 = vpq(H, 1, 1);
+			V[2 * i] = vpq(H, 0, 1);
+			V[2 * i + 1] = new double[6];
+			for (int k = 0; k < 6; k++) {
+				V[2 * i + 1][k] = v00[k] - v11[k];
+			}
+		}
+		double[] b = MathUtil.solveHomogeneousSystem(MatrixUtils.createRealMatrix(V)).toArray();
+		RealMatrix Aexp = CameraIntrinsicsEstimator.getCameraIntrinsics(b);
+		RealMatrix A = new CameraIntrinsicsEstimator().getCameraIntrinsics(homographies);
+		assertMatrixEquals(Aexp, A, 1e-6);
+	}
+
+	@Test
+	public void testAddRemove() {
+		CameraIntrinsicsEstimator.Accumulator acc = new CameraIntrinsicsEstimator.Accumulator();
+		for (RealMatrix H : homographies) {
+			acc.add(H);
+		}
+		acc.remove(homographies[0]);
+		assertEquals(homographies.length - 1, acc.getNumberOfViews());
+		RealMatrix A1 = acc.getCameraIntrinsics();
+		RealMatrix A2 = new CameraIntrinsicsEstimator().getCameraIntrinsics(
+				Arrays.copyOfRange(homographies, 1, homographies.length));
+		assertMatrixEquals(A2, A1, 1e-6);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testTooFewViews() {
+		CameraIntrinsicsEstimator.Accumulator acc = new CameraIntrinsicsEstimator.Accumulator();
+		acc.add(homographies[0]);
+		acc.getCameraIntrinsics();
+	}
+
+	private static double[] vpq(double[][] H, int p, int q) {
+		return new double[] {
+				H[0][p] * H[0][q],
+				H[0][p] * H[1][q] + H[1][p] * H[0][q],
+				H[1][p] * H[1][q],
+				H[2][p] * H[0][q] + H[0][p] * H[2][q],
+				H[2][p] * H[1][q] + H[1][p] * H[2][q],
+				H[2][p] * H[2][q]};
+	}
+
+	private static void assertMatrixEquals(RealMatrix expected, RealMatrix actual, double relTol) {
+		for (int i = 0; i < 3; i++) {
+			for (int j = 0; j < 3; j++) {
+				double e = expected.getEntry(i, j);
+				assertEquals(e, actual.getEntry(i, j), relTol * Math.max(1, Math.abs(e)));
+			}
+		}
+	}
+
+}
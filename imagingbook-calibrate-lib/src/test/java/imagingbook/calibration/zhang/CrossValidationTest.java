@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang;
+
+import imagingbook.calibration.zhang.data.CalibrationData;
+import imagingbook.calibration.zhang.data.ZhangData;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CrossValidationTest {
+
+	private static final CalibrationData ds = ZhangData.getDataSet();
+
+	@Test
+	public void testZhangData() {
+		Calibrator calibrator = new Calibrator(null, ds.getModelPointSet());
+		CrossValidation cv = calibrator.crossValidate(ds.getObservedPointSets());
+		final int M = ds.getNumberOfViews();
+		final int N = ds.getNumberOfPoints();
+		assertEquals(M, cv.getNumberOfFolds());
+
+		CalibrationResult full = cv.getFullResult();
+		double fullError = Math.sqrt(calibrator.getProjectionError(full.getFinalCamera(), full.getFinalViews(),
+				ds.getObservedPointSets()) / (M * N));
+
+		double[] errors = cv.getHeldOutErrors();
+		for (int i = 0; i < M; i++) {
+			assertEquals(NonlinearOptimizer.Status.Converged, cv.getStatus(i));
+			// held-out views are not fitted, but must still be predicted well
+			assertTrue(errors[i] > 0.5 * fullError);
+			assertTrue(errors[i] < 5 * fullError);
+		}
+		assertTrue(cv.getMeanHeldOutError() >= fullError);
+
+		double[] mean = cv.getParameterMean();
+		double[] spread = cv.getParameterSpread();
+		double[] s = full.getFinalCamera().getParameterVector();
+		assertEquals(s.length, spread.length);
+		assertEquals(s[0], mean[0], 0.01 * s[0]);
+		assertEquals(s[1], mean[1], 0.01 * s[1]);
+		for (double sk : spread) {
+			assertTrue(sk > 0);
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testTooFewViews() {
+		PointSet[] obs = ds.getObservedPointSets();
+		new Calibrator(null, ds.getModelPointSet()).crossValidate(new PointSet[] {obs[0], obs[1]});
+	}
+
+}
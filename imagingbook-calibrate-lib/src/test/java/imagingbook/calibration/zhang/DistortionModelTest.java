@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class DistortionModelTest {
+
+	private static final double[][] points = {
+			{0.0, 0.0}, {0.1, 0.0}, {-0.05, 0.2}, {0.3, -0.25}, {-0.4, -0.35}, {0.5, 0.45}};
+
+	@Test
+	public void testRadial() {
+		checkModel(DistortionModel.Radial, new double[] {-0.228601, 0.190353});
+		checkModel(DistortionModel.Radial, new double[] {-0.2, 0.15, -0.05});
+	}
+
+	@Test
+	public void testBrownConrady() {
+		checkModel(DistortionModel.BrownConrady, new double[] {-0.2, 0.15, -0.05, 0.002, -0.001});
+	}
+
+	@Test
+	public void testRational() {
+		checkModel(DistortionModel.Rational, new double[] {0.1, -0.02, 0.01, 0.3, 0.05, -0.01});
+	}
+
+	@Test
+	public void testKannalaBrandt() {
+		checkModel(DistortionModel.KannalaBrandt, new double[] {0.05, -0.01, 0.005, -0.001});
+	}
+
+	@Test
+	public void testZhangRadial() {
+		// the standard model must match Zhang's original distortion function
+		double[] k = {-0.228601, 0.190353};
+		double[] xyd = new double[2];
+		for (double[] p : points) {
+			double r2 = p[0] * p[0] + p[1] * p[1];
+			double d = 1 + k[0] * r2 + k[1] * r2 * r2;
+			DistortionModel.Radial.warp(k, p[0], p[1], xyd);
+			assertEquals(d * p[0], xyd[0], 1e-15);
+			assertEquals(d * p[1], xyd[1], 1e-15);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWrongParameterCount() {
+		DistortionModel.Rational.checkParameters(new double[2]);
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	private static void checkModel(DistortionModel model, double[] k) {
+		final int n = 2 + k.length;
+		double[] xyd = new double[2];
+		double[] xyd2 = new double[2];
+		double[] xy = new double[2];
+		double[] J = new double[2 * n];
+		for (double[] p : points) {
+			// warp and derivatives are consistent
+			model.warp(k, p[0], p[1], xyd);
+			model.warpDerivatives(k, p[0], p[1], xyd2, J);
+			assertEquals(xyd[0], xyd2[0], 1e-15);
+			assertEquals(xyd[1], xyd2[1], 1e-15);
+
+			// unwarp is the inverse of warp
+			model.unwarp(k, xyd[0], xyd[1], xy);
+			assertEquals(p[0], xy[0], 1e-12);
+			assertEquals(p[1], xy[1], 1e-12);
+
+			// analytic derivatives match central differences
+			final double h = 1e-6;
+			double[] a = {p[0], p[1]};
+			for (int c = 0; c < n; c++) {
+				double[] kp = k.clone(), km = k.clone();
+				double[] ap = a.clone(), am = a.clone();
+				if (c < 2) {
+					ap[c] += h;
+					am[c] -= h;
+				}
+				else {
+					kp[c - 2] += h;
+					km[c - 2] -= h;
+				}
+				model.warp(kp, ap[0], ap[1], xyd);
+				model.warp(km, am[0], am[1], xyd2);
+				assertEquals(model + " row 0, column " + c, (xyd[0] - xyd2[0]) / (2 * h), J[c], 1e-7);
+				assertEquals(model + " row 1, column " + c, (xyd[1] - xyd2[1]) / (2 * h), J[n + c], 1e-7);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang;
+
+import imagingbook.calibration.zhang.data.ZhangData;
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class ExtrinsicViewEstimatorTest {
+
+	@Test
+	public void testZhangViews() {
+		// the views must be recovered exactly from the true homographies
+		Camera cam = ZhangData.getCameraIntrinsics();
+		ViewTransform[] views = ZhangData.getAllViewTransforms();
+		final int M = views.length;
+		RealMatrix[] H = new RealMatrix[M];
+		for (int i = 0; i < M; i++) {
+			H[i] = cam.getHomography(views[i]);
+		}
+		RealMatrix A = MatrixUtils.createRealIdentityMatrix(3);
+		A.setSubMatrix(cam.getA().getData(), 0, 0);
+		ViewTransform[] estViews = new ExtrinsicViewEstimator(A).getExtrinsics(H);
+		for (int i = 0; i < M; i++) {
+			double[][] R = views[i].getRotationMatrix().getData();
+			double[][] Re = estViews[i].getRotationMatrix().getData();
+			for (int k = 0; k < 3; k++) {
+				assertArrayEquals(R[k], Re[k], 1e-9);
+			}
+			assertArrayEquals(views[i].getTranslation(), estViews[i].getTranslation(), 1e-6);
+		}
+	}
+
+}
@@ -6,6 +6,8 @@
  ******************************************************************************/
 package imagingbook.calibration.zhang;
 
+import imagingbook.calibration.zhang.data.CalibrationData;
+import imagingbook.calibration.zhang.data.ZhangData;
 import imagingbook.common.geometry.basic.Pnt2d;
 import imagingbook.common.math.PrintPrecision;
 import org.apache.commons.math3.linear.MatrixUtils;
@@ -78,6 +80,22 @@ public class HomographyEstimatorTest {
         }
     }
 
+    @Test
+    public void testNormalizedRefinement() {
+        // refinement in normalized and in original coordinates must reach the same (geometric) optimum
+        CalibrationData ds = ZhangData.getDataSet();
+        PointSet model = ds.getModelPointSet();
+        PointSet[] obs = ds.getObservedPointSets();
+        RealMatrix[] Hn = new HomographyEstimator(true, true).estimateHomographies(model, obs);
+        RealMatrix[] Hr = new HomographyEstimator(false, true).estimateHomographies(model, obs);
+        for (int i = 0; i < obs.length; i++) {
+            for (int j = 0; j < model.size(); j++) {
+                double[] xy = {model.getX(j), model.getY(j)};
+                assertArrayEquals(HomographyEstimator.transform(xy, Hr[i]), HomographyEstimator.transform(xy, Hn[i]), 1e-6);
+            }
+        }
+    }
+
     private static void runTest(HomographyEstimator he, Pnt2d[] pntsA, Pnt2d[] pntsB,
                                 double[][] Hexpd, double errExpd, double maxErrExpd) {
         RealMatrix Hest = he.estimateHomography(pntsA, pntsB);
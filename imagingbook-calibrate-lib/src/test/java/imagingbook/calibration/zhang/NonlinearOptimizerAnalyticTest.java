@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang;
+
+import imagingbook.calibration.zhang.data.CalibrationData;
+import imagingbook.calibration.zhang.data.ZhangData;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+import org.apache.commons.math3.util.Pair;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class NonlinearOptimizerAnalyticTest {
+
+	private static final CalibrationData ds = ZhangData.getDataSet();
+
+	@Test
+	public void testRadial() {
+		checkJacobian(DistortionModel.Radial, new double[] {-0.228601, 0.190353});
+	}
+
+	@Test
+	public void testRadial3() {
+		checkJacobian(DistortionModel.Radial, new double[] {-0.2, 0.15, -0.05});
+	}
+
+	@Test
+	public void testBrownConrady() {
+		checkJacobian(DistortionModel.BrownConrady, new double[] {-0.2, 0.15, -0.05, 0.002, -0.001});
+	}
+
+	@Test
+	public void testRational() {
+		checkJacobian(DistortionModel.Rational, new double[] {0.1, -0.02, 0.01, 0.3, 0.05, -0.01});
+	}
+
+	@Test
+	public void testKannalaBrandt() {
+		checkJacobian(DistortionModel.KannalaBrandt, new double[] {0.05, -0.01, 0.005, -0.001});
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	// compares the analytic Jacobian with the numeric one (at Zhang's ground-truth parameters)
+	private static void checkJacobian(DistortionModel model, double[] k) {
+		Camera cam0 = ZhangData.getCameraIntrinsics();
+		Camera cam = new Camera(cam0.getA(), model, k);
+		ViewTransform[] views = ZhangData.getAllViewTransforms();
+
+		NonlinearOptimizer nla = new NonlinearOptimizerAnalytic(ds.getModelPointSet(), ds.getObservedPointSets(), null);
+		NonlinearOptimizer nln = new NonlinearOptimizerNumeric(ds.getModelPointSet(), ds.getObservedPointSets(), null);
+		for (NonlinearOptimizer nlo : new NonlinearOptimizer[] {nla, nln}) {
+			nlo.distortionModel = model;
+			nlo.camParLength = 5 + k.length;
+			nlo.viewParLength = 6;
+		}
+		double[] params = new double[5 + k.length + 6 * views.length];
+		System.arraycopy(cam.getParameterVector(), 0, params, 0, 5 + k.length);
+		for (int i = 0; i < views.length; i++) {
+			System.arraycopy(views[i].getParameters(), 0, params, 5 + k.length + 6 * i, 6);
+		}
+
+		double[][] Ja = nla.makeJacobianFun().value(params.clone());
+		double[][] Jn = nln.makeJacobianFun().value(params.clone());
+		assertEquals(Jn.length, Ja.length);
+
+		// the fused model functions must return the same values and Jacobians as the separate functions
+		double[] y = nla.makeValueFun().value(params.clone());
+		for (NonlinearOptimizer nlo : new NonlinearOptimizer[] {nla, nln}) {
+			Pair<RealVector, RealMatrix> vj = nlo.makeModelFun().value(new ArrayRealVector(params));
+			assertArrayEquals(y, vj.getFirst().toArray(), 1e-9);
+			double[][] J = (nlo == nla) ? Ja : Jn;
+			for (int r = 0; r < J.length; r++) {
+				assertArrayEquals(J[r], vj.getSecond().getRow(r), 1e-9);
+			}
+		}
+		for (int r = 0; r < Ja.length; r++) {
+			for (int c = 0; c < params.length; c++) {
+				double tol = 1e-4 * Math.max(1, Math.abs(Jn[r][c]));
+				assertEquals(model + ": J[" + r + "][" + c + "]", Jn[r][c], Ja[r][c], tol);
+			}
+		}
+	}
+
+}
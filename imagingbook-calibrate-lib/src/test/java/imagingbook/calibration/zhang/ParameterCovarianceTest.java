@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang;
+
+import imagingbook.calibration.zhang.data.CalibrationData;
+import imagingbook.calibration.zhang.data.ZhangData;
+import org.apache.commons.math3.linear.LUDecomposition;
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ParameterCovarianceTest {
+
+	private static final CalibrationData ds = ZhangData.getDataSet();
+
+	@Test
+	public void testBlockInverse() {
+		// the block-wise result must match the full inverse of J^T . J
+		Camera cam = ZhangData.getCameraIntrinsics();
+		ViewTransform[] views = ZhangData.getAllViewTransforms();
+		final int M = views.length;
+		final int N = ds.getNumberOfPoints();
+		final int C = cam.getParameterVector().length;
+
+		NonlinearOptimizer nlo = new NonlinearOptimizerAnalytic(ds.getModelPointSet(), ds.getObservedPointSets(), null);
+		nlo.distortionModel = cam.getDistortionModel();
+		nlo.camParLength = C;
+		nlo.viewParLength = 6;
+		double[] params = new double[C + 6 * M];
+		System.arraycopy(cam.getParameterVector(), 0, params, 0, C);
+		for (int i = 0; i < M; i++) {
+			System.arraycopy(views[i].getParameters(), 0, params, C + 6 * i, 6);
+		}
+		double[][] J = nlo.makeJacobianFun().value(params);
+
+		final double cost = 2 * M * N;	// any value will do
+		ParameterCovariance pc = ParameterCovariance.fromJacobian(J, C, M, N, cost);
+		double sigma2 = pc.getResidualVariance();
+		assertEquals(cost / (2 * M * N - C - 6 * M), sigma2, 1e-12);
+
+		RealMatrix JJ = MatrixUtils.createRealMatrix(J);
+		RealMatrix Cov = new LUDecomposition(JJ.transpose().multiply(JJ)).getSolver().getInverse().scalarMultiply(sigma2);
+		checkBlock(Cov, 0, pc.getCameraCovariance());
+		for (int i = 0; i < M; i++) {
+			checkBlock(Cov, C + 6 * i, pc.getViewCovariance(i));
+		}
+	}
+
+	@Test
+	public void testCalibrator() {
+		Calibrator.Parameters params = new Calibrator.Parameters();
+		CalibrationResult res0 = new Calibrator(params, ds.getModelPointSet()).calibrate(ds.getObservedPointSets());
+		assertNull(res0.getCovariance());
+		assertNull(res0.getCameraStandardDeviations());
+
+		params.computeCovariance = true;
+		CalibrationResult res = new Calibrator(params, ds.getModelPointSet()).calibrate(ds.getObservedPointSets());
+		assertNotNull(res.getCovariance());
+		assertEquals(res.getNumberOfViews(), res.getCovariance().getNumberOfViews());
+		double[] camPar = res.getFinalCamera().getParameterVector();
+		double[] sc = res.getCameraStandardDeviations();
+		assertEquals(camPar.length, sc.length);
+		for (int k = 0; k < sc.length; k++) {
+			assertTrue(sc[k] > 0);
+		}
+		// focal lengths must be well determined
+		assertTrue(sc[0] < 0.01 * camPar[0]);
+		assertTrue(sc[1] < 0.01 * camPar[1]);
+		for (int i = 0; i < res.getNumberOfViews(); i++) {
+			double[] sv = res.getViewStandardDeviations(i);
+			assertEquals(6, sv.length);
+			for (int k = 0; k < 6; k++) {
+				assertTrue(sv[k] > 0);
+			}
+		}
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	private static void checkBlock(RealMatrix Cov, int off, RealMatrix B) {
+		final int n = B.getRowDimension();
+		for (int a = 0; a < n; a++) {
+			for (int b = 0; b < n; b++) {
+				double expected = Cov.getEntry(off + a, off + b);
+				double tol = 1e-6 * Math.sqrt(Math.abs(Cov.getEntry(off + a, off + a) * Cov.getEntry(off + b, off + b)));
+				assertEquals(expected, B.getEntry(a, b), tol);
+			}
+		}
+	}
+
+}
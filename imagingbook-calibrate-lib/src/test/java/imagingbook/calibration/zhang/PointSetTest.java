@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang;
+
+import imagingbook.calibration.zhang.data.CalibrationData;
+import imagingbook.calibration.zhang.data.ZhangData;
+import imagingbook.common.geometry.basic.Pnt2d;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class PointSetTest {
+
+	@Test
+	public void testFromAndSplit() {
+		Pnt2d[][] pts = ZhangData.getAllObservedPoints();
+		PointSet[] sets = PointSet.from(pts);
+		assertEquals(pts.length, sets.length);
+		assertSame(sets[0].data(), sets[sets.length - 1].data());	// single shared array
+		for (int i = 0; i < pts.length; i++) {
+			assertEquals(pts[i].length, sets[i].size());
+			for (int j = 0; j < pts[i].length; j++) {
+				assertEquals(pts[i][j].getX(), sets[i].getX(j), 0);
+				assertEquals(pts[i][j].getY(), sets[i].getY(j), 0);
+			}
+		}
+
+		double[] xy = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11};
+		PointSet[] split = PointSet.split(xy, 2, 2, 2);
+		assertEquals(2, split[0].getX(0), 0);
+		assertEquals(7, split[1].getY(0), 0);
+		assertArrayEquals(new double[] {6, 7, 8, 9}, split[1].toArray(), 0);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testInvalidRange() {
+		PointSet.wrap(new double[10], 4, 4);
+	}
+
+	@Test
+	public void testCalibratePointSets() {
+		CalibrationData ds = ZhangData.getDataSet();
+		Calibrator calibrator = new Calibrator(null, ds.getModelPointSet());
+		CalibrationResult res1 = calibrator.calibrate(ds.getObservedPointSets());
+		CalibrationResult res2 = new Calibrator(null, ds.getModelPoints()).calibrate(ds.getAllObservedPoints());
+		assertArrayEquals(res2.getFinalCamera().getParameterVector(), res1.getFinalCamera().getParameterVector(), 0);
+	}
+
+}
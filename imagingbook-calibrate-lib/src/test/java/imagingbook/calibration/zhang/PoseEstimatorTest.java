@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang;
+
+import imagingbook.calibration.zhang.data.CalibrationData;
+import imagingbook.calibration.zhang.data.ZhangData;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PoseEstimatorTest {
+
+	private static final CalibrationData ds = ZhangData.getDataSet();
+
+	@Test
+	public void testRotationMatrix() {
+		double[][] ws = {{0.3, -0.2, 0.5}, {1e-3, 0, -2e-3}, {-2.5, 1.0, 0.1}};
+		double[] R = new double[9];
+		for (double[] w : ws) {
+			ProjectionDerivatives.toRotationMatrix(w, R);
+			double[][] Rv = new ViewTransform(w[0], w[1], w[2], 0, 0, 0).getRotation().getMatrix();
+			for (int i = 0; i < 3; i++) {
+				assertArrayEquals(Rv[i], new double[] {R[3 * i], R[3 * i + 1], R[3 * i + 2]}, 1e-12);
+			}
+		}
+	}
+
+	@Test
+	public void testSyntheticViews() {
+		// noise-free projections, the true poses must be recovered
+		Camera cam = ZhangData.getCameraIntrinsics();
+		PointSet model = ds.getModelPointSet();
+		PoseEstimator pe = new PoseEstimator(cam, model);
+		for (ViewTransform view : ZhangData.getAllViewTransforms()) {
+			ViewTransform est = pe.estimate(cam.project(view, model));
+			assertArrayEquals(view.getParameters(), est.getParameters(), 1e-8);
+			assertEquals(0, pe.getRms(), 1e-8);
+		}
+	}
+
+	@Test
+	public void testObservedViews() {
+		// the refined poses must match the projection error of the full calibration
+		PointSet model = ds.getModelPointSet();
+		PointSet[] obs = ds.getObservedPointSets();
+		CalibrationResult res = new Calibrator(null, model).calibrate(obs);
+		Camera cam = res.getFinalCamera();
+		ViewTransform[] views = res.getFinalViews();
+		PoseEstimator pe = new PoseEstimator(cam, model);
+		for (int i = 0; i < obs.length; i++) {
+			ViewTransform init = pe.initialize(obs[i]);
+			ViewTransform est = pe.refine(init, obs[i]);
+			assertTrue(pe.getIterations() <= 10);
+			assertArrayEquals(views[i].getParameters(), est.getParameters(), 1e-4);
+			assertEquals(res.getErrorReport().getRms(i), pe.getRms(), 1e-6);
+		}
+	}
+
+	@Test
+	public void testWarmStart() {
+		Camera cam = ZhangData.getCameraIntrinsics();
+		PointSet model = ds.getModelPointSet();
+		ViewTransform view = ZhangData.getAllViewTransforms()[2];
+		double[] w = view.getParameters();
+		ViewTransform perturbed = new ViewTransform(w[0] + 0.01, w[1] - 0.02, w[2] + 0.01, w[3] + 1, w[4] - 1, w[5] + 5);
+		PoseEstimator pe = new PoseEstimator(cam, model);
+		ViewTransform est = pe.refine(perturbed, cam.project(view, model));
+		assertArrayEquals(w, est.getParameters(), 1e-8);
+		assertTrue(pe.getIterations() <= 8);
+	}
+
+}
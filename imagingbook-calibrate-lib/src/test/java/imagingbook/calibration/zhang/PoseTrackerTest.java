@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang;
+
+import imagingbook.calibration.zhang.data.CalibrationData;
+import imagingbook.calibration.zhang.data.ZhangData;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PoseTrackerTest {
+
+	private static final CalibrationData ds = ZhangData.getDataSet();
+	private static final Camera cam = ZhangData.getCameraIntrinsics();
+	private static final PointSet model = ds.getModelPointSet();
+
+	@Test
+	public void testSmoothMotion() {
+		// the target moves smoothly from view 0 to view 1
+		ViewTransform[] views = ZhangData.getAllViewTransforms();
+		double[] w0 = views[0].getParameters();
+		double[] w1 = views[1].getParameters();
+		final int K = 20;
+		ViewTransform[] truth = new ViewTransform[K];
+		PointSet[] frames = new PointSet[K];
+		for (int i = 0; i < K; i++) {
+			double s = (double) i / (K - 1);
+			double[] w = new double[6];
+			for (int l = 0; l < 6; l++) {
+				w[l] = (1 - s) * w0[l] + s * w1[l];
+			}
+			truth[i] = new ViewTransform(w);
+			frames[i] = cam.project(truth[i], model);
+		}
+
+		PoseTracker tracker = new PoseTracker(cam, model);
+		assertEquals(PoseTracker.Status.Idle, tracker.getStatus());
+		ViewTransform[] poses = tracker.track(frames);
+		assertEquals(PoseTracker.Status.Tracked, tracker.getStatus());
+		assertEquals(K, tracker.getFrameCount());
+		assertEquals(1, tracker.getInitializationCount());
+		for (int i = 0; i < K; i++) {
+			assertArrayEquals(truth[i].getParameters(), poses[i].getParameters(), 1e-8);
+		}
+	}
+
+	@Test
+	public void testDivergence() {
+		// a frame that cannot be explained by the tracked pose triggers a re-initialization
+		ViewTransform[] views = ZhangData.getAllViewTransforms();
+		PoseTracker tracker = new PoseTracker(cam, model, 0.1);
+		tracker.update(cam.project(views[0], model));
+		assertEquals(PoseTracker.Status.Initialized, tracker.getStatus());
+
+		// flip the target, the refinement from the previous pose cannot recover the new one
+		double[] w = views[0].getParameters();
+		ViewTransform flipped = new ViewTransform(w[0], w[1] + Math.PI, w[2], w[3], w[4], w[5] + 100);
+		ViewTransform pose = tracker.update(cam.project(flipped, model));
+		assertEquals(PoseTracker.Status.Initialized, tracker.getStatus());
+		assertEquals(2, tracker.getInitializationCount());
+		assertTrue(tracker.getRms() < 0.1);
+		assertEquals(0, cam.project(pose, model).getX(0) - cam.project(flipped, model).getX(0), 1e-6);
+
+		// garbage observations
+		PointSet obs = ds.getObservedPointSets()[1];
+		double[] xy = obs.toArray();
+		for (int j = 0; j < xy.length; j += 4) {
+			xy[j] = xy[j] + 50;
+		}
+		assertNull(tracker.update(PointSet.wrap(xy)));
+		assertEquals(PoseTracker.Status.Lost, tracker.getStatus());
+		assertEquals(3, tracker.getFrameCount());
+		assertNull(tracker.getPose());
+
+		tracker.reset();
+		assertNull(tracker.getPose());
+		tracker.update(cam.project(views[2], model));
+		assertEquals(PoseTracker.Status.Initialized, tracker.getStatus());
+	}
+
+	@Test
+	public void testDegenerateFrame() {
+		// all observed points coincide, so no pose can be estimated
+		ViewTransform[] views = ZhangData.getAllViewTransforms();
+		PoseTracker tracker = new PoseTracker(cam, model);
+		double[] xy = new double[2 * model.size()];
+		for (int j = 0; j < xy.length; j += 2) {
+			xy[j] = 300;
+			xy[j + 1] = 200;
+		}
+		assertNull(tracker.update(PointSet.wrap(xy)));
+		assertEquals(PoseTracker.Status.Lost, tracker.getStatus());
+		assertNull(tracker.getPose());
+		assertTrue(Double.isNaN(tracker.getRms()));
+
+		// the next frame is initialized from scratch
+		tracker.update(cam.project(views[1], model));
+		assertEquals(PoseTracker.Status.Initialized, tracker.getStatus());
+		assertEquals(2, tracker.getInitializationCount());
+	}
+
+}
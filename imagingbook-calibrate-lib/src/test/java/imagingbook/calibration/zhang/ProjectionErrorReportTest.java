@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang;
+
+import imagingbook.calibration.zhang.data.CalibrationData;
+import imagingbook.calibration.zhang.data.ZhangData;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ProjectionErrorReportTest {
+
+	private static final CalibrationData ds = ZhangData.getDataSet();
+
+	@Test
+	public void testZhangData() {
+		Camera cam = ZhangData.getCameraIntrinsics();
+		ViewTransform[] views = ZhangData.getAllViewTransforms();
+		PointSet model = ds.getModelPointSet();
+		PointSet[] obs = ds.getObservedPointSets();
+		final int M = views.length;
+		final int N = model.size();
+
+		Calibrator.Parameters params = new Calibrator.Parameters();
+		params.parallelize = true;
+		ProjectionErrorReport report = new Calibrator(params, model).getProjectionErrorReport(cam, views, obs);
+		assertEquals(M, report.getNumberOfViews());
+		assertEquals(N, report.getNumberOfPoints());
+
+		double total = 0;
+		for (int i = 0; i < M; i++) {
+			// reference values, calculated point by point
+			double[] e = new double[N];
+			double sqError = 0;
+			for (int j = 0; j < N; j++) {
+				double[] uv = cam.project(views[i], model.getX(j), model.getY(j));
+				double du = uv[0] - obs[i].getX(j);
+				double dv = uv[1] - obs[i].getY(j);
+				assertEquals(du, report.getResiduals(i)[2 * j], 1e-9);
+				assertEquals(dv, report.getResiduals(i)[2 * j + 1], 1e-9);
+				e[j] = Math.sqrt(du * du + dv * dv);
+				sqError = sqError + du * du + dv * dv;
+			}
+			Arrays.sort(e);
+			assertEquals(sqError, report.getSquaredError(i), 1e-6);
+			assertEquals(Math.sqrt(sqError / N), report.getRms(i), 1e-9);
+			assertEquals(e[N - 1], report.getMax(i), 1e-9);
+			assertEquals(e[0], report.getPercentile(i, 0), 1e-9);
+			assertEquals(e[N - 1], report.getPercentile(i, 100), 1e-9);
+			double median = (N % 2 == 1) ? e[N / 2] : 0.5 * (e[N / 2 - 1] + e[N / 2]);
+			assertEquals(median, report.getMedian(i), 1e-9);
+			total = total + sqError;
+		}
+		assertEquals(total, report.getSquaredError(), 1e-6);
+		assertEquals(total, new Calibrator(null, model).getProjectionError(cam, views, obs), 1e-6);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testShortView() {
+		PointSet model = ds.getModelPointSet();
+		PointSet[] obs = ds.getObservedPointSets().clone();
+		obs[1] = PointSet.wrap(Arrays.copyOf(obs[1].toArray(), 2 * (model.size() - 1)));
+		new Calibrator(null, model).getProjectionErrorReport(ZhangData.getCameraIntrinsics(),
+				ZhangData.getAllViewTransforms(), obs);
+	}
+
+	@Test
+	public void testCalibrationResult() {
+		// the report taken from the optimizer must match a re-projection with the final parameters
+		PointSet model = ds.getModelPointSet();
+		PointSet[] obs = ds.getObservedPointSets();
+		Calibrator calibrator = new Calibrator(null, model);
+		CalibrationResult res = calibrator.calibrate(obs);
+		ProjectionErrorReport report =
+				calibrator.getProjectionErrorReport(res.getFinalCamera(), res.getFinalViews(), obs);
+		assertArrayEquals(report.getResiduals(), res.getResiduals(), 1e-6);
+		assertArrayEquals(report.getResiduals(2), res.getResiduals(2), 1e-6);
+		assertEquals(report.getSquaredError(), res.getCost(), 1e-6);
+		assertEquals(report.getRms(), res.getRms(), 1e-9);
+	}
+
+	@Test
+	public void testFromResiduals() {
+		// 2 views with 2 points each
+		double[] r = {3, 4, 0, 1, 0, 0, 6, 8};
+		ProjectionErrorReport report = ProjectionErrorReport.fromResiduals(r, 2, 2);
+		assertEquals(5, report.getMax(0), 0);
+		assertEquals(3, report.getMedian(0), 1e-12);
+		assertEquals(Math.sqrt(50), report.getRms(1), 1e-12);
+		assertEquals(10, report.getMax(), 0);
+		assertArrayEquals(new double[] {0, 0, 6, 8}, report.getResiduals(1), 0);
+		assertArrayEquals(new int[] {2, 0, 1, 1}, report.getHistogram(4, 8));
+		assertTrue(report.getRms() > 0);
+	}
+
+}
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang;
+
+import imagingbook.calibration.zhang.data.CalibrationData;
+import imagingbook.calibration.zhang.data.ZhangData;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+import org.apache.commons.math3.linear.SingularValueDecomposition;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class RadialDistortionEstimatorTest {
+
+	private static final CalibrationData ds = ZhangData.getDataSet();
+	private static final Camera cam = new Camera(ZhangData.getCameraIntrinsics().getA(), null);	// linear camera
+	private static final ViewTransform[] views = ZhangData.getAllViewTransforms();
+
+	@Test
+	public void testAgainstSvd2() {
+		checkAgainstSvd(2);
+	}
+
+	@Test
+	public void testAgainstSvd3() {
+		checkAgainstSvd(3);
+	}
+
+	@Test
+	public void testParallel() {
+		double[] k1 = estimate(new RadialDistortionEstimator(2, false));
+		double[] k2 = estimate(new RadialDistortionEstimator(2, true));
+		assertArrayEquals(k1, k2, 1e-12);
+	}
+
+	@Test
+	public void testTrueCoefficients() {
+		// the ground-truth distortion of Zhang's data set is recovered approximately
+		double[] kExp = ZhangData.getCameraIntrinsics().getK();
+		double[] k = estimate(new RadialDistortionEstimator());
+		assertEquals(kExp[0], k[0], 0.05 * Math.abs(kExp[0]));
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	private static double[] estimate(RadialDistortionEstimator rde) {
+		return rde.estimateLensDistortion(cam, views, ds.getModelPointSet(), ds.getObservedPointSets());
+	}
+
+	// builds the full 2MN x K system and solves it by SVD
+	private static void checkAgainstSvd(int K) {
+		PointSet modelPts = ds.getModelPointSet();
+		PointSet[] obsPts = ds.getObservedPointSets();
+		final int M = views.length;
+		final int N = modelPts.size();
+		RealMatrix D = MatrixUtils.createRealMatrix(2 * M * N, K);
+		RealVector d = new ArrayRealVector(2 * M * N);
+		int l = 0;
+		for (int i = 0; i < M; i++) {
+			for (int j = 0; j < N; j++) {
+				double[] xy = cam.projectNormalized(views[i], modelPts.getX(j), modelPts.getY(j));
+				double r2 = xy[0] * xy[0] + xy[1] * xy[1];
+				double[] uv = cam.project(views[i], modelPts.getX(j), modelPts.getY(j));
+				double rp = r2;
+				for (int k = 0; k < K; k++) {
+					D.setEntry(2 * l, k, (uv[0] - cam.getUc()) * rp);
+					D.setEntry(2 * l + 1, k, (uv[1] - cam.getVc()) * rp);
+					rp = rp * r2;
+				}
+				d.setEntry(2 * l, obsPts[i].getX(j) - uv[0]);
+				d.setEntry(2 * l + 1, obsPts[i].getY(j) - uv[1]);
+				l++;
+			}
+		}
+		double[] kExp = new SingularValueDecomposition(D).getSolver().solve(d).toArray();
+		double[] k = estimate(new RadialDistortionEstimator(K, false));
+		for (int i = 0; i < K; i++) {
+			assertEquals(kExp[i], k[i], 1e-6 * Math.max(1, Math.abs(kExp[i])));
+		}
+	}
+
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang;
+
+import imagingbook.calibration.zhang.data.CalibrationData;
+import imagingbook.calibration.zhang.data.ZhangData;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RigCalibratorTest {
+
+	private static final CalibrationData ds = ZhangData.getDataSet();
+	private static final PointSet model = ds.getModelPointSet();
+
+	// a stereo rig: camera 1 is shifted by 3 inches and slightly rotated relative to camera 0
+	private static final Camera cam0 = ZhangData.getCameraIntrinsics();
+	private static final Camera cam1 = new Camera(845, 840, 0, 310, 200, -0.2, 0.15);
+	private static final ViewTransform E1 = new ViewTransform(0.01, -0.05, 0.02, -3, 0.2, 0.1);
+
+	@Test
+	public void testSyntheticRig() {
+		ViewTransform[] poses = ZhangData.getAllViewTransforms();
+		PointSet[][] obs = makeObservations(poses, 0, new Random(17));
+		RigCalibrationResult res = new RigCalibrator(null, model).calibrate(obs);
+		assertEquals(NonlinearOptimizer.Status.Converged, res.getStatus());
+		assertEquals(0, res.getRms(), 1e-6);
+		assertArrayEquals(cam0.getParameterVector(), res.getCamera(0).getParameterVector(), 1e-4);
+		assertArrayEquals(cam1.getParameterVector(), res.getCamera(1).getParameterVector(), 1e-4);
+		assertArrayEquals(E1.getParameters(), res.getExtrinsics(1).getParameters(), 1e-7);
+		for (int i = 0; i < poses.length; i++) {
+			assertArrayEquals(poses[i].getParameters(), res.getPose(i).getParameters(), 1e-7);
+		}
+	}
+
+	@Test
+	public void testNoisyRigWithMissingViews() {
+		ViewTransform[] poses = ZhangData.getAllViewTransforms();
+		PointSet[][] obs = makeObservations(poses, 0.2, new Random(17));
+		obs[1][0] = null;	// camera 1 did not see the target in capture 0
+		RigCalibrationResult res = new RigCalibrator(null, model).calibrate(obs);
+		assertEquals(NonlinearOptimizer.Status.Converged, res.getStatus());
+		assertEquals(4, res.getErrorReport(1).getNumberOfViews());
+		// the rms error of the joint solution must be close to the noise level
+		assertTrue(res.getRms() < 0.3);
+		double[] e = E1.getParameters();
+		double[] ee = res.getExtrinsics(1).getParameters();
+		for (int k = 0; k < 3; k++) {
+			assertEquals(e[k], ee[k], 1e-3);
+			assertEquals(e[3 + k], ee[3 + k], 0.05);
+		}
+		// the views seen by camera 1 are the composition of the pose and the extrinsics
+		ViewTransform v = res.getView(1, 2);
+		assertArrayEquals(RigCalibrator.compose(res.getExtrinsics(1), res.getPose(2)).getParameters(),
+				v.getParameters(), 1e-12);
+	}
+
+	@Test
+	public void testComposeInvert() {
+		ViewTransform T = ZhangData.getAllViewTransforms()[3];
+		ViewTransform I = RigCalibrator.compose(RigCalibrator.invert(T), T);
+		assertArrayEquals(new double[] {0, 0, 0}, I.getTranslation(), 1e-9);
+		assertEquals(0, I.getRotation().getAngle(), 1e-9);
+		// projecting through E1 . T must be the same as transforming by T first
+		double[] X = new double[3];
+		T.getRotation().applyTo(new double[] {1, 2, 0}, X);
+		for (int k = 0; k < 3; k++) {
+			X[k] = X[k] + T.getTranslation()[k];
+		}
+		assertArrayEquals(cam1.project(E1, X), cam1.project(RigCalibrator.compose(E1, T), 1.0, 2.0), 1e-9);
+	}
+
+	private static PointSet[][] makeObservations(ViewTransform[] poses, double sigma, Random rnd) {
+		final int M = poses.length;
+		PointSet[][] obs = new PointSet[2][M];
+		for (int i = 0; i < M; i++) {
+			obs[0][i] = addNoise(cam0.project(poses[i], model), sigma, rnd);
+			obs[1][i] = addNoise(cam1.project(RigCalibrator.compose(E1, poses[i]), model), sigma, rnd);
+		}
+		return obs;
+	}
+
+	private static PointSet addNoise(PointSet pts, double sigma, Random rnd) {
+		double[] xy = pts.toArray();
+		for (int k = 0; k < xy.length; k++) {
+			xy[k] = xy[k] + sigma * rnd.nextGaussian();
+		}
+		return PointSet.wrap(xy);
+	}
+
+}
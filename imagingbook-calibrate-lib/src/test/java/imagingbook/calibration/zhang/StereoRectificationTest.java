@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang;
+
+import imagingbook.calibration.zhang.data.ZhangData;
+import imagingbook.common.geometry.basic.Pnt2d;
+import imagingbook.common.geometry.basic.Pnt2d.PntDouble;
+import org.apache.commons.math3.linear.LUDecomposition;
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StereoRectificationTest {
+
+	private static final Camera camL = ZhangData.getCameraIntrinsics();
+	private static final Camera camR = new Camera(845, 840, 0, 310, 200, -0.2, 0.15);
+	private static final ViewTransform E = new ViewTransform(0.01, -0.05, 0.02, -3, 0.2, 0.1);
+	private static final int W = 640, H = 480;
+
+	@Test
+	public void testRotations() {
+		StereoRectification sr = new StereoRectification(camL, camR, E, W, H);
+		assertEquals(3, sr.getBaseline(), 0.1);
+		for (RealMatrix R : new RealMatrix[] {sr.getLeftRotation(), sr.getRightRotation()}) {
+			assertEquals(1, new LUDecomposition(R).getDeterminant(), 1e-12);
+			RealMatrix I = R.multiply(R.transpose());
+			for (int i = 0; i < 3; i++) {
+				assertArrayEquals(MatrixUtils.createRealIdentityMatrix(3).getRow(i), I.getRow(i), 1e-12);
+			}
+		}
+	}
+
+	@Test
+	public void testEpipolarAlignment() {
+		StereoRectification sr = new StereoRectification(camL, camR, E, W, H);
+		double[][] points = {{0, 0, 20}, {-4, 3, 15}, {5, -2, 30}, {1, 1, 8}};	// in left camera coordinates
+		for (double[] X : points) {
+			double[] XR = new double[3];
+			E.getRotation().applyTo(X, XR);
+			for (int k = 0; k < 3; k++) {
+				XR[k] = XR[k] + E.getTranslation()[k];
+			}
+			double[] uvL = projectRectified(sr, sr.getLeftRotation(), X);
+			double[] uvR = projectRectified(sr, sr.getRightRotation(), XR);
+			// corresponding points are on the same row, with positive disparity
+			assertEquals(uvL[1], uvR[1], 1e-9);
+			assertTrue(uvL[0] > uvR[0]);
+			// the mappings lead back to the original (distorted) projections
+			ViewTransform I = new ViewTransform();
+			assertArrayEquals(camL.project(I, X), sr.getLeftMapping().applyTo(PntDouble.from(uvL)).toDoubleArray(), 1e-6);
+			assertArrayEquals(camR.project(I, XR), sr.getRightMapping().applyTo(PntDouble.from(uvR)).toDoubleArray(), 1e-6);
+		}
+	}
+
+	@Test
+	public void testRemapTables() {
+		StereoRectification sr = new StereoRectification(camL, camR, E, W, H);
+		StereoRectification.RemapTable table = sr.getRightTable();
+		assertEquals(W, table.getWidth());
+		assertEquals(H, table.getHeight());
+		float[] xy = new float[2 * W * H];
+		sr.getLeftTable().copyTo(xy);
+		for (int v = 0; v < H; v += 37) {
+			for (int u = 0; u < W; u += 29) {
+				Pnt2d p = PntDouble.from(u, v);
+				double[] expL = sr.getLeftMapping().applyTo(p).toDoubleArray();
+				double[] expR = sr.getRightMapping().applyTo(p).toDoubleArray();
+				assertEquals(expL[0], xy[2 * (v * W + u)], 1e-3);
+				assertEquals(expL[1], xy[2 * (v * W + u) + 1], 1e-3);
+				assertEquals(expR[0], table.getSourceX(u, v), 1e-3);
+				assertEquals(expR[1], table.getSourceY(u, v), 1e-3);
+				assertArrayEquals(expR, table.applyTo(p).toDoubleArray(), 1e-3);
+			}
+		}
+		// positions between pixels are mapped exactly
+		Pnt2d p = PntDouble.from(10.5, 20.25);
+		assertArrayEquals(sr.getRightMapping().applyTo(p).toDoubleArray(), table.applyTo(p).toDoubleArray(), 0);
+	}
+
+	private static double[] projectRectified(StereoRectification sr, RealMatrix R, double[] X) {
+		double[] P = R.operate(X);
+		Camera cam = sr.getRectifiedCamera();
+		return new double[] {cam.getAlpha() * P[0] / P[2] + cam.getUc(), cam.getBeta() * P[1] / P[2] + cam.getVc()};
+	}
+
+}
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang;
+
+import imagingbook.calibration.zhang.data.CalibrationData;
+import imagingbook.calibration.zhang.data.ZhangData;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+
+public class ViewSelectorTest {
+
+	private static final CalibrationData ds = ZhangData.getDataSet();
+
+	@Test
+	public void testSkipDuplicates() {
+		// each of the 5 views is present twice, selecting 5 views must pick every pose exactly once
+		PointSet[] obs = ds.getObservedPointSets();
+		final int M = obs.length;
+		PointSet[] obs2 = new PointSet[2 * M];
+		for (int i = 0; i < M; i++) {
+			obs2[i] = obs[i];
+			obs2[i + M] = obs[i];
+		}
+		RealMatrix[] H = new HomographyEstimator().estimateHomographies(ds.getModelPointSet(), obs2);
+		RealMatrix A = new CameraIntrinsicsEstimator().getCameraIntrinsics(H);
+		ViewTransform[] views = new ExtrinsicViewEstimator(A).getExtrinsics(H);
+
+		int[] idx = new ViewSelector(M).select(H, views, obs2);
+		assertEquals(M, idx.length);
+		boolean[] pose = new boolean[M];
+		for (int i : idx) {
+			assertFalse(pose[i % M]);
+			pose[i % M] = true;
+		}
+	}
+
+	@Test
+	public void testAll() {
+		PointSet[] obs = ds.getObservedPointSets();
+		RealMatrix[] H = new HomographyEstimator().estimateHomographies(ds.getModelPointSet(), obs);
+		int[] idx = new ViewSelector(10).select(H, ZhangData.getAllViewTransforms(), obs);
+		assertArrayEquals(new int[] {0, 1, 2, 3, 4}, idx);
+	}
+
+	@Test
+	public void testCalibrator() {
+		Calibrator.Parameters params = new Calibrator.Parameters();
+		params.maxViews = 3;
+		CalibrationResult res = new Calibrator(params, ds.getModelPointSet()).calibrate(ds.getObservedPointSets());
+		assertEquals(3, res.getNumberOfViews());
+		int[] idx = res.getViewIndices();
+		assertEquals(3, idx.length);
+		assertNotEquals(idx[0], idx[1]);
+		assertNotEquals(idx[1], idx[2]);
+		assertEquals(NonlinearOptimizer.Status.Converged, res.getStatus());
+	}
+
+}
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang.data;
+
+import imagingbook.calibration.zhang.Camera;
+import imagingbook.calibration.zhang.DistortionModel;
+import imagingbook.calibration.zhang.ViewTransform;
+import imagingbook.common.geometry.basic.Pnt2d;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class BinaryDataIOTest {
+
+	private Path path;
+
+	@Before
+	public void setUp() throws IOException {
+		path = Files.createTempFile("zcal", ".bin");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(path);
+	}
+
+	@Test
+	public void testCamera() throws IOException {
+		Camera cam = ZhangData.getCameraIntrinsics();
+		BinaryDataIO.writeCamera(path, cam);
+		Camera cam2 = BinaryDataIO.readCamera(path);
+		assertArrayEquals(cam.getParameterVector(), cam2.getParameterVector(), 0);
+	}
+
+	@Test
+	public void testCameraModel() throws IOException {
+		Camera cam = new Camera(ZhangData.getCameraIntrinsics().getA(), DistortionModel.BrownConrady,
+				new double[] {-0.2, 0.15, -0.05, 0.002, -0.001});
+		BinaryDataIO.writeCamera(path, cam);
+		Camera cam2 = BinaryDataIO.readCamera(path);
+		assertEquals(DistortionModel.BrownConrady, cam2.getDistortionModel());
+		assertArrayEquals(cam.getParameterVector(), cam2.getParameterVector(), 0);
+		// the model is stored by its fixed code, not by the enum ordinal
+		ByteBuffer bb = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+		assertEquals(1, bb.getInt(12));
+	}
+
+	@Test
+	public void testAllModels() throws IOException {
+		int[] codes = {0, 1, 2, 3};		// the fixed codes, in the declaration order of DistortionModel
+		assertEquals(codes.length, DistortionModel.values().length);
+		for (DistortionModel model : DistortionModel.values()) {
+			double[] k = new double[model.getParameterCount(2)];
+			for (int l = 0; l < k.length; l++) {
+				k[l] = 0.01 * (l + 1);
+			}
+			Camera cam = new Camera(ZhangData.getCameraIntrinsics().getA(), model, k);
+			BinaryDataIO.writeCamera(path, cam);
+			Camera cam2 = BinaryDataIO.readCamera(path);
+			assertEquals(model, cam2.getDistortionModel());
+			assertArrayEquals(cam.getParameterVector(), cam2.getParameterVector(), 0);
+			ByteBuffer bb = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+			assertEquals(model.toString(), codes[model.ordinal()], bb.getInt(12));
+		}
+	}
+
+	@Test
+	public void testViews() throws IOException {
+		ViewTransform[] views = ZhangData.getAllViewTransforms();
+		BinaryDataIO.writeViews(path, views);
+		ViewTransform[] views2 = BinaryDataIO.readViews(path);
+		assertEquals(views.length, views2.length);
+		for (int i = 0; i < views.length; i++) {
+			assertArrayEquals(views[i].getRotationAxis(), views2[i].getRotationAxis(), 1e-12);
+			assertArrayEquals(views[i].getTranslation(), views2[i].getTranslation(), 0);
+		}
+	}
+
+	@Test
+	public void testObservations() throws IOException {
+		Pnt2d[] modelPts = ZhangData.getModelPoints();
+		Pnt2d[][] obsPts = ZhangData.getAllObservedPoints();
+		BinaryDataIO.writeObservations(path, modelPts, obsPts);
+
+		Pnt2d[] modelPts2 = BinaryDataIO.readModelPoints(path);
+		assertEquals(modelPts.length, modelPts2.length);
+		for (int j = 0; j < modelPts.length; j++) {
+			assertEquals(modelPts[j].getX(), modelPts2[j].getX(), 0);
+			assertEquals(modelPts[j].getY(), modelPts2[j].getY(), 0);
+		}
+
+		DoubleBuffer[] views = BinaryDataIO.mapObservedPoints(path);
+		assertEquals(obsPts.length, views.length);
+		for (int i = 0; i < obsPts.length; i++) {
+			assertEquals(2 * modelPts.length, views[i].remaining());
+			for (int j = 0; j < modelPts.length; j++) {
+				assertEquals(obsPts[i][j].getX(), views[i].get(2 * j), 0);
+				assertEquals(obsPts[i][j].getY(), views[i].get(2 * j + 1), 0);
+			}
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testWrongType() throws IOException {
+		BinaryDataIO.writeCamera(path, ZhangData.getCameraIntrinsics());
+		BinaryDataIO.readViews(path);
+	}
+
+}
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang.data;
+
+import imagingbook.common.geometry.basic.Pnt2d;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CalibrationDataTest {
+
+	@Test
+	public void testZhangDataSet() {
+		CalibrationData ds = ZhangData.getDataSet();
+		assertSame(ds, ZhangData.getDataSet());
+		assertEquals(ZhangData.NumberOfViews, ds.getNumberOfViews());
+		assertEquals(256, ds.getNumberOfPoints());
+
+		DoubleBuffer model = ds.getModelData();
+		assertTrue(model.isReadOnly());
+		assertEquals(2 * ds.getNumberOfPoints(), model.remaining());
+		Pnt2d[] modelPts = ZhangData.getModelPoints();
+		for (int j = 0; j < modelPts.length; j++) {
+			assertEquals(modelPts[j].getX(), model.get(2 * j), 0);
+			assertEquals(modelPts[j].getY(), model.get(2 * j + 1), 0);
+		}
+
+		for (int i = 0; i < ds.getNumberOfViews(); i++) {
+			DoubleBuffer view = ds.getObservedData(i);
+			Pnt2d[] obsPts = ZhangData.getObservedPoints(i + 1);
+			assertEquals(2 * obsPts.length, view.remaining());
+			assertEquals(obsPts[0].getX(), view.get(0), 0);
+			assertEquals(obsPts[obsPts.length - 1].getY(), view.get(view.limit() - 1), 0);
+		}
+	}
+
+	@Test
+	public void testBinaryRoundTrip() throws IOException {
+		CalibrationData ds = ZhangData.getDataSet();
+		Path path = Files.createTempFile("zcal", ".bin");
+		try {
+			BinaryDataIO.writeObservations(path, ds.getModelPoints(), ds.getAllObservedPoints());
+			CalibrationData ds2 = CalibrationData.fromBinary(path);
+			assertEquals(ds.getNumberOfViews(), ds2.getNumberOfViews());
+			assertEquals(ds.getModelData(), ds2.getModelData());
+			for (int i = 0; i < ds.getNumberOfViews(); i++) {
+				assertEquals(ds.getObservedData(i), ds2.getObservedData(i));
+			}
+		} finally {
+			Files.deleteIfExists(path);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMismatchedViews() {
+		Pnt2d[] modelPts = ZhangData.getModelPoints();
+		CalibrationData.from(modelPts, new Pnt2d[][] {ZhangData.getObservedPoints(1), new Pnt2d[3]});
+	}
+
+}
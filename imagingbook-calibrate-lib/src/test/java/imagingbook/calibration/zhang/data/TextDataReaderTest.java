@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang.data;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TextDataReaderTest {
+
+	@Test
+	public void testNumbers() throws IOException {
+		String[] tokens = {"0", "-0.5", "+12", "3.25e2", "1E-3", "0.000123", "-7.", ".5",
+				"3.141592653589793", "2.718281828459045235360287", "1.7976931348623157e308", "4.9e-324", "123456789012345678901",
+				"-1.5e-30", "-123456789012345678901", "-4.9e-324", "-0.12345678901234567890", "-1.7976931348623157e308"};
+		double[] values = read(String.join(" \t\n", tokens));
+		assertEquals(tokens.length, values.length);
+		for (int i = 0; i < tokens.length; i++) {
+			assertEquals(tokens[i], Double.parseDouble(tokens[i]), values[i], 0);
+		}
+	}
+
+	@Test
+	public void testSkipText() throws IOException {
+		double[] values = read("Calibration results:\r\n  832.5 abc 1.5\n\n-2 end");
+		assertArrayEquals(new double[] {832.5, 1.5, -2}, values, 0);
+	}
+
+	@Test
+	public void testSeparators() throws IOException {
+		double[] values = read("k1 = -0.228601, k2 = 0.190335;3,4\n");
+		assertArrayEquals(new double[] {-0.228601, 0.190335, 3, 4}, values, 0);
+	}
+
+	@Test
+	public void testSkipMalformed() throws IOException {
+		double[] values = read("1.5 2.0x - . 1e View matrix 1:\n-. +7");
+		assertArrayEquals(new double[] {1.5, 7}, values, 0);
+	}
+
+	@Test
+	public void testResources() {
+		for (TextDataResource res : TextDataResource.values()) {
+			double[] values = TextDataReader.readAll(res);
+			switch (res) {
+			case Model_txt:
+			case Data1_txt:
+			case Data2_txt:
+			case Data3_txt:
+			case Data4_txt:
+			case Data5_txt:
+				assertEquals(res.toString(), 2 * 256, values.length);
+				break;
+			case AllCalibrationResultsEasyCalib_txt:	// 3x3 intrinsics, 2 distortion coefficients, 5 3x4 views
+				assertEquals(res.toString(), 9 + 2 + 5 * 12, values.length);
+				break;
+			default:									// 5 intrinsics, 2 distortion coefficients, 5 3x4 views
+				assertEquals(res.toString(), 5 + 2 + 5 * 12, values.length);
+				break;
+			}
+		}
+		assertEquals(256, ZhangData.getObservedPoints(ZhangData.NumberOfViews).length);
+	}
+
+	private static double[] read(String text) throws IOException {
+		try (TextDataReader reader = new TextDataReader(new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII)))) {
+			return reader.readAll();
+		}
+	}
+
+}
@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang.util;
+
+import imagingbook.calibration.zhang.Camera;
+import imagingbook.calibration.zhang.PointSet;
+import imagingbook.calibration.zhang.ViewTransform;
+import imagingbook.calibration.zhang.data.ZhangData;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ProjectionKernelTest {
+
+	@Test
+	public void testKernels() {
+		final int n = 1003;	// not a multiple of any vector length
+		Random rnd = new Random(17);
+		double[] x = new double[n];
+		double[] y = new double[n];
+		for (int i = 0; i < n; i++) {
+			x[i] = rnd.nextDouble() - 0.5;
+			y[i] = rnd.nextDouble() - 0.5;
+		}
+		Camera cam = ZhangData.getCameraIntrinsics();
+		double[] s = cam.getParameterVector();
+
+		double[] u1 = new double[n], v1 = new double[n];
+		double[] u2 = new double[n], v2 = new double[n];
+		ProjectionKernel.getScalarInstance().project(s, x, y, u1, v1, n);
+		ProjectionKernel.getInstance().project(s, x, y, u2, v2, n);
+		assertArrayEquals(u1, u2, 1e-9);
+		assertArrayEquals(v1, v2, 1e-9);
+
+		for (int i = 0; i < n; i++) {
+			double[] uv = cam.mapToSensorPlane(cam.warp(new double[] {x[i], y[i]}));
+			assertEquals(uv[0], u1[i], 1e-9);
+			assertEquals(uv[1], v1[i], 1e-9);
+		}
+	}
+
+	@Test
+	public void testCameraBatchProjection() {
+		Camera cam = ZhangData.getCameraIntrinsics();
+		ViewTransform view = ZhangData.getViewTransform(0);
+		PointSet model = ZhangData.getDataSet().getModelPointSet();
+		PointSet uv = cam.project(view, model);
+		assertEquals(model.size(), uv.size());
+		for (int j = 0; j < model.size(); j++) {
+			double[] uvj = cam.project(view, model.getX(j), model.getY(j));
+			assertEquals(uvj[0], uv.getX(j), 1e-9);
+			assertEquals(uvj[1], uv.getY(j), 1e-9);
+		}
+	}
+
+}
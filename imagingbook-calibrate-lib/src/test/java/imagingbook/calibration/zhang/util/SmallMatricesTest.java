@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Permission to use and distribute this software is granted under the BSD 2-Clause
+ * "Simplified" License (see http://opensource.org/licenses/BSD-2-Clause).
+ * Copyright (c) 2016-2023 Wilhelm Burger. All rights reserved.
+ * Visit https://imagingbook.com for additional details.
+ ******************************************************************************/
+package imagingbook.calibration.zhang.util;
+
+import org.apache.commons.math3.geometry.euclidean.threed.Rotation;
+import org.apache.commons.math3.geometry.euclidean.threed.RotationConvention;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+import org.apache.commons.math3.linear.EigenDecomposition;
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.SingularValueDecomposition;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SmallMatricesTest {
+
+    private static final Random rand = new Random(11);
+
+    @Test
+    public void testInverse3x3() {
+        double[] A = {3, 2, -1, 5, 0, 2, 4, 4, 9};
+        double[] Ai = new double[9];
+        double[] I = new double[9];
+        double[] E = new double[9];
+        assertTrue(SmallMatrices.inverse3x3(A, Ai));
+        SmallMatrices.multiply3x3(A, Ai, I);
+        SmallMatrices.identity3x3(E);
+        assertArrayEquals(E, I, 1e-12);
+        assertFalse(SmallMatrices.inverse3x3(new double[] {1, 2, 3, 2, 4, 6, 0, 0, 1}, Ai));
+    }
+
+    @Test
+    public void testCholesky3x3() {
+        double[] B = {4, 2, -2, 2, 10, 2, -2, 2, 6};
+        double[] L = new double[9];
+        double[] LLt = new double[9];
+        assertTrue(SmallMatrices.cholesky3x3(B, L));
+        double[] Lt = {L[0], L[3], L[6], L[1], L[4], L[7], L[2], L[5], L[8]};
+        SmallMatrices.multiply3x3(L, Lt, LLt);
+        assertArrayEquals(B, LLt, 1e-12);
+        assertFalse(SmallMatrices.cholesky3x3(new double[] {1, 2, 0, 2, 1, 0, 0, 0, 1}, L));
+    }
+
+    @Test
+    public void testSolveCholesky() {
+        final int n = 8;
+        double[] S = randomSymmetric(n);
+        for (int i = 0; i < n; i++) {	// make S positive definite
+            S[i * n + i] = S[i * n + i] + n;
+        }
+        double[] b = new double[n];
+        for (int i = 0; i < n; i++) {
+            b[i] = rand.nextGaussian();
+        }
+        double[] x = new double[n];
+        assertTrue(SmallMatrices.solveCholesky(S.clone(), n, b, x));
+        double[] Sx = MatrixUtils.createRealMatrix(toArray2D(S, n)).operate(x);
+        assertArrayEquals(b, Sx, 1e-9);
+        assertFalse(SmallMatrices.solveCholesky(new double[] {1, 2, 2, 1}, 2, new double[2], new double[2]));
+    }
+
+    @Test
+    public void testEigenSymmetric9x9() {
+        final int n = 9;
+        double[] S = randomSymmetric(n);
+        RealMatrix Sm = MatrixUtils.createRealMatrix(toArray2D(S, n));
+        double[] evals = new double[n];
+        double[] V = new double[n * n];
+        SmallMatrices.eigenSymmetric(S.clone(), n, evals, V);
+
+        double[] expected = new EigenDecomposition(Sm).getRealEigenvalues();
+        double[] actual = evals.clone();
+        Arrays.sort(expected);
+        Arrays.sort(actual);
+        assertArrayEquals(expected, actual, 1e-9);
+
+        double[] x = new double[n];
+        for (int k = 0; k < n; k++) {	// S . v_k = lambda_k . v_k
+            SmallMatrices.getColumn(V, n, k, x);
+            double[] Sx = Sm.operate(x);
+            for (int i = 0; i < n; i++) {
+                assertEquals(evals[k] * x[i], Sx[i], 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testSvd6() {
+        final int m = 10, n = 6;
+        double[] A = new double[m * n];
+        for (int i = 0; i < A.length; i++) {
+            A[i] = rand.nextGaussian();
+        }
+        double[] expected = new SingularValueDecomposition(MatrixUtils.createRealMatrix(toArray2D(A, n)))
+                .getSingularValues();
+        double[] w = new double[n];
+        double[] V = new double[n * n];
+        SmallMatrices.svd(A.clone(), m, n, w, V);
+        double[] actual = w.clone();
+        Arrays.sort(expected);
+        Arrays.sort(actual);
+        assertArrayEquals(expected, actual, 1e-9);
+    }
+
+    @Test
+    public void testOrthogonalize3x3() {
+        // A = R . S with a rotation R and a symmetric, positive definite S, the polar factor of A is R
+        double[][] R2 = new Rotation(new Vector3D(0.3, -0.5, 0.8), 0.7, RotationConvention.VECTOR_OPERATOR).getMatrix();
+        double[] R = {R2[0][0], R2[0][1], R2[0][2], R2[1][0], R2[1][1], R2[1][2], R2[2][0], R2[2][1], R2[2][2]};
+        double[] S = {1.2, 0.1, -0.05, 0.1, 0.9, 0.02, -0.05, 0.02, 1.1};
+        double[] A = new double[9];
+        SmallMatrices.multiply3x3(R, S, A);
+        double[] w = new double[3];
+        double[] V = new double[9];
+        assertTrue(SmallMatrices.orthogonalize3x3(A, w, V));
+        assertArrayEquals(R, A, 1e-12);
+
+        // improper input (det < 0), the result must still be a proper rotation
+        double[] B = {1, 0, 0, 0, 1, 0, 0, 0, -0.5};
+        assertTrue(SmallMatrices.orthogonalize3x3(B, w, V));
+        assertEquals(1, SmallMatrices.determinant3x3(B), 1e-12);
+
+        // rank 2, the last column is completed by the cross product of the first two
+        double[] C = {R[0], R[1], 0, R[3], R[4], 0, R[6], R[7], 0};
+        assertTrue(SmallMatrices.orthogonalize3x3(C, w, V));
+        assertArrayEquals(R, C, 1e-12);
+
+        assertFalse(SmallMatrices.orthogonalize3x3(new double[] {1, 2, 0, 2, 4, 0, 3, 6, 0}, w, V));
+    }
+
+    private static double[] randomSymmetric(int n) {
+        double[] S = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = i; j < n; j++) {
+                S[i * n + j] = S[j * n + i] = rand.nextGaussian();
+            }
+        }
+        return S;
+    }
+
+    private static double[][] toArray2D(double[] A, int n) {
+        double[][] A2 = new double[A.length / n][n];
+        for (int i = 0; i < A2.length; i++) {
+            System.arraycopy(A, i * n, A2[i], 0, n);
+        }
+        return A2;
+    }
+
+}
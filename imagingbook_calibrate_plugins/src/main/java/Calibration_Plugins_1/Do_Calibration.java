@@ -10,9 +10,11 @@ import ij.IJ;
 import ij.ImagePlus;
 import ij.gui.GenericDialog;
 import ij.plugin.PlugIn;
+import imagingbook.calibration.zhang.CalibrationResult;
 import imagingbook.calibration.zhang.Calibrator;
 import imagingbook.calibration.zhang.Calibrator.Parameters;
 import imagingbook.calibration.zhang.Camera;
+import imagingbook.calibration.zhang.ProjectionErrorReport;
 import imagingbook.calibration.zhang.ViewTransform;
 import imagingbook.calibration.zhang.data.CalibrationImage;
 import imagingbook.calibration.zhang.data.ZhangData;
@@ -27,6 +29,7 @@ import java.awt.Shape;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Path2D;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static imagingbook.common.ij.DialogUtils.formatText;
@@ -86,18 +89,16 @@ public class Do_Calibration implements PlugIn, JavaDocHelp {
 		params.debug = false;
 
 		Calibrator zcalib = new Calibrator(params, modelPoints);
-		for (int i = 0; i < M; i++) {
-			zcalib.addView(obsPoints[i]);
-		}
 
 		// Perform calibration ------------------------------------------
 
-		Camera camFinal = zcalib.calibrate();
+		CalibrationResult result = zcalib.calibrate(Arrays.copyOf(obsPoints, M));
+		Camera camFinal = result.getFinalCamera();
 		if (camFinal == null) {
 			IJ.error("Calibration failed");
 			return;
 		}
-		ViewTransform[] finalViews = zcalib.getFinalViews();
+		ViewTransform[] finalViews = result.getFinalViews();
 
 		// Show results ------------------------------------------
 
@@ -112,8 +113,12 @@ public class Do_Calibration implements PlugIn, JavaDocHelp {
 			for (int i = 0; i < M; i++) {
 				IJ.log("View " + i + ":\n" + finalViews[i].toString());
 			}
-			IJ.log(String.format("\nSquared projection error: %.3f\n",
-					zcalib.getProjectionError(camFinal, finalViews, obsPoints)));
+			ProjectionErrorReport errors = result.getErrorReport();	// from the optimizer's final residuals
+			for (int i = 0; i < M; i++) {
+				IJ.log(String.format("View %d: RMS error = %.3f, median = %.3f, max = %.3f", i,
+						errors.getRms(i), errors.getMedian(i), errors.getMax(i)));
+			}
+			IJ.log(String.format("\nSquared projection error: %.3f\n", errors.getSquaredError()));
 		}
 
 		ShapeOverlayAdapter ola = new ShapeOverlayAdapter();